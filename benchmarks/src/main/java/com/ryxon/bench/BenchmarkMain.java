@@ -0,0 +1,37 @@
+package com.ryxon.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the JMH benchmarks and always writes a JSON result file named after the
+ * benchmarked RyxoNET version, e.g. {@code results/ryxonet-1.1.2.json}, so runs
+ * of different releases can be compared side by side. All regular JMH command
+ * line options are accepted; an explicit {@code -rff} wins.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {}  // Prevent instantiation
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+
+        String version = BenchmarkMain.class.getPackage().getImplementationVersion();
+        File output = new File("results", "ryxonet-" + (version == null ? "dev" : version) + ".json");
+        if (output.getParentFile() != null) output.getParentFile().mkdirs();
+
+        Options options = new OptionsBuilder()
+                .parent(cli)
+                .resultFormat(ResultFormatType.JSON)
+                .result(cli.getResult().orElse(output.getPath()))
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.ryxon.bench;
+
+import com.ryxon.blocklist.BlocklistManager;
+import com.ryxon.blocklist.RangeFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in a memory-mapped external blocklist, loaded through the real
+ * {@link BlocklistManager} from a generated list file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlocklistBenchmark {
+
+    private static final int QUERIES = 1 << 12;
+
+    @Param({"10000", "1000000"})
+    public int entries;
+
+    private Path directory;
+    private BlocklistManager manager;
+    private RangeFile list;
+    private final int[] queries = new int[QUERIES];
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        SplittableRandom random = new SplittableRandom(42);
+        directory = Files.createTempDirectory("ryxonet-blocklist");
+        int[] inserted = new int[entries];
+        try (BufferedWriter out = Files.newBufferedWriter(directory.resolve("generated.netset"))) {
+            for (int i = 0; i < entries; i++) {
+                int address = random.nextInt();
+                inserted[i] = address;
+                out.write((address >>> 24) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "."
+                        + (address & 0xFF) + ((i & 1) == 0 ? "/24\n" : "\n"));
+            }
+        }
+
+        manager = new BlocklistManager(Stubs.silentLogger());
+        manager.configure(true, directory, 100);
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (manager.getLists().isEmpty()) {
+            if (System.nanoTime() > deadline) throw new IllegalStateException("Blocklist was not loaded");
+            Thread.sleep(10);
+        }
+        list = manager.getLists().get(0);
+
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = (i & 1) == 0 ? inserted[random.nextInt(entries)] : random.nextInt();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Benchmark
+    public boolean lookupIPv4() {
+        return list.containsV4(queries[cursor++ & (QUERIES - 1)]);
+    }
+}
@@ -0,0 +1,99 @@
+package com.ryxon.bench;
+
+import com.ryxon.geo.GeoIpManager;
+import com.ryxon.geo.GeoRules;
+import com.ryxon.geo.MmdbWriter;
+import com.ryxon.util.IpAddress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Country and ASN lookups in a generated MaxMind DB, loaded through the real
+ * {@link GeoIpManager}, and the full geo filter decision. Run with
+ * {@code -prof gc} to confirm lookups allocate nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoIpBenchmark {
+
+    private static final int QUERIES = 1 << 12;
+
+    @Param({"10000", "500000"})
+    public int networks;
+
+    private Path directory;
+    private GeoIpManager manager;
+    private GeoRules rules;
+    private final IpAddress[] queries = new IpAddress[QUERIES];
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException, InterruptedException {
+        directory = Files.createTempDirectory("ryxonet-geoip");
+        MmdbWriter.random(networks, 42, 28).write(directory.resolve("test.mmdb"));
+
+        manager = new GeoIpManager(Stubs.silentLogger());
+        manager.configure(true, directory, "test.mmdb", "test.mmdb", 100);
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+        while (manager.getCountryDatabase() == null) {
+            if (System.nanoTime() > deadline) throw new IllegalStateException("GeoIP database was not loaded");
+            Thread.sleep(10);
+        }
+
+        List<String> allowed = new ArrayList<>();
+        for (int i = 0; i < 30; i++) allowed.add(MmdbWriter.countryCode(i));
+        rules = GeoRules.compile(allowed, List.of(), List.of("AS17"), List.of("AS1", "AS2", "AS3"), true, invalid -> {});
+
+        // Half the queries land in a generated network, half most likely in none
+        SplittableRandom networksAgain = new SplittableRandom(42);
+        int[] inserted = new int[networks];
+        for (int i = 0; i < networks; i++) {
+            networksAgain.nextInt(250);
+            inserted[i] = networksAgain.nextInt() & 0xFFFFFF00;
+            networksAgain.nextInt(5000);
+        }
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < QUERIES; i++) {
+            int address = (i & 1) == 0 ? inserted[random.nextInt(networks)] | random.nextInt(256) : random.nextInt();
+            queries[i] = IpAddress.ofIPv4(address);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Benchmark
+    public int country() {
+        return manager.country(queries[cursor++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public boolean filter() {
+        IpAddress address = queries[cursor++ & (QUERIES - 1)];
+        return rules.allows(manager.country(address), manager.asn(address));
+    }
+}
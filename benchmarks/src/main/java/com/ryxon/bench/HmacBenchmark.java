@@ -0,0 +1,75 @@
+package com.ryxon.bench;
+
+import com.ryxon.config.ProxySettings;
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.proxy.ForwardingToken;
+import com.ryxon.proxy.ProxyVerifier;
+import com.ryxon.util.SecurityUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HMAC generation and proxy token verification, uncached and through the session cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HmacBenchmark {
+
+    private static final String SECRET = "benchmark-secret-0123456789abcdef";
+
+    private final UUID uuid = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+    private final String name = "Notch";
+    private final String ip = "203.0.113.7";
+    private String data;
+    private String signature;
+    private String token;
+    private SecurityPolicy policy;
+    private ProxyVerifier verifier;
+
+    @Setup
+    public void setup() {
+        data = uuid + "\n" + name + "\n" + ip;
+        signature = SecurityUtil.generateHmac(data, SECRET);
+        token = ForwardingToken.issue(SECRET, uuid, name, ip, System.currentTimeMillis() / 1000L);
+        policy = SecurityPolicy.builder().proxy(new ProxySettings(true, SECRET, 600, 10_000)).build(warning -> {});
+        verifier = new ProxyVerifier(10_000);
+        verifier.verify(policy, token, uuid, name, ip);
+    }
+
+    @Benchmark
+    public String generateHmac() {
+        return SecurityUtil.generateHmac(data, SECRET);
+    }
+
+    @Benchmark
+    public boolean verifyHmac() {
+        return SecurityUtil.verifyHmac(data, SECRET, signature);
+    }
+
+    @Benchmark
+    public boolean verifyTokenSignature() {
+        return ForwardingToken.verifySignature(token, SECRET, uuid, name, ip);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ProxyVerifier.Result verifyTokenCachedSession() {
+        return verifier.verify(policy, token, uuid, name, ip);
+    }
+}
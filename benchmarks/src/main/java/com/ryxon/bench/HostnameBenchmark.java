@@ -0,0 +1,65 @@
+package com.ryxon.bench;
+
+import com.ryxon.index.HostnameTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allowed-hostname matching against large partner/network domain lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HostnameBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int allowed;
+
+    private HostnameTrie trie;
+    private String exactHit;
+    private String subdomainHit;
+    private String miss;
+
+    @Setup
+    public void setup() {
+        List<String> hosts = new ArrayList<>(allowed);
+        for (int i = 0; i < allowed; i++) {
+            hosts.add((i & 1) == 0 ? "*.partner" + i + ".example.net" : "play.network" + i + ".com");
+        }
+        trie = HostnameTrie.compile(hosts, invalid -> {});
+        exactHit = "play.network" + (allowed - 1) + ".com";
+        subdomainHit = "eu-1.mc.partner0.example.net";
+        miss = "eu-1.mc.unknown-network.example.org";
+    }
+
+    @Benchmark
+    public boolean matchExact() {
+        return trie.matches(exactHit);
+    }
+
+    @Benchmark
+    public boolean matchSubdomain() {
+        return trie.matches(subdomainHit);
+    }
+
+    @Benchmark
+    public boolean matchMiss() {
+        return trie.matches(miss);
+    }
+}
@@ -0,0 +1,81 @@
+package com.ryxon.bench;
+
+import com.ryxon.util.IpAddress;
+import com.ryxon.util.IpUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Address parsing and normalization. Only literals are used, so no benchmark
+ * here ever reaches the system resolver.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IpUtilBenchmark {
+
+    public String ipv4 = "203.0.113.254";
+    public String ipv6 = "2001:db8:85a3::8a2e:370:7334";
+    public String mapped = "::ffff:203.0.113.254";
+    public String invalid = "203.0.113.256";
+    private final long[] parsed = new long[2];
+
+    @Benchmark
+    public boolean isValidIPv4() {
+        return IpUtil.isValidIPv4(ipv4);
+    }
+
+    @Benchmark
+    public boolean isValidIPv4Invalid() {
+        return IpUtil.isValidIPv4(invalid);
+    }
+
+    @Benchmark
+    public InetAddress parseLiteralIPv4() {
+        return IpUtil.parseLiteral(ipv4);
+    }
+
+    @Benchmark
+    public InetAddress parseLiteralIPv6() {
+        return IpUtil.parseLiteral(ipv6);
+    }
+
+    @Benchmark
+    public String normalizeIPv6() {
+        return IpUtil.normalizeIp(ipv6);
+    }
+
+    @Benchmark
+    public boolean equalsMapped() {
+        return IpUtil.equalsIp(ipv4, mapped);
+    }
+
+    @Benchmark
+    public long parseIPv6Bits() {
+        IpAddress.parse(ipv6, 0, ipv6.length(), parsed);
+        return parsed[0] ^ parsed[1];
+    }
+
+    @Benchmark
+    public IpAddress parseIpAddressIPv6() {
+        return IpAddress.parse(ipv6);
+    }
+
+    @Benchmark
+    public String formatIPv6() {
+        return IpAddress.parse(ipv6).toString();
+    }
+}
@@ -0,0 +1,451 @@
+package com.ryxon.bench;
+
+import com.destroystokyo.paper.profile.PlayerProfile;
+import com.destroystokyo.paper.profile.ProfileProperty;
+import com.ryxon.attack.AttackMode;
+import com.ryxon.audit.AuditJournal;
+import com.ryxon.ban.TempBanManager;
+import com.ryxon.blocklist.BlocklistManager;
+import com.ryxon.cache.VerdictCache;
+import com.ryxon.check.CheckType;
+import com.ryxon.config.ConfigManager;
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.dns.ReverseDnsResolver;
+import com.ryxon.engine.LoginEngine;
+import com.ryxon.geo.GeoIpManager;
+import com.ryxon.guard.CheckGuards;
+import com.ryxon.listener.PreLoginListener;
+import com.ryxon.logging.ConnectionLogger;
+import com.ryxon.metrics.LatencyHistogram;
+import com.ryxon.metrics.Metrics;
+import com.ryxon.proxy.ForwardingToken;
+import com.ryxon.proxy.ProxyVerifier;
+import com.ryxon.shared.SharedStateSync;
+import com.ryxon.util.IpAddress;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Fires a login flood at the real {@link PreLoginListener} and {@link ConfigManager}
+ * on a stubbed server and reports what the JMH benchmarks cannot: throughput,
+ * latency percentiles under contention, allocation rate and heap growth.
+ * <p>
+ * Joins arrive open-loop (Poisson, at {@code --joins / --seconds} per second) and
+ * are decided on a pool of {@code --threads} threads standing in for the server's
+ * async pre-login pool. The traffic is a mix of four kinds of client:
+ * <ul>
+ *     <li>{@code good}: returning players behind the proxy with a valid token and a resolvable hostname</li>
+ *     <li>{@code whitelisted}: joins from whitelisted proxy addresses</li>
+ *     <li>{@code spoofed}: random addresses without a token and without reverse DNS</li>
+ *     <li>{@code offender}: a few addresses retrying with forged tokens, until they are banned</li>
+ * </ul>
+ * Reverse DNS goes to a local stub whose latency is set with {@code --dns-latency-ms}
+ * and {@code --dns-jitter-ms}, so a slow resolver can be simulated. Run with e.g.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.ryxon.bench.LoadSimulator --joins 5000 --seconds 10 \
+ *     --mix good=50,whitelisted=10,spoofed=35,offender=5 --dns-latency-ms 40
+ * </pre>
+ */
+public final class LoadSimulator {
+
+    private static final String SECRET = "load-simulator-secret-0123456789";
+    private static final String[] KINDS = {"good", "whitelisted", "spoofed", "offender"};
+    private static final int GOOD = 0, WHITELISTED = 1, SPOOFED = 2, OFFENDER = 3;
+
+    private final Map<String, String> options;
+    private final int joins;
+    private final double seconds;
+    private final int threads;
+    private final double[] mix = new double[KINDS.length];
+    private final long dnsLatencyNanos;
+    private final long dnsJitterNanos;
+
+    // Address pools
+    private final int[] players;
+    private final int[] proxies;
+    private final int[] offenders;
+
+    private final LongAdder dnsLookups = new LongAdder();
+    private final LatencyHistogram decisionLatency = new LatencyHistogram();
+    private final LatencyHistogram endToEndLatency = new LatencyHistogram();
+    private final LatencyHistogram[] kindLatency = new LatencyHistogram[KINDS.length];
+    private final LongAdder decisionAllocated = new LongAdder();
+
+    private LoadSimulator(Map<String, String> options) {
+        this.options = options;
+        this.joins = Integer.parseInt(options.getOrDefault("joins", "5000"));
+        this.seconds = Double.parseDouble(options.getOrDefault("seconds", "10"));
+        this.threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        this.dnsLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(options.getOrDefault("dns-latency-ms", "20")));
+        this.dnsJitterNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(options.getOrDefault("dns-jitter-ms", "20")));
+        parseMix(options.getOrDefault("mix", "good=50,whitelisted=10,spoofed=35,offender=5"));
+        for (int i = 0; i < kindLatency.length; i++) kindLatency[i] = new LatencyHistogram();
+
+        SplittableRandom random = new SplittableRandom(42);
+        this.players = new int[Integer.parseInt(options.getOrDefault("players", "20000"))];
+        // Public ranges only, so no address is mistaken for a local one
+        for (int i = 0; i < players.length; i++) players[i] = 0x51000000 | random.nextInt(0x00FFFFFF);
+        this.proxies = new int[]{0x0A000001, 0x0A000002, 0x0A000003, 0x0A000004};
+        this.offenders = new int[Integer.parseInt(options.getOrDefault("offenders", "50"))];
+        for (int i = 0; i < offenders.length; i++) offenders[i] = 0xC6336400 | random.nextInt(0x3FF);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                System.err.println("Usage: LoadSimulator [--joins N] [--seconds S] [--threads T] [--mix good=50,whitelisted=10,"
+                        + "spoofed=35,offender=5] [--dns-latency-ms MS] [--dns-jitter-ms MS] [--dns-threads N] "
+                        + "[--players N] [--offenders N] [--warmup-joins N] [--verdict-cache true|false] "
+                        + "[--attack-mode true|false] [--virtual-threads true|false] [--shared-state none|local]");
+                System.exit(2);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        new LoadSimulator(options).run();
+    }
+
+    private void parseMix(String spec) {
+        double total = 0;
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split("=");
+            int kind = indexOf(pair[0].trim());
+            if (kind < 0 || pair.length != 2) throw new IllegalArgumentException("Unknown mix entry: " + part);
+            mix[kind] = Double.parseDouble(pair[1]);
+            total += mix[kind];
+        }
+        for (int i = 0; i < mix.length; i++) mix[i] /= total;
+    }
+
+    private static int indexOf(String kind) {
+        for (int i = 0; i < KINDS.length; i++) {
+            if (KINDS[i].equals(kind)) return i;
+        }
+        return -1;
+    }
+
+    // ────────────────────────────────────────────────
+    // Setup
+    // ────────────────────────────────────────────────
+
+    private String yaml() {
+        return String.join("\n",
+                "security-mode: CUSTOM",
+                "security-rule: 'whitelist OR (proxy AND hostname)'",
+                "whitelist:",
+                "  enabled: true",
+                "  ips: ['10.0.0.0/24']",
+                "proxy-protection:",
+                "  enabled: true",
+                "  passphrase: '" + SECRET + "'",
+                "hostname:",
+                "  enabled: true",
+                "  use-reverse-dns: true",
+                "  server-public-ip: '198.51.100.10'",
+                "  allowed-hostnames: ['*.isp.example.net']",
+                "  reverse-dns:",
+                "    timeout-millis: " + options.getOrDefault("dns-timeout-ms", "1500"),
+                "    threads: " + options.getOrDefault("dns-threads", "4"),
+                "temp-bans:",
+                "  enabled: true",
+                "attack-mode:",
+                "  enabled: " + options.getOrDefault("attack-mode", "false"),
+                "check-guards:",
+                "  enabled: true",
+                "verdict-cache:",
+                "  enabled: " + options.getOrDefault("verdict-cache", "true"),
+                "shared-state:",
+                "  type: " + options.getOrDefault("shared-state", "none"),
+                "logging:",
+                "  log-blocked-connections: false",
+                "");
+    }
+
+    /**
+     * The stand-in resolver: good players have a PTR record under the allowed domain, nobody else has one.
+     */
+    private Optional<String> stubLookup(IpAddress address) {
+        dnsLookups.increment();
+        long delay = dnsLatencyNanos + (dnsJitterNanos > 0 ? ThreadLocalRandom.current().nextLong(dnsJitterNanos) : 0);
+        if (delay > 0) LockSupport.parkNanos(delay);
+        int v4 = (int) address.getLow();
+        return (v4 & 0xFF000000) == 0x51000000
+                ? Optional.of("host-" + Integer.toHexString(v4) + ".isp.example.net")
+                : Optional.empty();
+    }
+
+    private void run() throws Exception {
+        Logger logger = Stubs.silentLogger();
+        ConfigManager configManager = new ConfigManager(Stubs.plugin(yaml(), logger));
+        configManager.load();
+        SecurityPolicy policy = configManager.getPolicy();
+
+        Metrics metrics = new Metrics();
+        boolean virtualThreads = Boolean.parseBoolean(options.getOrDefault("virtual-threads", "true"));
+        ReverseDnsResolver resolver = new ReverseDnsResolver(logger, policy.getDns().threads(), policy.getDns().cacheSize(),
+                policy.getDns().positiveTtlSeconds() * 1000L, policy.getDns().negativeTtlSeconds() * 1000L, virtualThreads,
+                metrics.stage(Metrics.Stage.DNS_LOOKUP), this::stubLookup);
+        CheckGuards guards = new CheckGuards(logger);
+        guards.configure(policy);
+        AttackMode attackMode = new AttackMode(logger);
+        attackMode.configure(policy);
+        TempBanManager tempBans = new TempBanManager();
+        tempBans.configure(policy);
+        VerdictCache verdictCache = new VerdictCache(policy.getVerdictCache().size());
+        // "local" publishes every ban and verdict to an in-process hub, which puts the cost of sharing on the hot path
+        SharedStateSync sharedState = new SharedStateSync(logger, tempBans, verdictCache, attackMode);
+        sharedState.configure(policy);
+        ConnectionLogger connectionLogger = new ConnectionLogger(logger, policy.getLogging().bufferSize());
+        AuditJournal journal = new AuditJournal(logger, policy.getAudit().bufferSize());
+        Path journalDir = Files.createTempDirectory("ryxonet-load");
+        journal.configure(Boolean.parseBoolean(options.getOrDefault("audit", "false")), journalDir,
+                policy.getAudit().segmentRecords(), policy.getAudit().maxSegments());
+        PreLoginListener listener = new PreLoginListener(configManager, new LoginEngine(new BlocklistManager(logger),
+                new GeoIpManager(logger), verdictCache, resolver, new ProxyVerifier(policy.getProxy().sessionCacheSize()), guards,
+                attackMode, tempBans, sharedState, journal, connectionLogger, metrics));
+
+        ScheduledExecutorService housekeeping = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "load-housekeeping");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeping.scheduleAtFixedRate(tempBans::expire, 1, 1, TimeUnit.SECONDS);
+
+        AtomicInteger workerIds = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads,
+                r -> new Thread(r, "load-worker-" + workerIds.incrementAndGet()));
+
+        int warmup = Integer.parseInt(options.getOrDefault("warmup-joins", String.valueOf(Math.min(joins, 20000))));
+        System.out.printf(Locale.ROOT, "Warming up with %d joins...%n", warmup);
+        fire(listener, workers, warmup, 0, false);
+        // Start the measured run with the caches and bans the warm-up left, as a live server would have
+        long[] blockedBefore = new long[CheckType.values().length];
+        for (CheckType type : CheckType.values()) blockedBefore[type.ordinal()] = metrics.getBlocked(type);
+        long allowedBefore = metrics.getAllowed();
+        long lookupsBefore = dnsLookups.sum();
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        settle();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        long allocatedBefore = totalAllocated(threadBean);
+        long gcCountBefore = gcCount(), gcTimeBefore = gcTime();
+
+        System.out.printf(Locale.ROOT, "Firing %d joins over %.1fs on %d threads...%n", joins, seconds, threads);
+        long start = System.nanoTime();
+        fire(listener, workers, joins, seconds, true);
+        long elapsed = System.nanoTime() - start;
+
+        long allocated = totalAllocated(threadBean) - allocatedBefore;
+        long gcCount = gcCount() - gcCountBefore, gcTime = gcTime() - gcTimeBefore;
+        settle();
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+
+        report(metrics, guards, blockedBefore, allowedBefore, dnsLookups.sum() - lookupsBefore, elapsed, allocated,
+                heapAfter - heapBefore, gcCount, gcTime);
+        if (sharedState.isEnabled()) {
+            System.out.printf(Locale.ROOT, "  shared state %s: %d updates published, %d dropped%n", sharedState.describe(),
+                    sharedState.getPublished(), sharedState.getDropped());
+        }
+
+        workers.shutdown();
+        housekeeping.shutdown();
+        sharedState.close();
+        resolver.close();
+        connectionLogger.close();
+        journal.close();
+    }
+
+    /**
+     * Schedules {@code count} joins with exponential gaps averaging {@code seconds / count},
+     * or back to back if {@code seconds} is 0, and waits until all are decided.
+     */
+    private void fire(PreLoginListener listener, ExecutorService workers, int count, double seconds, boolean record)
+            throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(count);
+        SplittableRandom random = new SplittableRandom(record ? 7 : 3);
+        double meanGapNanos = seconds * 1e9 / count;
+        long next = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            if (meanGapNanos > 0) {
+                next += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+                long wait = next - System.nanoTime();
+                if (wait > 0) LockSupport.parkNanos(wait);
+            }
+            int kind = pickKind(random.nextDouble());
+            long seed = random.nextLong();
+            long arrival = meanGapNanos > 0 ? next : System.nanoTime();
+            workers.execute(() -> {
+                try {
+                    decide(listener, kind, seed, arrival, record);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private int pickKind(double roll) {
+        double cumulative = 0;
+        for (int i = 0; i < mix.length; i++) {
+            cumulative += mix[i];
+            if (roll < cumulative) return i;
+        }
+        return mix.length - 1;
+    }
+
+    private void decide(PreLoginListener listener, int kind, long seed, long arrival, boolean record) {
+        AsyncPlayerPreLoginEvent event = event(kind, new SplittableRandom(seed));
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = record ? threadBean.getCurrentThreadAllocatedBytes() : 0;
+        long start = System.nanoTime();
+        listener.onPlayerPreLogin(event);
+        long end = System.nanoTime();
+        if (!record) return;
+        decisionAllocated.add(threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore);
+        decisionLatency.record(end - start);
+        kindLatency[kind].record(end - start);
+        endToEndLatency.record(end - arrival);
+    }
+
+    private AsyncPlayerPreLoginEvent event(int kind, SplittableRandom random) {
+        int address;
+        String name;
+        String token = null;
+        switch (kind) {
+            case GOOD: {
+                int player = random.nextInt(players.length);
+                address = players[player];
+                name = "Player" + player;
+                break;
+            }
+            case WHITELISTED:
+                address = proxies[random.nextInt(proxies.length)];
+                name = "Proxied" + random.nextInt(10000);
+                break;
+            case OFFENDER:
+                address = offenders[random.nextInt(offenders.length)];
+                name = "Offender" + random.nextInt(offenders.length);
+                token = "1700000000.forged";
+                break;
+            default:
+                address = random.nextInt() | 0x01000000;
+                name = "Bot" + Integer.toHexString(random.nextInt());
+                break;
+        }
+        UUID uuid = UUID.nameUUIDFromBytes(name.getBytes());
+        InetAddress inet = inet(address);
+        if (kind == GOOD) {
+            token = ForwardingToken.issue(SECRET, uuid, name, inet.getHostAddress(), System.currentTimeMillis() / 1000);
+        }
+        PlayerProfile profile = token == null ? Stubs.profile(uuid, name)
+                : Stubs.profile(uuid, name, new ProfileProperty(ForwardingToken.PROPERTY_NAME, token));
+        return new AsyncPlayerPreLoginEvent(name, inet, inet, uuid, false, profile, "play.example.com:25565");
+    }
+
+    private static InetAddress inet(int address) {
+        try {
+            return InetAddress.getByAddress(new byte[]{(byte) (address >>> 24), (byte) (address >>> 16),
+                    (byte) (address >>> 8), (byte) address});
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // ────────────────────────────────────────────────
+    // Measurement
+    // ────────────────────────────────────────────────
+
+    private static long totalAllocated(com.sun.management.ThreadMXBean threadBean) {
+        long total = 0;
+        for (long bytes : threadBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) total += Math.max(0, gc.getCollectionCount());
+        return total;
+    }
+
+    private static long gcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) total += Math.max(0, gc.getCollectionTime());
+        return total;
+    }
+
+    private static void settle() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+    }
+
+    private void report(Metrics metrics, CheckGuards guards, long[] blockedBefore, long allowedBefore, long lookups,
+                        long elapsedNanos, long allocated, long heapGrowth, long gcCount, long gcTimeMillis) {
+        double elapsedSeconds = elapsedNanos / 1e9;
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Decided %d joins in %.2fs: %.0f joins/s (offered %.0f/s)%n",
+                joins, elapsedSeconds, joins / elapsedSeconds, joins / seconds);
+        System.out.printf(Locale.ROOT, "  allowed %d", metrics.getAllowed() - allowedBefore);
+        for (CheckType type : CheckType.values()) {
+            long blocked = metrics.getBlocked(type) - blockedBefore[type.ordinal()];
+            if (blocked > 0) System.out.printf(Locale.ROOT, ", %s %d", type.name().toLowerCase(Locale.ROOT), blocked);
+        }
+        System.out.println();
+        System.out.printf(Locale.ROOT, "  reverse DNS lookups %d, breaker trips: hostname %d, proxy %d%n", lookups,
+                guards.getTrips(CheckType.HOSTNAME), guards.getTrips(CheckType.PROXY));
+
+        System.out.println();
+        System.out.println("Latency            p50        p99       p999        max");
+        row("decision", decisionLatency);
+        row("end to end", endToEndLatency);
+        for (int i = 0; i < KINDS.length; i++) {
+            if (kindLatency[i].getCount() > 0) row("  " + KINDS[i], kindLatency[i]);
+        }
+
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Allocation: %.1f MB/s overall, %d bytes per decision on the login thread%n",
+                allocated / 1e6 / elapsedSeconds, decisionAllocated.sum() / Math.max(1, joins));
+        System.out.printf(Locale.ROOT, "Heap growth after GC: %+.1f MB; %d collections, %d ms%n",
+                heapGrowth / 1e6, gcCount, gcTimeMillis);
+    }
+
+    private static void row(String label, LatencyHistogram histogram) {
+        System.out.printf(Locale.ROOT, "%-12s %10s %10s %10s %10s%n", label,
+                duration(histogram.percentileNanos(0.50)), duration(histogram.percentileNanos(0.99)),
+                duration(histogram.percentileNanos(0.999)), duration(histogram.getMaxNanos()));
+    }
+
+    private static String duration(long nanos) {
+        if (nanos < 10_000) return nanos + "ns";
+        if (nanos < 10_000_000) return String.format(Locale.ROOT, "%.1fµs", nanos / 1e3);
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1e6);
+    }
+}
@@ -0,0 +1,135 @@
+package com.ryxon.bench;
+
+import com.destroystokyo.paper.profile.PlayerProfile;
+import com.ryxon.attack.AttackMode;
+import com.ryxon.audit.AuditJournal;
+import com.ryxon.ban.TempBanManager;
+import com.ryxon.blocklist.BlocklistManager;
+import com.ryxon.cache.VerdictCache;
+import com.ryxon.config.ConfigManager;
+import com.ryxon.dns.ReverseDnsResolver;
+import com.ryxon.engine.LoginEngine;
+import com.ryxon.geo.GeoIpManager;
+import com.ryxon.guard.CheckGuards;
+import com.ryxon.listener.PreLoginListener;
+import com.ryxon.logging.ConnectionLogger;
+import com.ryxon.metrics.Metrics;
+import com.ryxon.proxy.ProxyVerifier;
+import com.ryxon.shared.SharedStateSync;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The complete {@link PreLoginListener#onPlayerPreLogin} decision with stubbed
+ * events, using the real ConfigManager, indexes and services. A fresh event is
+ * needed per invocation because the listener mutates it, so event construction
+ * is part of every measurement (compare with {@link #createEventOnly()}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreLoginBenchmark {
+
+    @Param({"WHITELIST_ALLOWED", "WHITELIST_BLOCKED", "HANDSHAKE_HOST_ALLOWED", "HANDSHAKE_DIRECT_IP",
+            "CUSTOM_RULE_FALLBACK"})
+    public String scenario;
+
+    @Param({"true", "false"})
+    public boolean verdictCache;
+
+    private PreLoginListener listener;
+    private ConnectionLogger connectionLogger;
+    private ReverseDnsResolver resolver;
+    private AuditJournal journal;
+    private InetAddress address;
+    private String hostname;
+    private final UUID uuid = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+
+    @Setup
+    public void setup() throws UnknownHostException {
+        boolean custom = scenario.startsWith("CUSTOM");
+        boolean whitelist = scenario.startsWith("WHITELIST");
+        String yaml = String.join("\n",
+                "security-mode: " + (custom ? "CUSTOM" : whitelist ? "WHITELIST_ONLY" : "HOSTNAME_ONLY"),
+                // Not whitelisted, so the plan falls through to the handshake host
+                "security-rule: 'whitelist OR hostname'",
+                "whitelist:",
+                "  enabled: " + (whitelist || custom),
+                "  ips: ['10.0.0.0/8', '192.168.1.1', '2001:db8::/64']",
+                "hostname:",
+                "  enabled: " + (!whitelist || custom),
+                "  use-reverse-dns: false",
+                "  server-public-ip: '198.51.100.10'",
+                "  allowed-hostnames: ['play.example.com', '*.example.net']",
+                "verdict-cache:",
+                "  enabled: " + verdictCache,
+                "logging:",
+                "  log-blocked-connections: true",
+                "");
+
+        Logger logger = Stubs.silentLogger();
+        ConfigManager configManager = new ConfigManager(Stubs.plugin(yaml, logger));
+        configManager.load();
+
+        Metrics metrics = new Metrics();
+        resolver = new ReverseDnsResolver(logger, 1, 16, 1000, 1000, false, metrics.stage(Metrics.Stage.DNS_LOOKUP));
+        CheckGuards guards = new CheckGuards(logger);
+        guards.configure(configManager.getPolicy());
+        connectionLogger = new ConnectionLogger(logger, 8192);
+        // Left unconfigured, so the journal records nothing and attack mode never triggers
+        journal = new AuditJournal(logger, 1024);
+        VerdictCache verdicts = new VerdictCache(1024);
+        AttackMode attackMode = new AttackMode(logger);
+        TempBanManager tempBans = new TempBanManager();
+        listener = new PreLoginListener(configManager, new LoginEngine(new BlocklistManager(logger),
+                new GeoIpManager(logger), verdicts, resolver, new ProxyVerifier(1000), guards, attackMode, tempBans,
+                new SharedStateSync(logger, tempBans, verdicts, attackMode), journal, connectionLogger, metrics));
+
+        address = InetAddress.getByName(scenario.equals("WHITELIST_BLOCKED") || custom ? "203.0.113.7" : "10.20.30.40");
+        hostname = scenario.equals("HANDSHAKE_DIRECT_IP") ? "198.51.100.10:25565" : "eu.example.net:25565";
+    }
+
+    @TearDown
+    public void tearDown() {
+        connectionLogger.close();
+        resolver.close();
+        journal.close();
+    }
+
+    @Benchmark
+    public AsyncPlayerPreLoginEvent createEventOnly() {
+        return newEvent();
+    }
+
+    @Benchmark
+    public AsyncPlayerPreLoginEvent.Result decide() {
+        AsyncPlayerPreLoginEvent event = newEvent();
+        listener.onPlayerPreLogin(event);
+        return event.getLoginResult();
+    }
+
+    private AsyncPlayerPreLoginEvent newEvent() {
+        PlayerProfile profile = Stubs.profile(uuid, "Notch");
+        return new AsyncPlayerPreLoginEvent("Notch", address, address, uuid, false, profile, hostname);
+    }
+}
@@ -0,0 +1,101 @@
+package com.ryxon.bench;
+
+import com.destroystokyo.paper.profile.PlayerProfile;
+import com.destroystokyo.paper.profile.ProfileProperty;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Minimal stand-ins for the server objects RyxoNET touches, built with dynamic
+ * proxies so the real listener and ConfigManager run without a Paper server.
+ */
+public final class Stubs {
+
+    private Stubs() {}  // Prevent instantiation
+
+    /**
+     * @return a logger that discards everything, so console I/O never skews a measurement
+     */
+    public static Logger silentLogger() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        return logger;
+    }
+
+    /**
+     * A {@link Plugin} whose {@code getConfig()} is the given YAML. Methods that would
+     * touch the disk are no-ops.
+     */
+    public static Plugin plugin(String yaml, Logger logger) {
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            config.loadFromString(yaml);
+        } catch (InvalidConfigurationException e) {
+            throw new IllegalArgumentException("Invalid benchmark config", e);
+        }
+        File dataFolder = new File(System.getProperty("java.io.tmpdir"), "ryxonet-bench");
+        return (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getConfig":
+                            return config;
+                        case "getLogger":
+                            return logger;
+                        case "getDataFolder":
+                            return dataFolder;
+                        case "getName":
+                        case "toString":
+                            return "RyxoNET";
+                        case "isEnabled":
+                            return true;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    /**
+     * A mutable {@link PlayerProfile} carrying only an id, a name and properties.
+     */
+    public static PlayerProfile profile(UUID id, String name, ProfileProperty... properties) {
+        Set<ProfileProperty> set = ConcurrentHashMap.newKeySet();
+        set.addAll(Set.of(properties));
+        return (PlayerProfile) Proxy.newProxyInstance(PlayerProfile.class.getClassLoader(), new Class<?>[]{PlayerProfile.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getId":
+                            return id;
+                        case "getName":
+                            return name;
+                        case "getProperties":
+                            return set;
+                        case "hasProperty":
+                            return set.stream().anyMatch(p -> p.getName().equals(args[0]));
+                        case "removeProperty":
+                            return args[0] instanceof String
+                                    ? set.removeIf(p -> p.getName().equals(args[0]))
+                                    : set.remove(args[0]);
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "StubProfile[" + name + "]";
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
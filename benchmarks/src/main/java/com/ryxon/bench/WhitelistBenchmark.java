@@ -0,0 +1,84 @@
+package com.ryxon.bench;
+
+import com.ryxon.index.CidrTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whitelist lookups against tries of increasing size. Half of the entries are
+ * /24 ranges and half single addresses; queries are a mix of hits and misses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WhitelistBenchmark {
+
+    private static final int QUERIES = 1 << 12;
+
+    @Param({"10", "10000", "1000000"})
+    public int entries;
+
+    private CidrTrie trie;
+    private final int[] v4Queries = new int[QUERIES];
+    private final long[] v6Queries = new long[QUERIES * 2];
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<String> ranges = new ArrayList<>(entries);
+        int[] inserted = new int[entries];
+        for (int i = 0; i < entries; i++) {
+            int address = random.nextInt();
+            inserted[i] = address;
+            if ((i & 1) == 0) {
+                ranges.add(format(address & 0xFFFFFF00) + "/24");
+            } else {
+                ranges.add(format(address));
+            }
+        }
+        ranges.add("2001:db8::/48");
+        trie = CidrTrie.compile(ranges, invalid -> {
+            throw new IllegalStateException("Generated an invalid entry: " + invalid);
+        });
+
+        for (int i = 0; i < QUERIES; i++) {
+            // every other query hits an inserted entry
+            v4Queries[i] = (i & 1) == 0 ? inserted[random.nextInt(entries)] : random.nextInt();
+            v6Queries[i * 2] = (i & 1) == 0 ? 0x20010db800000000L : random.nextLong();
+            v6Queries[i * 2 + 1] = random.nextLong();
+        }
+    }
+
+    @Benchmark
+    public boolean lookupIPv4() {
+        return trie.containsV4(v4Queries[cursor++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public boolean lookupIPv6() {
+        int i = cursor++ & (QUERIES - 1);
+        return trie.containsV6(v6Queries[i * 2], v6Queries[i * 2 + 1]);
+    }
+
+    private static String format(int address) {
+        return (address >>> 24) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+}
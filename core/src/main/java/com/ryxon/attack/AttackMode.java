@@ -0,0 +1,227 @@
+package com.ryxon.attack;
+
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.util.IpAddress;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Detects join floods and, while one lasts, only lets known addresses in.
+ * <p>
+ * Join attempts are counted in a sliding window. When their average rate
+ * reaches the configured entry rate, attack mode turns on; it turns off again
+ * once the rate has stayed below the (lower) exit rate for the cooldown period,
+ * so a flood that pauses briefly does not flap the mode. While active, a join
+ * is only let through if its address recently pinged the server list or
+ * passed a full login before. Bots that connect straight to the login rarely
+ * ping first, whereas a player who is turned away only has to refresh the
+ * server list.
+ * <p>
+ * Nodes sharing state can also hold each other's attack mode on, so a flood
+ * spread thinly over a network still tightens every node.
+ */
+public final class AttackMode {
+
+    private static final long EPOCH = System.nanoTime();
+
+    private final Logger logger;
+    private volatile Settings settings = new Settings(false, new JoinRateWindow(1), new RecentAddressSet(4),
+            new RecentAddressSet(4), 0, 0, 0, 0, 0);
+
+    private volatile boolean active;
+    private volatile long activeSince;
+    private volatile long lastBusy;
+    private volatile int activations;
+    /** Epoch millis until which another node holds attack mode on. */
+    private volatile long heldUntil;
+
+    public AttackMode(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Applies the attack mode settings of a policy. Remembered addresses and the
+     * join window are kept unless their sizes change.
+     */
+    public synchronized void configure(SecurityPolicy policy) {
+        Settings current = settings;
+        int size = policy.getAttackMode().tableSize();
+        int seconds = Math.max(1, policy.getAttackMode().windowSeconds());
+        JoinRateWindow window = current.window.seconds() == seconds ? current.window : new JoinRateWindow(seconds);
+        RecentAddressSet pinged = current.pinged.size() == RecentAddressSet.entriesFor(size)
+                ? current.pinged : new RecentAddressSet(size);
+        RecentAddressSet verified = current.verified.size() == RecentAddressSet.entriesFor(size)
+                ? current.verified : new RecentAddressSet(size);
+
+        settings = new Settings(policy.getAttackMode().enabled(), window, pinged, verified,
+                policy.getAttackMode().enterJoinsPerSecond(), policy.getAttackMode().exitJoinsPerSecond(),
+                policy.getAttackMode().cooldownSeconds(), policy.getAttackMode().pingTtlSeconds(), policy.getAttackMode().verifiedTtlSeconds());
+        if (!policy.getAttackMode().enabled()) heldUntil = 0;
+        if (!policy.getAttackMode().enabled() && active) deactivate("disabled in the configuration");
+    }
+
+    /**
+     * Remembers that the address pinged the server list.
+     */
+    public void recordPing(IpAddress address) {
+        Settings s = settings;
+        if (s.enabled) s.pinged.add(hash(address), nowSeconds());
+    }
+
+    /**
+     * Remembers that the address passed every check of a login.
+     */
+    public void recordVerified(IpAddress address) {
+        Settings s = settings;
+        if (s.enabled) s.verified.add(hash(address), nowSeconds());
+    }
+
+    /**
+     * Counts a join attempt and updates the mode.
+     *
+     * @return whether attack mode is active for this join
+     */
+    public boolean recordJoin() {
+        Settings s = settings;
+        if (!s.enabled) return false;
+        long now = nowSeconds();
+        s.window.increment(now);
+        return update(s, now) || isHeld();
+    }
+
+    /**
+     * @return whether the address recently pinged the server list or passed a login
+     */
+    public boolean isKnown(IpAddress address) {
+        Settings s = settings;
+        long now = nowSeconds();
+        long hash = hash(address);
+        return s.pinged.contains(hash, now, s.pingTtlSeconds) || s.verified.contains(hash, now, s.verifiedTtlSeconds);
+    }
+
+    public boolean isActive() {
+        Settings s = settings;
+        return s.enabled && (update(s, nowSeconds()) || isHeld());
+    }
+
+    /**
+     * @return whether this node's own join rate turned attack mode on, ignoring other nodes
+     */
+    public boolean isActiveHere() {
+        Settings s = settings;
+        return s.enabled && update(s, nowSeconds());
+    }
+
+    /**
+     * @return whether another node currently holds attack mode on
+     */
+    public boolean isHeld() {
+        return heldUntil > System.currentTimeMillis();
+    }
+
+    /**
+     * Keeps attack mode on until {@code untilMillis} because another node is under attack.
+     * Holds are short leases that the attacked node keeps renewing.
+     */
+    public void holdUntil(long untilMillis) {
+        if (!settings.enabled || untilMillis <= System.currentTimeMillis()) return;
+        boolean started;
+        synchronized (this) {
+            started = !isHeld();
+            if (untilMillis > heldUntil) heldUntil = untilMillis;
+        }
+        if (started && !active) {
+            logger.warning("[RyxoNET] Attack mode on: another node reported a join flood. Only addresses that"
+                    + " pinged the server list or joined before are let in.");
+        }
+    }
+
+    /**
+     * @return seconds since attack mode last turned on
+     */
+    public long getActiveSeconds() {
+        return nowSeconds() - activeSince;
+    }
+
+    /**
+     * @return how often attack mode turned on since the plugin was enabled
+     */
+    public int getActivations() {
+        return activations;
+    }
+
+    /**
+     * @return join attempts per second, averaged over the window
+     */
+    public double getJoinRate() {
+        Settings s = settings;
+        return (double) s.window.sum(nowSeconds()) / s.window.seconds();
+    }
+
+    private boolean update(Settings s, long now) {
+        double rate = (double) s.window.sum(now) / s.window.seconds();
+        if (!active) {
+            if (rate < s.enterRate) return false;
+            activate(rate, now);
+            return true;
+        }
+        if (rate >= s.exitRate) {
+            if (lastBusy != now) lastBusy = now;
+        } else if (now - lastBusy >= s.cooldownSeconds) {
+            deactivate(String.format("join rate down to %.1f/s", rate));
+            return false;
+        }
+        return true;
+    }
+
+    private synchronized void activate(double rate, long now) {
+        if (active) return;
+        activeSince = now;
+        lastBusy = now;
+        activations++;
+        active = true;
+        logger.warning(String.format("[RyxoNET] Attack mode on: %.1f joins/s. Only addresses that pinged the server list"
+                + " or joined before are let in.", rate));
+    }
+
+    private synchronized void deactivate(String reason) {
+        if (!active) return;
+        active = false;
+        logger.info("[RyxoNET] Attack mode off after " + (nowSeconds() - activeSince) + "s: " + reason);
+    }
+
+    private static long hash(IpAddress address) {
+        return IpAddress.hash(address.getHigh(), address.getLow());
+    }
+
+    private static long nowSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - EPOCH);
+    }
+
+    private static final class Settings {
+
+        final boolean enabled;
+        final JoinRateWindow window;
+        final RecentAddressSet pinged;
+        final RecentAddressSet verified;
+        final double enterRate;
+        final double exitRate;
+        final long cooldownSeconds;
+        final long pingTtlSeconds;
+        final long verifiedTtlSeconds;
+
+        Settings(boolean enabled, JoinRateWindow window, RecentAddressSet pinged, RecentAddressSet verified,
+                 double enterRate, double exitRate, long cooldownSeconds, long pingTtlSeconds, long verifiedTtlSeconds) {
+            this.enabled = enabled;
+            this.window = window;
+            this.pinged = pinged;
+            this.verified = verified;
+            this.enterRate = enterRate;
+            this.exitRate = exitRate;
+            this.cooldownSeconds = cooldownSeconds;
+            this.pingTtlSeconds = pingTtlSeconds;
+            this.verifiedTtlSeconds = verifiedTtlSeconds;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ryxon.attack;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sliding-window event counter with one-second buckets.
+ * <p>
+ * Each bucket packs the second it counts for with its count into one
+ * {@code long}, so a bucket left over from an earlier lap of the ring is
+ * recognised and restarted by the first increment that reaches it. Counting is
+ * a single CAS and reading sums at most {@code seconds} buckets; neither locks.
+ */
+final class JoinRateWindow {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final AtomicLongArray buckets;
+
+    JoinRateWindow(int seconds) {
+        this.buckets = new AtomicLongArray(Math.max(1, seconds));
+    }
+
+    int seconds() {
+        return buckets.length();
+    }
+
+    void increment(long nowSeconds) {
+        int i = (int) (nowSeconds % buckets.length());
+        while (true) {
+            long state = buckets.get(i);
+            long next = state >>> COUNT_BITS == nowSeconds
+                    ? state + ((state & COUNT_MASK) < COUNT_MASK ? 1 : 0)
+                    : (nowSeconds << COUNT_BITS) | 1;
+            if (buckets.compareAndSet(i, state, next)) return;
+        }
+    }
+
+    /**
+     * @return events counted over the last {@link #seconds()} seconds, including the current one
+     */
+    long sum(long nowSeconds) {
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            long state = buckets.get(i);
+            if (nowSeconds - (state >>> COUNT_BITS) < buckets.length()) total += state & COUNT_MASK;
+        }
+        return total;
+    }
+
+    void clear() {
+        for (int i = 0; i < buckets.length(); i++) buckets.set(i, 0);
+    }
+}
@@ -0,0 +1,98 @@
+package com.ryxon.attack;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free set of recently seen keys, each remembered with the
+ * second it was last added.
+ * <p>
+ * An entry is a 32-bit key fingerprint and a 32-bit timestamp packed into one
+ * {@code long}. The table is split into 4-way sets and a new key replaces the
+ * oldest entry of its set, so memory stays fixed however many addresses show
+ * up, and under pressure the stalest entries are forgotten first. Colliding
+ * fingerprints are treated as the same key.
+ */
+final class RecentAddressSet {
+
+    private static final int WAYS = 4;
+
+    private final AtomicLongArray slots;
+    private final int setMask;
+
+    /**
+     * @param size number of entries, rounded up to a power of two
+     */
+    RecentAddressSet(int size) {
+        int entries = entriesFor(size);
+        this.slots = new AtomicLongArray(entries);
+        this.setMask = entries / WAYS - 1;
+    }
+
+    static int entriesFor(int size) {
+        return Integer.highestOneBit(Math.max(WAYS, size) - 1) << 1;
+    }
+
+    int size() {
+        return slots.length();
+    }
+
+    /**
+     * Records the key as seen at {@code nowSeconds}.
+     */
+    void add(long hash, long nowSeconds) {
+        long fingerprint = fingerprint(hash);
+        long entry = (fingerprint << 32) | (nowSeconds & 0xFFFFFFFFL);
+        int base = ((int) hash & setMask) * WAYS;
+
+        while (true) {
+            int victim = base;
+            long victimState = 0;
+            long victimAge = -1;
+            boolean retry = false;
+
+            for (int i = base; i < base + WAYS; i++) {
+                long state = slots.get(i);
+                if (state >>> 32 == fingerprint) {
+                    // Seen before: refresh unless a concurrent add already did
+                    if (state == entry || slots.compareAndSet(i, state, entry)) return;
+                    retry = true;
+                    break;
+                }
+                long age = state == 0 ? Long.MAX_VALUE : age(state, nowSeconds);
+                if (age > victimAge) {
+                    victim = i;
+                    victimState = state;
+                    victimAge = age;
+                }
+            }
+            if (retry) continue;
+            if (slots.compareAndSet(victim, victimState, entry)) return;
+        }
+    }
+
+    /**
+     * @return whether the key was added no more than {@code ttlSeconds} ago
+     */
+    boolean contains(long hash, long nowSeconds, long ttlSeconds) {
+        long fingerprint = fingerprint(hash);
+        int base = ((int) hash & setMask) * WAYS;
+        for (int i = base; i < base + WAYS; i++) {
+            long state = slots.get(i);
+            if (state >>> 32 == fingerprint) return age(state, nowSeconds) <= ttlSeconds;
+        }
+        return false;
+    }
+
+    void clear() {
+        for (int i = 0; i < slots.length(); i++) slots.set(i, 0);
+    }
+
+    private static long fingerprint(long hash) {
+        long fingerprint = hash >>> 32;
+        return fingerprint == 0 ? 1 : fingerprint;  // 0 marks an empty entry
+    }
+
+    private static long age(long state, long nowSeconds) {
+        return (nowSeconds - state) & 0xFFFFFFFFL;
+    }
+}
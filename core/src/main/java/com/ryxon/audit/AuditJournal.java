@@ -0,0 +1,265 @@
+package com.ryxon.audit;
+
+import com.ryxon.check.CheckType;
+import com.ryxon.util.IpAddress;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Append-only binary journal of every join decision.
+ * <p>
+ * Login threads publish into an {@link AuditRing} and return; a single background
+ * thread appends the records to memory-mapped {@link JournalSegment segments} of
+ * fixed size, starts a new segment when one fills up and deletes the oldest
+ * beyond {@code max-segments}. Queries skip every segment whose time range or
+ * Bloom index rules the address or name out, and only read the rest from the
+ * newest record backwards.
+ */
+public final class AuditJournal implements AutoCloseable {
+
+    private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * What to look for: an address or a player name, no older than {@code since}.
+     */
+    public static final class Query {
+
+        final IpAddress address;
+        final String name;
+        final long since;
+
+        private Query(IpAddress address, String name, long since) {
+            this.address = address;
+            this.name = name;
+            this.since = since;
+        }
+
+        public static Query address(IpAddress address, long sinceMillis) {
+            return new Query(address, null, sinceMillis);
+        }
+
+        public static Query name(String name, long sinceMillis) {
+            return new Query(null, name, sinceMillis);
+        }
+    }
+
+    private final Logger logger;
+    private final AuditRing ring;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private volatile boolean enabled;
+    private volatile Path directory;
+    private volatile int segmentRecords = 65536;
+    private volatile int maxSegments = 16;
+
+    private final List<JournalSegment> segments = new CopyOnWriteArrayList<>();  // oldest first
+    // Writer-owned
+    private Path openDirectory;
+    private JournalSegment active;
+    private long nextSequence = 1;
+    private boolean failing;
+    private long retryAt;
+    private long lost;
+
+    public AuditJournal(Logger logger, int bufferSize) {
+        this.logger = logger;
+        this.ring = new AuditRing(bufferSize);
+        this.writer = new Thread(this::run, "RyxoNET-Audit");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Applies the {@code audit-journal.*} settings. A new segment size applies from the next segment.
+     */
+    public void configure(boolean enabled, Path directory, int segmentRecords, int maxSegments) {
+        this.segmentRecords = Math.max(1024, segmentRecords);
+        this.maxSegments = Math.max(1, maxSegments);
+        this.directory = directory;
+        this.enabled = enabled;
+        LockSupport.unpark(writer);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues one decision for the journal; never blocks.
+     *
+     * @param reason      the failed check, or {@code null} if the join was allowed
+     * @param checkMicros latency of each check by ordinal, -1 if it did not run; may be {@code null}
+     */
+    public void record(long timeMillis, IpAddress address, String name, CheckType reason, long totalNanos, int[] checkMicros) {
+        if (!enabled) return;
+        ring.offer(timeMillis, address.getHigh(), address.getLow(), name, JournalSegment.reasonCode(reason),
+                (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMicros(totalNanos)), checkMicros);
+    }
+
+    /**
+     * Finds matching records, newest first. Reads mapped files, so call it off the main thread.
+     */
+    public List<AuditRecord> query(Query query, int limit) {
+        List<AuditRecord> results = new ArrayList<>();
+        List<JournalSegment> snapshot = new ArrayList<>(segments);
+        for (int i = snapshot.size() - 1; i >= 0 && results.size() < limit; i--) {
+            snapshot.get(i).collect(query, results, limit);
+        }
+        return results;
+    }
+
+    /**
+     * @return records currently kept across all segments
+     */
+    public long size() {
+        long total = 0;
+        for (JournalSegment segment : segments) total += segment.count();
+        return total;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    // ────────────────────────────────────────────────
+    // Writer thread
+    // ────────────────────────────────────────────────
+
+    private void run() {
+        while (running) {
+            syncDirectory();
+            // A segment that could not be created is retried, rather than leaving the journal off until a reload
+            if (active == null && openDirectory != null && System.nanoTime() - retryAt >= 0) rotate();
+            if (openDirectory == null || ring.drain(this::append) == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            } else if (active != null) {
+                active.publish();
+            }
+            long dropped = ring.takeDropped();
+            if (dropped > 0) logger.warning("[RyxoNET] Audit journal buffer full, dropped " + dropped + " records");
+        }
+        if (active != null) {
+            ring.drain(this::append);
+            closeActive();
+        }
+    }
+
+    /**
+     * Opens the configured directory, or closes the journal when it was disabled or moved.
+     */
+    private void syncDirectory() {
+        Path wanted = enabled ? directory : null;
+        if (wanted == null ? openDirectory == null : wanted.equals(openDirectory)) return;
+        closeActive();
+        segments.clear();
+        openDirectory = wanted;
+        nextSequence = 1;
+        failing = false;
+        lost = 0;
+        if (wanted == null) return;
+        try {
+            Files.createDirectories(wanted);
+            loadSegments(wanted);
+            rotate();
+        } catch (IOException e) {
+            logger.warning("[RyxoNET] Could not open audit journal in " + wanted + ": " + e.getMessage());
+            failing = true;
+            retryAt = System.nanoTime() + RETRY_NANOS;
+        }
+    }
+
+    private void loadSegments(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + JournalSegment.EXTENSION)) {
+            for (Path file : stream) {
+                if (JournalSegment.sequenceOf(file) >= 0) files.add(file);
+            }
+        }
+        files.sort(Comparator.comparingLong(JournalSegment::sequenceOf));
+        // Numbered past every segment file, including unreadable ones that keep their name
+        nextSequence = files.isEmpty() ? 1 : JournalSegment.sequenceOf(files.get(files.size() - 1)) + 1;
+        for (Path file : files) {
+            try {
+                segments.add(JournalSegment.open(file, JournalSegment.sequenceOf(file)));
+            } catch (IOException e) {
+                logger.warning("[RyxoNET] Skipping unreadable audit segment " + file.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void append(AuditRing.Entry entry) {
+        if (active != null && active.isFull()) rotate();
+        if (active != null) {
+            active.append(entry);
+        } else {
+            lost++;
+        }
+    }
+
+    /**
+     * Seals the active segment, starts the next one and drops the oldest past the limit.
+     */
+    private void rotate() {
+        closeActive();
+        try {
+            // A number that failed is never tried again, in case its file exists after all
+            active = JournalSegment.create(openDirectory, nextSequence++, segmentRecords);
+            segments.add(active);
+            if (failing) {
+                logger.info("[RyxoNET] Audit journal is writing again" + (lost > 0 ? "; " + lost + " records were lost" : ""));
+            }
+            failing = false;
+            lost = 0;
+        } catch (IOException e) {
+            if (!failing) logger.warning("[RyxoNET] Could not create audit segment: " + e.getMessage() + "; retrying");
+            failing = true;
+            retryAt = System.nanoTime() + RETRY_NANOS;
+        }
+        while (segments.size() > maxSegments) {
+            JournalSegment oldest = segments.remove(0);
+            try {
+                oldest.delete();
+            } catch (IOException e) {
+                logger.warning("[RyxoNET] Could not delete audit segment " + oldest.file.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void closeActive() {
+        if (active == null) return;
+        try {
+            active.publish();
+            if (active.count() == 0) {
+                segments.remove(active);
+                active.delete();
+            } else {
+                active.seal();
+            }
+        } catch (IOException e) {
+            logger.warning("[RyxoNET] Could not seal audit segment " + active.file.getFileName() + ": " + e.getMessage());
+        }
+        active = null;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.ryxon.audit;
+
+import com.ryxon.check.CheckType;
+import com.ryxon.util.IpAddress;
+
+/**
+ * One join decision read back from the journal.
+ */
+public final class AuditRecord {
+
+    /** Latencies kept per record, one for every check by ordinal; more checks need a new segment version. */
+    public static final int CHECKS = 8;
+
+    private final long time;
+    private final IpAddress address;
+    private final String name;
+    private final CheckType reason;
+    private final int totalMicros;
+    private final int[] checkMicros;
+
+    AuditRecord(long time, IpAddress address, String name, CheckType reason, int totalMicros, int[] checkMicros) {
+        this.time = time;
+        this.address = address;
+        this.name = name;
+        this.reason = reason;
+        this.totalMicros = totalMicros;
+        this.checkMicros = checkMicros;
+    }
+
+    /**
+     * @return when the decision was made, in epoch milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public IpAddress getAddress() {
+        return address;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isAllowed() {
+        return reason == null;
+    }
+
+    /**
+     * @return the check the join failed, or {@code null} if it was allowed
+     */
+    public CheckType getReason() {
+        return reason;
+    }
+
+    public int getTotalMicros() {
+        return totalMicros;
+    }
+
+    /**
+     * @return how long {@code check} took in microseconds, or -1 if it did not run for this join
+     */
+    public int getCheckMicros(CheckType check) {
+        return check.ordinal() < CHECKS ? checkMicros[check.ordinal()] : -1;
+    }
+}
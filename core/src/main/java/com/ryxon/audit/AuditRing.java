@@ -0,0 +1,99 @@
+package com.ryxon.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded multi-producer / single-consumer ring of pre-allocated journal records,
+ * the same design as the connection logger's ring: producers claim a slot with
+ * one CAS and never block, and a full ring counts the record as dropped.
+ */
+final class AuditRing {
+
+    /**
+     * Mutable slot; only valid inside the consumer callback.
+     */
+    static final class Entry {
+        long time;
+        long high;
+        long low;
+        String name;
+        int reason;
+        int totalMicros;
+        final int[] checkMicros = new int[AuditRecord.CHECKS];
+    }
+
+    private final int mask;
+    private final Entry[] entries;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private long head;  // consumer-owned
+
+    AuditRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        this.mask = size - 1;
+        this.entries = new Entry[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            entries[i] = new Entry();
+            sequences.set(i, i);
+        }
+    }
+
+    boolean offer(long time, long high, long low, String name, int reason, int totalMicros, int[] checkMicros) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.increment();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+
+        int index = (int) position & mask;
+        Entry entry = entries[index];
+        entry.time = time;
+        entry.high = high;
+        entry.low = low;
+        entry.name = name;
+        entry.reason = reason;
+        entry.totalMicros = totalMicros;
+        for (int i = 0; i < AuditRecord.CHECKS; i++) {
+            entry.checkMicros[i] = checkMicros == null ? -1 : checkMicros[i];
+        }
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Hands every published entry to {@code consumer}. Must only be called by one thread.
+     *
+     * @return number of entries drained
+     */
+    int drain(Consumer<Entry> consumer) {
+        int drained = 0;
+        while (true) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) return drained;
+            Entry entry = entries[index];
+            consumer.accept(entry);
+            entry.name = null;
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            drained++;
+        }
+    }
+
+    long takeDropped() {
+        return dropped.sumThenReset();
+    }
+}
@@ -0,0 +1,64 @@
+package com.ryxon.audit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-segment Bloom filter over the addresses and names a journal segment contains.
+ * <p>
+ * Only the journal writer adds keys; queries may test concurrently and see every
+ * key added before the record count they read was published.
+ */
+final class BloomIndex {
+
+    private static final int HASHES = 4;
+
+    private final AtomicLongArray bits;
+    private final long mask;
+
+    /**
+     * @param keys expected number of keys; the filter gets about 8 bits per key
+     */
+    BloomIndex(int keys) {
+        this(new AtomicLongArray(wordsFor(keys)));
+    }
+
+    private BloomIndex(AtomicLongArray bits) {
+        this.bits = bits;
+        this.mask = (long) bits.length() * 64 - 1;
+    }
+
+    static BloomIndex of(long[] words) {
+        return new BloomIndex(new AtomicLongArray(words));
+    }
+
+    private static int wordsFor(int keys) {
+        long bitCount = Long.highestOneBit(Math.max(1024L, (long) keys * 8 - 1)) << 1;
+        return (int) (bitCount / 64);
+    }
+
+    void add(long hash) {
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (hash + i * h2) & mask;
+            int word = (int) (bit >>> 6);
+            long value = bits.get(word);
+            long set = value | (1L << bit);
+            if (set != value) bits.lazySet(word, set);
+        }
+    }
+
+    boolean mightContain(long hash) {
+        long h2 = (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (hash + i * h2) & mask;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    long[] toArray() {
+        long[] words = new long[bits.length()];
+        for (int i = 0; i < words.length; i++) words[i] = bits.get(i);
+        return words;
+    }
+}
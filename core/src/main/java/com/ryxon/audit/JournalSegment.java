@@ -0,0 +1,338 @@
+package com.ryxon.audit;
+
+import com.ryxon.check.CheckType;
+import com.ryxon.util.IpAddress;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * One memory-mapped journal file of fixed-size records, plus its Bloom index.
+ * <p>
+ * Layout: a 64-byte header ({@code int magic, int version, int capacity, int count})
+ * followed by {@code capacity} records of 80 bytes:
+ * <pre>
+ *  0 long  time (epoch millis)     40 byte  reason (CheckType ordinal, 0xFF = allowed)
+ *  8 long  address, high half      41 byte[3] reserved
+ * 16 long  address, low half       44 int   total latency (micros)
+ * 24 byte[16] name (ISO-8859-1)    48 int[8] check latencies by CheckType ordinal (micros, -1 = not run)
+ * </pre>
+ * Version 1 segments, written before the geo filter existed, have 64-byte records
+ * with only the first four latencies; they are still read.
+ * The file is allocated at full size up front and the header count is only
+ * advanced once the records below it are written, so a crash loses at most the
+ * last unpublished batch. When a segment is sealed its index is written next to
+ * it ({@code .idx}); a segment found without one is re-indexed from its records.
+ */
+final class JournalSegment {
+
+    static final String EXTENSION = ".seg";
+    static final String INDEX_EXTENSION = ".idx";
+
+    private static final int MAGIC = 0x52584A53;  // "RXJS"
+    private static final int INDEX_MAGIC = 0x52584A49;  // "RXJI"
+    private static final int VERSION = 2;
+    private static final int INDEX_VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int RECORD = 48 + AuditRecord.CHECKS * 4;
+    private static final int V1_RECORD = 64;
+    private static final int COUNT_OFFSET = 12;
+    private static final int NAME_BYTES = 16;
+    private static final int ALLOWED = 0xFF;
+
+    /** Records can be a little out of order (several login threads); scans stop this far past the cut-off. */
+    private static final long ORDER_SLACK_MILLIS = 5000;
+    private static final long NAME_SEED = 0x9E3779B97F4A7C15L;
+
+    final long sequence;
+    final Path file;
+    final int capacity;
+    private final int recordSize;
+    private final MappedByteBuffer buffer;
+    private final BloomIndex index;
+    private volatile int count;
+    private volatile long firstTime = Long.MAX_VALUE;
+    private volatile long lastTime = Long.MIN_VALUE;
+    private int pending;  // writer-owned: appended but not yet published
+
+    private JournalSegment(long sequence, Path file, int capacity, int recordSize, MappedByteBuffer buffer,
+                           BloomIndex index) {
+        this.sequence = sequence;
+        this.file = file;
+        this.capacity = capacity;
+        this.recordSize = recordSize;
+        this.buffer = buffer;
+        this.index = index;
+    }
+
+    static Path fileFor(Path directory, long sequence) {
+        return directory.resolve(String.format("journal-%08d%s", sequence, EXTENSION));
+    }
+
+    /**
+     * @return the sequence number in a segment file name, or -1 if it is not one
+     */
+    static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith("journal-") || !name.endsWith(EXTENSION)) return -1;
+        try {
+            return Long.parseLong(name.substring(8, name.length() - EXTENSION.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Creates an empty, writable segment.
+     */
+    static JournalSegment create(Path directory, long sequence, int capacity) throws IOException {
+        Path file = fileFor(directory, sequence);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * RECORD);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, capacity);
+            buffer.putInt(COUNT_OFFSET, 0);
+            return new JournalSegment(sequence, file, capacity, RECORD, buffer, new BloomIndex(capacity * 2));
+        }
+    }
+
+    /**
+     * Opens a sealed segment read-only, re-indexing it if its index is missing or stale.
+     */
+    static JournalSegment open(Path file, long sequence) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int version = buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC ? 0 : buffer.getInt(4);
+        if (version != VERSION && version != 1) {
+            throw new IOException("Not a journal segment: " + file);
+        }
+        int recordSize = version == 1 ? V1_RECORD : RECORD;
+        int capacity = buffer.getInt(8);
+        int count = Math.min(buffer.getInt(COUNT_OFFSET), (buffer.capacity() - HEADER) / recordSize);
+
+        JournalSegment segment = readIndex(file, sequence, capacity, recordSize, count, buffer);
+        if (segment == null) {
+            segment = new JournalSegment(sequence, file, capacity, recordSize, buffer, new BloomIndex(capacity * 2));
+            for (int i = 0; i < count; i++) segment.indexRecord(HEADER + (long) i * recordSize);
+        }
+        segment.count = count;
+        return segment;
+    }
+
+    private static JournalSegment readIndex(Path file, long sequence, int capacity, int recordSize, int count,
+                                            MappedByteBuffer buffer) {
+        Path indexFile = indexFileFor(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile), 1 << 16))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION || in.readInt() != count) return null;
+            long first = in.readLong();
+            long last = in.readLong();
+            long[] words = new long[in.readInt()];
+            for (int i = 0; i < words.length; i++) words[i] = in.readLong();
+            JournalSegment segment = new JournalSegment(sequence, file, capacity, recordSize, buffer, BloomIndex.of(words));
+            segment.firstTime = first;
+            segment.lastTime = last;
+            return segment;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            return null;  // rebuilt by the caller
+        }
+    }
+
+    private static Path indexFileFor(Path file) {
+        String name = file.getFileName().toString();
+        return file.resolveSibling(name.substring(0, name.length() - EXTENSION.length()) + INDEX_EXTENSION);
+    }
+
+    int count() {
+        return count;
+    }
+
+    boolean isFull() {
+        return count + pending >= capacity;
+    }
+
+    long getLastTime() {
+        return lastTime;
+    }
+
+    // ────────────────────────────────────────────────
+    // Writing (journal writer thread only)
+    // ────────────────────────────────────────────────
+
+    void append(AuditRing.Entry entry) {
+        long offset = HEADER + (long) (count + pending) * recordSize;
+        int at = (int) offset;
+        buffer.putLong(at, entry.time);
+        buffer.putLong(at + 8, entry.high);
+        buffer.putLong(at + 16, entry.low);
+        String name = entry.name == null ? "" : entry.name;
+        for (int i = 0; i < NAME_BYTES; i++) {
+            char c = i < name.length() ? name.charAt(i) : 0;
+            buffer.put(at + 24 + i, (byte) (c < 256 ? c : '?'));
+        }
+        buffer.put(at + 40, (byte) entry.reason);
+        buffer.put(at + 41, (byte) 0);
+        buffer.putShort(at + 42, (short) 0);
+        buffer.putInt(at + 44, entry.totalMicros);
+        for (int i = 0; i < AuditRecord.CHECKS; i++) buffer.putInt(at + 48 + i * 4, entry.checkMicros[i]);
+        indexRecord(offset);
+        pending++;
+    }
+
+    /**
+     * Makes the appended records visible to queries and to a reader after a crash.
+     */
+    void publish() {
+        if (pending == 0) return;
+        int published = count + pending;
+        pending = 0;
+        buffer.putInt(COUNT_OFFSET, published);
+        count = published;
+    }
+
+    /**
+     * Flushes the records to disk and writes the index next to them.
+     */
+    void seal() throws IOException {
+        publish();
+        if (!buffer.isReadOnly()) buffer.force();
+        Path indexFile = indexFileFor(file);
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        long[] words = index.toArray();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(count);
+            out.writeLong(firstTime);
+            out.writeLong(lastTime);
+            out.writeInt(words.length);
+            for (long word : words) out.writeLong(word);
+        }
+        try {
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(indexFileFor(file));
+        Files.deleteIfExists(file);
+    }
+
+    private void indexRecord(long offset) {
+        int at = (int) offset;
+        long time = buffer.getLong(at);
+        index.add(IpAddress.hash(buffer.getLong(at + 8), buffer.getLong(at + 16)));
+        index.add(nameHash(buffer, at + 24));
+        if (time < firstTime) firstTime = time;
+        if (time > lastTime) lastTime = time;
+    }
+
+    // ────────────────────────────────────────────────
+    // Queries
+    // ────────────────────────────────────────────────
+
+    /**
+     * Adds the records matching {@code query}, newest first, until {@code out} holds {@code limit}.
+     */
+    void collect(AuditJournal.Query query, List<AuditRecord> out, int limit) {
+        int published = count;  // read before the index, see BloomIndex
+        if (published == 0 || lastTime < query.since) return;
+        if (!index.mightContain(query.address != null ? IpAddress.hash(query.address.getHigh(), query.address.getLow())
+                : nameHash(query.name))) {
+            return;
+        }
+        for (int i = published - 1; i >= 0 && out.size() < limit; i--) {
+            int at = HEADER + i * recordSize;
+            long time = buffer.getLong(at);
+            if (time < query.since) {
+                if (time < query.since - ORDER_SLACK_MILLIS) return;
+                continue;
+            }
+            if (query.address != null) {
+                if (buffer.getLong(at + 8) != query.address.getHigh() || buffer.getLong(at + 16) != query.address.getLow()) continue;
+            } else if (!nameEquals(at + 24, query.name)) {
+                continue;
+            }
+            out.add(read(at));
+        }
+    }
+
+    private AuditRecord read(int at) {
+        int reason = buffer.get(at + 40) & 0xFF;
+        CheckType[] types = CheckType.values();
+        int[] checks = new int[AuditRecord.CHECKS];
+        int stored = (recordSize - 48) / 4;
+        for (int i = 0; i < checks.length; i++) checks[i] = i < stored ? buffer.getInt(at + 48 + i * 4) : -1;
+        return new AuditRecord(buffer.getLong(at), IpAddress.of(buffer.getLong(at + 8), buffer.getLong(at + 16)),
+                readName(at + 24), reason == ALLOWED || reason >= types.length ? null : types[reason],
+                buffer.getInt(at + 44), checks);
+    }
+
+    private String readName(int at) {
+        byte[] bytes = new byte[NAME_BYTES];
+        int length = 0;
+        while (length < NAME_BYTES && (bytes[length] = buffer.get(at + length)) != 0) length++;
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private boolean nameEquals(int at, String name) {
+        int length = Math.min(name.length(), NAME_BYTES);
+        for (int i = 0; i < NAME_BYTES; i++) {
+            int stored = buffer.get(at + i) & 0xFF;
+            if (i >= length) return stored == 0;
+            if (Character.toLowerCase((char) stored) != Character.toLowerCase(name.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    static int reasonCode(CheckType reason) {
+        return reason == null ? ALLOWED : reason.ordinal();
+    }
+
+    /**
+     * Case-insensitive hash of a name as stored (first 16 characters), distinct from address hashes.
+     */
+    static long nameHash(CharSequence name) {
+        long h = NAME_SEED;
+        for (int i = 0; i < Math.min(name.length(), NAME_BYTES); i++) {
+            h = (h ^ Character.toLowerCase(name.charAt(i))) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long nameHash(MappedByteBuffer buffer, int at) {
+        long h = NAME_SEED;
+        for (int i = 0; i < NAME_BYTES; i++) {
+            int c = buffer.get(at + i) & 0xFF;
+            if (c == 0) break;
+            h = (h ^ Character.toLowerCase((char) c)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,441 @@
+package com.ryxon.ban;
+
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.util.IpAddress;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Temporary bans for addresses, or whole subnets, that keep failing their checks.
+ * <p>
+ * Failed joins are counted per offender. Reaching {@code max-failures} within
+ * {@code find-time} earns a ban, and every further ban lasts twice as long as
+ * the previous one, up to {@code max-ban}. An offender is forgotten, and its
+ * backoff reset, once it has stayed clean for {@code forget-after}.
+ * <p>
+ * Lookups are a single lock-free map read. Changes are serialized on this
+ * object; every offender has exactly one pending deadline on a
+ * {@link TimingWheel} (its ban ending, or its history being forgotten), so
+ * scheduling and expiring stay O(1) however many offenders are tracked.
+ */
+public final class TempBanManager {
+
+    static final int MAGIC = 0x52584E42;  // "RXNB"
+    static final int VERSION = 1;
+
+    private static final long TICK_MILLIS = 1000;
+
+    /**
+     * Snapshot of one active ban, for display.
+     */
+    public static final class Ban {
+
+        private final String network;
+        private final long expiresAt;
+        private final int count;
+
+        Ban(String network, long expiresAt, int count) {
+            this.network = network;
+            this.expiresAt = expiresAt;
+            this.count = count;
+        }
+
+        /**
+         * @return the banned address, or network in CIDR notation
+         */
+        public String getNetwork() {
+            return network;
+        }
+
+        /**
+         * @return when the ban ends, in epoch milliseconds
+         */
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        /**
+         * @return how many bans in a row the offender has earned, this one included
+         */
+        public int getCount() {
+            return count;
+        }
+    }
+
+    private static final class Offender extends TimingWheel.Timer {
+
+        final IpAddress network;
+        final int prefix;
+        volatile long bannedUntil;  // 0 while not banned
+        int bans;
+        int failures;
+        long firstFailure;
+        long lastFailure;
+
+        Offender(IpAddress network, int prefix) {
+            this.network = network;
+            this.prefix = prefix;
+        }
+
+        String describe() {
+            return prefix == (network.isIPv4() ? 32 : 128) ? network.toString() : network + "/" + prefix;
+        }
+    }
+
+    private final ConcurrentHashMap<IpAddress, Offender> offenders = new ConcurrentHashMap<>();
+    private final TimingWheel wheel = new TimingWheel(4096, System.currentTimeMillis() / TICK_MILLIS);
+    private volatile Settings settings = new Settings(false, 0, 0, 0, 0, 0, 32, 128);
+    private int activeBans;
+    private volatile boolean dirty;
+
+    /**
+     * Applies the ban settings of a policy. If the subnet prefixes change, existing
+     * offenders are merged into the networks of the new prefixes.
+     */
+    public synchronized void configure(SecurityPolicy policy) {
+        Settings previous = settings;
+        settings = new Settings(policy.getTempBans().enabled(), policy.getTempBans().maxFailures(),
+                TimeUnit.SECONDS.toMillis(policy.getTempBans().findTimeSeconds()),
+                TimeUnit.SECONDS.toMillis(policy.getTempBans().baseSeconds()),
+                TimeUnit.SECONDS.toMillis(policy.getTempBans().maxSeconds()),
+                TimeUnit.SECONDS.toMillis(policy.getTempBans().forgetSeconds()),
+                policy.getTempBans().prefixV4(), policy.getTempBans().prefixV6());
+        if (previous.prefixV4 != settings.prefixV4 || previous.prefixV6 != settings.prefixV6) {
+            List<Offender> existing = new ArrayList<>(offenders.values());
+            offenders.clear();
+            wheel.clear();
+            activeBans = 0;
+            for (Offender offender : existing) merge(offender, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * @return when the ban covering {@code address} ends, in epoch milliseconds, or 0 if it is not banned
+     */
+    public long bannedUntil(IpAddress address) {
+        Settings s = settings;
+        if (!s.enabled) return 0;
+        Offender offender = offenders.get(address.network(s.prefixFor(address)));
+        long until = offender == null ? 0 : offender.bannedUntil;
+        return until > System.currentTimeMillis() ? until : 0;
+    }
+
+    /**
+     * Counts a failed join against the address's network.
+     *
+     * @return the length of the ban this failure earned in milliseconds, or 0 if none
+     */
+    public synchronized long recordFailure(IpAddress address) {
+        Settings s = settings;
+        if (!s.enabled) return 0;
+        long now = System.currentTimeMillis();
+        int prefix = s.prefixFor(address);
+        Offender offender = offenders.computeIfAbsent(address.network(prefix), network -> new Offender(network, prefix));
+        if (offender.bannedUntil > now) return 0;  // a login that started before the ban
+        if (offender.bannedUntil != 0) {
+            // Ended, but the wheel has not caught up yet
+            offender.bannedUntil = 0;
+            activeBans--;
+        }
+
+        if (offender.failures == 0 || now - offender.firstFailure > s.findTimeMillis) {
+            offender.failures = 0;
+            offender.firstFailure = now;
+        }
+        offender.failures++;
+        offender.lastFailure = now;
+        dirty = true;
+        if (offender.failures < s.maxFailures) {
+            schedule(offender, now + s.forgetMillis);
+            return 0;
+        }
+
+        long duration = Math.min(s.maxBanMillis, s.baseBanMillis << Math.min(offender.bans, 30));
+        offender.bans++;
+        offender.failures = 0;
+        activeBans++;
+        offender.bannedUntil = now + duration;
+        schedule(offender, offender.bannedUntil);
+        return duration;
+    }
+
+    /**
+     * Applies a ban another node issued, keeping whichever of it and a local ban lasts longer.
+     *
+     * @param count how many bans in a row the offender has earned there, so the backoff carries over
+     * @return whether the ban is still running
+     */
+    public synchronized boolean importBan(IpAddress address, long untilMillis, int count) {
+        if (!settings.enabled) return false;
+        Offender offender = new Offender(address, address.isIPv4() ? 32 : 128);
+        offender.bans = count;
+        offender.bannedUntil = untilMillis;
+        offender.lastFailure = System.currentTimeMillis();
+        if (!merge(offender, offender.lastFailure)) return false;
+        dirty = true;
+        return offender.bannedUntil != 0;
+    }
+
+    /**
+     * @return how many bans in a row the network of {@code address} has earned, or 0
+     */
+    public synchronized int getBanCount(IpAddress address) {
+        Settings s = settings;
+        Offender offender = offenders.get(address.network(s.prefixFor(address)));
+        return offender == null ? 0 : offender.bans;
+    }
+
+    /**
+     * Lifts bans and forgets the offence history of every network overlapping {@code address/prefix}.
+     *
+     * @return the number of offenders removed
+     */
+    public synchronized int unban(IpAddress address, int prefix) {
+        int removed = 0;
+        for (Offender offender : new ArrayList<>(offenders.values())) {
+            if (offender.network.isIPv4() != address.isIPv4()) continue;
+            // Two networks overlap if the shorter one contains the start of the longer one
+            int shorter = Math.min(prefix, offender.prefix);
+            if (!offender.network.network(shorter).equals(address.network(shorter))) continue;
+            remove(offender);
+            removed++;
+        }
+        if (removed > 0) dirty = true;
+        return removed;
+    }
+
+    /**
+     * Lifts every ban and forgets all offence history.
+     *
+     * @return the number of offenders removed
+     */
+    public synchronized int clear() {
+        int removed = offenders.size();
+        offenders.clear();
+        wheel.clear();
+        activeBans = 0;
+        dirty = true;
+        return removed;
+    }
+
+    /**
+     * Ends bans and forgets offenders whose time has come. Called about once a second.
+     */
+    public synchronized void expire() {
+        long now = System.currentTimeMillis();
+        wheel.advance(now / TICK_MILLIS, timer -> {
+            Offender offender = (Offender) timer;
+            if (offender.bannedUntil != 0) {
+                offender.bannedUntil = 0;
+                activeBans--;
+                long forgetAt = Math.max(offender.lastFailure, now) + settings.forgetMillis;
+                if (forgetAt > now) {
+                    schedule(offender, forgetAt);
+                    return;
+                }
+            }
+            offenders.remove(offender.network, offender);
+            dirty = true;
+        });
+    }
+
+    /**
+     * @return the active bans, longest remaining first
+     */
+    public synchronized List<Ban> getBans() {
+        long now = System.currentTimeMillis();
+        List<Ban> bans = new ArrayList<>(activeBans);
+        for (Offender offender : offenders.values()) {
+            if (offender.bannedUntil > now) bans.add(new Ban(offender.describe(), offender.bannedUntil, offender.bans));
+        }
+        bans.sort(Comparator.comparingLong(Ban::getExpiresAt).reversed());
+        return bans;
+    }
+
+    public synchronized int getActiveBanCount() {
+        return activeBans;
+    }
+
+    /**
+     * @return offenders being tracked, banned or not
+     */
+    public int getTrackedCount() {
+        return offenders.size();
+    }
+
+    /**
+     * @return whether bans changed since the last {@link #save}
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    // ────────────────────────────────────────────────
+    // Persistence
+    // ────────────────────────────────────────────────
+
+    /**
+     * Writes every offender to {@code file}, replacing it atomically.
+     */
+    public void save(Path file) throws IOException {
+        List<long[]> records = new ArrayList<>();
+        synchronized (this) {
+            for (Offender o : offenders.values()) {
+                records.add(new long[]{o.network.getHigh(), o.network.getLow(), o.prefix, o.bans, o.failures,
+                        o.firstFailure, o.lastFailure, o.bannedUntil});
+            }
+            dirty = false;
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(records.size());
+            for (long[] r : records) {
+                out.writeLong(r[0]);
+                out.writeLong(r[1]);
+                out.writeByte((int) r[2]);
+                out.writeShort((int) Math.min(r[3], Short.MAX_VALUE));
+                out.writeShort((int) Math.min(r[4], Short.MAX_VALUE));
+                out.writeLong(r[5]);
+                out.writeLong(r[6]);
+                out.writeLong(r[7]);
+            }
+        } catch (IOException e) {
+            dirty = true;
+            throw e;
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Restores the offenders saved in {@code file}, skipping those that would have
+     * been forgotten by now. A missing file is not an error.
+     *
+     * @return the number of offenders restored
+     */
+    public synchronized int load(Path file) throws IOException {
+        long now = System.currentTimeMillis();
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) throw new IOException("Not a ban file: " + file);
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                IpAddress address = IpAddress.of(in.readLong(), in.readLong());
+                Offender offender = new Offender(address, in.readUnsignedByte());
+                offender.bans = in.readUnsignedShort();
+                offender.failures = in.readUnsignedShort();
+                offender.firstFailure = in.readLong();
+                offender.lastFailure = in.readLong();
+                offender.bannedUntil = in.readLong();
+                if (merge(offender, now)) restored++;
+            }
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (EOFException e) {
+            throw new IOException("Truncated ban file: " + file, e);
+        }
+        return restored;
+    }
+
+    // ────────────────────────────────────────────────
+    // Internals
+    // ────────────────────────────────────────────────
+
+    /**
+     * Adds an offender under the network of the current prefix, combining it with
+     * one already there. Must hold the lock.
+     *
+     * @return whether the offender was still relevant
+     */
+    private boolean merge(Offender from, long now) {
+        Settings s = settings;
+        if (from.bannedUntil <= now) from.bannedUntil = 0;
+        if (from.bannedUntil == 0 && from.lastFailure + s.forgetMillis <= now) return false;
+
+        int prefix = s.prefixFor(from.network);
+        Offender to = offenders.computeIfAbsent(from.network.network(prefix), network -> new Offender(network, prefix));
+        to.bans = Math.max(to.bans, from.bans);
+        to.failures = Math.max(to.failures, from.failures);
+        to.firstFailure = Math.max(to.firstFailure, from.firstFailure);
+        to.lastFailure = Math.max(to.lastFailure, from.lastFailure);
+        if (from.bannedUntil > to.bannedUntil) {
+            if (to.bannedUntil == 0) activeBans++;
+            to.bannedUntil = from.bannedUntil;
+        }
+        schedule(to, to.bannedUntil != 0 ? to.bannedUntil : to.lastFailure + s.forgetMillis);
+        return true;
+    }
+
+    private void remove(Offender offender) {
+        wheel.cancel(offender);
+        offenders.remove(offender.network, offender);
+        if (offender.bannedUntil != 0) activeBans--;
+        offender.bannedUntil = 0;
+    }
+
+    private void schedule(Offender offender, long atMillis) {
+        // Round up so nothing expires early
+        wheel.schedule(offender, (atMillis + TICK_MILLIS - 1) / TICK_MILLIS);
+    }
+
+    /**
+     * @return a short human-readable form such as {@code 1h 5m} or {@code 40s}
+     */
+    public static String formatDuration(long millis) {
+        long seconds = Math.max(1, (millis + 999) / 1000);
+        if (seconds < 60) return seconds + "s";
+        long minutes = seconds / 60;
+        if (minutes < 60) return minutes + "m " + seconds % 60 + "s";
+        long hours = minutes / 60;
+        if (hours < 24) return hours + "h " + minutes % 60 + "m";
+        return hours / 24 + "d " + hours % 24 + "h";
+    }
+
+    private static final class Settings {
+
+        final boolean enabled;
+        final int maxFailures;
+        final long findTimeMillis;
+        final long baseBanMillis;
+        final long maxBanMillis;
+        final long forgetMillis;
+        final int prefixV4;
+        final int prefixV6;
+
+        Settings(boolean enabled, int maxFailures, long findTimeMillis, long baseBanMillis, long maxBanMillis,
+                 long forgetMillis, int prefixV4, int prefixV6) {
+            this.enabled = enabled;
+            this.maxFailures = maxFailures;
+            this.findTimeMillis = findTimeMillis;
+            this.baseBanMillis = baseBanMillis;
+            this.maxBanMillis = maxBanMillis;
+            this.forgetMillis = forgetMillis;
+            this.prefixV4 = prefixV4;
+            this.prefixV6 = prefixV6;
+        }
+
+        int prefixFor(IpAddress address) {
+            return address.isIPv4() ? prefixV4 : prefixV6;
+        }
+    }
+}
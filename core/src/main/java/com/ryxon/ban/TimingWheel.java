@@ -0,0 +1,118 @@
+package com.ryxon.ban;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: timers hang in intrusive doubly-linked lists, one list
+ * per slot, and a timer due at tick {@code t} lives in slot {@code t & mask}.
+ * <p>
+ * Scheduling and cancelling are O(1) regardless of how many timers exist.
+ * Advancing the wheel visits only the slots of the ticks that passed; timers
+ * in those slots that belong to a later lap of the wheel stay put. Not thread
+ * safe: the owner serializes all calls.
+ */
+final class TimingWheel {
+
+    /**
+     * Base class of anything that can be scheduled; the links live in the timer itself.
+     */
+    static class Timer {
+
+        private Timer prev;
+        private Timer next;
+        private long deadline;
+        private boolean scheduled;
+
+        boolean isScheduled() {
+            return scheduled;
+        }
+
+        long getDeadline() {
+            return deadline;
+        }
+    }
+
+    private final Timer[] slots;
+    private final int mask;
+    private long tick;
+    private int size;
+
+    /**
+     * @param slotCount number of slots, rounded up to a power of two
+     * @param startTick the current tick
+     */
+    TimingWheel(int slotCount, long startTick) {
+        int slots = Integer.highestOneBit(Math.max(2, slotCount) - 1) << 1;
+        this.slots = new Timer[slots];
+        this.mask = slots - 1;
+        this.tick = startTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedules {@code timer} to expire at {@code deadline}, moving it if it was already scheduled.
+     * A deadline that has already passed expires on the next {@link #advance}.
+     */
+    void schedule(Timer timer, long deadline) {
+        if (timer.scheduled) unlink(timer);
+        timer.deadline = Math.max(deadline, tick + 1);
+        int slot = (int) (timer.deadline & mask);
+        timer.prev = null;
+        timer.next = slots[slot];
+        if (timer.next != null) timer.next.prev = timer;
+        slots[slot] = timer;
+        timer.scheduled = true;
+        size++;
+    }
+
+    void cancel(Timer timer) {
+        if (timer.scheduled) unlink(timer);
+    }
+
+    /**
+     * Moves the wheel to {@code now}, handing every timer due by then to {@code expired}.
+     * The callback may reschedule the timer it is given.
+     */
+    void advance(long now, Consumer<Timer> expired) {
+        if (now <= tick) return;
+        // After a full lap every slot has been due at least once
+        long from = now - tick > slots.length ? now - slots.length + 1 : tick + 1;
+        for (long t = from; t <= now; t++) {
+            tick = t;  // timers rescheduled by the callback land after the slot being drained
+            Timer timer = slots[(int) (t & mask)];
+            while (timer != null) {
+                Timer next = timer.next;
+                if (timer.deadline <= now) {
+                    unlink(timer);
+                    expired.accept(timer);
+                }
+                timer = next;
+            }
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            for (Timer timer = slots[i]; timer != null; ) {
+                Timer next = timer.next;
+                timer.prev = timer.next = null;
+                timer.scheduled = false;
+                timer = next;
+            }
+            slots[i] = null;
+        }
+        size = 0;
+    }
+
+    private void unlink(Timer timer) {
+        if (timer.prev != null) timer.prev.next = timer.next;
+        else slots[(int) (timer.deadline & mask)] = timer.next;
+        if (timer.next != null) timer.next.prev = timer.prev;
+        timer.prev = timer.next = null;
+        timer.scheduled = false;
+        size--;
+    }
+}
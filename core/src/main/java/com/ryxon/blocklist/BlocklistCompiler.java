@@ -0,0 +1,242 @@
+package com.ryxon.blocklist;
+
+import com.ryxon.util.IpAddress;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Compiles a text blocklist into the binary {@link RangeFile} format.
+ * <p>
+ * Accepted lines: a single address, a CIDR range ({@code 203.0.113.0/24},
+ * {@code 2001:db8::/32}) or an inclusive {@code start-end} range. Anything after
+ * {@code #} or {@code ;} is a comment, and trailing columns after the first
+ * whitespace are ignored, which covers the common netset and DROP list formats.
+ * Overlapping and adjacent ranges are merged.
+ */
+final class BlocklistCompiler {
+
+    private static final long V4_MAX = 0xFFFFFFFFL;
+
+    // IPv4 ranges packed as start << 32 | end, sign bit flipped while sorting
+    private long[] v4 = new long[1024];
+    private int v4Size;
+    private final List<long[]> v6 = new ArrayList<>();
+    private final long[] parsed = new long[2];
+
+    private BlocklistCompiler() {}
+
+    /**
+     * Reads {@code source} and atomically writes its compiled form to {@code target}.
+     * Lines that cannot be parsed are reported to {@code invalid} and skipped.
+     *
+     * @return number of merged ranges written
+     */
+    static int compile(Path source, Path target, Consumer<String> invalid) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+        BlocklistCompiler compiler = new BlocklistCompiler();
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.ISO_8859_1)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String entry = stripComment(line);
+                if (!entry.isEmpty() && !compiler.add(entry)) invalid.accept(entry);
+            }
+        }
+        int v4Count = compiler.mergeV4();
+        List<long[]> v6Ranges = compiler.mergeV6();
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(RangeFile.MAGIC);
+            out.writeInt(RangeFile.VERSION);
+            out.writeLong(attributes.size());
+            out.writeLong(attributes.lastModifiedTime().toMillis());
+            out.writeInt(v4Count);
+            out.writeInt(v6Ranges.size());
+            for (int i = 0; i < v4Count; i++) {
+                out.writeInt((int) (compiler.v4[i] >>> 32));
+                out.writeInt((int) compiler.v4[i]);
+            }
+            for (long[] range : v6Ranges) {
+                for (long part : range) out.writeLong(part);
+            }
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return v4Count + v6Ranges.size();
+    }
+
+    private static String stripComment(String line) {
+        int end = line.length();
+        for (int i = 0; i < end; i++) {
+            char c = line.charAt(i);
+            if (c == '#' || c == ';') {
+                end = i;
+                break;
+            }
+        }
+        return line.substring(0, end).trim();
+    }
+
+    // ────────────────────────────────────────────────
+    // Parsing
+    // ────────────────────────────────────────────────
+
+    private boolean add(String entry) {
+        int dash = entry.indexOf('-');
+        if (dash >= 0) return addRange(entry, dash);
+
+        int end = 0;
+        while (end < entry.length() && !Character.isWhitespace(entry.charAt(end))) end++;
+        int slash = entry.lastIndexOf('/', end - 1);
+        int addressEnd = slash < 0 ? end : slash;
+        int prefix;
+        try {
+            prefix = slash < 0 ? -1 : Integer.parseInt(entry, slash + 1, end, 10);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+
+        long ipv4 = IpAddress.parseIPv4(entry, 0, addressEnd);
+        if (ipv4 >= 0) {
+            if (prefix > 32 || prefix < -1) return false;
+            int bits = prefix < 0 ? 32 : prefix;
+            long mask = bits == 0 ? 0 : (V4_MAX << (32 - bits)) & V4_MAX;
+            long start = ipv4 & mask;
+            addV4(start, start | (~mask & V4_MAX));
+            return true;
+        }
+
+        if (!IpAddress.parse(entry, 0, addressEnd, parsed)) return false;
+        if (IpAddress.isIPv4(parsed[0], parsed[1])) {
+            // IPv4-mapped literal such as ::ffff:203.0.113.7
+            if (prefix >= 0) return false;
+            long packed = parsed[1] & V4_MAX;
+            addV4(packed, packed);
+            return true;
+        }
+        if (prefix > 128 || prefix < -1) return false;
+
+        int bits = prefix < 0 ? 128 : prefix;
+        long highMask = bits >= 64 ? -1L : bits == 0 ? 0 : -1L << (64 - bits);
+        long lowMask = bits >= 128 ? -1L : bits <= 64 ? 0 : -1L << (128 - bits);
+        long high = parsed[0] & highMask;
+        long low = parsed[1] & lowMask;
+        v6.add(new long[]{high, low, high | ~highMask, low | ~lowMask});
+        return true;
+    }
+
+    private boolean addRange(String entry, int dash) {
+        int from = skipSpaces(entry, 0, dash);
+        int fromEnd = trimEnd(entry, from, dash);
+        int to = skipSpaces(entry, dash + 1, entry.length());
+        int toEnd = trimEnd(entry, to, entry.length());
+
+        long startV4 = IpAddress.parseIPv4(entry, from, fromEnd);
+        long endV4 = IpAddress.parseIPv4(entry, to, toEnd);
+        if (startV4 >= 0 && endV4 >= 0) {
+            addV4(Math.min(startV4, endV4), Math.max(startV4, endV4));
+            return true;
+        }
+
+        if (!IpAddress.parse(entry, from, fromEnd, parsed)) return false;
+        long startHigh = parsed[0];
+        long startLow = parsed[1];
+        if (!IpAddress.parse(entry, to, toEnd, parsed)) return false;
+        if (IpAddress.isIPv4(startHigh, startLow) || IpAddress.isIPv4(parsed[0], parsed[1])) return false;
+        long[] range = {startHigh, startLow, parsed[0], parsed[1]};
+        if (IpAddress.compare(range[0], range[1], range[2], range[3]) > 0) {
+            range = new long[]{range[2], range[3], range[0], range[1]};
+        }
+        v6.add(range);
+        return true;
+    }
+
+    private static int skipSpaces(String s, int from, int to) {
+        while (from < to && Character.isWhitespace(s.charAt(from))) from++;
+        return from;
+    }
+
+    private static int trimEnd(String s, int from, int to) {
+        while (to > from && Character.isWhitespace(s.charAt(to - 1))) to--;
+        return to;
+    }
+
+    // ────────────────────────────────────────────────
+    // Sorting and merging
+    // ────────────────────────────────────────────────
+
+    private void addV4(long start, long end) {
+        if (v4Size == v4.length) v4 = Arrays.copyOf(v4, v4Size * 2);
+        v4[v4Size++] = ((start << 32) | end) ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Sorts and merges the IPv4 ranges in place.
+     *
+     * @return number of merged ranges at the start of {@link #v4}
+     */
+    private int mergeV4() {
+        Arrays.sort(v4, 0, v4Size);
+        int count = 0;
+        long start = -1;
+        long end = -1;
+        for (int i = 0; i < v4Size; i++) {
+            long packed = v4[i] ^ Long.MIN_VALUE;
+            long s = packed >>> 32;
+            long e = packed & V4_MAX;
+            if (start >= 0 && s <= end + 1) {
+                end = Math.max(end, e);
+                continue;
+            }
+            if (start >= 0) v4[count++] = (start << 32) | end;
+            start = s;
+            end = e;
+        }
+        if (start >= 0) v4[count++] = (start << 32) | end;
+        return count;
+    }
+
+    private List<long[]> mergeV6() {
+        v6.sort((a, b) -> IpAddress.compare(a[0], a[1], b[0], b[1]));
+        List<long[]> merged = new ArrayList<>();
+        long[] current = null;
+        for (long[] range : v6) {
+            if (current != null && touches(current, range)) {
+                if (IpAddress.compare(range[2], range[3], current[2], current[3]) > 0) {
+                    current[2] = range[2];
+                    current[3] = range[3];
+                }
+                continue;
+            }
+            if (current != null) merged.add(current);
+            current = range;
+        }
+        if (current != null) merged.add(current);
+        return merged;
+    }
+
+    /**
+     * @return whether {@code next} (starting at or after {@code current}) overlaps or directly follows it
+     */
+    private static boolean touches(long[] current, long[] next) {
+        if (IpAddress.compare(next[0], next[1], current[2], current[3]) <= 0) return true;
+        long low = current[3] + 1;
+        long high = low == 0 ? current[2] + 1 : current[2];
+        return next[0] == high && next[1] == low;
+    }
+}
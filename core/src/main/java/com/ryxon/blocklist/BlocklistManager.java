@@ -0,0 +1,290 @@
+package com.ryxon.blocklist;
+
+import com.ryxon.util.IpAddress;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Loads external blocklists from a directory and keeps them current.
+ * <p>
+ * Each text list is compiled once into a {@link RangeFile} under {@code .compiled/},
+ * named after the source size and modification time so unchanged lists are reused
+ * across restarts. A daemon thread watches the directory and, once changes have
+ * settled, publishes a new immutable set of lists with a single reference swap.
+ * Lookups never wait for a reload and keep using the previous set until then.
+ */
+public final class BlocklistManager implements AutoCloseable {
+
+    private static final String COMPILED_DIR = ".compiled";
+    private static final List<String> EXTENSIONS = List.of(".txt", ".list", ".netset", ".cidr");
+    private static final int MAX_REPORTED_INVALID = 5;
+
+    private final Logger logger;
+    private final AtomicReference<List<RangeFile>> lists = new AtomicReference<>(List.of());
+    private final AtomicLong version = new AtomicLong();
+    private volatile long reloadDelayMillis = 1000;
+
+    // Guarded by this
+    private Path directory;
+    private Thread watcher;
+    private WatchService watchService;
+
+    public BlocklistManager(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Starts, moves or stops watching according to the settings. Returns immediately;
+     * lists are loaded on the watcher thread, so a restart never delays logins.
+     */
+    public synchronized void configure(boolean enabled, Path directory, long reloadDelayMillis) {
+        this.reloadDelayMillis = reloadDelayMillis;
+        if (!enabled) {
+            stopWatcher();
+            this.directory = null;
+            publish(List.of());
+            return;
+        }
+        if (directory.equals(this.directory) && watcher != null) return;
+
+        stopWatcher();
+        this.directory = directory;
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+        } catch (IOException e) {
+            logger.warning("[RyxoNET] Cannot watch blocklist directory " + directory + ": " + e.getMessage());
+            return;
+        }
+        WatchService service = watchService;
+        watcher = new Thread(() -> watch(directory, service), "RyxoNET-Blocklist");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * @return a number that increases every time a different set of lists is published;
+     *         read it before looking up to tag results that may be cached
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * @return the first list containing the address, or {@code null} if none does
+     */
+    public RangeFile match(InetAddress address) {
+        for (RangeFile list : lists.get()) {
+            if (list.contains(address)) return list;
+        }
+        return null;
+    }
+
+    /**
+     * @return the first list containing the address, or {@code null} if none does
+     */
+    public RangeFile match(IpAddress address) {
+        for (RangeFile list : lists.get()) {
+            if (list.contains(address)) return list;
+        }
+        return null;
+    }
+
+    public boolean contains(InetAddress address) {
+        return match(address) != null;
+    }
+
+    /**
+     * @return the currently active lists; never {@code null}
+     */
+    public List<RangeFile> getLists() {
+        return lists.get();
+    }
+
+    public long rangeCount() {
+        long total = 0;
+        for (RangeFile list : lists.get()) total += list.size();
+        return total;
+    }
+
+    @Override
+    public synchronized void close() {
+        stopWatcher();
+    }
+
+    private void stopWatcher() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+            watchService = null;
+        }
+        if (watcher != null) {
+            watcher.interrupt();
+            watcher = null;
+        }
+    }
+
+    // ────────────────────────────────────────────────
+    // Watcher thread
+    // ────────────────────────────────────────────────
+
+    private void watch(Path dir, WatchService service) {
+        try {
+            Files.createDirectories(dir.resolve(COMPILED_DIR));
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            logger.warning("[RyxoNET] Cannot watch blocklist directory " + dir + ": " + e.getMessage());
+            return;
+        }
+
+        rescan(dir);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = service.take();
+                // A download or copy fires many events; wait until the directory has been quiet
+                do {
+                    key.pollEvents();
+                    key.reset();
+                } while ((key = service.poll(reloadDelayMillis, TimeUnit.MILLISECONDS)) != null);
+                rescan(dir);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped by configure() or close()
+        }
+    }
+
+    /**
+     * Brings the active set in line with the directory: reuses lists whose source is
+     * unchanged, compiles new or modified ones and drops deleted ones.
+     */
+    private void rescan(Path dir) {
+        Path compiledDir = dir.resolve(COMPILED_DIR);
+        List<RangeFile> previous = lists.get();
+        Map<String, RangeFile> current = new HashMap<>();
+        for (RangeFile list : previous) current.put(list.getName(), list);
+
+        List<Path> sources = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, BlocklistManager::isListFile)) {
+            stream.forEach(sources::add);
+        } catch (IOException e) {
+            logger.warning("[RyxoNET] Cannot read blocklist directory " + dir + ": " + e.getMessage());
+            return;
+        }
+        sources.sort(null);
+
+        List<RangeFile> next = new ArrayList<>(sources.size());
+        Set<String> keep = new HashSet<>();
+        for (Path source : sources) {
+            String name = source.getFileName().toString();
+            RangeFile existing = current.get(name);
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+                long size = attributes.size();
+                long modified = attributes.lastModifiedTime().toMillis();
+                String compiledName = compiledName(name, size, modified);
+                keep.add(compiledName);
+
+                if (existing != null && existing.getSourceSize() == size && existing.getSourceModified() == modified) {
+                    next.add(existing);
+                    continue;
+                }
+                next.add(load(source, compiledDir.resolve(compiledName), name, size, modified));
+            } catch (IOException e) {
+                logger.warning("[RyxoNET] Could not load blocklist " + name + ": " + e.getMessage());
+                if (existing != null) {
+                    // Keep enforcing the last good version
+                    next.add(existing);
+                    keep.add(compiledName(name, existing.getSourceSize(), existing.getSourceModified()));
+                }
+            }
+        }
+
+        if (!next.equals(previous)) {
+            publish(List.copyOf(next));
+            logger.info("[RyxoNET] Blocklists active: " + next.size() + " file(s), " + rangeCount() + " range(s)");
+        }
+        deleteStale(compiledDir, keep);
+    }
+
+    private void publish(List<RangeFile> next) {
+        lists.set(next);
+        version.incrementAndGet();
+    }
+
+    private RangeFile load(Path source, Path compiled, String name, long size, long modified) throws IOException {
+        if (Files.exists(compiled)) {
+            try {
+                return RangeFile.open(compiled, name);
+            } catch (IOException e) {
+                logger.warning("[RyxoNET] Recompiling damaged blocklist cache for " + name + ": " + e.getMessage());
+            }
+        }
+
+        long start = System.nanoTime();
+        AtomicInteger invalid = new AtomicInteger();
+        int ranges = BlocklistCompiler.compile(source, compiled, entry -> {
+            if (invalid.incrementAndGet() <= MAX_REPORTED_INVALID) {
+                logger.warning("[RyxoNET] Ignoring invalid entry in " + name + ": " + entry);
+            }
+        });
+        RangeFile file = RangeFile.open(compiled, name);
+        if (file.getSourceSize() != size || file.getSourceModified() != modified) {
+            // Written to while compiling; the watcher will pick up the final version
+            logger.fine("[RyxoNET] Blocklist " + name + " changed while compiling");
+        }
+        logger.info("[RyxoNET] Compiled blocklist " + name + ": " + ranges + " range(s) in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms"
+                + (invalid.get() > 0 ? " (" + invalid.get() + " invalid line(s) skipped)" : ""));
+        return file;
+    }
+
+    private void deleteStale(Path compiledDir, Set<String> keep) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(compiledDir)) {
+            for (Path file : stream) {
+                if (keep.contains(file.getFileName().toString())) continue;
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // Still mapped on some platforms; retried on the next rescan
+                }
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static boolean isListFile(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.startsWith(".") || !Files.isRegularFile(path)) return false;
+        for (String extension : EXTENSIONS) {
+            if (name.endsWith(extension)) return true;
+        }
+        return false;
+    }
+
+    private static String compiledName(String name, long size, long modified) {
+        return name + "-" + Long.toHexString(size) + "-" + Long.toHexString(modified) + ".rxbl";
+    }
+}
@@ -0,0 +1,162 @@
+package com.ryxon.blocklist;
+
+import com.ryxon.util.IpAddress;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A compiled blocklist: sorted, non-overlapping address ranges in a memory-mapped
+ * file, binary searched in place. The ranges stay in the page cache rather than on
+ * the heap, so even lists with millions of entries cost only this small object.
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ *   int  magic "RXBL"      int  format version
+ *   long source size       long source last-modified millis
+ *   int  IPv4 range count  int  IPv6 range count
+ *   IPv4 ranges: int start, int end                           (unsigned, inclusive)
+ *   IPv6 ranges: long startHi, long startLo, long endHi, long endLo  (unsigned, inclusive)
+ * </pre>
+ * Lookups only use absolute reads of a read-only buffer and are thread-safe.
+ */
+public final class RangeFile {
+
+    static final int MAGIC = 0x5258424C;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int V4_BYTES = 8;
+    static final int V6_BYTES = 32;
+
+    private final String name;
+    private final ByteBuffer ranges;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final int v4Count;
+    private final int v6Count;
+    private final int v6Offset;
+
+    private RangeFile(String name, ByteBuffer ranges) {
+        this.name = name;
+        this.ranges = ranges;
+        this.sourceSize = ranges.getLong(8);
+        this.sourceModified = ranges.getLong(16);
+        this.v4Count = ranges.getInt(24);
+        this.v6Count = ranges.getInt(28);
+        this.v6Offset = HEADER_BYTES + v4Count * V4_BYTES;
+    }
+
+    /**
+     * Maps a file written by {@link BlocklistCompiler}. The mapping outlives the
+     * channel and is released when this object is garbage collected.
+     *
+     * @param name display name, normally the source file name
+     * @throws IOException if the file cannot be read or is not a complete compiled list
+     */
+    public static RangeFile open(Path file, String name) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) {
+                throw new IOException("Not a compiled blocklist: " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not a compiled blocklist (or an older format): " + file);
+            }
+            long v4 = buffer.getInt(24);
+            long v6 = buffer.getInt(28);
+            if (v4 < 0 || v6 < 0 || HEADER_BYTES + v4 * V4_BYTES + v6 * V6_BYTES != length) {
+                throw new IOException("Truncated compiled blocklist: " + file);
+            }
+            return new RangeFile(name, buffer);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return size in bytes of the text file this list was compiled from
+     */
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    /**
+     * @return last-modified time (epoch millis) of the text file this list was compiled from
+     */
+    public long getSourceModified() {
+        return sourceModified;
+    }
+
+    /**
+     * @return number of merged ranges, IPv4 and IPv6
+     */
+    public int size() {
+        return v4Count + v6Count;
+    }
+
+    // ────────────────────────────────────────────────
+    // Lookups
+    // ────────────────────────────────────────────────
+
+    public boolean contains(InetAddress address) {
+        if (address instanceof Inet4Address) {
+            // Inet4Address.hashCode() is the packed address; avoids cloning getAddress()
+            return containsV4(address.hashCode());
+        }
+        if (address instanceof Inet6Address) {
+            byte[] b = address.getAddress();
+            return containsV6(IpAddress.toLong(b, 0), IpAddress.toLong(b, 8));
+        }
+        return false;
+    }
+
+    public boolean contains(IpAddress address) {
+        return address.isIPv4() ? containsV4(address.toIPv4()) : containsV6(address.getHigh(), address.getLow());
+    }
+
+    public boolean containsV4(int address) {
+        // Find the last range starting at or before the address
+        int lo = 0;
+        int hi = v4Count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Integer.compareUnsigned(ranges.getInt(HEADER_BYTES + mid * V4_BYTES), address) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return hi >= 0 && Integer.compareUnsigned(address, ranges.getInt(HEADER_BYTES + hi * V4_BYTES + 4)) <= 0;
+    }
+
+    public boolean containsV6(long high, long low) {
+        int lo = 0;
+        int hi = v6Count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int at = v6Offset + mid * V6_BYTES;
+            if (IpAddress.compare(ranges.getLong(at), ranges.getLong(at + 8), high, low) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (hi < 0) return false;
+        int at = v6Offset + hi * V6_BYTES;
+        return IpAddress.compare(high, low, ranges.getLong(at + 16), ranges.getLong(at + 24)) <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RangeFile[" + name + ", " + size() + " ranges]";
+    }
+}
@@ -0,0 +1,75 @@
+package com.ryxon.cache;
+
+/**
+ * Approximate access frequencies for TinyLFU admission.
+ * <p>
+ * A count-min sketch of 4-bit counters, sixteen to a {@code long}, with four
+ * hash functions. After a sample of {@code 10 × capacity} increments every
+ * counter is halved, so popularity fades and the sketch adapts to new traffic.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int size = 1;
+        while (size < capacity) size <<= 1;
+        this.table = new long[Math.max(8, size)];
+        this.tableMask = table.length - 1;
+        this.sampleSize = 10 * Math.max(1, capacity);
+    }
+
+    /**
+     * Records one access to the item with the given (well mixed) hash.
+     */
+    void increment(long hash) {
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = spread(hash, i);
+            int index = (int) (h >>> 32) & tableMask;
+            int shift = ((int) h & 15) << 2;
+            long value = table[index];
+            if (((value >>> shift) & 15) != 15) {
+                table[index] = value + (1L << shift);
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * @return the estimated number of recent accesses, 0 to 15
+     */
+    int frequency(long hash) {
+        int frequency = 15;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = spread(hash, i);
+            int index = (int) (h >>> 32) & tableMask;
+            int shift = ((int) h & 15) << 2;
+            frequency = Math.min(frequency, (int) (table[index] >>> shift) & 15);
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private static long spread(long hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,311 @@
+package com.ryxon.cache;
+
+import com.ryxon.util.IpAddress;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache of small integer verdicts keyed by IP address.
+ * <p>
+ * Uses W-TinyLFU: new entries enter a small LRU window (1% of the capacity);
+ * entries leaving the window must beat the main space's eviction victim on
+ * estimated access frequency ({@link FrequencySketch}) to be admitted. The main
+ * space is a segmented LRU, so addresses seen once (a bot sweep) cannot flush
+ * the addresses of regular players.
+ * <p>
+ * All storage is preallocated in flat arrays indexed by node number with an
+ * open-addressing index, so lookups and inserts are constant time and allocate
+ * nothing. Every call carries a <em>stamp</em> identifying the inputs the
+ * verdicts were computed from; a higher stamp clears the cache and lower
+ * (outdated) stamps never see or store entries.
+ */
+public final class VerdictCache {
+
+    /** Returned by {@link #get} when there is no usable entry. */
+    public static final int MISS = -1;
+
+    private static final int NIL = -1;
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private int capacity;
+    private int windowMax;
+    private int protectedMax;
+
+    // Node storage; one spare node so an insert can precede its eviction
+    private long[] keyHigh;
+    private long[] keyLow;
+    private long[] hashes;
+    private long[] expiresAt;
+    private int[] values;
+    private byte[] queues;
+    private int[] prev;
+    private int[] next;
+    private int freeHead;
+    private int count;
+
+    // Open-addressing index: slot -> node + 1, 0 = empty
+    private int[] slots;
+    private int slotMask;
+
+    private final int[] heads = new int[3];
+    private final int[] tails = new int[3];
+    private final int[] sizes = new int[3];
+
+    private FrequencySketch sketch;
+    private long stamp = Long.MIN_VALUE;
+
+    public VerdictCache(int capacity) {
+        allocate(Math.max(2, capacity));
+    }
+
+    /**
+     * Changes the capacity. A different capacity drops all entries.
+     */
+    public synchronized void setCapacity(int capacity) {
+        capacity = Math.max(2, capacity);
+        if (capacity != this.capacity) allocate(capacity);
+    }
+
+    public synchronized int capacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(slots, 0);
+        Arrays.fill(heads, NIL);
+        Arrays.fill(tails, NIL);
+        Arrays.fill(sizes, 0);
+        for (int i = 0; i < next.length; i++) next[i] = i + 1 < next.length ? i + 1 : NIL;
+        freeHead = 0;
+        count = 0;
+    }
+
+    // ────────────────────────────────────────────────
+    // Lookups
+    // ────────────────────────────────────────────────
+
+    /**
+     * @param now current {@link System#nanoTime()}
+     * @return the cached verdict, or {@link #MISS}
+     */
+    public int get(long stamp, IpAddress address, long now) {
+        return get(stamp, address.getHigh(), address.getLow(), now);
+    }
+
+    public synchronized int get(long stamp, long high, long low, long now) {
+        if (!checkStamp(stamp)) return MISS;
+        long hash = IpAddress.hash(high, low);
+        sketch.increment(hash);
+
+        int slot = findSlot(hash, high, low);
+        if (slot < 0) return MISS;
+        int node = slots[slot] - 1;
+        if (expiresAt[node] - now <= 0) {
+            remove(slot, node);
+            return MISS;
+        }
+        onHit(node);
+        return values[node];
+    }
+
+    /**
+     * Stores a verdict for {@code ttlNanos}. Verdicts must not be negative.
+     *
+     * @param now current {@link System#nanoTime()}
+     */
+    public void put(long stamp, IpAddress address, int verdict, long ttlNanos, long now) {
+        put(stamp, address.getHigh(), address.getLow(), verdict, ttlNanos, now);
+    }
+
+    public synchronized void put(long stamp, long high, long low, int verdict, long ttlNanos, long now) {
+        if (ttlNanos <= 0 || !checkStamp(stamp)) return;
+        long hash = IpAddress.hash(high, low);
+        int slot = findSlot(hash, high, low);
+        if (slot >= 0) {
+            int node = slots[slot] - 1;
+            values[node] = verdict;
+            expiresAt[node] = now + ttlNanos;
+            return;
+        }
+
+        int node = freeHead;
+        freeHead = next[node];
+        keyHigh[node] = high;
+        keyLow[node] = low;
+        hashes[node] = hash;
+        values[node] = verdict;
+        expiresAt[node] = now + ttlNanos;
+        insertSlot(node);
+        link(node, WINDOW);
+        count++;
+        evict();
+    }
+
+    /**
+     * Adds verdict bits learned elsewhere to the entry of {@code address}, keeping
+     * the bits it already has. Stored under the current stamp, so it is dropped
+     * with everything else when the inputs change; does nothing before the first
+     * stamp is seen.
+     *
+     * @param now current {@link System#nanoTime()}
+     */
+    public synchronized void merge(IpAddress address, int verdict, long ttlNanos, long now) {
+        if (ttlNanos <= 0 || stamp == Long.MIN_VALUE) return;
+        int slot = findSlot(IpAddress.hash(address.getHigh(), address.getLow()), address.getHigh(), address.getLow());
+        if (slot >= 0) {
+            int node = slots[slot] - 1;
+            if (expiresAt[node] - now > 0) {
+                values[node] |= verdict;
+                if (expiresAt[node] - (now + ttlNanos) > 0) expiresAt[node] = now + ttlNanos;
+                return;
+            }
+        }
+        put(stamp, address.getHigh(), address.getLow(), verdict, ttlNanos, now);
+    }
+
+    /**
+     * Accepts a stamp that is current or newer; a newer one invalidates everything.
+     */
+    private boolean checkStamp(long stamp) {
+        if (stamp == this.stamp) return true;
+        if (stamp < this.stamp) return false;
+        this.stamp = stamp;
+        clear();
+        return true;
+    }
+
+    // ────────────────────────────────────────────────
+    // W-TinyLFU policy
+    // ────────────────────────────────────────────────
+
+    private void onHit(int node) {
+        switch (queues[node]) {
+            case WINDOW:
+            case PROTECTED:
+                unlink(node);
+                link(node, queues[node]);
+                break;
+            default:
+                // Second access in the main space earns a protected spot
+                unlink(node);
+                link(node, PROTECTED);
+                if (sizes[PROTECTED] > protectedMax) {
+                    int demoted = tails[PROTECTED];
+                    unlink(demoted);
+                    link(demoted, PROBATION);
+                }
+                break;
+        }
+    }
+
+    private void evict() {
+        int candidate = NIL;
+        while (sizes[WINDOW] > windowMax) {
+            candidate = tails[WINDOW];
+            unlink(candidate);
+            link(candidate, PROBATION);
+        }
+        while (count > capacity) {
+            int victim = tails[PROBATION];
+            if (victim == candidate) victim = prev[victim];
+            if (victim == NIL) victim = tails[PROTECTED];
+            if (victim == NIL) victim = tails[WINDOW];
+
+            int evicted = victim;
+            if (candidate != NIL) {
+                // Admit the newcomer only if it is more popular than what it would replace
+                boolean admit = victim != NIL && sketch.frequency(hashes[candidate]) > sketch.frequency(hashes[victim]);
+                if (!admit) evicted = candidate;
+                candidate = NIL;
+            }
+            remove(findSlot(hashes[evicted], keyHigh[evicted], keyLow[evicted]), evicted);
+        }
+    }
+
+    private void remove(int slot, int node) {
+        deleteSlot(slot);
+        unlink(node);
+        next[node] = freeHead;
+        freeHead = node;
+        count--;
+    }
+
+    // ────────────────────────────────────────────────
+    // Queues (doubly linked lists over node indexes, head = most recent)
+    // ────────────────────────────────────────────────
+
+    private void link(int node, int queue) {
+        queues[node] = (byte) queue;
+        prev[node] = NIL;
+        next[node] = heads[queue];
+        if (heads[queue] != NIL) prev[heads[queue]] = node;
+        heads[queue] = node;
+        if (tails[queue] == NIL) tails[queue] = node;
+        sizes[queue]++;
+    }
+
+    private void unlink(int node) {
+        int queue = queues[node];
+        if (prev[node] != NIL) next[prev[node]] = next[node];
+        else heads[queue] = next[node];
+        if (next[node] != NIL) prev[next[node]] = prev[node];
+        else tails[queue] = prev[node];
+        sizes[queue]--;
+    }
+
+    // ────────────────────────────────────────────────
+    // Index (linear probing with backward-shift deletion)
+    // ────────────────────────────────────────────────
+
+    private int findSlot(long hash, long high, long low) {
+        for (int slot = (int) hash & slotMask; ; slot = (slot + 1) & slotMask) {
+            int node = slots[slot] - 1;
+            if (node < 0) return NIL;
+            if (keyLow[node] == low && keyHigh[node] == high) return slot;
+        }
+    }
+
+    private void insertSlot(int node) {
+        int slot = (int) hashes[node] & slotMask;
+        while (slots[slot] != 0) slot = (slot + 1) & slotMask;
+        slots[slot] = node + 1;
+    }
+
+    private void deleteSlot(int hole) {
+        for (int slot = (hole + 1) & slotMask; slots[slot] != 0; slot = (slot + 1) & slotMask) {
+            int home = (int) hashes[slots[slot] - 1] & slotMask;
+            // Move the entry back if the hole lies between its home slot and its current slot
+            if (((slot - home) & slotMask) >= ((slot - hole) & slotMask)) {
+                slots[hole] = slots[slot];
+                hole = slot;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.windowMax = Math.max(1, capacity / 100);
+        this.protectedMax = (capacity - windowMax) * 4 / 5;
+        int nodes = capacity + 1;
+        keyHigh = new long[nodes];
+        keyLow = new long[nodes];
+        hashes = new long[nodes];
+        expiresAt = new long[nodes];
+        values = new int[nodes];
+        queues = new byte[nodes];
+        prev = new int[nodes];
+        next = new int[nodes];
+        int slotCount = Integer.highestOneBit(nodes) << 2;  // load factor <= 0.5
+        slots = new int[slotCount];
+        slotMask = slotCount - 1;
+        sketch = new FrequencySketch(capacity);
+        clear();
+    }
+}
@@ -0,0 +1,32 @@
+package com.ryxon.check;
+
+/**
+ * The individual checks a join can fail.
+ */
+public enum CheckType {
+    BLOCKLIST(true),
+    WHITELIST(true),
+    PROXY(true),
+    HOSTNAME(true),
+    /** Connection rate limits, enforced during the handshake. */
+    RATE_LIMIT(false),
+    /** Joins refused while attack mode only admits known addresses. */
+    ATTACK_MODE(false),
+    /** Joins refused while the address is temporarily banned for repeated failures. */
+    TEMP_BAN(false),
+    /** Joins from a denied country or autonomous system, checked in every mode. */
+    GEO(false);
+
+    private final boolean ruleCheck;
+
+    CheckType(boolean ruleCheck) {
+        this.ruleCheck = ruleCheck;
+    }
+
+    /**
+     * @return whether the check can be named in a security rule
+     */
+    public boolean isRuleCheck() {
+        return ruleCheck;
+    }
+}
@@ -0,0 +1,325 @@
+package com.ryxon.check;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable boolean combination of checks, such as {@code whitelist OR (proxy AND hostname)}.
+ * <p>
+ * Rules are parsed from the configuration, then {@link #prune pruned} of disabled
+ * checks and {@link #sorted sorted} cheapest-first into an evaluation plan.
+ * {@link #evaluate} short-circuits, so operands after the first definitive
+ * result are never run.
+ */
+public abstract class Rule {
+
+    /** A rule without checks; lets every join through. */
+    public static final Rule ALLOW_ALL = new Rule() {
+        @Override
+        public boolean evaluate(Predicate<CheckType> check) {
+            return true;
+        }
+
+        @Override
+        Rule pruneOrNull(Predicate<CheckType> enabled) {
+            return null;
+        }
+
+        @Override
+        public Rule sorted(ToIntFunction<CheckType> cost) {
+            return this;
+        }
+
+        @Override
+        public int cost(ToIntFunction<CheckType> cost) {
+            return 0;
+        }
+
+        @Override
+        void collect(Set<CheckType> checks) {
+        }
+
+        @Override
+        public String toString() {
+            return "none";
+        }
+    };
+
+    private Rule() {}
+
+    public static Rule check(CheckType type) {
+        return new Check(type);
+    }
+
+    public static Rule all(Rule... operands) {
+        return operands.length == 1 ? operands[0] : new Combination(true, operands);
+    }
+
+    public static Rule any(Rule... operands) {
+        return operands.length == 1 ? operands[0] : new Combination(false, operands);
+    }
+
+    /**
+     * Parses an expression of check names joined by {@code AND} / {@code OR}
+     * (or {@code &&} / {@code ||}), with parentheses. AND binds tighter than OR
+     * and keywords are case-insensitive.
+     *
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public static Rule parse(String expression) {
+        return new Parser(expression).parse();
+    }
+
+    /**
+     * Runs the rule, asking {@code check} for the outcome of each check it reaches.
+     *
+     * @return whether the rule is satisfied
+     */
+    public abstract boolean evaluate(Predicate<CheckType> check);
+
+    /**
+     * Removes checks that are not enabled. A combination left without operands is
+     * dropped from its parent; if nothing is left the result is {@link #ALLOW_ALL}.
+     */
+    public Rule prune(Predicate<CheckType> enabled) {
+        Rule pruned = pruneOrNull(enabled);
+        return pruned == null ? ALLOW_ALL : pruned;
+    }
+
+    abstract Rule pruneOrNull(Predicate<CheckType> enabled);
+
+    /**
+     * @return an equivalent rule whose operands run in ascending order of cost
+     */
+    public abstract Rule sorted(ToIntFunction<CheckType> cost);
+
+    /**
+     * @return the cost of running every check in this rule
+     */
+    public abstract int cost(ToIntFunction<CheckType> cost);
+
+    /**
+     * @return whether the rule can only pass if {@code type} passes
+     */
+    public boolean requires(CheckType type) {
+        return !evaluate(check -> check != type);
+    }
+
+    /**
+     * @return every check referenced by this rule
+     */
+    public Set<CheckType> checks() {
+        Set<CheckType> checks = EnumSet.noneOf(CheckType.class);
+        collect(checks);
+        return checks;
+    }
+
+    abstract void collect(Set<CheckType> checks);
+
+    // ────────────────────────────────────────────────
+    // Nodes
+    // ────────────────────────────────────────────────
+
+    private static final class Check extends Rule {
+
+        private final CheckType type;
+
+        Check(CheckType type) {
+            this.type = type;
+        }
+
+        @Override
+        public boolean evaluate(Predicate<CheckType> check) {
+            return check.test(type);
+        }
+
+        @Override
+        Rule pruneOrNull(Predicate<CheckType> enabled) {
+            return enabled.test(type) ? this : null;
+        }
+
+        @Override
+        public Rule sorted(ToIntFunction<CheckType> cost) {
+            return this;
+        }
+
+        @Override
+        public int cost(ToIntFunction<CheckType> cost) {
+            return cost.applyAsInt(type);
+        }
+
+        @Override
+        void collect(Set<CheckType> checks) {
+            checks.add(type);
+        }
+
+        @Override
+        public String toString() {
+            return type.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final class Combination extends Rule {
+
+        private final boolean all;
+        private final Rule[] operands;
+
+        Combination(boolean all, Rule[] operands) {
+            this.all = all;
+            // Flatten nested combinations of the same kind: a AND (b AND c) -> a AND b AND c
+            List<Rule> flat = new ArrayList<>();
+            for (Rule operand : operands) {
+                if (operand instanceof Combination && ((Combination) operand).all == all) {
+                    flat.addAll(Arrays.asList(((Combination) operand).operands));
+                } else {
+                    flat.add(operand);
+                }
+            }
+            this.operands = flat.toArray(new Rule[0]);
+        }
+
+        @Override
+        public boolean evaluate(Predicate<CheckType> check) {
+            for (Rule operand : operands) {
+                // AND stops at the first failure, OR at the first success
+                if (operand.evaluate(check) != all) return !all;
+            }
+            return all;
+        }
+
+        @Override
+        Rule pruneOrNull(Predicate<CheckType> enabled) {
+            List<Rule> kept = new ArrayList<>(operands.length);
+            for (Rule operand : operands) {
+                Rule pruned = operand.pruneOrNull(enabled);
+                if (pruned != null) kept.add(pruned);
+            }
+            if (kept.isEmpty()) return null;
+            Rule[] array = kept.toArray(new Rule[0]);
+            return all ? all(array) : any(array);
+        }
+
+        @Override
+        public Rule sorted(ToIntFunction<CheckType> cost) {
+            Rule[] sorted = new Rule[operands.length];
+            for (int i = 0; i < operands.length; i++) sorted[i] = operands[i].sorted(cost);
+            // Stable, so operands of equal cost keep the configured order
+            Arrays.sort(sorted, Comparator.comparingInt(operand -> operand.cost(cost)));
+            return new Combination(all, sorted);
+        }
+
+        @Override
+        public int cost(ToIntFunction<CheckType> cost) {
+            int total = 0;
+            for (Rule operand : operands) total += operand.cost(cost);
+            return total;
+        }
+
+        @Override
+        void collect(Set<CheckType> checks) {
+            for (Rule operand : operands) operand.collect(checks);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Rule operand : operands) {
+                if (sb.length() > 0) sb.append(all ? " AND " : " OR ");
+                boolean group = operand instanceof Combination;
+                if (group) sb.append('(');
+                sb.append(operand);
+                if (group) sb.append(')');
+            }
+            return sb.toString();
+        }
+    }
+
+    // ────────────────────────────────────────────────
+    // Parser
+    // ────────────────────────────────────────────────
+
+    /**
+     * Recursive descent over: {@code or := and (OR and)*; and := atom (AND atom)*; atom := name | '(' or ')'}.
+     */
+    private static final class Parser {
+
+        private final String input;
+        private int pos;
+
+        Parser(String input) {
+            this.input = input;
+        }
+
+        Rule parse() {
+            Rule rule = parseOr();
+            skipSpaces();
+            if (pos < input.length()) throw error("Unexpected '" + input.charAt(pos) + "'");
+            return rule;
+        }
+
+        private Rule parseOr() {
+            List<Rule> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (accept("||") || acceptKeyword("OR")) operands.add(parseAnd());
+            return any(operands.toArray(new Rule[0]));
+        }
+
+        private Rule parseAnd() {
+            List<Rule> operands = new ArrayList<>();
+            operands.add(parseAtom());
+            while (accept("&&") || acceptKeyword("AND")) operands.add(parseAtom());
+            return all(operands.toArray(new Rule[0]));
+        }
+
+        private Rule parseAtom() {
+            if (accept("(")) {
+                Rule rule = parseOr();
+                if (!accept(")")) throw error("Missing ')'");
+                return rule;
+            }
+            String word = word();
+            if (word.isEmpty()) throw error(pos < input.length() ? "Unexpected '" + input.charAt(pos) + "'" : "Unexpected end");
+            for (CheckType type : CheckType.values()) {
+                if (type.isRuleCheck() && type.name().equalsIgnoreCase(word)) return check(type);
+            }
+            throw error("Unknown check '" + word + "'");
+        }
+
+        private boolean accept(String token) {
+            skipSpaces();
+            if (!input.startsWith(token, pos)) return false;
+            pos += token.length();
+            return true;
+        }
+
+        private boolean acceptKeyword(String keyword) {
+            skipSpaces();
+            int start = pos;
+            if (word().equalsIgnoreCase(keyword)) return true;
+            pos = start;
+            return false;
+        }
+
+        private String word() {
+            skipSpaces();
+            int start = pos;
+            while (pos < input.length() && (Character.isLetterOrDigit(input.charAt(pos)) || input.charAt(pos) == '_')) pos++;
+            return input.substring(start, pos);
+        }
+
+        private void skipSpaces() {
+            while (pos < input.length() && Character.isWhitespace(input.charAt(pos))) pos++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + (pos + 1) + " in \"" + input + "\"");
+        }
+    }
+}
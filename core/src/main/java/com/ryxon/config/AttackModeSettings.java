@@ -0,0 +1,16 @@
+package com.ryxon.config;
+
+/**
+ * The {@code attack-mode} section.
+ *
+ * @param windowSeconds   length of the sliding window the join rate is averaged over
+ * @param cooldownSeconds how long the join rate must stay below the exit rate before attack mode ends
+ */
+public record AttackModeSettings(boolean enabled, int windowSeconds,
+                                 double enterJoinsPerSecond, double exitJoinsPerSecond, int cooldownSeconds,
+                                 int pingTtlSeconds, int verifiedTtlSeconds, int tableSize, String kickMessage) {
+
+    public static final AttackModeSettings DEFAULTS = new AttackModeSettings(false, 10,
+            20.0, 5.0, 60,
+            300, 86400, 65536, "§eThe server is under heavy load. Refresh your server list, then join again.");
+}
@@ -0,0 +1,13 @@
+package com.ryxon.config;
+
+/**
+ * The {@code audit-journal} section.
+ *
+ * @param segmentRecords records per journal segment file (80 bytes each)
+ * @param maxSegments    journal segments kept; the oldest is deleted when a new one starts
+ * @param bufferSize     pending journal records; read once at startup
+ */
+public record AuditSettings(boolean enabled, String directory, int segmentRecords, int maxSegments, int bufferSize) {
+
+    public static final AuditSettings DEFAULTS = new AuditSettings(true, "audit", 65536, 16, 16384);
+}
@@ -0,0 +1,13 @@
+package com.ryxon.config;
+
+/**
+ * The {@code blocklists} section.
+ *
+ * @param enabled           whether joins from listed addresses are rejected in every mode
+ * @param directory         folder holding external blocklist files, relative to the plugin data folder
+ * @param reloadDelayMillis how long the folder must stay unchanged before it is reloaded
+ */
+public record BlocklistSettings(boolean enabled, String directory, long reloadDelayMillis) {
+
+    public static final BlocklistSettings DEFAULTS = new BlocklistSettings(false, "blocklists", 1000);
+}
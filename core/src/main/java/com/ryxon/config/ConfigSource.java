@@ -0,0 +1,29 @@
+package com.ryxon.config;
+
+import java.util.List;
+
+/**
+ * Read access to a parsed {@code config.yml}, addressed by dotted paths such as
+ * {@code "whitelist.ips"}. Each platform adapts its own configuration API to it,
+ * so the same {@link PolicyCompiler} runs on the backend and on the proxy.
+ */
+public interface ConfigSource {
+
+    /**
+     * @return the value at {@code path} as a string, or {@code def} if it is missing or not a scalar
+     */
+    String getString(String path, String def);
+
+    boolean getBoolean(String path, boolean def);
+
+    int getInt(String path, int def);
+
+    long getLong(String path, long def);
+
+    double getDouble(String path, double def);
+
+    /**
+     * @return the list at {@code path}, or an empty list if it is missing
+     */
+    List<String> getStringList(String path);
+}
@@ -0,0 +1,10 @@
+package com.ryxon.config;
+
+/**
+ * The {@code hostname.reverse-dns} section.
+ */
+public record DnsSettings(long timeoutMillis, int cacheSize, long positiveTtlSeconds, long negativeTtlSeconds,
+                          int threads) {
+
+    public static final DnsSettings DEFAULTS = new DnsSettings(1500, 10000, 600, 60, 4);
+}
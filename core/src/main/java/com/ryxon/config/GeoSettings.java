@@ -0,0 +1,23 @@
+package com.ryxon.config;
+
+import com.ryxon.geo.GeoRules;
+
+import java.util.Objects;
+
+/**
+ * The {@code geo-filter} section.
+ *
+ * @param directory the database directory, relative to the plugin folder
+ * @param rules     the compiled country and ASN rules; never {@code null}
+ */
+public record GeoSettings(boolean enabled, String directory, String countryDatabase, String asnDatabase,
+                          long reloadDelayMillis, GeoRules rules, String kickMessage) {
+
+    public static final GeoSettings DEFAULTS = new GeoSettings(false, "geoip",
+            "GeoLite2-Country.mmdb", "GeoLite2-ASN.mmdb",
+            1000, GeoRules.allowAll(), "§cConnections from your region are not allowed.");
+
+    public GeoSettings {
+        Objects.requireNonNull(rules, "rules");
+    }
+}
@@ -0,0 +1,22 @@
+package com.ryxon.config;
+
+/**
+ * The {@code check-guards} section.
+ *
+ * @param enabled          whether circuit breakers guard the checks that wait on outside services
+ * @param loginBudgetMillis the most time all guarded checks of one login may take together
+ * @param hostnameFailOpen whether joins the reverse DNS check could not decide are admitted
+ * @param proxyFailOpen    whether joins the proxy check could not decide are admitted
+ */
+public record GuardSettings(boolean enabled, boolean virtualThreads, long loginBudgetMillis,
+                            int windowSeconds, int minimumCalls, int failureRatePercent,
+                            int openSeconds, int halfOpenCalls,
+                            long hostnameSlowMillis, boolean hostnameFailOpen,
+                            long proxyDeadlineMillis, long proxySlowMillis, boolean proxyFailOpen) {
+
+    public static final GuardSettings DEFAULTS = new GuardSettings(true, true, 3000,
+            30, 20, 50,
+            30, 5,
+            500, false,
+            250, 50, false);
+}
@@ -0,0 +1,18 @@
+package com.ryxon.config;
+
+/**
+ * The {@code hostname} section, apart from the allowed hostnames, which
+ * {@link SecurityPolicy} compiles into an index.
+ *
+ * @param enabled           whether joins must use an allowed hostname
+ * @param useReverseDns     whether the joining address must also resolve to an allowed hostname
+ * @param rejectAtHandshake whether handshake-host enforcement should drop bad joins before login
+ * @param serverPublicIp    this server's public IP; joins typed as it are rejected like any other IP literal
+ * @param kickMessage       shown to players who used a hostname that is not allowed
+ */
+public record HostnameSettings(boolean enabled, boolean useReverseDns, boolean rejectAtHandshake,
+                               String serverPublicIp, String kickMessage) {
+
+    public static final HostnameSettings DEFAULTS =
+            new HostnameSettings(false, true, true, "", "§cPlease connect using the official domain");
+}
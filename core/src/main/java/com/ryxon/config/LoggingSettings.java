@@ -0,0 +1,13 @@
+package com.ryxon.config;
+
+import java.util.logging.Level;
+
+/**
+ * The {@code logging} section.
+ */
+public record LoggingSettings(boolean blockedConnections, boolean allowedConnections, boolean hostnameDetails,
+                              Level level, int bufferSize, int maxLinesPerInterval, long summaryIntervalSeconds) {
+
+    public static final LoggingSettings DEFAULTS = new LoggingSettings(true, false, true,
+            Level.INFO, 8192, 20, 5);
+}
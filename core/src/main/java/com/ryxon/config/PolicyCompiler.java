@@ -0,0 +1,297 @@
+package com.ryxon.config;
+
+import com.ryxon.check.CheckType;
+import com.ryxon.check.Rule;
+import com.ryxon.geo.GeoRules;
+import com.ryxon.logging.ConnectionLogger;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Turns a parsed {@code config.yml} into a {@link SecurityPolicy}.
+ * <p>
+ * Shared by every platform: the backend plugin and the proxy read the same
+ * sections with the same defaults and bounds, and only differ in which checks
+ * they run.
+ */
+public final class PolicyCompiler {
+
+    private static final String COLOR_CODES = "0123456789AaBbCcDdEeFfKkLlMmNnOoRrXx";
+
+    private PolicyCompiler() {}  // Prevent instantiation
+
+    /**
+     * Compiles a configuration into a policy snapshot. Invalid values fall back to
+     * their defaults with a warning.
+     */
+    public static SecurityPolicy compile(ConfigSource config, Logger logger) {
+        SecurityPolicy.Builder builder = SecurityPolicy.builder();
+
+        // Security mode
+        String modeStr = config.getString("security-mode", "WHITELIST_ONLY")
+                .trim().toUpperCase(Locale.ROOT);
+        try {
+            builder.securityMode(SecurityMode.valueOf(modeStr));
+        } catch (IllegalArgumentException e) {
+            builder.securityMode(SecurityMode.WHITELIST_ONLY);
+            logger.warning("Invalid security-mode: " + modeStr + " → fallback to WHITELIST_ONLY");
+        }
+        String ruleStr = config.getString("security-rule", "").trim();
+        if (modeStr.equals(SecurityMode.CUSTOM.name())) {
+            try {
+                builder.securityRule(Rule.parse(ruleStr));
+            } catch (IllegalArgumentException e) {
+                logger.warning("Invalid security-rule: " + e.getMessage() + " → requiring every enabled check");
+            }
+        }
+
+        // Whitelist
+        boolean whitelistEnabled = config.getBoolean("whitelist.enabled", true);
+        List<String> whitelistedIps = config.getStringList("whitelist.ips");
+        builder.whitelistEnabled(whitelistEnabled)
+                .whitelistedIps(whitelistedIps);
+        if (whitelistEnabled && whitelistedIps.isEmpty()) {
+            logger.warning("Whitelist is enabled but contains no IP addresses.");
+        }
+
+        // Proxy protection
+        boolean proxyProtectionEnabled = config.getBoolean("proxy-protection.enabled", false);
+        String passphrase = config.getString("proxy-protection.passphrase", "").trim();
+        if (proxyProtectionEnabled && (passphrase.isEmpty() || passphrase.contains("change_to"))) {
+            logger.severe("Proxy passphrase is empty or still default! Proxy protection is NOT secure.");
+            proxyProtectionEnabled = false;
+        }
+        builder.proxy(new ProxySettings(proxyProtectionEnabled, passphrase,
+                Math.max(60, config.getInt("proxy-protection.session-expiry-seconds", 600)),
+                Math.max(16, config.getInt("proxy-protection.session-cache-size", 10000))));
+
+        // Hostname protection
+        builder.allowedHostnames(config.getStringList("hostname.allowed-hostnames"))
+                .hostname(new HostnameSettings(
+                        config.getBoolean("hostname.enabled", false),
+                        config.getBoolean("hostname.use-reverse-dns", true),
+                        config.getBoolean("hostname.reject-at-handshake", true),
+                        config.getString("hostname.server-public-ip", "").trim(),
+                        colors(config.getString("hostname.kick-message",
+                                "§cPlease connect using the official domain: §6ryxo.space"))));
+
+        // External blocklists
+        builder.blocklists(new BlocklistSettings(
+                config.getBoolean("blocklists.enabled", false),
+                config.getString("blocklists.directory", "blocklists").trim(),
+                Math.max(100, config.getLong("blocklists.reload-delay-millis", 1000))));
+
+        // Connection throttle
+        builder.throttle(new ThrottleSettings(
+                config.getBoolean("connection-throttle.enabled", false),
+                Math.max(0, config.getDouble("connection-throttle.per-address.per-second", 1.0)),
+                Math.max(1, config.getInt("connection-throttle.per-address.burst", 5)),
+                Math.max(0, config.getDouble("connection-throttle.per-subnet.per-second", 5.0)),
+                Math.max(1, config.getInt("connection-throttle.per-subnet.burst", 20)),
+                Math.max(0, Math.min(32, config.getInt("connection-throttle.per-subnet.ipv4-prefix", 24))),
+                Math.max(0, Math.min(128, config.getInt("connection-throttle.per-subnet.ipv6-prefix", 48))),
+                Math.max(0, config.getDouble("connection-throttle.global-per-second", 200.0)),
+                Math.max(64, config.getInt("connection-throttle.table-size", 65536)),
+                config.getBoolean("connection-throttle.exempt-local-addresses", true),
+                colors(config.getString("connection-throttle.kick-message",
+                        "§cYou are connecting too fast. Please wait a moment."))));
+
+        // Attack mode
+        double enterRate = Math.max(1, config.getDouble("attack-mode.enter-joins-per-second", 20.0));
+        builder.attackMode(new AttackModeSettings(
+                config.getBoolean("attack-mode.enabled", false),
+                Math.max(1, Math.min(300, config.getInt("attack-mode.window-seconds", 10))),
+                enterRate,
+                Math.max(0, Math.min(enterRate, config.getDouble("attack-mode.exit-joins-per-second", 5.0))),
+                Math.max(0, config.getInt("attack-mode.cooldown-seconds", 60)),
+                Math.max(1, config.getInt("attack-mode.ping-ttl-seconds", 300)),
+                Math.max(0, config.getInt("attack-mode.verified-ttl-seconds", 86400)),
+                Math.max(64, config.getInt("attack-mode.table-size", 65536)),
+                colors(config.getString("attack-mode.kick-message",
+                        "§eThe server is under heavy load. Refresh your server list, then join again."))));
+
+        // Temporary bans
+        builder.tempBans(new TempBanSettings(
+                config.getBoolean("temp-bans.enabled", false),
+                Math.max(1, config.getInt("temp-bans.max-failures", 5)),
+                Math.max(1, config.getInt("temp-bans.find-time-seconds", 600)),
+                Math.max(1, config.getInt("temp-bans.ban-seconds", 60)),
+                Math.max(1, config.getInt("temp-bans.max-ban-seconds", 86400)),
+                Math.max(1, config.getInt("temp-bans.forget-after-seconds", 86400)),
+                Math.max(8, Math.min(32, config.getInt("temp-bans.ipv4-prefix", 32))),
+                Math.max(16, Math.min(128, config.getInt("temp-bans.ipv6-prefix", 64))),
+                colors(config.getString("temp-bans.kick-message",
+                        "§cToo many failed join attempts. Try again in %time%."))));
+
+        // Audit journal
+        builder.audit(new AuditSettings(
+                config.getBoolean("audit-journal.enabled", true),
+                config.getString("audit-journal.directory", "audit").trim(),
+                Math.max(1024, config.getInt("audit-journal.segment-records", 65536)),
+                Math.max(1, config.getInt("audit-journal.max-segments", 16)),
+                Math.max(64, config.getInt("audit-journal.buffer-size", 16384))));
+
+        // GeoIP filter
+        builder.geo(new GeoSettings(
+                config.getBoolean("geo-filter.enabled", false),
+                config.getString("geo-filter.directory", "geoip").trim(),
+                config.getString("geo-filter.country-database", "GeoLite2-Country.mmdb").trim(),
+                config.getString("geo-filter.asn-database", "GeoLite2-ASN.mmdb").trim(),
+                Math.max(100, config.getLong("geo-filter.reload-delay-millis", 1000)),
+                GeoRules.compile(config.getStringList("geo-filter.countries.allow"),
+                        config.getStringList("geo-filter.countries.deny"),
+                        config.getStringList("geo-filter.asns.allow"),
+                        config.getStringList("geo-filter.asns.deny"),
+                        config.getBoolean("geo-filter.allow-unknown", true),
+                        invalid -> logger.warning("Ignoring invalid geo-filter entry: " + invalid)),
+                colors(config.getString("geo-filter.kick-message",
+                        "§cConnections from your region are not allowed."))));
+
+        // Per-address verdict cache
+        builder.verdictCache(new VerdictCacheSettings(
+                config.getBoolean("verdict-cache.enabled", true),
+                Math.max(16, config.getInt("verdict-cache.size", 10000)),
+                Math.max(0, config.getLong("verdict-cache.allow-ttl-seconds", 300)),
+                Math.max(0, config.getLong("verdict-cache.deny-ttl-seconds", 30))));
+
+        // State shared with other nodes
+        String sharedType = config.getString("shared-state.type", "none").trim().toLowerCase(Locale.ROOT);
+        if (!sharedType.equals("none") && !sharedType.equals("local") && !sharedType.equals("redis")) {
+            logger.warning("Invalid shared-state.type: " + sharedType + " → fallback to none");
+            sharedType = "none";
+        }
+        String cluster = config.getString("shared-state.cluster", "ryxonet").trim();
+        builder.sharedState(new SharedStateSettings(sharedType,
+                cluster.isEmpty() ? "ryxonet" : cluster,
+                config.getString("shared-state.node-id", "").trim(),
+                config.getBoolean("shared-state.share.bans", true),
+                config.getBoolean("shared-state.share.verdicts", true),
+                config.getBoolean("shared-state.share.attack-mode", true),
+                config.getString("shared-state.redis.host", "127.0.0.1").trim(),
+                Math.max(1, Math.min(65535, config.getInt("shared-state.redis.port", 6379))),
+                config.getString("shared-state.redis.password", ""),
+                Math.max(0, config.getInt("shared-state.redis.database", 0)),
+                Math.max(100, config.getLong("shared-state.redis.timeout-millis", 2000)),
+                Math.max(10, config.getLong("shared-state.flush-interval-millis", 100)),
+                Math.max(1, config.getInt("shared-state.batch-size", 256)),
+                Math.max(64, config.getInt("shared-state.queue-size", 8192))));
+
+        // Reverse DNS
+        builder.dns(new DnsSettings(
+                Math.max(50, config.getLong("hostname.reverse-dns.timeout-millis", 1500)),
+                Math.max(16, config.getInt("hostname.reverse-dns.cache-size", 10000)),
+                Math.max(0, config.getLong("hostname.reverse-dns.positive-ttl-seconds", 600)),
+                Math.max(0, config.getLong("hostname.reverse-dns.negative-ttl-seconds", 60)),
+                Math.max(1, config.getInt("hostname.reverse-dns.threads", 4))));
+
+        // Deadlines and circuit breakers
+        builder.guards(new GuardSettings(
+                config.getBoolean("check-guards.enabled", true),
+                config.getBoolean("check-guards.virtual-threads", true),
+                Math.max(50, config.getLong("check-guards.login-budget-millis", 3000)),
+                Math.max(1, Math.min(300, config.getInt("check-guards.window-seconds", 30))),
+                Math.max(1, config.getInt("check-guards.minimum-calls", 20)),
+                Math.max(1, Math.min(100, config.getInt("check-guards.failure-rate-percent", 50))),
+                Math.max(1, config.getInt("check-guards.open-seconds", 30)),
+                Math.max(1, config.getInt("check-guards.half-open-calls", 5)),
+                Math.max(1, config.getLong("check-guards.hostname.slow-call-millis", 500)),
+                failOpen(config, "check-guards.hostname.on-failure", logger),
+                Math.max(1, config.getLong("check-guards.proxy.deadline-millis", 250)),
+                Math.max(1, config.getLong("check-guards.proxy.slow-call-millis", 50)),
+                failOpen(config, "check-guards.proxy.on-failure", logger)));
+
+        // Logging
+        builder.logging(new LoggingSettings(
+                config.getBoolean("logging.log-blocked-connections", true),
+                config.getBoolean("logging.log-allowed-connections", false),
+                config.getBoolean("logging.log-hostname-details", true),
+                ConnectionLogger.parseLevel(config.getString("logging.level", "INFO")),
+                Math.max(64, config.getInt("logging.buffer-size", 8192)),
+                Math.max(0, config.getInt("logging.max-lines-per-interval", 20)),
+                Math.max(1, config.getLong("logging.summary-interval-seconds", 5))));
+
+        // Metrics
+        builder.prometheus(new PrometheusSettings(
+                config.getBoolean("metrics.prometheus.enabled", false),
+                config.getString("metrics.prometheus.file", "metrics.prom").trim(),
+                Math.max(1, config.getLong("metrics.prometheus.interval-seconds", 15))));
+
+        return builder.build(warning -> logger.warning(warning));
+    }
+
+    /**
+     * @return whether the {@code on-failure} policy at {@code path} admits joins the check could not decide
+     */
+    private static boolean failOpen(ConfigSource config, String path, Logger logger) {
+        String value = config.getString(path, "reject").trim().toLowerCase(Locale.ROOT);
+        switch (value) {
+            case "allow":
+                return true;
+            case "reject":
+                return false;
+            default:
+                logger.warning("Invalid " + path + ": " + value + " → fallback to reject");
+                return false;
+        }
+    }
+
+    /**
+     * Warns about settings that compile but are unlikely to be what the admin meant.
+     */
+    public static void validate(SecurityPolicy compiled, Logger logger) {
+        // Hostname protection validation
+        if (compiled.getHostname().enabled()) {
+            if (compiled.getHostnameIndex().isEmpty()) {
+                logger.warning("Hostname protection enabled but no allowed hostnames are defined.");
+            }
+            if (compiled.getHostname().serverPublicIp().isEmpty()) {
+                logger.warning("server-public-ip is not set while hostname protection is enabled.");
+            }
+        }
+
+        // Mode consistency warnings
+        SecurityMode mode = compiled.getSecurityMode();
+        Set<CheckType> used = compiled.getSecurityRule().checks();
+        for (CheckType check : CheckType.values()) {
+            if (check == CheckType.BLOCKLIST || !check.isRuleCheck()) continue;  // applied in every mode
+            String name = check.name().toLowerCase(Locale.ROOT);
+            if (used.contains(check) && !compiled.isCheckEnabled(check)) {
+                logger.warning("Mode " + mode + " uses the " + name + " check, but it is disabled; skipping it.");
+            } else if (!used.contains(check) && compiled.isCheckEnabled(check)) {
+                logger.warning("The " + name + " check is enabled but not used by mode " + mode + ".");
+            }
+        }
+        if (compiled.getEvaluationPlan() == Rule.ALLOW_ALL) {
+            logger.warning("Mode " + mode + " has no enabled checks; every join not on a blocklist is allowed.");
+        } else {
+            logger.info("Security rule: " + compiled.getEvaluationPlan());
+        }
+
+        if (compiled.getGeo().enabled() && compiled.getGeo().rules().isEmpty()) {
+            logger.warning("GeoIP filter enabled but no countries or ASNs are listed.");
+        }
+
+        if (compiled.getAttackMode().enabled() && compiled.getProxy().enabled()) {
+            logger.warning("Attack mode is enabled behind a proxy; server list pings reach the proxy, "
+                    + "so during an attack only players who joined before get in.");
+        }
+    }
+
+    /**
+     * Translates {@code &}-prefixed color codes in a kick message to section signs,
+     * as Bukkit's {@code ChatColor.translateAlternateColorCodes('&', text)} does.
+     */
+    public static String colors(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length - 1; i++) {
+            if (chars[i] == '&' && COLOR_CODES.indexOf(chars[i + 1]) >= 0) {
+                chars[i] = '§';
+                chars[i + 1] = Character.toLowerCase(chars[i + 1]);
+            }
+        }
+        return new String(chars);
+    }
+}
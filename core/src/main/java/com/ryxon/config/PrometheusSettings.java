@@ -0,0 +1,11 @@
+package com.ryxon.config;
+
+/**
+ * The {@code metrics.prometheus} section.
+ *
+ * @param file file name of the Prometheus export, relative to the plugin data folder
+ */
+public record PrometheusSettings(boolean enabled, String file, long intervalSeconds) {
+
+    public static final PrometheusSettings DEFAULTS = new PrometheusSettings(false, "metrics.prom", 15);
+}
@@ -0,0 +1,14 @@
+package com.ryxon.config;
+
+/**
+ * The {@code proxy-protection} section.
+ *
+ * @param enabled              whether joins must carry a token signed with the passphrase
+ * @param passphrase           secret shared with the proxy
+ * @param sessionExpirySeconds how long a verified session is trusted without a new token
+ * @param sessionCacheSize     verified sessions remembered at most
+ */
+public record ProxySettings(boolean enabled, String passphrase, int sessionExpirySeconds, int sessionCacheSize) {
+
+    public static final ProxySettings DEFAULTS = new ProxySettings(false, "", 600, 10000);
+}
@@ -0,0 +1,28 @@
+package com.ryxon.config;
+
+import com.ryxon.check.Rule;
+
+/**
+ * Available security modes and the check combination each one requires
+ */
+public enum SecurityMode {
+    WHITELIST_ONLY("whitelist"),
+    PROXY_PROTECTED("proxy"),
+    HYBRID("whitelist AND proxy AND hostname"),
+    HOSTNAME_ONLY("hostname"),
+    /** Uses the {@code security-rule} expression from the configuration. */
+    CUSTOM(null);
+
+    private final Rule rule;
+
+    SecurityMode(String rule) {
+        this.rule = rule == null ? null : Rule.parse(rule);
+    }
+
+    /**
+     * @return the rule this mode enforces, or {@code null} for {@link #CUSTOM}
+     */
+    public Rule getRule() {
+        return rule;
+    }
+}
@@ -0,0 +1,458 @@
+package com.ryxon.config;
+
+import com.ryxon.check.CheckType;
+import com.ryxon.check.Rule;
+import com.ryxon.index.CidrTrie;
+import com.ryxon.index.HostnameTrie;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Immutable, fully compiled view of the configuration used by the login path.
+ * <p>
+ * A new snapshot is built for every reload and published as a whole, so a
+ * login is always evaluated against one consistent configuration. All lists
+ * are unmodifiable and returned without copying.
+ * <p>
+ * Each configuration section is an immutable settings record; the snapshot
+ * holds those records next to what it compiles itself: the security rule, the
+ * whitelist and the allowed hostnames, which commands may change at runtime.
+ */
+public final class SecurityPolicy {
+
+    public static final String DEFAULT_REJECT_MESSAGE = "§cConnection rejected by security";
+
+    private static final AtomicLong GENERATIONS = new AtomicLong();
+
+    private final long generation;
+    private final SecurityMode securityMode;
+    private final Rule securityRule;
+    private final Rule evaluationPlan;
+    private final Set<CheckType> requiredChecks;
+
+    private final boolean whitelistEnabled;
+    private final List<String> whitelistedIps;
+    private final CidrTrie whitelist;
+    private final List<String> allowedHostnames;
+    private final HostnameTrie hostnameIndex;
+
+    private final ProxySettings proxy;
+    private final HostnameSettings hostname;
+    private final BlocklistSettings blocklists;
+    private final ThrottleSettings throttle;
+    private final AttackModeSettings attackMode;
+    private final TempBanSettings tempBans;
+    private final AuditSettings audit;
+    private final GeoSettings geo;
+    private final VerdictCacheSettings verdictCache;
+    private final SharedStateSettings sharedState;
+    private final DnsSettings dns;
+    private final GuardSettings guards;
+    private final LoggingSettings logging;
+    private final PrometheusSettings prometheus;
+    private final String rejectKickMessage;
+
+    private SecurityPolicy(Builder b, Consumer<String> warnings) {
+        this.generation = GENERATIONS.incrementAndGet();
+        this.securityMode = b.securityMode;
+        this.whitelistEnabled = b.whitelistEnabled;
+        this.whitelistedIps = List.copyOf(b.whitelistedIps);
+        if (!b.whitelistEnabled) {
+            this.whitelist = CidrTrie.empty();
+        } else if (b.compiledWhitelist != null) {
+            this.whitelist = b.compiledWhitelist;
+        } else {
+            this.whitelist = CidrTrie.compile(whitelistedIps,
+                    invalid -> warnings.accept("Ignoring invalid whitelist entry: " + invalid));
+        }
+        this.allowedHostnames = List.copyOf(b.allowedHostnames);
+        this.hostnameIndex = b.compiledHostnames != null ? b.compiledHostnames : HostnameTrie.compile(allowedHostnames,
+                invalid -> warnings.accept("Ignoring invalid allowed hostname: " + invalid));
+
+        this.proxy = b.proxy;
+        this.hostname = b.hostname;
+        this.blocklists = b.blocklists;
+        this.throttle = b.throttle;
+        this.attackMode = b.attackMode;
+        this.tempBans = b.tempBans;
+        this.audit = b.audit;
+        this.geo = b.geo;
+        this.verdictCache = b.verdictCache;
+        this.sharedState = b.sharedState;
+        this.dns = b.dns;
+        this.guards = b.guards;
+        this.logging = b.logging;
+        this.prometheus = b.prometheus;
+        this.rejectKickMessage = b.rejectKickMessage;
+
+        // A CUSTOM mode without a usable rule requires every enabled check
+        this.securityRule = b.securityMode == SecurityMode.CUSTOM
+                ? Objects.requireNonNullElse(b.securityRule, SecurityMode.HYBRID.getRule())
+                : b.securityMode.getRule();
+        this.evaluationPlan = securityRule.prune(this::isCheckEnabled).sorted(this::checkCost);
+        this.requiredChecks = EnumSet.noneOf(CheckType.class);
+        for (CheckType check : evaluationPlan.checks()) {
+            if (evaluationPlan.requires(check)) requiredChecks.add(check);
+        }
+    }
+
+    /**
+     * Relative cost used to order the plan: in-memory lookups first, then the
+     * token HMAC, then anything that may wait on DNS.
+     */
+    private int checkCost(CheckType check) {
+        switch (check) {
+            case PROXY:
+                return 10;
+            case HOSTNAME:
+                return hostname.useReverseDns() ? 1000 : 2;
+            default:
+                return 1;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a builder preset with this snapshot's settings and compiled indexes, for
+     *         deriving a modified snapshot without recompiling what did not change
+     */
+    public Builder toBuilder() {
+        Builder b = new Builder();
+        b.securityMode = securityMode;
+        b.securityRule = securityRule;
+        b.whitelistEnabled = whitelistEnabled;
+        b.whitelistedIps = whitelistedIps;
+        b.compiledWhitelist = whitelistEnabled ? whitelist : null;  // never compiled while disabled
+        b.allowedHostnames = allowedHostnames;
+        b.compiledHostnames = hostnameIndex;
+        b.proxy = proxy;
+        b.hostname = hostname;
+        b.blocklists = blocklists;
+        b.throttle = throttle;
+        b.attackMode = attackMode;
+        b.tempBans = tempBans;
+        b.audit = audit;
+        b.geo = geo;
+        b.verdictCache = verdictCache;
+        b.sharedState = sharedState;
+        b.dns = dns;
+        b.guards = guards;
+        b.logging = logging;
+        b.prometheus = prometheus;
+        b.rejectKickMessage = rejectKickMessage;
+        return b;
+    }
+
+    // ────────────────────────────────────────────────
+    // Getters
+    // ────────────────────────────────────────────────
+
+    /**
+     * @return a number that increases with every snapshot built in this JVM
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    public SecurityMode getSecurityMode() {
+        return securityMode;
+    }
+
+    /**
+     * @return the rule of the security mode as configured, including disabled checks
+     */
+    public Rule getSecurityRule() {
+        return securityRule;
+    }
+
+    /**
+     * @return the security rule without disabled checks, operands ordered cheapest-first;
+     *         the external blocklists are applied before it and are not part of it
+     */
+    public Rule getEvaluationPlan() {
+        return evaluationPlan;
+    }
+
+    /**
+     * @return whether every join that fails {@code check} is rejected, so the check may
+     *         be enforced on its own before the rest of the plan runs
+     */
+    public boolean isRequired(CheckType check) {
+        return requiredChecks.contains(check);
+    }
+
+    public boolean isCheckEnabled(CheckType check) {
+        switch (check) {
+            case BLOCKLIST:
+                return blocklists.enabled();
+            case WHITELIST:
+                return whitelistEnabled;
+            case PROXY:
+                return proxy.enabled();
+            case HOSTNAME:
+                return hostname.enabled();
+            case RATE_LIMIT:
+                return throttle.enabled();
+            case ATTACK_MODE:
+                return attackMode.enabled();
+            case TEMP_BAN:
+                return tempBans.enabled();
+            case GEO:
+                return geo.enabled();
+            default:
+                return false;
+        }
+    }
+
+    public boolean isWhitelistEnabled() {
+        return whitelistEnabled;
+    }
+
+    public List<String> getWhitelistedIps() {
+        return whitelistedIps;
+    }
+
+    public CidrTrie getWhitelist() {
+        return whitelist;
+    }
+
+    public List<String> getAllowedHostnames() {
+        return allowedHostnames;
+    }
+
+    public HostnameTrie getHostnameIndex() {
+        return hostnameIndex;
+    }
+
+    public ProxySettings getProxy() {
+        return proxy;
+    }
+
+    public HostnameSettings getHostname() {
+        return hostname;
+    }
+
+    public BlocklistSettings getBlocklists() {
+        return blocklists;
+    }
+
+    public ThrottleSettings getThrottle() {
+        return throttle;
+    }
+
+    public AttackModeSettings getAttackMode() {
+        return attackMode;
+    }
+
+    public TempBanSettings getTempBans() {
+        return tempBans;
+    }
+
+    public AuditSettings getAudit() {
+        return audit;
+    }
+
+    public GeoSettings getGeo() {
+        return geo;
+    }
+
+    public VerdictCacheSettings getVerdictCache() {
+        return verdictCache;
+    }
+
+    public SharedStateSettings getSharedState() {
+        return sharedState;
+    }
+
+    public DnsSettings getDns() {
+        return dns;
+    }
+
+    public GuardSettings getGuards() {
+        return guards;
+    }
+
+    public LoggingSettings getLogging() {
+        return logging;
+    }
+
+    public PrometheusSettings getPrometheus() {
+        return prometheus;
+    }
+
+    public String getRejectKickMessage() {
+        return rejectKickMessage;
+    }
+
+    /**
+     * Collects settings; {@link #build(Consumer)} compiles the rule and indexes.
+     */
+    public static final class Builder {
+
+        private SecurityMode securityMode = SecurityMode.WHITELIST_ONLY;
+        private Rule securityRule;
+        private boolean whitelistEnabled = true;
+        private List<String> whitelistedIps = List.of();
+        private List<String> allowedHostnames = List.of();
+        private ProxySettings proxy = ProxySettings.DEFAULTS;
+        private HostnameSettings hostname = HostnameSettings.DEFAULTS;
+        private BlocklistSettings blocklists = BlocklistSettings.DEFAULTS;
+        private ThrottleSettings throttle = ThrottleSettings.DEFAULTS;
+        private AttackModeSettings attackMode = AttackModeSettings.DEFAULTS;
+        private TempBanSettings tempBans = TempBanSettings.DEFAULTS;
+        private AuditSettings audit = AuditSettings.DEFAULTS;
+        private GeoSettings geo = GeoSettings.DEFAULTS;
+        private VerdictCacheSettings verdictCache = VerdictCacheSettings.DEFAULTS;
+        private SharedStateSettings sharedState = SharedStateSettings.DEFAULTS;
+        private DnsSettings dns = DnsSettings.DEFAULTS;
+        private GuardSettings guards = GuardSettings.DEFAULTS;
+        private LoggingSettings logging = LoggingSettings.DEFAULTS;
+        private PrometheusSettings prometheus = PrometheusSettings.DEFAULTS;
+        private String rejectKickMessage = DEFAULT_REJECT_MESSAGE;
+
+        // Already compiled indexes matching the lists above, or null to compile on build
+        private CidrTrie compiledWhitelist;
+        private HostnameTrie compiledHostnames;
+
+        private Builder() {}
+
+        public Builder securityMode(SecurityMode securityMode) {
+            this.securityMode = securityMode;
+            return this;
+        }
+
+        /**
+         * Sets the rule used by {@link SecurityMode#CUSTOM}; ignored by the other modes.
+         */
+        public Builder securityRule(Rule securityRule) {
+            this.securityRule = securityRule;
+            return this;
+        }
+
+        public Builder whitelistEnabled(boolean whitelistEnabled) {
+            this.whitelistEnabled = whitelistEnabled;
+            return this;
+        }
+
+        public Builder whitelistedIps(List<String> whitelistedIps) {
+            this.whitelistedIps = whitelistedIps;
+            this.compiledWhitelist = null;
+            return this;
+        }
+
+        /**
+         * Sets the whitelist together with an index already compiled from exactly these entries.
+         */
+        public Builder whitelistedIps(List<String> whitelistedIps, CidrTrie compiled) {
+            this.whitelistedIps = whitelistedIps;
+            this.compiledWhitelist = compiled;
+            return this;
+        }
+
+        public Builder allowedHostnames(List<String> allowedHostnames) {
+            this.allowedHostnames = allowedHostnames;
+            this.compiledHostnames = null;
+            return this;
+        }
+
+        /**
+         * Sets the allowed hostnames together with an index already compiled from exactly these entries.
+         */
+        public Builder allowedHostnames(List<String> allowedHostnames, HostnameTrie compiled) {
+            this.allowedHostnames = allowedHostnames;
+            this.compiledHostnames = compiled;
+            return this;
+        }
+
+        public Builder proxy(ProxySettings proxy) {
+            this.proxy = Objects.requireNonNull(proxy);
+            return this;
+        }
+
+        public Builder hostname(HostnameSettings hostname) {
+            this.hostname = Objects.requireNonNull(hostname);
+            return this;
+        }
+
+        public Builder blocklists(BlocklistSettings blocklists) {
+            this.blocklists = Objects.requireNonNull(blocklists);
+            return this;
+        }
+
+        public Builder throttle(ThrottleSettings throttle) {
+            this.throttle = Objects.requireNonNull(throttle);
+            return this;
+        }
+
+        public Builder attackMode(AttackModeSettings attackMode) {
+            this.attackMode = Objects.requireNonNull(attackMode);
+            return this;
+        }
+
+        public Builder tempBans(TempBanSettings tempBans) {
+            this.tempBans = Objects.requireNonNull(tempBans);
+            return this;
+        }
+
+        public Builder audit(AuditSettings audit) {
+            this.audit = Objects.requireNonNull(audit);
+            return this;
+        }
+
+        public Builder geo(GeoSettings geo) {
+            this.geo = Objects.requireNonNull(geo);
+            return this;
+        }
+
+        public Builder verdictCache(VerdictCacheSettings verdictCache) {
+            this.verdictCache = Objects.requireNonNull(verdictCache);
+            return this;
+        }
+
+        public Builder sharedState(SharedStateSettings sharedState) {
+            this.sharedState = Objects.requireNonNull(sharedState);
+            return this;
+        }
+
+        public Builder dns(DnsSettings dns) {
+            this.dns = Objects.requireNonNull(dns);
+            return this;
+        }
+
+        public Builder guards(GuardSettings guards) {
+            this.guards = Objects.requireNonNull(guards);
+            return this;
+        }
+
+        public Builder logging(LoggingSettings logging) {
+            this.logging = Objects.requireNonNull(logging);
+            return this;
+        }
+
+        public Builder prometheus(PrometheusSettings prometheus) {
+            this.prometheus = Objects.requireNonNull(prometheus);
+            return this;
+        }
+
+        public Builder rejectKickMessage(String rejectKickMessage) {
+            this.rejectKickMessage = rejectKickMessage;
+            return this;
+        }
+
+        /**
+         * Compiles the snapshot. Problems with individual entries are reported
+         * to {@code warnings} and the entry is skipped.
+         */
+        public SecurityPolicy build(Consumer<String> warnings) {
+            return new SecurityPolicy(this, warnings);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.ryxon.config;
+
+/**
+ * The {@code shared-state} section.
+ *
+ * @param type       the shared state backend: {@code none}, {@code local} or {@code redis}
+ * @param cluster    name the nodes sharing state agree on; also the prefix of every Redis key
+ * @param nodeId     this node's name in the cluster; updates it published itself are ignored
+ * @param flushMillis how long updates may wait to be published together
+ * @param queueSize  updates waiting to be published; further ones are dropped until the queue drains
+ */
+public record SharedStateSettings(String type, String cluster, String nodeId,
+                                  boolean bans, boolean verdicts, boolean attackMode,
+                                  String redisHost, int redisPort, String redisPassword, int redisDatabase,
+                                  long redisTimeoutMillis, long flushMillis, int batchSize, int queueSize) {
+
+    public static final SharedStateSettings DEFAULTS = new SharedStateSettings("none", "ryxonet", "",
+            true, true, true,
+            "127.0.0.1", 6379, "", 0,
+            2000, 100, 256, 8192);
+}
@@ -0,0 +1,18 @@
+package com.ryxon.config;
+
+/**
+ * The {@code temp-bans} section.
+ *
+ * @param findTimeSeconds window in which {@code maxFailures} failed joins earn a ban
+ * @param baseSeconds     length of the first ban; each further ban doubles it
+ * @param forgetSeconds   how long an offender must stay clean before its backoff resets
+ * @param kickMessage     the kick message; {@code %time%} is replaced with the time left
+ */
+public record TempBanSettings(boolean enabled, int maxFailures, int findTimeSeconds,
+                              int baseSeconds, int maxSeconds, int forgetSeconds,
+                              int prefixV4, int prefixV6, String kickMessage) {
+
+    public static final TempBanSettings DEFAULTS = new TempBanSettings(false, 5, 600,
+            60, 86400, 86400,
+            32, 64, "§cToo many failed join attempts. Try again in %time%.");
+}
@@ -0,0 +1,18 @@
+package com.ryxon.config;
+
+/**
+ * The {@code connection-throttle} section.
+ *
+ * @param tableSize    entries per rate limiter table; memory stays fixed at this size
+ * @param exemptLocal  whether loopback, private and other non-public addresses skip the throttle
+ */
+public record ThrottleSettings(boolean enabled,
+                               double addressPerSecond, int addressBurst,
+                               double subnetPerSecond, int subnetBurst, int subnetPrefixV4, int subnetPrefixV6,
+                               double globalPerSecond, int tableSize, boolean exemptLocal, String kickMessage) {
+
+    public static final ThrottleSettings DEFAULTS = new ThrottleSettings(false,
+            1.0, 5,
+            5.0, 20, 24, 48,
+            200.0, 65536, true, "§cYou are connecting too fast. Please wait a moment.");
+}
@@ -0,0 +1,12 @@
+package com.ryxon.config;
+
+/**
+ * The {@code verdict-cache} section.
+ *
+ * @param allowTtlSeconds how long the outcomes of an allowed join are reused
+ * @param denyTtlSeconds  how long the outcomes of a rejected join are reused
+ */
+public record VerdictCacheSettings(boolean enabled, int size, long allowTtlSeconds, long denyTtlSeconds) {
+
+    public static final VerdictCacheSettings DEFAULTS = new VerdictCacheSettings(true, 10000, 300, 30);
+}
@@ -0,0 +1,244 @@
+package com.ryxon.dns;
+
+import com.ryxon.metrics.LatencyHistogram;
+import com.ryxon.util.IpAddress;
+import com.ryxon.util.TtlCache;
+import com.ryxon.util.VirtualThreads;
+
+import java.net.InetAddress;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous reverse-DNS (PTR) resolver for the login path.
+ * <p>
+ * Lookups run on a small dedicated pool so the caller can wait with a deadline,
+ * both successful and failed results are cached with their own TTL, and
+ * concurrent requests for the same address share a single lookup. On Java 21+
+ * each lookup can get a virtual thread instead, so a slow resolver no longer
+ * queues fresh lookups behind stuck ones; the number in flight stays bounded.
+ */
+public final class ReverseDnsResolver implements AutoCloseable {
+
+    private static final Optional<String> NO_HOSTNAME = Optional.empty();
+    private static final int MAX_PENDING = 1024;
+    /** Skipped lookups are reported at most this often, so a saturated queue cannot flood the console. */
+    private static final long REJECTION_REPORT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final Logger logger;
+    private volatile long positiveTtlMillis;
+    private volatile long negativeTtlMillis;
+    private final TtlCache<IpAddress, Optional<String>> cache;
+    private final ConcurrentMap<IpAddress, CompletableFuture<Optional<String>>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final LatencyHistogram lookupLatency;
+    private final Function<IpAddress, Optional<String>> lookup;
+
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong unreported = new AtomicLong();
+    private final AtomicLong nextReport = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param virtualThreads run each lookup on its own virtual thread if the runtime supports it,
+     *                       instead of on a pool of {@code threads} platform threads
+     */
+    public ReverseDnsResolver(Logger logger, int threads, int cacheSize, long positiveTtlMillis, long negativeTtlMillis,
+                              boolean virtualThreads, LatencyHistogram lookupLatency) {
+        this(logger, threads, cacheSize, positiveTtlMillis, negativeTtlMillis, virtualThreads, lookupLatency,
+                ReverseDnsResolver::lookup);
+    }
+
+    /**
+     * @param lookup performs one blocking PTR lookup; replaced by a stub in load tests
+     */
+    public ReverseDnsResolver(Logger logger, int threads, int cacheSize, long positiveTtlMillis, long negativeTtlMillis,
+                              boolean virtualThreads, LatencyHistogram lookupLatency,
+                              Function<IpAddress, Optional<String>> lookup) {
+        this.logger = logger;
+        this.lookup = lookup;
+        this.lookupLatency = lookupLatency;
+        this.positiveTtlMillis = positiveTtlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.cache = new TtlCache<>(cacheSize);
+
+        ExecutorService perTask = virtualThreads ? VirtualThreads.newThreadPerTaskExecutor("RyxoNET-DNS-") : null;
+        this.virtual = perTask != null;
+        if (virtual) {
+            this.executor = perTask;
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING), runnable -> {
+                    Thread thread = new Thread(runnable, "RyxoNET-DNS-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * @return whether lookups run on virtual threads
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Applies new settings in place; cached results and running lookups are kept.
+     * The thread count has no effect on virtual threads.
+     */
+    public void configure(int threads, int cacheSize, long positiveTtlMillis, long negativeTtlMillis) {
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            int poolSize = Math.max(1, threads);
+            if (poolSize > pool.getMaximumPoolSize()) {
+                pool.setMaximumPoolSize(poolSize);
+                pool.setCorePoolSize(poolSize);
+            } else {
+                pool.setCorePoolSize(poolSize);
+                pool.setMaximumPoolSize(poolSize);
+            }
+        }
+        cache.setMaxSize(cacheSize);
+        this.positiveTtlMillis = positiveTtlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+    }
+
+    /**
+     * Resolves the PTR name of an address, waiting at most {@code timeoutMillis}.
+     *
+     * @return the lowercased hostname, or empty if the address has no usable PTR record
+     * @throws TimeoutException          if the lookup did not finish in time; it keeps running
+     *                                   in the background and will populate the cache
+     * @throws RejectedExecutionException if the lookup was skipped because too many are pending,
+     *                                   or the resolver is closed
+     * @throws RuntimeException          if the lookup itself failed
+     */
+    public Optional<String> resolve(IpAddress address, long timeoutMillis) throws TimeoutException {
+        Optional<String> cached = cache.get(address);
+        if (cached != null) return cached;
+
+        try {
+            return resolveAsync(address).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TimeoutException("Interrupted while waiting for reverse DNS");
+        } catch (ExecutionException e) {
+            // Not knowing the hostname is not the same as having none; callers must not treat it as a failed match
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Starts (or joins) a lookup for the address. The future fails with a
+     * {@link RejectedExecutionException} if the lookup had to be skipped.
+     */
+    public CompletableFuture<Optional<String>> resolveAsync(IpAddress address) {
+        Optional<String> cached = cache.get(address);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        CompletableFuture<Optional<String>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<String>> existing = inFlight.putIfAbsent(address, future);
+        if (existing != null) return existing;
+
+        try {
+            // The pool's queue bounds pending lookups; virtual threads need the same limit
+            if (virtual && inFlight.size() > MAX_PENDING) throw new RejectedExecutionException();
+            executor.execute(() -> complete(address, future));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(address, future);
+            future.completeExceptionally(new RejectedExecutionException("Reverse DNS queue is full"));
+            rejected.increment();
+            unreported.incrementAndGet();
+        }
+        reportRejections();
+        return future;
+    }
+
+    /**
+     * Logs how many lookups were skipped since the last report, at most once per interval.
+     */
+    private void reportRejections() {
+        if (unreported.get() == 0) return;
+        long now = System.nanoTime();
+        long due = nextReport.get();
+        if (now - due < 0 || !nextReport.compareAndSet(due, now + REJECTION_REPORT_NANOS)) return;
+        long skipped = unreported.getAndSet(0);
+        if (skipped > 0) {
+            logger.warning(String.format("[RyxoNET] Skipped %,d reverse DNS lookups because the queue was full"
+                    + " (%,d since start)", skipped, rejected.sum()));
+        }
+    }
+
+    private void complete(IpAddress address, CompletableFuture<Optional<String>> future) {
+        long start = System.nanoTime();
+        Optional<String> result;
+        try {
+            result = lookup.apply(address);
+        } catch (RuntimeException | Error e) {
+            // Not cached, and removed before waiters wake, so the next join for the address tries again
+            inFlight.remove(address, future);
+            future.completeExceptionally(e);
+            if (e instanceof Error) throw e;
+            return;
+        }
+        lookupLatency.recordSince(start);
+        cache.put(address, result, result.isPresent() ? positiveTtlMillis : negativeTtlMillis);
+        inFlight.remove(address, future);
+        future.complete(result);
+    }
+
+    private static Optional<String> lookup(IpAddress address) {
+        try {
+            // Fresh instance so a hostname cached on the caller's InetAddress is never reused
+            InetAddress fresh = address.toInetAddress();
+            String name = fresh.getCanonicalHostName();
+            // getCanonicalHostName falls back to the literal when no verified PTR exists
+            if (name == null || name.equals(fresh.getHostAddress())) return NO_HOSTNAME;
+            return Optional.of(name.toLowerCase(Locale.ROOT));
+        } catch (SecurityException e) {
+            return NO_HOSTNAME;
+        }
+    }
+
+    public int cachedEntries() {
+        return cache.size();
+    }
+
+    /**
+     * @return lookups skipped because too many were already pending
+     */
+    public long getRejectedLookups() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        inFlight.values().forEach(future ->
+                future.completeExceptionally(new RejectedExecutionException("Reverse DNS resolver closed")));
+        inFlight.clear();
+    }
+}
@@ -0,0 +1,34 @@
+package com.ryxon.engine;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+/**
+ * One join as the platform sees it, adapted for the {@link LoginEngine}.
+ */
+public interface LoginAttempt {
+
+    /**
+     * @return the address the checks apply to: the player's own, as forwarded by a trusted proxy
+     */
+    InetAddress getAddress();
+
+    String getName();
+
+    /**
+     * @return the player's id, or {@code null} if the platform does not know it yet
+     */
+    UUID getUniqueId();
+
+    /**
+     * @return the host the client put in its handshake, or {@code null} if unknown
+     */
+    String getVirtualHost();
+
+    /**
+     * Removes the forwarding token from the join so it never reaches other clients.
+     *
+     * @return the token, or {@code null} if the join carries none
+     */
+    String takeToken();
+}
@@ -0,0 +1,42 @@
+package com.ryxon.engine;
+
+import com.ryxon.check.CheckType;
+
+/**
+ * Outcome of {@link LoginEngine#decide}: the join is either allowed, or refused
+ * by one check with the message to disconnect it with.
+ */
+public final class LoginDecision {
+
+    public static final LoginDecision ALLOWED = new LoginDecision(null, null);
+
+    private final CheckType reason;
+    private final String kickMessage;
+
+    private LoginDecision(CheckType reason, String kickMessage) {
+        this.reason = reason;
+        this.kickMessage = kickMessage;
+    }
+
+    static LoginDecision rejected(CheckType reason, String kickMessage) {
+        return new LoginDecision(reason, kickMessage);
+    }
+
+    public boolean isAllowed() {
+        return reason == null;
+    }
+
+    /**
+     * @return the check that refused the join, or {@code null} if it is allowed
+     */
+    public CheckType getReason() {
+        return reason;
+    }
+
+    /**
+     * @return the kick message with section-sign color codes, or {@code null} if the join is allowed
+     */
+    public String getKickMessage() {
+        return kickMessage;
+    }
+}
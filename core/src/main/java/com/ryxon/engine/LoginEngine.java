@@ -0,0 +1,354 @@
+package com.ryxon.engine;
+
+import com.ryxon.attack.AttackMode;
+import com.ryxon.audit.AuditJournal;
+import com.ryxon.audit.AuditRecord;
+import com.ryxon.ban.TempBanManager;
+import com.ryxon.blocklist.BlocklistManager;
+import com.ryxon.blocklist.RangeFile;
+import com.ryxon.cache.VerdictCache;
+import com.ryxon.check.CheckType;
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.dns.ReverseDnsResolver;
+import com.ryxon.geo.GeoIpManager;
+import com.ryxon.geo.GeoRules;
+import com.ryxon.guard.CheckGuards;
+import com.ryxon.logging.ConnectionLogger;
+import com.ryxon.metrics.Metrics;
+import com.ryxon.metrics.Metrics.Stage;
+import com.ryxon.proxy.ProxyVerifier;
+import com.ryxon.shared.SharedStateSync;
+import com.ryxon.util.IpAddress;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+
+/**
+ * Decides joins with every check of the active policy, independent of the platform.
+ * <p>
+ * The backend plugin runs it at pre-login and the proxy plugin at the edge; both
+ * only adapt their login event to a {@link LoginAttempt} and disconnect the player
+ * if the decision says so. Metrics, connection logging, the audit journal,
+ * temporary bans and sharing what was learned with other nodes are all handled here.
+ */
+public final class LoginEngine {
+
+    private final BlocklistManager blocklists;
+    private final GeoIpManager geoIp;
+    private final VerdictCache verdictCache;
+    private final ReverseDnsResolver reverseDnsResolver;
+    private final ProxyVerifier proxyVerifier;
+    private final CheckGuards guards;
+    private final AttackMode attackMode;
+    private final TempBanManager tempBans;
+    private final SharedStateSync shared;
+    private final AuditJournal journal;
+    private final ConnectionLogger log;
+    private final Metrics metrics;
+
+    public LoginEngine(BlocklistManager blocklists, GeoIpManager geoIp, VerdictCache verdictCache,
+                       ReverseDnsResolver reverseDnsResolver, ProxyVerifier proxyVerifier, CheckGuards guards,
+                       AttackMode attackMode, TempBanManager tempBans, SharedStateSync shared, AuditJournal journal,
+                       ConnectionLogger log, Metrics metrics) {
+        this.blocklists = blocklists;
+        this.geoIp = geoIp;
+        this.verdictCache = verdictCache;
+        this.reverseDnsResolver = reverseDnsResolver;
+        this.proxyVerifier = proxyVerifier;
+        this.guards = guards;
+        this.attackMode = attackMode;
+        this.tempBans = tempBans;
+        this.shared = shared;
+        this.journal = journal;
+        this.log = log;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Runs the checks of {@code cfg} against one join.
+     *
+     * @param cfg the policy snapshot taken for this join
+     */
+    public LoginDecision decide(SecurityPolicy cfg, LoginAttempt attempt) {
+        InetAddress address = attempt.getAddress();
+        String ip = address.getHostAddress();
+        String name = attempt.getName();
+
+        long start = System.nanoTime();
+        // Converted once; every cache and index below is keyed by it
+        IpAddress key = IpAddress.of(address);
+
+        long bannedUntil = tempBans.bannedUntil(key);
+        if (bannedUntil != 0) {
+            journal.record(System.currentTimeMillis(), key, name, CheckType.TEMP_BAN, System.nanoTime() - start, null);
+            return reject(cfg, ip, name, CheckType.TEMP_BAN, cfg.getTempBans().kickMessage()
+                    .replace("%time%", TempBanManager.formatDuration(bannedUntil - System.currentTimeMillis())));
+        }
+
+        // Outcomes of checks decided by the address alone are remembered until the policy or the blocklists change
+        long stamp = (cfg.getGeneration() << 32) | (blocklists.getVersion() & 0xFFFFFFFFL);
+        int cached = cfg.getVerdictCache().enabled() ? verdictCache.get(stamp, key, start) : VerdictCache.MISS;
+        if (cfg.getVerdictCache().enabled()) metrics.recordVerdictCache(cached != VerdictCache.MISS);
+
+        LoginChecks checks = new LoginChecks(cfg, attempt, key, ip, cached == VerdictCache.MISS ? 0 : cached,
+                guards.loginDeadline(start));
+        // During a flood only known addresses get as far as the checks
+        if (attackMode.recordJoin() && !attackMode.isKnown(key) && !checks.outcome(CheckType.WHITELIST)) {
+            journal.record(System.currentTimeMillis(), key, name, CheckType.ATTACK_MODE, System.nanoTime() - start, checks.micros);
+            return reject(cfg, ip, name, CheckType.ATTACK_MODE, cfg.getAttackMode().kickMessage());
+        }
+        // External blocklists and the geo filter apply in every mode, ahead of the mode's own rule
+        boolean allowed = checks.test(CheckType.BLOCKLIST) && checks.test(CheckType.GEO)
+                && cfg.getEvaluationPlan().evaluate(checks);
+
+        if (cfg.getVerdictCache().enabled()) {
+            int learned = checks.addressOutcomes();
+            if (learned != 0 && learned != cached) {
+                // By how the join ended: a failed whitelist lookup is routine for a player the rule admits anyway
+                long ttl = allowed ? cfg.getVerdictCache().allowTtlSeconds() : cfg.getVerdictCache().denyTtlSeconds();
+                verdictCache.put(stamp, key, learned, TimeUnit.SECONDS.toNanos(ttl), System.nanoTime());
+                // Only what this login found out itself, not what the cache already knew
+                int known = cached == VerdictCache.MISS ? 0 : (cached & LoginChecks.RUN_BITS) * 3;
+                shared.learned(key, learned & ~known, TimeUnit.SECONDS.toMillis(ttl));
+            }
+        }
+        // A rule that passed before reaching the proxy check must still keep the token private
+        if (!checks.proxyChecked && cfg.getProxy().enabled()) attempt.takeToken();
+
+        long total = System.nanoTime() - start;
+        metrics.stage(Stage.TOTAL).record(total);
+
+        if (!allowed) {
+            CheckType failed = checks.lastFailure;
+            journal.record(System.currentTimeMillis(), key, name, failed, total, checks.micros);
+            String kickMsg = failed == CheckType.HOSTNAME ? cfg.getHostname().kickMessage()
+                    : failed == CheckType.GEO ? cfg.getGeo().kickMessage() : cfg.getRejectKickMessage();
+            // Blocklisted and geo-filtered addresses are refused cheaply anyway; whitelisted ones are never banned,
+            // and neither are joins refused only because a guarded check could not answer
+            if (cfg.getTempBans().enabled() && failed != null && failed != CheckType.BLOCKLIST && failed != CheckType.GEO
+                    && (checks.undecided & LoginChecks.bits(failed)) == 0 && !checks.outcome(CheckType.WHITELIST)) {
+                long banned = tempBans.recordFailure(key);
+                if (banned != 0) shared.banned(key, System.currentTimeMillis() + banned, tempBans.getBanCount(key));
+                if (banned != 0 && cfg.getLogging().blockedConnections()) {
+                    log.log(Level.INFO, "[RyxoNET] Temporarily banned " + ip + " for " + TempBanManager.formatDuration(banned)
+                            + " after " + cfg.getTempBans().maxFailures() + " failed joins");
+                }
+            }
+            return reject(cfg, ip, name, failed, kickMsg);
+        }
+
+        metrics.recordAllowed();
+        journal.record(System.currentTimeMillis(), key, name, null, total, checks.micros);
+        attackMode.recordVerified(key);
+        if (cfg.getLogging().allowedConnections()) {
+            log.allowed(ip, name);
+        }
+        return LoginDecision.ALLOWED;
+    }
+
+    private LoginDecision reject(SecurityPolicy cfg, String ip, String name, CheckType reason, String kickMsg) {
+        metrics.recordBlocked(reason);
+        if (cfg.getLogging().blockedConnections()) {
+            log.blocked(ip, name, reason);
+        }
+        return LoginDecision.rejected(reason, kickMsg);
+    }
+
+    /**
+     * Runs each check of one login at most once, on demand, as the evaluation plan reaches it.
+     * <p>
+     * Outcomes are kept two bits per check, as stored in the verdict cache: bit
+     * {@code 2 * ordinal} marks the check as run, the bit above it as passed.
+     */
+    private final class LoginChecks implements Predicate<CheckType> {
+
+        private static final int RUN_BITS = 0x55555555;
+
+        private final SecurityPolicy cfg;
+        private final LoginAttempt attempt;
+        private final IpAddress address;
+        private final String ip;
+        /** Guarded checks must finish before this {@link System#nanoTime()}. */
+        private final long deadline;
+        /** Latency of each check that ran, by ordinal, for the audit journal. */
+        private final int[] micros = new int[AuditRecord.CHECKS];
+        private int outcomes;
+        /** Checks decided by their on-failure policy rather than an answer; never cached. */
+        private int undecided;
+        private boolean proxyChecked;
+        private CheckType lastFailure;
+
+        LoginChecks(SecurityPolicy cfg, LoginAttempt attempt, IpAddress address, String ip, int cached, long deadline) {
+            this.cfg = cfg;
+            this.attempt = attempt;
+            this.address = address;
+            this.ip = ip;
+            this.deadline = deadline;
+            this.outcomes = cached;
+            Arrays.fill(micros, -1);
+        }
+
+        /**
+         * Outcome as seen by the plan; the last failure it saw becomes the rejection reason.
+         */
+        @Override
+        public boolean test(CheckType check) {
+            boolean passed = outcome(check);
+            if (!passed) lastFailure = check;
+            return passed;
+        }
+
+        private boolean outcome(CheckType check) {
+            int run = 1 << (check.ordinal() << 1);
+            if ((outcomes & run) != 0) return (outcomes & (run << 1)) != 0;
+            long began = System.nanoTime();
+            boolean passed = run(check);
+            if (check.ordinal() < AuditRecord.CHECKS) {
+                micros[check.ordinal()] = (int) Math.min(Integer.MAX_VALUE, (System.nanoTime() - began) / 1000);
+            }
+            outcomes |= passed ? run | (run << 1) : run;
+            return passed;
+        }
+
+        /**
+         * @return the outcomes that depend on nothing but the address, for the verdict cache;
+         *         the geo filter is left out as its databases reload independently and it is cheap anyway
+         */
+        int addressOutcomes() {
+            int mask = bits(CheckType.BLOCKLIST) | bits(CheckType.WHITELIST);
+            if (cfg.getHostname().useReverseDns()) mask |= bits(CheckType.HOSTNAME);
+            return outcomes & mask & ~undecided;
+        }
+
+        private static int bits(CheckType check) {
+            return 3 << (check.ordinal() << 1);
+        }
+
+        private boolean run(CheckType check) {
+            long stageStart = System.nanoTime();
+            switch (check) {
+                case WHITELIST: {
+                    boolean whitelisted = cfg.getWhitelist().contains(address);
+                    if (cfg.isWhitelistEnabled()) metrics.stage(Stage.WHITELIST).recordSince(stageStart);
+                    return whitelisted;
+                }
+                case BLOCKLIST: {
+                    // Explicitly whitelisted addresses are exempt
+                    if (!cfg.getBlocklists().enabled() || outcome(CheckType.WHITELIST)) return true;
+                    stageStart = System.nanoTime();
+                    RangeFile listed = blocklists.match(address);
+                    metrics.stage(Stage.BLOCKLIST).recordSince(stageStart);
+                    if (listed != null && cfg.getLogging().blockedConnections() && log.isLoggable(Level.FINE)) {
+                        log.log(Level.FINE, "[RyxoNET] " + ip + " is listed in blocklist " + listed.getName());
+                    }
+                    return listed == null;
+                }
+                case GEO: {
+                    if (!cfg.getGeo().enabled() || outcome(CheckType.WHITELIST)) return true;
+                    stageStart = System.nanoTime();
+                    int country = geoIp.country(address);
+                    long asn = geoIp.asn(address);
+                    boolean passed = cfg.getGeo().rules().allows(country, asn);
+                    metrics.stage(Stage.GEO).recordSince(stageStart);
+                    if (!passed && cfg.getLogging().blockedConnections() && log.isLoggable(Level.FINE)) {
+                        log.log(Level.FINE, "[RyxoNET] " + ip + " is from " + GeoRules.countryName(country)
+                                + (asn > 0 ? " / AS" + asn : "") + ", refused by the geo filter");
+                    }
+                    return passed;
+                }
+                case PROXY: {
+                    proxyChecked = true;
+                    boolean passed = guarded(CheckType.PROXY, timeout -> validateProxyAuthentication(cfg, attempt, ip));
+                    metrics.stage(Stage.PROXY).recordSince(stageStart);
+                    return passed;
+                }
+                case HOSTNAME: {
+                    boolean passed = cfg.getHostname().useReverseDns()
+                            ? guarded(CheckType.HOSTNAME, timeout -> validateReverseDns(cfg, address, ip, timeout))
+                            : validateVirtualHost(cfg, attempt, ip);
+                    metrics.stage(Stage.HOSTNAME).recordSince(stageStart);
+                    return passed;
+                }
+                default:
+                    return true;
+            }
+        }
+
+        /**
+         * Runs a check that waits on something under its deadline and circuit breaker.
+         */
+        private boolean guarded(CheckType check, CheckGuards.Check task) {
+            CheckGuards.Outcome outcome = guards.run(check, deadline, task);
+            boolean passed = guards.passes(check, outcome);
+            if (outcome.isFault()) {
+                undecided |= bits(check);
+                String name = check.name().toLowerCase(Locale.ROOT);
+                String verdict = passed ? "admitted" : "refused";
+                if (outcome == CheckGuards.Outcome.TIMED_OUT) {
+                    log.log(Level.WARNING, "[RyxoNET] The " + name + " check for " + ip + " timed out; " + verdict);
+                } else if (outcome == CheckGuards.Outcome.SHORT_CIRCUITED && log.isLoggable(Level.FINE)) {
+                    log.log(Level.FINE, "[RyxoNET] Skipped the " + name + " check for " + ip + " (circuit open); " + verdict);
+                }
+            }
+            return passed;
+        }
+    }
+
+    /**
+     * Checks the host the client typed instead of a PTR lookup.
+     */
+    private boolean validateVirtualHost(SecurityPolicy cfg, LoginAttempt attempt, String ip) {
+        VirtualHostCheck.Result result = VirtualHostCheck.check(cfg, attempt.getVirtualHost());
+        if (result != VirtualHostCheck.Result.ALLOWED && cfg.getLogging().hostnameDetails() && log.isLoggable(Level.FINE)) {
+            log.log(Level.FINE, "[RyxoNET] Virtual host of " + ip + " rejected: " + result);
+        }
+        return result == VirtualHostCheck.Result.ALLOWED;
+    }
+
+    /**
+     * @throws TimeoutException if the lookup did not finish within {@code timeoutMillis}
+     * @throws RuntimeException if the hostname could not be looked up; the guard decides the join
+     */
+    private boolean validateReverseDns(SecurityPolicy cfg, IpAddress address, String ip, long timeoutMillis)
+            throws TimeoutException {
+        boolean details = cfg.getLogging().hostnameDetails() && log.isLoggable(Level.FINE);
+        try {
+            Optional<String> hostname = reverseDnsResolver.resolve(address, timeoutMillis);
+            if (hostname.isEmpty()) {
+                if (details) {
+                    log.log(Level.FINE, "[RyxoNET] No reverse DNS record for " + ip);
+                }
+                return false;
+            }
+            String resolved = hostname.get();
+
+            if (details) {
+                log.log(Level.FINE, "[RyxoNET] Resolved hostname for " + ip + ": " + resolved);
+            }
+
+            return cfg.getHostnameIndex().matches(resolved);
+        } catch (RejectedExecutionException e) {
+            // Skipped lookups are counted and reported by the resolver
+            throw e;
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, "[RyxoNET] Hostname validation failed for " + ip + ": " + e.getMessage());
+            throw e;
+        }
+    }
+
+    private boolean validateProxyAuthentication(SecurityPolicy cfg, LoginAttempt attempt, String ip) {
+        String token = attempt.takeToken();
+        ProxyVerifier.Result result = proxyVerifier.verify(cfg, token, attempt.getUniqueId(), attempt.getName(), ip);
+        if (!result.passed() && cfg.getLogging().blockedConnections() && log.isLoggable(Level.FINE)) {
+            log.log(Level.FINE, "[RyxoNET] Proxy token of " + attempt.getName() + " (" + ip + ") rejected: " + result);
+        }
+        return result.passed();
+    }
+}
@@ -0,0 +1,237 @@
+package com.ryxon.engine;
+
+import com.ryxon.attack.AttackMode;
+import com.ryxon.audit.AuditJournal;
+import com.ryxon.ban.TempBanManager;
+import com.ryxon.blocklist.BlocklistManager;
+import com.ryxon.cache.VerdictCache;
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.dns.ReverseDnsResolver;
+import com.ryxon.geo.GeoIpManager;
+import com.ryxon.guard.CheckGuards;
+import com.ryxon.logging.ConnectionLogger;
+import com.ryxon.metrics.Metrics;
+import com.ryxon.proxy.ProxyVerifier;
+import com.ryxon.ratelimit.ConnectionThrottle;
+import com.ryxon.shared.SharedStateSync;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The long-lived services behind the {@link LoginEngine}, built and configured the
+ * same way on every platform.
+ * <p>
+ * A platform supplies its logger, its data directory and a way to run background
+ * tasks, then registers its own listeners and commands against these services and
+ * closes them when it shuts down.
+ */
+public final class RyxoNetServices implements AutoCloseable {
+
+    /**
+     * Runs background tasks on the platform's scheduler.
+     */
+    @FunctionalInterface
+    public interface Scheduler {
+
+        /**
+         * Runs the task off the main thread every {@code periodMillis}, the first time after {@code delayMillis}.
+         */
+        Task repeat(Runnable task, long delayMillis, long periodMillis);
+    }
+
+    @FunctionalInterface
+    public interface Task {
+
+        void cancel();
+    }
+
+    private static final long TEMP_BAN_EXPIRY_MILLIS = TimeUnit.SECONDS.toMillis(1);
+    private static final long TEMP_BAN_SAVE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Logger logger;
+    private final Path dataDirectory;
+    private final Scheduler scheduler;
+
+    private final Metrics metrics = new Metrics();
+    private final ConnectionThrottle throttle = new ConnectionThrottle();
+    private final TempBanManager tempBans = new TempBanManager();
+    private final ReverseDnsResolver reverseDnsResolver;
+    private final ProxyVerifier proxyVerifier;
+    private final CheckGuards guards;
+    private final ConnectionLogger connectionLogger;
+    private final BlocklistManager blocklists;
+    private final GeoIpManager geoIp;
+    private final VerdictCache verdictCache;
+    private final AttackMode attackMode;
+    private final SharedStateSync sharedState;
+    private final AuditJournal journal;
+    private final LoginEngine engine;
+
+    private Task prometheusTask;
+    private final Task tempBanTask;
+    private final Task tempBanSaveTask;
+
+    /**
+     * Builds the services for a policy, restores saved bans and starts the background tasks.
+     */
+    public RyxoNetServices(Logger logger, Path dataDirectory, Scheduler scheduler, SecurityPolicy policy) {
+        this.logger = logger;
+        this.dataDirectory = dataDirectory;
+        this.scheduler = scheduler;
+        this.reverseDnsResolver = new ReverseDnsResolver(logger, policy.getDns().threads(), policy.getDns().cacheSize(),
+                policy.getDns().positiveTtlSeconds() * 1000L, policy.getDns().negativeTtlSeconds() * 1000L,
+                policy.getGuards().virtualThreads(), metrics.stage(Metrics.Stage.DNS_LOOKUP));
+        this.proxyVerifier = new ProxyVerifier(policy.getProxy().sessionCacheSize());
+        this.guards = new CheckGuards(logger);
+        this.connectionLogger = new ConnectionLogger(logger, policy.getLogging().bufferSize());
+        this.blocklists = new BlocklistManager(logger);
+        this.geoIp = new GeoIpManager(logger);
+        this.verdictCache = new VerdictCache(policy.getVerdictCache().size());
+        this.attackMode = new AttackMode(logger);
+        this.sharedState = new SharedStateSync(logger, tempBans, verdictCache, attackMode);
+        this.journal = new AuditJournal(logger, policy.getAudit().bufferSize());
+        this.engine = new LoginEngine(blocklists, geoIp, verdictCache, reverseDnsResolver, proxyVerifier, guards,
+                attackMode, tempBans, sharedState, journal, connectionLogger, metrics);
+        configure(policy);
+
+        try {
+            int restored = tempBans.load(tempBanFile());
+            if (restored > 0) logger.info("[RyxoNET] Restored " + restored + " temporary ban records");
+        } catch (IOException e) {
+            logger.warning("[RyxoNET] Could not read " + tempBanFile() + ": " + e.getMessage());
+        }
+        this.tempBanTask = scheduler.repeat(tempBans::expire, TEMP_BAN_EXPIRY_MILLIS, TEMP_BAN_EXPIRY_MILLIS);
+        this.tempBanSaveTask = scheduler.repeat(() -> {
+            if (tempBans.isDirty()) saveTempBans();
+        }, TEMP_BAN_SAVE_MILLIS, TEMP_BAN_SAVE_MILLIS);
+    }
+
+    /**
+     * Pushes the service settings of a freshly loaded policy into the long-lived services.
+     */
+    public void configure(SecurityPolicy policy) {
+        reverseDnsResolver.configure(policy.getDns().threads(), policy.getDns().cacheSize(),
+                policy.getDns().positiveTtlSeconds() * 1000L, policy.getDns().negativeTtlSeconds() * 1000L);
+        proxyVerifier.setMaxSessions(policy.getProxy().sessionCacheSize());
+        guards.configure(policy);
+        verdictCache.setCapacity(policy.getVerdictCache().size());
+        throttle.configure(policy);
+        attackMode.configure(policy);
+        tempBans.configure(policy);
+        sharedState.configure(policy);
+        journal.configure(policy.getAudit().enabled(), dataDirectory.resolve(policy.getAudit().directory()),
+                policy.getAudit().segmentRecords(), policy.getAudit().maxSegments());
+        logger.setLevel(policy.getLogging().level());
+        connectionLogger.configure(policy.getLogging().level(), policy.getLogging().maxLinesPerInterval(),
+                policy.getLogging().summaryIntervalSeconds());
+        blocklists.configure(policy.getBlocklists().enabled(), dataDirectory.resolve(policy.getBlocklists().directory()),
+                policy.getBlocklists().reloadDelayMillis());
+        geoIp.configure(policy.getGeo().enabled(), dataDirectory.resolve(policy.getGeo().directory()),
+                policy.getGeo().countryDatabase(), policy.getGeo().asnDatabase(), policy.getGeo().reloadDelayMillis());
+        schedulePrometheusExport(policy);
+    }
+
+    private synchronized void schedulePrometheusExport(SecurityPolicy policy) {
+        if (prometheusTask != null) {
+            prometheusTask.cancel();
+            prometheusTask = null;
+        }
+        if (!policy.getPrometheus().enabled()) return;
+
+        long period = TimeUnit.SECONDS.toMillis(policy.getPrometheus().intervalSeconds());
+        Path file = dataDirectory.resolve(policy.getPrometheus().file());
+        prometheusTask = scheduler.repeat(() -> {
+            try {
+                metrics.writePrometheus(file);
+            } catch (IOException e) {
+                logger.warning("[RyxoNET] Could not write metrics to " + file + ": " + e.getMessage());
+            }
+        }, period, period);
+    }
+
+    private Path tempBanFile() {
+        return dataDirectory.resolve("bans.dat");
+    }
+
+    private void saveTempBans() {
+        try {
+            tempBans.save(tempBanFile());
+        } catch (IOException e) {
+            logger.warning("[RyxoNET] Could not save " + tempBanFile() + ": " + e.getMessage());
+        }
+    }
+
+    public LoginEngine getEngine() {
+        return engine;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    public ConnectionThrottle getThrottle() {
+        return throttle;
+    }
+
+    public ConnectionLogger getConnectionLogger() {
+        return connectionLogger;
+    }
+
+    public ReverseDnsResolver getReverseDnsResolver() {
+        return reverseDnsResolver;
+    }
+
+    public CheckGuards getGuards() {
+        return guards;
+    }
+
+    public BlocklistManager getBlocklists() {
+        return blocklists;
+    }
+
+    public GeoIpManager getGeoIp() {
+        return geoIp;
+    }
+
+    public VerdictCache getVerdictCache() {
+        return verdictCache;
+    }
+
+    public AttackMode getAttackMode() {
+        return attackMode;
+    }
+
+    public TempBanManager getTempBans() {
+        return tempBans;
+    }
+
+    public SharedStateSync getSharedState() {
+        return sharedState;
+    }
+
+    public AuditJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Stops the background tasks, saves the bans and closes the services.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (prometheusTask != null) prometheusTask.cancel();
+        }
+        tempBanTask.cancel();
+        tempBanSaveTask.cancel();
+        saveTempBans();
+        sharedState.close();
+        reverseDnsResolver.close();
+        connectionLogger.close();
+        journal.close();
+        blocklists.close();
+        geoIp.close();
+    }
+}
@@ -0,0 +1,52 @@
+package com.ryxon.engine;
+
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.util.IpAddress;
+
+/**
+ * Classifies the virtual host a client put in its handshake, i.e. the address
+ * the player actually typed, against the allowed hostnames.
+ */
+public final class VirtualHostCheck {
+
+    public enum Result {
+        ALLOWED,
+        MISSING,
+        DIRECT_IP,
+        UNKNOWN_HOST
+    }
+
+    private VirtualHostCheck() {}  // Prevent instantiation
+
+    public static Result check(SecurityPolicy policy, String rawHost) {
+        String host = extractHost(rawHost);
+        if (host.isEmpty()) return Result.MISSING;
+        if (host.equalsIgnoreCase(policy.getHostname().serverPublicIp()) || IpAddress.isLiteral(host)) {
+            return Result.DIRECT_IP;
+        }
+        return policy.getHostnameIndex().matches(host) ? Result.ALLOWED : Result.UNKNOWN_HOST;
+    }
+
+    /**
+     * Strips everything that is not part of the typed host: data appended after a NUL
+     * (Forge markers, BungeeCord forwarding), the port, IPv6 brackets and a trailing dot.
+     */
+    public static String extractHost(String rawHost) {
+        if (rawHost == null) return "";
+        String host = rawHost;
+        int nul = host.indexOf('\0');
+        if (nul >= 0) host = host.substring(0, nul);
+        host = host.trim();
+
+        if (host.startsWith("[")) {
+            int close = host.indexOf(']');
+            host = close > 0 ? host.substring(1, close) : host.substring(1);
+        } else {
+            int colon = host.indexOf(':');
+            if (colon >= 0 && colon == host.lastIndexOf(':')) host = host.substring(0, colon);
+        }
+
+        if (host.endsWith(".")) host = host.substring(0, host.length() - 1);
+        return host;
+    }
+}
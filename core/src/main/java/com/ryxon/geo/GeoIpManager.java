@@ -0,0 +1,249 @@
+package com.ryxon.geo;
+
+import com.ryxon.util.IpAddress;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the country and ASN databases mapped and current.
+ * <p>
+ * Databases are usually replaced by an updater writing over the old file, which
+ * would pull the pages out from under a live mapping. Each database is therefore
+ * copied to a private snapshot under {@code .active/} and that copy is mapped.
+ * A daemon thread watches the directory and, once changes have settled, opens
+ * the new snapshot and swaps it in with a single volatile write; lookups keep
+ * using the previous reader until then and never wait.
+ */
+public final class GeoIpManager implements AutoCloseable {
+
+    private static final String ACTIVE_DIR = ".active";
+
+    /**
+     * One open database and the source it was copied from.
+     */
+    private static final class Database {
+
+        final MmdbReader reader;
+        final String snapshot;
+        final long sourceSize;
+        final long sourceModified;
+
+        Database(MmdbReader reader, String snapshot, long sourceSize, long sourceModified) {
+            this.reader = reader;
+            this.snapshot = snapshot;
+            this.sourceSize = sourceSize;
+            this.sourceModified = sourceModified;
+        }
+    }
+
+    private final Logger logger;
+    private volatile Database country;
+    private volatile Database asn;
+    private volatile long reloadDelayMillis = 1000;
+
+    // Guarded by this
+    private Path directory;
+    private String countryFile;
+    private String asnFile;
+    private Thread watcher;
+    private WatchService watchService;
+
+    public GeoIpManager(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Starts, moves or stops watching according to the settings. Returns immediately;
+     * databases are opened on the watcher thread.
+     */
+    public synchronized void configure(boolean enabled, Path directory, String countryFile, String asnFile,
+                                       long reloadDelayMillis) {
+        this.reloadDelayMillis = reloadDelayMillis;
+        if (!enabled) {
+            stopWatcher();
+            this.directory = null;
+            country = null;
+            asn = null;
+            return;
+        }
+        if (directory.equals(this.directory) && countryFile.equals(this.countryFile)
+                && asnFile.equals(this.asnFile) && watcher != null) return;
+
+        stopWatcher();
+        this.directory = directory;
+        this.countryFile = countryFile;
+        this.asnFile = asnFile;
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+        } catch (IOException e) {
+            logger.warning("[RyxoNET] Cannot watch GeoIP directory " + directory + ": " + e.getMessage());
+            return;
+        }
+        WatchService service = watchService;
+        watcher = new Thread(() -> watch(directory, countryFile, asnFile, service), "RyxoNET-GeoIP");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * @return the packed country code of the address, {@link GeoRules#UNKNOWN_COUNTRY} if the
+     *         database has none, or -1 if no country database is loaded
+     */
+    public int country(IpAddress address) {
+        Database db = country;
+        if (db == null) return -1;
+        MmdbReader reader = db.reader;
+        return reader.countryCode(reader.lookup(address.getHigh(), address.getLow()));
+    }
+
+    /**
+     * @return the AS number announcing the address, or -1 if unknown or no ASN database is loaded
+     */
+    public long asn(IpAddress address) {
+        Database db = asn;
+        if (db == null) return -1;
+        MmdbReader reader = db.reader;
+        return reader.asn(reader.lookup(address.getHigh(), address.getLow()));
+    }
+
+    /**
+     * @return the loaded country database, or {@code null}
+     */
+    public MmdbReader getCountryDatabase() {
+        Database db = country;
+        return db == null ? null : db.reader;
+    }
+
+    /**
+     * @return the loaded ASN database, or {@code null}
+     */
+    public MmdbReader getAsnDatabase() {
+        Database db = asn;
+        return db == null ? null : db.reader;
+    }
+
+    @Override
+    public synchronized void close() {
+        stopWatcher();
+    }
+
+    private void stopWatcher() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+            watchService = null;
+        }
+        if (watcher != null) {
+            watcher.interrupt();
+            watcher = null;
+        }
+    }
+
+    // ────────────────────────────────────────────────
+    // Watcher thread
+    // ────────────────────────────────────────────────
+
+    private void watch(Path dir, String countryFile, String asnFile, WatchService service) {
+        try {
+            Files.createDirectories(dir.resolve(ACTIVE_DIR));
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            logger.warning("[RyxoNET] Cannot watch GeoIP directory " + dir + ": " + e.getMessage());
+            return;
+        }
+
+        rescan(dir, countryFile, asnFile);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = service.take();
+                // Updaters write in chunks or download and rename; wait until the directory is quiet
+                do {
+                    key.pollEvents();
+                    key.reset();
+                } while ((key = service.poll(reloadDelayMillis, TimeUnit.MILLISECONDS)) != null);
+                rescan(dir, countryFile, asnFile);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped by configure() or close()
+        }
+    }
+
+    private void rescan(Path dir, String countryFile, String asnFile) {
+        Path activeDir = dir.resolve(ACTIVE_DIR);
+        country = refresh(dir.resolve(countryFile), activeDir, country, "country");
+        // One file may serve both, as with the commercial combined databases
+        asn = asnFile.equals(countryFile) ? country : refresh(dir.resolve(asnFile), activeDir, asn, "ASN");
+
+        Set<String> keep = new HashSet<>();
+        if (country != null) keep.add(country.snapshot);
+        if (asn != null) keep.add(asn.snapshot);
+        deleteStale(activeDir, keep);
+    }
+
+    /**
+     * @return the database to use from now on: {@code current} if the source is unchanged
+     *         or unreadable, a newly opened snapshot if it changed, {@code null} if it is gone
+     */
+    private Database refresh(Path source, Path activeDir, Database current, String kind) {
+        String name = source.getFileName().toString();
+        if (!Files.isRegularFile(source)) {
+            if (current != null) logger.info("[RyxoNET] GeoIP " + kind + " database " + name + " removed");
+            return null;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+            long size = attributes.size();
+            long modified = attributes.lastModifiedTime().toMillis();
+            if (current != null && current.sourceSize == size && current.sourceModified == modified) return current;
+
+            String snapshot = name + "-" + Long.toHexString(size) + "-" + Long.toHexString(modified);
+            Path target = activeDir.resolve(snapshot);
+            if (!Files.exists(target)) {
+                Path tmp = activeDir.resolve(snapshot + ".tmp");
+                Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            MmdbReader reader = MmdbReader.open(target);
+            logger.info("[RyxoNET] GeoIP " + kind + " database loaded: " + name + " (" + reader.getDatabaseType() + ")");
+            return new Database(reader, snapshot, size, modified);
+        } catch (IOException e) {
+            logger.warning("[RyxoNET] Could not load GeoIP " + kind + " database " + name + ": " + e.getMessage());
+            // Keep enforcing the last good version
+            return current;
+        }
+    }
+
+    private static void deleteStale(Path activeDir, Set<String> keep) {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(activeDir)) {
+            for (Path file : stream) {
+                if (keep.contains(file.getFileName().toString())) continue;
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // Still mapped on some platforms; retried on the next rescan
+                }
+            }
+        } catch (IOException ignored) {
+        }
+    }
+}
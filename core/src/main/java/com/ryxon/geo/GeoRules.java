@@ -0,0 +1,193 @@
+package com.ryxon.geo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Country and ASN allow/deny rules, compiled into flat tables.
+ * <p>
+ * Countries index a 677-entry table directly by their two letters, with the
+ * last entry standing for "unknown"; ASNs sit in a small open-addressing table.
+ * Deciding a join is two array reads. ASN rules win over country rules, so a
+ * single network can be admitted from a denied country or refused from an
+ * allowed one.
+ */
+public final class GeoRules {
+
+    /** Packed value for an address the country database has no country for. */
+    public static final int UNKNOWN_COUNTRY = 0;
+
+    private static final int COUNTRIES = 26 * 26;
+    private static final byte ALLOW = 1;
+    private static final byte DENY = 2;
+
+    private static final GeoRules ALLOW_ALL = new GeoRules(new byte[COUNTRIES + 1], new int[0], new byte[0],
+            List.of(), List.of(), List.of(), List.of());
+
+    private final byte[] countries;
+    private final int[] asnKeys;
+    private final byte[] asnVerdicts;
+    private final int asnMask;
+
+    private final List<String> allowedCountries;
+    private final List<String> deniedCountries;
+    private final List<Long> allowedAsns;
+    private final List<Long> deniedAsns;
+
+    private GeoRules(byte[] countries, int[] asnKeys, byte[] asnVerdicts, List<String> allowedCountries,
+                     List<String> deniedCountries, List<Long> allowedAsns, List<Long> deniedAsns) {
+        this.countries = countries;
+        this.asnKeys = asnKeys;
+        this.asnVerdicts = asnVerdicts;
+        this.asnMask = asnKeys.length - 1;
+        this.allowedCountries = allowedCountries;
+        this.deniedCountries = deniedCountries;
+        this.allowedAsns = allowedAsns;
+        this.deniedAsns = deniedAsns;
+    }
+
+    /**
+     * @return rules that admit every address
+     */
+    public static GeoRules allowAll() {
+        return ALLOW_ALL;
+    }
+
+    /**
+     * Compiles the rules. A non-empty {@code allowedCountries} admits only those
+     * countries; {@code deniedCountries} refuses the listed ones either way.
+     *
+     * @param allowUnknown whether addresses without a known country are admitted
+     * @param invalid      receives each entry that is not a two-letter code or an AS number
+     */
+    public static GeoRules compile(List<String> allowedCountries, List<String> deniedCountries,
+                                   List<String> allowedAsns, List<String> deniedAsns,
+                                   boolean allowUnknown, Consumer<String> invalid) {
+        byte[] countries = new byte[COUNTRIES + 1];
+        if (!allowedCountries.isEmpty()) Arrays.fill(countries, DENY);
+        List<String> allowed = countryCodes(allowedCountries, countries, ALLOW, invalid);
+        List<String> denied = countryCodes(deniedCountries, countries, DENY, invalid);
+        countries[COUNTRIES] = allowUnknown ? 0 : DENY;
+
+        List<Long> allowedNumbers = asNumbers(allowedAsns, invalid);
+        List<Long> deniedNumbers = asNumbers(deniedAsns, invalid);
+        int capacity = Integer.highestOneBit(Math.max(1, (allowedNumbers.size() + deniedNumbers.size()) * 2 - 1)) << 1;
+        int[] keys = new int[capacity];
+        byte[] verdicts = new byte[capacity];
+        for (long asn : allowedNumbers) put(keys, verdicts, (int) asn, ALLOW);
+        for (long asn : deniedNumbers) put(keys, verdicts, (int) asn, DENY);
+
+        return new GeoRules(countries, keys, verdicts, allowed, denied, allowedNumbers, deniedNumbers);
+    }
+
+    /**
+     * @param country the packed country code from {@link MmdbReader#countryCode(int)}, or a
+     *                negative value if no country database is loaded, which skips the country rules
+     * @param asn     the AS number, or -1 if unknown
+     */
+    public boolean allows(int country, long asn) {
+        if (asn > 0 && asnKeys.length > 0) {
+            byte verdict = asnVerdict((int) asn);
+            if (verdict != 0) return verdict == ALLOW;
+        }
+        if (country < 0) return true;
+        return countries[index(country)] != DENY;
+    }
+
+    public boolean isEmpty() {
+        return allowedCountries.isEmpty() && deniedCountries.isEmpty()
+                && allowedAsns.isEmpty() && deniedAsns.isEmpty() && countries[COUNTRIES] != DENY;
+    }
+
+    public List<String> getAllowedCountries() {
+        return allowedCountries;
+    }
+
+    public List<String> getDeniedCountries() {
+        return deniedCountries;
+    }
+
+    public List<Long> getAllowedAsns() {
+        return allowedAsns;
+    }
+
+    public List<Long> getDeniedAsns() {
+        return deniedAsns;
+    }
+
+    public boolean isUnknownAllowed() {
+        return countries[COUNTRIES] != DENY;
+    }
+
+    /**
+     * @return the code as two upper-case letters, or {@code "??"} if unknown
+     */
+    public static String countryName(int country) {
+        if (country <= 0) return "??";
+        return new String(new char[]{(char) (country >>> 8), (char) (country & 0xFF)});
+    }
+
+    private static int index(int country) {
+        int first = (country >>> 8) - 'A';
+        int second = (country & 0xFF) - 'A';
+        if (first < 0 || first >= 26 || second < 0 || second >= 26) return COUNTRIES;
+        return first * 26 + second;
+    }
+
+    private byte asnVerdict(int asn) {
+        for (int i = mix(asn) & asnMask; ; i = (i + 1) & asnMask) {
+            int key = asnKeys[i];
+            if (key == asn) return asnVerdicts[i];
+            if (key == 0) return 0;
+        }
+    }
+
+    private static void put(int[] keys, byte[] verdicts, int asn, byte verdict) {
+        int mask = keys.length - 1;
+        int i = mix(asn) & mask;
+        while (keys[i] != 0 && keys[i] != asn) i = (i + 1) & mask;
+        keys[i] = asn;
+        verdicts[i] = verdict;
+    }
+
+    private static int mix(int asn) {
+        int h = asn * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static List<String> countryCodes(List<String> entries, byte[] table, byte verdict, Consumer<String> invalid) {
+        String[] codes = new String[entries.size()];
+        int count = 0;
+        for (String entry : entries) {
+            String code = entry.trim().toUpperCase(Locale.ROOT);
+            int packed = code.length() == 2 ? (code.charAt(0) << 8) | code.charAt(1) : 0;
+            int index = packed == 0 ? COUNTRIES : index(packed);
+            if (index == COUNTRIES) {
+                invalid.accept(entry);
+                continue;
+            }
+            table[index] = verdict;
+            codes[count++] = code;
+        }
+        return List.of(Arrays.copyOf(codes, count));
+    }
+
+    private static List<Long> asNumbers(List<String> entries, Consumer<String> invalid) {
+        Long[] numbers = new Long[entries.size()];
+        int count = 0;
+        for (String entry : entries) {
+            String value = entry.trim();
+            if (value.regionMatches(true, 0, "AS", 0, 2)) value = value.substring(2);
+            try {
+                long asn = Long.parseLong(value);
+                if (asn <= 0 || asn > 0xFFFFFFFFL) throw new NumberFormatException();
+                numbers[count++] = asn;
+            } catch (NumberFormatException e) {
+                invalid.accept(entry);
+            }
+        }
+        return List.of(Arrays.copyOf(numbers, count));
+    }
+}
@@ -0,0 +1,426 @@
+package com.ryxon.geo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reader for MaxMind DB ({@code .mmdb}) files such as GeoLite2-Country and GeoLite2-ASN.
+ * <p>
+ * The file is memory-mapped. A lookup walks the binary search tree bit by bit
+ * to a data section offset, and the few fields RyxoNET needs are then read in
+ * place: map keys are compared byte for byte, a country code comes back packed
+ * into an {@code int}, and no objects are allocated. Only the metadata is
+ * decoded into Java objects, once, when the file is opened.
+ *
+ * @see <a href="https://maxmind.github.io/MaxMind-DB/">MaxMind DB file format</a>
+ */
+public final class MmdbReader {
+
+    private static final byte[] METADATA_MARKER = {(byte) 0xAB, (byte) 0xCD, (byte) 0xEF,
+            'M', 'a', 'x', 'M', 'i', 'n', 'd', '.', 'c', 'o', 'm'};
+    private static final int METADATA_SEARCH = 128 * 1024;
+    private static final int DATA_SEPARATOR = 16;
+
+    private static final int POINTER = 1;
+    private static final int UTF8_STRING = 2;
+    private static final int DOUBLE = 3;
+    private static final int BYTES = 4;
+    private static final int UINT16 = 5;
+    private static final int UINT32 = 6;
+    private static final int MAP = 7;
+    private static final int INT32 = 8;
+    private static final int UINT64 = 9;
+    private static final int UINT128 = 10;
+    private static final int ARRAY = 11;
+    private static final int BOOLEAN = 14;
+    private static final int FLOAT = 15;
+
+    private static final byte[] COUNTRY = ascii("country");
+    private static final byte[] REGISTERED_COUNTRY = ascii("registered_country");
+    private static final byte[] ISO_CODE = ascii("iso_code");
+    private static final byte[] ASN = ascii("autonomous_system_number");
+
+    private final ByteBuffer buffer;
+    private final long nodeCount;
+    private final int recordSize;
+    private final int ipVersion;
+    private final String databaseType;
+    private final long buildEpoch;
+    private final int dataStart;
+    private final long ipv4Start;
+
+    // Scratch result of the last decodeHeader call; only used by one lookup at a time per thread
+    private static final ThreadLocal<int[]> HEADER = ThreadLocal.withInitial(() -> new int[3]);
+
+    private MmdbReader(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        int metadataStart = findMetadata(buffer);
+        if (metadataStart < 0) throw new IOException("No MaxMind DB metadata found");
+
+        Object decoded = new MetadataDecoder(buffer, metadataStart).decode(metadataStart);
+        if (!(decoded instanceof Map)) throw new IOException("Malformed MaxMind DB metadata");
+        Map<?, ?> metadata = (Map<?, ?>) decoded;
+        this.nodeCount = number(metadata, "node_count");
+        this.recordSize = (int) number(metadata, "record_size");
+        this.ipVersion = (int) number(metadata, "ip_version");
+        Object type = metadata.get("database_type");
+        this.databaseType = type == null ? "unknown" : type.toString();
+        Object epoch = metadata.get("build_epoch");
+        this.buildEpoch = epoch instanceof Number ? ((Number) epoch).longValue() : 0;
+        if (recordSize != 24 && recordSize != 28 && recordSize != 32) {
+            throw new IOException("Unsupported record size " + recordSize);
+        }
+        if (ipVersion != 4 && ipVersion != 6) throw new IOException("Unsupported IP version " + ipVersion);
+
+        long treeSize = nodeCount * recordSize / 4;
+        if (treeSize + DATA_SEPARATOR > metadataStart) throw new IOException("Search tree exceeds file");
+        this.dataStart = (int) treeSize + DATA_SEPARATOR;
+
+        // IPv4 addresses live under ::/96 of an IPv6 tree
+        long node = 0;
+        if (ipVersion == 6) {
+            for (int i = 0; i < 96 && node < nodeCount; i++) node = record(node, 0);
+        }
+        this.ipv4Start = node;
+    }
+
+    /**
+     * Maps {@code file} read-only and parses its metadata.
+     */
+    public static MmdbReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Database larger than 2 GB");
+            return new MmdbReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public String getDatabaseType() {
+        return databaseType;
+    }
+
+    /**
+     * @return when the database was built, in epoch seconds
+     */
+    public long getBuildEpoch() {
+        return buildEpoch;
+    }
+
+    // ────────────────────────────────────────────────
+    // Lookups
+    // ────────────────────────────────────────────────
+
+    /**
+     * @return the data offset of the record covering the address (in the
+     *         {@link com.ryxon.util.IpAddress} two-long form), or -1 if there is none
+     */
+    public int lookup(long high, long low) {
+        boolean v4 = high == 0 && (low >>> 32) == 0xFFFFL;
+        if (ipVersion == 4 && !v4) return -1;
+
+        long node = v4 ? ipv4Start : 0;
+        int bits = v4 ? 32 : 128;
+        for (int i = 0; i < bits && node < nodeCount; i++) {
+            int bit;
+            if (v4) bit = (int) (low >>> (31 - i)) & 1;
+            else bit = (int) ((i < 64 ? high >>> (63 - i) : low >>> (127 - i)) & 1);
+            node = record(node, bit);
+        }
+        if (node <= nodeCount) return -1;  // equal to nodeCount means "no data"
+        long offset = node - nodeCount - DATA_SEPARATOR;
+        return offset >= 0 && dataStart + offset < buffer.capacity() ? (int) offset : -1;
+    }
+
+    /**
+     * @return the ISO country code at {@code country.iso_code}, falling back to
+     *         {@code registered_country.iso_code}, packed as {@code (first << 8) | second};
+     *         0 if the record has none
+     */
+    public int countryCode(int offset) {
+        if (offset < 0) return 0;
+        int code = isoCode(offset, COUNTRY);
+        return code != 0 ? code : isoCode(offset, REGISTERED_COUNTRY);
+    }
+
+    /**
+     * @return the {@code autonomous_system_number} of the record, or -1 if it has none
+     */
+    public long asn(int offset) {
+        if (offset < 0) return -1;
+        int value = mapValue(dataStart + offset, ASN);
+        if (value < 0) return -1;
+        int[] header = HEADER.get();
+        int start = decodeHeader(value, header);
+        int type = header[0];
+        if (type != UINT16 && type != UINT32 && type != UINT64 && type != INT32) return -1;
+        return readUnsigned(start, header[1]);
+    }
+
+    private int isoCode(int offset, byte[] key) {
+        int country = mapValue(dataStart + offset, key);
+        if (country < 0) return 0;
+        int code = mapValue(country, ISO_CODE);
+        if (code < 0) return 0;
+        int[] header = HEADER.get();
+        int start = decodeHeader(code, header);
+        if (header[0] != UTF8_STRING || header[1] != 2) return 0;
+        return ((buffer.get(start) & 0xFF) << 8) | (buffer.get(start + 1) & 0xFF);
+    }
+
+    // ────────────────────────────────────────────────
+    // Search tree
+    // ────────────────────────────────────────────────
+
+    private long record(long node, int bit) {
+        switch (recordSize) {
+            case 24: {
+                int at = (int) (node * 6) + bit * 3;
+                return readUnsigned(at, 3);
+            }
+            case 28: {
+                int at = (int) (node * 7);
+                int middle = buffer.get(at + 3) & 0xFF;
+                if (bit == 0) return ((long) (middle & 0xF0) << 20) | readUnsigned(at, 3);
+                return ((long) (middle & 0x0F) << 24) | readUnsigned(at + 4, 3);
+            }
+            default: {
+                int at = (int) (node * 8) + bit * 4;
+                return readUnsigned(at, 4);
+            }
+        }
+    }
+
+    // ────────────────────────────────────────────────
+    // Data section, decoded in place
+    // ────────────────────────────────────────────────
+
+    /**
+     * Decodes the control byte(s) at {@code at}, following a pointer if there is one.
+     *
+     * @param header receives {type, size, position after the value's header}
+     * @return the position of the payload
+     */
+    private int decodeHeader(int at, int[] header) {
+        int control = buffer.get(at++) & 0xFF;
+        int type = control >>> 5;
+        if (type == POINTER) {
+            int size = (control >>> 3) & 0x3;
+            int value = control & 0x7;
+            long pointer;
+            switch (size) {
+                case 0:
+                    pointer = ((long) value << 8) | (buffer.get(at) & 0xFF);
+                    break;
+                case 1:
+                    pointer = (((long) value << 16) | readUnsigned(at, 2)) + 2048;
+                    break;
+                case 2:
+                    pointer = (((long) value << 24) | readUnsigned(at, 3)) + 526336;
+                    break;
+                default:
+                    pointer = readUnsigned(at, 4);
+                    break;
+            }
+            int after = at + size + 1;
+            int target = decodeHeader(dataStart + (int) pointer, header);
+            header[2] = after;  // the value ends where the pointer does
+            return target;
+        }
+        if (type == 0) type = 7 + (buffer.get(at++) & 0xFF);
+        int size = control & 0x1F;
+        if (size >= 29) {
+            int extra = size - 28;
+            size = size == 29 ? 29 + (buffer.get(at) & 0xFF)
+                    : size == 30 ? 285 + (int) readUnsigned(at, 2)
+                    : 65821 + (int) readUnsigned(at, 3);
+            at += extra;
+        }
+        header[0] = type;
+        header[1] = size;
+        header[2] = -1;
+        return at;
+    }
+
+    /**
+     * @return the position just past the value at {@code at}
+     */
+    private int skip(int at) {
+        int[] header = HEADER.get();
+        int start = decodeHeader(at, header);
+        if (header[2] >= 0) return header[2];
+        int type = header[0];
+        int size = header[1];
+        switch (type) {
+            case MAP: {
+                int position = start;
+                for (int i = 0; i < size * 2; i++) position = skip(position);
+                return position;
+            }
+            case ARRAY: {
+                int position = start;
+                for (int i = 0; i < size; i++) position = skip(position);
+                return position;
+            }
+            case DOUBLE:
+                return start + 8;
+            case FLOAT:
+                return start + 4;
+            case BOOLEAN:
+                return start;
+            default:
+                return start + size;
+        }
+    }
+
+    /**
+     * @return the position of the value stored under {@code key} in the map at {@code at}, or -1
+     */
+    private int mapValue(int at, byte[] key) {
+        int[] header = HEADER.get();
+        int position = decodeHeader(at, header);
+        if (header[0] != MAP) return -1;
+        int pairs = header[1];
+        for (int i = 0; i < pairs; i++) {
+            int keyStart = decodeHeader(position, header);
+            boolean match = header[0] == UTF8_STRING && header[1] == key.length && bytesEqual(keyStart, key);
+            int valueAt = header[2] >= 0 ? header[2] : keyStart + header[1];
+            if (match) return valueAt;
+            position = skip(valueAt);
+        }
+        return -1;
+    }
+
+    private boolean bytesEqual(int at, byte[] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer.get(at + i) != expected[i]) return false;
+        }
+        return true;
+    }
+
+    private long readUnsigned(int at, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) value = (value << 8) | (buffer.get(at + i) & 0xFF);
+        return value;
+    }
+
+    // ────────────────────────────────────────────────
+    // Metadata
+    // ────────────────────────────────────────────────
+
+    private static int findMetadata(ByteBuffer buffer) {
+        int limit = Math.max(0, buffer.capacity() - METADATA_SEARCH);
+        outer:
+        for (int at = buffer.capacity() - METADATA_MARKER.length; at >= limit; at--) {
+            for (int i = 0; i < METADATA_MARKER.length; i++) {
+                if (buffer.get(at + i) != METADATA_MARKER[i]) continue outer;
+            }
+            return at + METADATA_MARKER.length;
+        }
+        return -1;
+    }
+
+    private static long number(Map<?, ?> metadata, String key) throws IOException {
+        Object value = metadata.get(key);
+        if (!(value instanceof Number)) throw new IOException("Metadata is missing " + key);
+        return ((Number) value).longValue();
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Generic decoder for the metadata map; pointers there are relative to the metadata start.
+     */
+    private static final class MetadataDecoder {
+
+        private final ByteBuffer buffer;
+        private final int base;
+        private int position;
+
+        MetadataDecoder(ByteBuffer buffer, int base) {
+            this.buffer = buffer;
+            this.base = base;
+        }
+
+        Object decode(int at) throws IOException {
+            position = at;
+            return next();
+        }
+
+        private Object next() throws IOException {
+            int control = buffer.get(position++) & 0xFF;
+            int type = control >>> 5;
+            if (type == POINTER) {
+                int size = (control >>> 3) & 0x3;
+                long pointer = control & 0x7;
+                for (int i = 0; i <= size; i++) pointer = (pointer << 8) | (buffer.get(position++) & 0xFF);
+                if (size == 3) pointer &= 0xFFFFFFFFL;
+                else if (size == 1) pointer += 2048;
+                else if (size == 2) pointer += 526336;
+                int resume = position;
+                position = base + (int) pointer;
+                Object value = next();
+                position = resume;
+                return value;
+            }
+            if (type == 0) type = 7 + (buffer.get(position++) & 0xFF);
+            int size = control & 0x1F;
+            if (size >= 29) {
+                int extra = size - 28;
+                long value = 0;
+                for (int i = 0; i < extra; i++) value = (value << 8) | (buffer.get(position++) & 0xFF);
+                size = (int) (size == 29 ? 29 + value : size == 30 ? 285 + value : 65821 + value);
+            }
+            switch (type) {
+                case UTF8_STRING: {
+                    byte[] bytes = new byte[size];
+                    for (int i = 0; i < size; i++) bytes[i] = buffer.get(position++);
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+                case DOUBLE:
+                    position += 8;
+                    return buffer.getDouble(position - 8);
+                case FLOAT:
+                    position += 4;
+                    return buffer.getFloat(position - 4);
+                case BYTES:
+                case UINT128:
+                    position += size;
+                    return null;
+                case UINT16:
+                case UINT32:
+                case UINT64:
+                case INT32: {
+                    long value = 0;
+                    for (int i = 0; i < size; i++) value = (value << 8) | (buffer.get(position++) & 0xFF);
+                    return type == INT32 ? (long) (int) value : value;
+                }
+                case MAP: {
+                    Map<String, Object> map = new HashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        Object key = next();
+                        map.put(String.valueOf(key), next());
+                    }
+                    return map;
+                }
+                case ARRAY: {
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) list.add(next());
+                    return list;
+                }
+                case BOOLEAN:
+                    return size != 0;
+                default:
+                    throw new IOException("Unsupported metadata type " + type);
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.ryxon.guard;
+
+import com.ryxon.check.CheckType;
+import com.ryxon.config.SecurityPolicy;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Deadlines and circuit breakers for the checks that wait on something outside
+ * the server.
+ * <p>
+ * Each guarded call gets the smaller of its check's deadline and what is left of
+ * the login's overall budget. A call that times out, throws, or answers later
+ * than its slow-call threshold counts as a failure for the check's breaker.
+ * While a breaker is open the check is not run at all, and like a timeout or an
+ * error the join is then decided by the check's {@code on-failure} policy:
+ * admitted (fail open) or refused (fail closed). A degraded resolver therefore
+ * costs each join at most one deadline until the breaker trips, and nothing after.
+ */
+public final class CheckGuards {
+
+    private static final long EPOCH = System.nanoTime();
+
+    /**
+     * How a guarded call ended.
+     */
+    public enum Outcome {
+        PASSED,
+        FAILED,
+        TIMED_OUT,
+        ERROR,
+        /** Not run because the breaker is open. */
+        SHORT_CIRCUITED;
+
+        /**
+         * @return whether the check could not give an answer, so the on-failure policy decides
+         */
+        public boolean isFault() {
+            return this != PASSED && this != FAILED;
+        }
+    }
+
+    /**
+     * A check that honours the deadline it is given.
+     */
+    @FunctionalInterface
+    public interface Check {
+
+        /**
+         * @return whether the join passed
+         * @throws TimeoutException if no answer arrived within {@code timeoutMillis}
+         */
+        boolean run(long timeoutMillis) throws Exception;
+    }
+
+    /**
+     * Deadline, breaker and policy of one check.
+     */
+    private static final class Guard {
+
+        final long deadlineNanos;
+        final long slowNanos;
+        final boolean failOpen;
+        final CircuitBreaker breaker;
+
+        Guard(long deadlineMillis, long slowMillis, boolean failOpen, CircuitBreaker breaker) {
+            this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+            this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMillis);
+            this.failOpen = failOpen;
+            this.breaker = breaker;
+        }
+    }
+
+    private final Logger logger;
+    private volatile Guard[] guards = new Guard[CheckType.values().length];
+    private volatile long budgetNanos = TimeUnit.SECONDS.toNanos(5);
+
+    public CheckGuards(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Applies the {@code check-guards} settings. Breakers start closed again whenever
+     * their settings change, and keep their state otherwise.
+     */
+    public synchronized void configure(SecurityPolicy policy) {
+        Guard[] current = guards;
+        Guard[] next = new Guard[current.length];
+        next[CheckType.HOSTNAME.ordinal()] = guard(policy, current[CheckType.HOSTNAME.ordinal()],
+                policy.getDns().timeoutMillis(), policy.getGuards().hostnameSlowMillis(), policy.getGuards().hostnameFailOpen());
+        next[CheckType.PROXY.ordinal()] = guard(policy, current[CheckType.PROXY.ordinal()],
+                policy.getGuards().proxyDeadlineMillis(), policy.getGuards().proxySlowMillis(), policy.getGuards().proxyFailOpen());
+        budgetNanos = TimeUnit.MILLISECONDS.toNanos(policy.getGuards().loginBudgetMillis());
+        guards = next;
+    }
+
+    private static Guard guard(SecurityPolicy policy, Guard current, long deadlineMillis, long slowMillis, boolean failOpen) {
+        CircuitBreaker breaker = null;
+        if (policy.getGuards().enabled()) {
+            boolean same = current != null && current.breaker != null
+                    && current.breaker.matches(policy.getGuards().windowSeconds(), policy.getGuards().minimumCalls(),
+                    policy.getGuards().failureRatePercent(), TimeUnit.SECONDS.toNanos(policy.getGuards().openSeconds()),
+                    policy.getGuards().halfOpenCalls());
+            breaker = same ? current.breaker : new CircuitBreaker(policy.getGuards().windowSeconds(),
+                    policy.getGuards().minimumCalls(), policy.getGuards().failureRatePercent(),
+                    TimeUnit.SECONDS.toNanos(policy.getGuards().openSeconds()), policy.getGuards().halfOpenCalls());
+        }
+        return new Guard(deadlineMillis, slowMillis, failOpen, breaker);
+    }
+
+    /**
+     * @return the deadline of a login starting now, to pass to {@link #run}
+     */
+    public long loginDeadline(long startNanos) {
+        return startNanos + budgetNanos;
+    }
+
+    /**
+     * Runs {@code check} within its deadline and records the outcome with its breaker.
+     *
+     * @param loginDeadline from {@link #loginDeadline(long)}
+     */
+    public Outcome run(CheckType type, long loginDeadline, Check check) {
+        Guard guard = guards[type.ordinal()];
+        if (guard == null) throw new IllegalArgumentException("The " + type + " check is not guarded");
+        long start = System.nanoTime();
+        long timeout = Math.min(guard.deadlineNanos, loginDeadline - start);
+        // Out of budget through no fault of this check; its breaker is not told
+        if (timeout <= 0) return Outcome.TIMED_OUT;
+        CircuitBreaker breaker = guard.breaker;
+        if (breaker != null && !breaker.tryAcquire(start - EPOCH)) return Outcome.SHORT_CIRCUITED;
+
+        Outcome outcome;
+        try {
+            boolean passed = check.run(Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeout)));
+            // An answer that comes too late for an uninterruptible check still misses the deadline
+            outcome = System.nanoTime() - start > timeout ? Outcome.TIMED_OUT : passed ? Outcome.PASSED : Outcome.FAILED;
+        } catch (TimeoutException e) {
+            outcome = Outcome.TIMED_OUT;
+        } catch (Exception e) {
+            outcome = Outcome.ERROR;
+        }
+        if (breaker != null) {
+            long end = System.nanoTime();
+            boolean failed = outcome.isFault() || end - start > guard.slowNanos;
+            CircuitBreaker.State before = breaker.getState();
+            CircuitBreaker.State after = breaker.record(failed, end - EPOCH);
+            if (before != after) report(type, guard, breaker, before, after, end - EPOCH);
+        }
+        return outcome;
+    }
+
+    /**
+     * @return whether a join with this outcome passes the check, applying its on-failure policy
+     */
+    public boolean passes(CheckType type, Outcome outcome) {
+        switch (outcome) {
+            case PASSED:
+                return true;
+            case FAILED:
+                return false;
+            default:
+                Guard guard = guards[type.ordinal()];
+                return guard != null && guard.failOpen;
+        }
+    }
+
+    /**
+     * @return "closed", "open" or "half-open", or {@code null} if the check has no breaker
+     */
+    public String getState(CheckType type) {
+        Guard guard = guards[type.ordinal()];
+        if (guard == null || guard.breaker == null) return null;
+        return guard.breaker.getState().name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    /**
+     * @return how often the check's breaker opened since it was configured
+     */
+    public int getTrips(CheckType type) {
+        Guard guard = guards[type.ordinal()];
+        return guard == null || guard.breaker == null ? 0 : guard.breaker.getTrips();
+    }
+
+    private void report(CheckType type, Guard guard, CircuitBreaker breaker, CircuitBreaker.State before,
+                        CircuitBreaker.State after, long now) {
+        String name = type.name().toLowerCase(Locale.ROOT);
+        switch (after) {
+            case OPEN: {
+                long[] counts = breaker.counts(now);
+                String detail = before == CircuitBreaker.State.HALF_OPEN
+                        ? "a trial call failed"
+                        : counts[1] + " of " + counts[0] + " recent calls failed or were slow";
+                logger.warning("[RyxoNET] Circuit breaker for the " + name + " check opened (" + detail + "); joins are "
+                        + (guard.failOpen ? "admitted" : "refused") + " without it for now");
+                break;
+            }
+            case CLOSED:
+                logger.info("[RyxoNET] Circuit breaker for the " + name + " check closed; the check is running again");
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.ryxon.guard;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Circuit breaker over a sliding window of call outcomes.
+ * <p>
+ * Calls and failures are counted in one-second buckets, each packing its second
+ * with both counts into one {@code long} so recording is a single CAS. Once at
+ * least {@code minimumCalls} calls in the window failed at {@code failureRate}
+ * or more, the breaker opens and refuses calls for {@code openNanos}. Then it
+ * lets {@code halfOpenCalls} trial calls through: if they all succeed it closes,
+ * the first failure opens it again. Only state changes take the lock.
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final int COUNT_BITS = 16;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final AtomicLongArray buckets;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+    private final AtomicInteger trialPermits = new AtomicInteger();
+    private final AtomicInteger trialSuccesses = new AtomicInteger();
+    private volatile int trips;
+
+    CircuitBreaker(int windowSeconds, int minimumCalls, int failureRatePercent, long openNanos, int halfOpenCalls) {
+        this.buckets = new AtomicLongArray(Math.max(1, windowSeconds));
+        this.minimumCalls = Math.max(1, minimumCalls);
+        this.failureRatePercent = Math.max(1, Math.min(100, failureRatePercent));
+        this.openNanos = openNanos;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    }
+
+    /**
+     * @return whether the call may run; every permitted call must be followed by {@link #record}
+     */
+    boolean tryAcquire(long nowNanos) {
+        State s = state;
+        if (s == State.CLOSED) return true;
+        if (s == State.OPEN) {
+            if (nowNanos - openedAt < openNanos) return false;
+            halfOpen();
+        }
+        // Half open: a limited number of trial calls
+        while (true) {
+            int permits = trialPermits.get();
+            if (permits <= 0) return false;
+            if (trialPermits.compareAndSet(permits, permits - 1)) return true;
+        }
+    }
+
+    /**
+     * @return the state after recording, so the caller can report transitions
+     */
+    State record(boolean failed, long nowNanos) {
+        State s = state;
+        if (s == State.HALF_OPEN) {
+            if (failed) {
+                open(nowNanos);
+            } else if (trialSuccesses.incrementAndGet() >= halfOpenCalls) {
+                close();
+            }
+            return state;
+        }
+        if (s == State.OPEN) return s;  // a call that started before the breaker opened
+
+        long second = nowNanos / 1_000_000_000L;
+        int i = (int) (second % buckets.length());
+        while (true) {
+            long bucket = buckets.get(i);
+            long calls, failures;
+            if (bucket >>> (2 * COUNT_BITS) == second) {
+                calls = Math.min(COUNT_MASK, ((bucket >>> COUNT_BITS) & COUNT_MASK) + 1);
+                failures = Math.min(COUNT_MASK, (bucket & COUNT_MASK) + (failed ? 1 : 0));
+            } else {
+                calls = 1;
+                failures = failed ? 1 : 0;
+            }
+            long next = (second << (2 * COUNT_BITS)) | (calls << COUNT_BITS) | failures;
+            if (buckets.compareAndSet(i, bucket, next)) break;
+        }
+        // Only a failure can push the rate over the threshold
+        if (failed) {
+            long[] counts = counts(nowNanos);
+            if (counts[0] >= minimumCalls && counts[1] * 100 >= counts[0] * failureRatePercent) open(nowNanos);
+        }
+        return state;
+    }
+
+    /**
+     * @return {calls, failures} over the window
+     */
+    long[] counts(long nowNanos) {
+        long second = nowNanos / 1_000_000_000L;
+        long calls = 0, failures = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            long bucket = buckets.get(i);
+            if (second - (bucket >>> (2 * COUNT_BITS)) < buckets.length()) {
+                calls += (bucket >>> COUNT_BITS) & COUNT_MASK;
+                failures += bucket & COUNT_MASK;
+            }
+        }
+        return new long[]{calls, failures};
+    }
+
+    boolean matches(int windowSeconds, int minimumCalls, int failureRatePercent, long openNanos, int halfOpenCalls) {
+        return buckets.length() == Math.max(1, windowSeconds) && this.minimumCalls == Math.max(1, minimumCalls)
+                && this.failureRatePercent == Math.max(1, Math.min(100, failureRatePercent))
+                && this.openNanos == openNanos && this.halfOpenCalls == Math.max(1, halfOpenCalls);
+    }
+
+    State getState() {
+        return state;
+    }
+
+    int getTrips() {
+        return trips;
+    }
+
+    private synchronized void open(long nowNanos) {
+        if (state == State.OPEN) return;
+        openedAt = nowNanos;
+        trips++;
+        state = State.OPEN;
+    }
+
+    private synchronized void halfOpen() {
+        if (state != State.OPEN) return;
+        trialSuccesses.set(0);
+        trialPermits.set(halfOpenCalls);
+        state = State.HALF_OPEN;
+    }
+
+    private synchronized void close() {
+        if (state != State.HALF_OPEN) return;
+        for (int i = 0; i < buckets.length(); i++) buckets.set(i, 0);
+        state = State.CLOSED;
+    }
+}
@@ -0,0 +1,216 @@
+package com.ryxon.index;
+
+import com.ryxon.util.IpAddress;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Immutable binary radix trie of IPv4 and IPv6 CIDR ranges.
+ * <p>
+ * Nodes live in a single {@code int[]} (two slots per node), so a lookup is a
+ * walk of at most 32 (IPv4) or 128 (IPv6) array reads with no allocation.
+ * A range that covers another one replaces it, so the trie never holds
+ * redundant prefixes.
+ */
+public final class CidrTrie {
+
+    private static final int V4_ROOT = 0;
+    private static final int V6_ROOT = 1;
+
+    /** Child slot value marking "everything below this point is covered". */
+    private static final int COVERED = -1;
+
+    /** Child slot value for a missing child; roots are never referenced so 0 is free. */
+    private static final int EMPTY = 0;
+
+    private static final CidrTrie EMPTY_TRIE = new CidrTrie(new int[4], false, false, 0);
+
+    private final int[] children;
+    private final boolean allV4;
+    private final boolean allV6;
+    private final int size;
+
+    private CidrTrie(int[] children, boolean allV4, boolean allV6, int size) {
+        this.children = children;
+        this.allV4 = allV4;
+        this.allV6 = allV6;
+        this.size = size;
+    }
+
+    public static CidrTrie empty() {
+        return EMPTY_TRIE;
+    }
+
+    /**
+     * Compiles a trie from entries such as {@code 10.0.0.0/8}, {@code 2001:db8::/48}
+     * or a bare address. Entries that cannot be parsed are reported to {@code invalid}
+     * and skipped.
+     */
+    public static CidrTrie compile(Collection<String> entries, Consumer<String> invalid) {
+        Builder builder = new Builder(entries.size() * 8);
+        for (String entry : entries) {
+            if (!builder.add(entry)) invalid.accept(entry);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns a trie that additionally covers {@code entries}. The new ranges are
+     * inserted into a copy of this trie's node array: the copy is linear in the size
+     * of this trie, but it saves re-parsing and re-inserting every existing entry.
+     * Entries that cannot be parsed are reported to {@code invalid} and skipped.
+     */
+    public CidrTrie withAdded(Collection<String> entries, Consumer<String> invalid) {
+        Builder builder = new Builder(this, entries.size() * 8);
+        for (String entry : entries) {
+            if (!builder.add(entry)) invalid.accept(entry);
+        }
+        return builder.build();
+    }
+
+    // ────────────────────────────────────────────────
+    // Lookups
+    // ────────────────────────────────────────────────
+
+    public boolean contains(InetAddress address) {
+        if (address instanceof Inet4Address) {
+            // Inet4Address.hashCode() is the packed address; avoids cloning getAddress()
+            return containsV4(address.hashCode());
+        }
+        if (address instanceof Inet6Address) {
+            byte[] b = address.getAddress();
+            return containsV6(IpAddress.toLong(b, 0), IpAddress.toLong(b, 8));
+        }
+        return false;
+    }
+
+    public boolean contains(IpAddress address) {
+        return address.isIPv4() ? containsV4(address.toIPv4()) : containsV6(address.getHigh(), address.getLow());
+    }
+
+    public boolean containsV4(int address) {
+        if (allV4) return true;
+        int node = V4_ROOT;
+        for (int bit = 31; bit >= 0; bit--) {
+            int next = children[(node << 1) | ((address >>> bit) & 1)];
+            if (next == COVERED) return true;
+            if (next == EMPTY) return false;
+            node = next;
+        }
+        return false;
+    }
+
+    public boolean containsV6(long high, long low) {
+        if (allV6) return true;
+        int node = V6_ROOT;
+        for (int bit = 0; bit < 128; bit++) {
+            long word = bit < 64 ? high : low;
+            int next = children[(node << 1) | (int) ((word >>> (63 - (bit & 63))) & 1L)];
+            if (next == COVERED) return true;
+            if (next == EMPTY) return false;
+            node = next;
+        }
+        return false;
+    }
+
+    /**
+     * @return number of ranges the trie was compiled from (covered duplicates included)
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Mutable construction-time form of the trie.
+     */
+    static final class Builder {
+
+        private int[] children;
+        private int nodeCount = 2;  // both roots
+        private boolean allV4;
+        private boolean allV6;
+        private int size;
+        private final long[] parsed = new long[2];
+
+        Builder(int expectedNodes) {
+            this.children = new int[Math.max(16, expectedNodes * 2)];
+        }
+
+        Builder(CidrTrie base, int extraNodes) {
+            this.children = Arrays.copyOf(base.children, Math.max(16, base.children.length + extraNodes * 2));
+            this.nodeCount = base.children.length / 2;
+            this.allV4 = base.allV4;
+            this.allV6 = base.allV6;
+            this.size = base.size;
+        }
+
+        boolean add(String entry) {
+            if (entry == null) return false;
+            String trimmed = entry.trim();
+            int slash = trimmed.indexOf('/');
+            if (!IpAddress.parse(trimmed, 0, slash < 0 ? trimmed.length() : slash, parsed)) return false;
+            boolean v4 = IpAddress.isIPv4(parsed[0], parsed[1]);
+            int maxBits = v4 ? 32 : 128;
+
+            int prefix = maxBits;
+            if (slash >= 0) {
+                try {
+                    prefix = Integer.parseInt(trimmed.substring(slash + 1));
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+                if (prefix < 0 || prefix > maxBits) return false;
+            }
+
+            // IPv4 bits are walked from the top of the high half, like IPv6 bits
+            if (v4) insert(V4_ROOT, parsed[1] << 32, 0, prefix);
+            else insert(V6_ROOT, parsed[0], parsed[1], prefix);
+            size++;
+            return true;
+        }
+
+        private void insert(int root, long high, long low, int prefix) {
+            if (prefix == 0) {
+                if (root == V4_ROOT) allV4 = true;
+                else allV6 = true;
+                return;
+            }
+            int node = root;
+            for (int bit = 0; bit < prefix; bit++) {
+                long word = bit < 64 ? high : low;
+                int slot = (node << 1) | (int) ((word >>> (63 - (bit & 63))) & 1L);
+                int next = children[slot];
+                if (next == COVERED) return;  // already covered by a shorter prefix
+                if (bit == prefix - 1) {
+                    children[slot] = COVERED;  // drops any longer prefixes below
+                    return;
+                }
+                if (next == EMPTY) {
+                    next = newNode();
+                    children[slot] = next;
+                }
+                node = next;
+            }
+        }
+
+        private int newNode() {
+            if ((nodeCount + 1) * 2 > children.length) {
+                children = Arrays.copyOf(children, children.length * 2);
+            }
+            return nodeCount++;
+        }
+
+        CidrTrie build() {
+            return new CidrTrie(Arrays.copyOf(children, nodeCount * 2), allV4, allV6, size);
+        }
+    }
+}
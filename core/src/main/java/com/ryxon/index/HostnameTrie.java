@@ -0,0 +1,223 @@
+package com.ryxon.index;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Immutable trie of allowed hostnames keyed on labels in reverse order
+ * ({@code play.example.com} is stored as {@code com → example → play}).
+ * <p>
+ * An entry matches the hostname itself and every subdomain of it; a leading
+ * {@code *.} is accepted for readability and has the same meaning. Matching
+ * walks the candidate right to left, hashing each label in place, so it never
+ * allocates and is case-insensitive. A single trailing dot is ignored.
+ */
+public final class HostnameTrie {
+
+    private static final HostnameTrie EMPTY = new HostnameTrie(Node.EMPTY_ROOT, 0);
+
+    private final Node root;
+    private final int size;
+
+    private HostnameTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static HostnameTrie empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Compiles the allowed hostname list. Entries that are blank or contain
+     * empty labels are reported to {@code invalid} and skipped.
+     */
+    public static HostnameTrie compile(Collection<String> entries, Consumer<String> invalid) {
+        MutableNode root = new MutableNode();
+        int size = 0;
+        for (String entry : entries) {
+            String host = normalize(entry);
+            if (host == null) {
+                invalid.accept(entry);
+                continue;
+            }
+            MutableNode node = root;
+            String[] labels = host.split("\\.");
+            for (int i = labels.length - 1; i >= 0 && !node.terminal; i--) {
+                node = node.children.computeIfAbsent(labels[i], k -> new MutableNode());
+            }
+            node.terminal = true;
+            node.children.clear();  // covered by this entry
+            size++;
+        }
+        return size == 0 ? EMPTY : new HostnameTrie(root.freeze(), size);
+    }
+
+    /**
+     * Returns a trie that additionally allows {@code entries}. Only the nodes on the
+     * path of each new entry are copied; the rest of the trie is shared with this one.
+     */
+    public HostnameTrie withAdded(Collection<String> entries, Consumer<String> invalid) {
+        Node newRoot = root;
+        int newSize = size;
+        for (String entry : entries) {
+            String host = normalize(entry);
+            if (host == null) {
+                invalid.accept(entry);
+                continue;
+            }
+            String[] labels = host.split("\\.");
+            newRoot = insert(newRoot, labels, labels.length - 1);
+            newSize++;
+        }
+        return newSize == 0 ? EMPTY : new HostnameTrie(newRoot, newSize);
+    }
+
+    private static Node insert(Node node, String[] labels, int index) {
+        if (node.terminal) return node;  // already covered by a shorter entry
+        if (index < 0) return Node.TERMINAL;  // drops any longer entries below
+        Node child = node.child(labels[index], 0, labels[index].length());
+        return node.with(labels[index], insert(child == null ? Node.EMPTY_ROOT : child, labels, index - 1));
+    }
+
+    private static String normalize(String entry) {
+        if (entry == null) return null;
+        String host = entry.trim().toLowerCase(Locale.ROOT);
+        if (host.startsWith("*.")) host = host.substring(2);
+        if (host.endsWith(".")) host = host.substring(0, host.length() - 1);
+        if (host.isEmpty() || host.startsWith(".") || host.contains("..")) return null;
+        return host;
+    }
+
+    /**
+     * @return {@code true} if the hostname equals, or is a subdomain of, an allowed entry
+     */
+    public boolean matches(CharSequence hostname) {
+        if (hostname == null) return false;
+        int end = hostname.length();
+        if (end > 0 && hostname.charAt(end - 1) == '.') end--;
+
+        Node node = root;
+        while (end > 0) {
+            int start = end - 1;
+            while (start >= 0 && hostname.charAt(start) != '.') start--;
+            start++;
+
+            node = node.child(hostname, start, end);
+            if (node == null) return false;
+            if (node.terminal) return true;
+            end = start - 1;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static int hash(CharSequence s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + lower(s.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+    }
+
+    /**
+     * Frozen node with an open-addressing child table.
+     */
+    private static final class Node {
+
+        static final Node EMPTY_ROOT = new Node(new String[1], new Node[1], false);
+        static final Node TERMINAL = new Node(new String[1], new Node[1], true);
+
+        final String[] labels;
+        final Node[] children;
+        final boolean terminal;
+
+        Node(String[] labels, Node[] children, boolean terminal) {
+            this.labels = labels;
+            this.children = children;
+            this.terminal = terminal;
+        }
+
+        Node child(CharSequence s, int start, int end) {
+            int length = end - start;
+            int mask = labels.length - 1;
+            for (int slot = hash(s, start, end) & mask; ; slot = (slot + 1) & mask) {
+                String label = labels[slot];
+                if (label == null) return null;
+                if (label.length() == length && regionEquals(label, s, start)) return children[slot];
+            }
+        }
+
+        /**
+         * @return a copy of this node with {@code label} pointing at {@code child}
+         */
+        Node with(String label, Node child) {
+            int count = 1;
+            for (int slot = 0; slot < labels.length; slot++) {
+                if (labels[slot] != null && !labels[slot].equals(label)) count++;
+            }
+            // Same sizing rule as MutableNode.freeze(): at most half full
+            int capacity = Math.max(labels.length, Integer.highestOneBit(count * 2) << 1);
+            String[] newLabels = new String[capacity];
+            Node[] newChildren = new Node[capacity];
+            for (int slot = 0; slot < labels.length; slot++) {
+                if (labels[slot] != null && !labels[slot].equals(label)) {
+                    place(newLabels, newChildren, labels[slot], children[slot]);
+                }
+            }
+            place(newLabels, newChildren, label, child);
+            return new Node(newLabels, newChildren, terminal);
+        }
+
+        private static void place(String[] labels, Node[] children, String label, Node child) {
+            int mask = labels.length - 1;
+            int slot = hash(label, 0, label.length()) & mask;
+            while (labels[slot] != null) slot = (slot + 1) & mask;
+            labels[slot] = label;
+            children[slot] = child;
+        }
+
+        private static boolean regionEquals(String label, CharSequence s, int start) {
+            for (int i = 0; i < label.length(); i++) {
+                if (label.charAt(i) != lower(s.charAt(start + i))) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class MutableNode {
+
+        final Map<String, MutableNode> children = new HashMap<>();
+        boolean terminal;
+
+        Node freeze() {
+            // Power-of-two table at most half full so probing always hits an empty slot
+            int capacity = Integer.highestOneBit(Math.max(1, children.size()) * 2) << 1;
+            String[] labels = new String[capacity];
+            Node[] nodes = new Node[capacity];
+            int mask = capacity - 1;
+            for (Map.Entry<String, MutableNode> entry : children.entrySet()) {
+                String label = entry.getKey();
+                int slot = hash(label, 0, label.length()) & mask;
+                while (labels[slot] != null) slot = (slot + 1) & mask;
+                labels[slot] = label;
+                nodes[slot] = entry.getValue().freeze();
+            }
+            return new Node(labels, nodes, terminal);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.ryxon.logging;
+
+import com.ryxon.check.CheckType;
+
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous connection logger for the login path.
+ * <p>
+ * Login threads only publish into a {@link LogRing} and return. A single background
+ * thread writes the first few lines of every interval as-is and folds the rest into
+ * one summary ("blocked 4,812 joins from 1,203 IPs in 5s ..."), so an attack cannot
+ * flood the console or stall logins on console I/O.
+ */
+public final class ConnectionLogger implements AutoCloseable {
+
+    /** Upper bound on distinct IPs tracked per interval; beyond that the count is a lower bound. */
+    private static final int MAX_TRACKED_IPS = 100_000;
+
+    private final Logger logger;
+    private final LogRing ring;
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    private volatile Level level = Level.INFO;
+    private volatile int maxLinesPerInterval = 20;
+    private volatile long intervalNanos = TimeUnit.SECONDS.toNanos(5);
+
+    // Exact per-interval totals, counted by producers even when the ring is full
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder[] blockedByReason = new LongAdder[CheckType.values().length];
+
+    // Drainer-owned interval state
+    private long intervalStart = System.nanoTime();
+    private int linesWritten;
+    /** Blocked and allowed lines among {@link #linesWritten}; the rest were messages. */
+    private int connectionLines;
+    private int messagesSuppressed;
+    private Level suppressedLevel = Level.ALL;
+    private final Set<String> blockedIps = new HashSet<>();
+
+    public ConnectionLogger(Logger logger, int bufferSize) {
+        this.logger = logger;
+        this.ring = new LogRing(bufferSize);
+        for (int i = 0; i < blockedByReason.length; i++) {
+            blockedByReason[i] = new LongAdder();
+        }
+        this.drainer = new Thread(this::run, "RyxoNET-Log");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * Applies the {@code logging.*} settings.
+     */
+    public void configure(Level level, int maxLinesPerInterval, long intervalSeconds) {
+        this.level = level;
+        this.maxLinesPerInterval = Math.max(0, maxLinesPerInterval);
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(Math.max(1, intervalSeconds));
+    }
+
+    public boolean isLoggable(Level candidate) {
+        return candidate.intValue() >= level.intValue();
+    }
+
+    public void blocked(String ip, String name, CheckType reason) {
+        if (!isLoggable(Level.WARNING)) return;
+        blockedByReason[reason.ordinal()].increment();
+        ring.offer(LogRing.BLOCKED, Level.WARNING, ip, name, reason, null);
+    }
+
+    public void allowed(String ip, String name) {
+        if (!isLoggable(Level.INFO)) return;
+        allowed.increment();
+        ring.offer(LogRing.ALLOWED, Level.INFO, ip, name, null, null);
+    }
+
+    public void log(Level messageLevel, String message) {
+        if (isLoggable(messageLevel)) ring.offer(LogRing.MESSAGE, messageLevel, null, null, null, message);
+    }
+
+    /**
+     * Maps the {@code logging.level} names (DEBUG, INFO, WARN, ERROR) to JUL levels.
+     */
+    public static Level parseLevel(String name) {
+        switch (name == null ? "" : name.trim().toUpperCase(Locale.ROOT)) {
+            case "DEBUG":
+            case "FINE":
+                return Level.FINE;
+            case "WARN":
+            case "WARNING":
+                return Level.WARNING;
+            case "ERROR":
+            case "SEVERE":
+                return Level.SEVERE;
+            case "INFO":
+            default:
+                return Level.INFO;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            if (ring.drain(this::write) == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            }
+            if (System.nanoTime() - intervalStart >= intervalNanos) {
+                flushInterval();
+            }
+        }
+        ring.drain(this::write);
+        flushInterval();
+    }
+
+    private void write(LogRing.Entry entry) {
+        switch (entry.kind) {
+            case LogRing.BLOCKED:
+                if (blockedIps.size() < MAX_TRACKED_IPS) blockedIps.add(entry.ip);
+                if (linesWritten < maxLinesPerInterval) {
+                    linesWritten++;
+                    connectionLines++;
+                    logger.log(entry.level, "[RyxoNET] Blocked " + entry.name + " (" + entry.ip + ") - Failed: " + entry.reason);
+                }
+                break;
+            case LogRing.ALLOWED:
+                if (linesWritten < maxLinesPerInterval) {
+                    linesWritten++;
+                    connectionLines++;
+                    logger.log(entry.level, "[RyxoNET] Allowed " + entry.name + " (" + entry.ip + ")");
+                }
+                break;
+            default:
+                if (linesWritten < maxLinesPerInterval) {
+                    linesWritten++;
+                    logger.log(entry.level, entry.message);
+                } else {
+                    // Not summarised like joins are, but never dropped without a trace
+                    messagesSuppressed++;
+                    if (entry.level.intValue() > suppressedLevel.intValue()) suppressedLevel = entry.level;
+                }
+                break;
+        }
+    }
+
+    private void flushInterval() {
+        long elapsedSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - intervalStart));
+        long dropped = ring.takeDropped();
+        long allowedCount = allowed.sumThenReset();
+        Map<CheckType, Long> reasons = new EnumMap<>(CheckType.class);
+        long blocked = 0;
+        for (CheckType type : CheckType.values()) {
+            long count = blockedByReason[type.ordinal()].sumThenReset();
+            if (count > 0) reasons.put(type, count);
+            blocked += count;
+        }
+        boolean coalesced = blocked + allowedCount > connectionLines;
+
+        if (coalesced && blocked > 0) {
+            String top = reasons.entrySet().stream()
+                    .sorted(Map.Entry.<CheckType, Long>comparingByValue().reversed())
+                    .map(e -> e.getKey() + " " + String.format("%,d", e.getValue()))
+                    .collect(Collectors.joining(", "));
+            boolean partial = dropped > 0 || blockedIps.size() >= MAX_TRACKED_IPS;
+            logger.warning(String.format("[RyxoNET] Blocked %,d joins from %,d%s IPs in %ds, top reasons: %s",
+                    blocked, blockedIps.size(), partial ? "+" : "", elapsedSeconds, top));
+        }
+        if (coalesced && allowedCount > 0) {
+            logger.info(String.format("[RyxoNET] Allowed %,d joins in %ds", allowedCount, elapsedSeconds));
+        }
+        if (messagesSuppressed > 0) {
+            logger.log(suppressedLevel, String.format("[RyxoNET] Suppressed %,d more log messages in %ds",
+                    messagesSuppressed, elapsedSeconds));
+        }
+
+        intervalStart = System.nanoTime();
+        linesWritten = 0;
+        connectionLines = 0;
+        messagesSuppressed = 0;
+        suppressedLevel = Level.ALL;
+        blockedIps.clear();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ryxon.logging;
+
+import com.ryxon.check.CheckType;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Bounded multi-producer / single-consumer ring of pre-allocated log entries.
+ * <p>
+ * Producers claim a slot with one CAS and never block: when the ring is full the
+ * event is counted as dropped instead. Each slot carries a sequence number
+ * (Vyukov's bounded queue), so the consumer only reads fully published entries.
+ */
+final class LogRing {
+
+    static final byte BLOCKED = 0;
+    static final byte ALLOWED = 1;
+    static final byte MESSAGE = 2;
+
+    /**
+     * Mutable slot; only valid inside the consumer callback.
+     */
+    static final class Entry {
+        byte kind;
+        Level level;
+        String ip;
+        String name;
+        CheckType reason;
+        String message;
+    }
+
+    private final int mask;
+    private final Entry[] entries;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private long head;  // consumer-owned
+
+    LogRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        this.mask = size - 1;
+        this.entries = new Entry[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            entries[i] = new Entry();
+            sequences.set(i, i);
+        }
+    }
+
+    boolean offer(byte kind, Level level, String ip, String name, CheckType reason, String message) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.increment();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+
+        int index = (int) position & mask;
+        Entry entry = entries[index];
+        entry.kind = kind;
+        entry.level = level;
+        entry.ip = ip;
+        entry.name = name;
+        entry.reason = reason;
+        entry.message = message;
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Hands every published entry to {@code consumer}. Must only be called by one thread.
+     *
+     * @return number of entries drained
+     */
+    int drain(Consumer<Entry> consumer) {
+        int drained = 0;
+        while (true) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) return drained;
+            Entry entry = entries[index];
+            consumer.accept(entry);
+            entry.ip = entry.name = entry.message = null;
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            drained++;
+        }
+    }
+
+    long takeDropped() {
+        return dropped.sumThenReset();
+    }
+}
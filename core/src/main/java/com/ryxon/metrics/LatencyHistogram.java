@@ -0,0 +1,98 @@
+package com.ryxon.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear latency histogram.
+ * <p>
+ * Values are bucketed with four sub-buckets per power of two starting at 256ns,
+ * which bounds the relative error of a reported percentile to about 25% while
+ * recording costs a few shifts and one atomic increment.
+ */
+public final class LatencyHistogram {
+
+    private static final int RESOLUTION_SHIFT = 8;      // 256ns
+    private static final int SUB_BUCKETS = 4;
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKETS = MAX_EXPONENT * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(indexOf(nanos));
+        count.increment();
+        sumNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos} (a {@link System#nanoTime()} value).
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return the upper bound of the bucket holding the quantile, or 0 if empty
+     */
+    public long percentileNanos(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= Math.max(1, rank)) return Math.min(upperBoundNanos(i), getMaxNanos());
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * @return cumulative count of values in buckets {@code 0..index}
+     */
+    long cumulativeCount(int index) {
+        long sum = 0;
+        for (int i = 0; i <= index; i++) sum += counts.get(i);
+        return sum;
+    }
+
+    static int indexOf(long nanos) {
+        long units = nanos >>> RESOLUTION_SHIFT;
+        if (units < SUB_BUCKETS) return (int) units;
+        int exponent = 63 - Long.numberOfLeadingZeros(units);
+        int sub = (int) (units >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        int index = (exponent - 1) * SUB_BUCKETS + sub;
+        return Math.min(index, BUCKETS - 1);
+    }
+
+    static long upperBoundNanos(int index) {
+        if (index < SUB_BUCKETS) return (long) (index + 1) << RESOLUTION_SHIFT;
+        int exponent = index / SUB_BUCKETS + 1;
+        int sub = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 2)) << RESOLUTION_SHIFT;
+    }
+}
@@ -0,0 +1,143 @@
+package com.ryxon.metrics;
+
+import com.ryxon.check.CheckType;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Join counters and per-stage latency histograms.
+ * <p>
+ * Counters are {@link LongAdder}s so concurrent pre-login threads never contend
+ * on a single cache line.
+ */
+public final class Metrics {
+
+    /**
+     * Timed parts of a join decision.
+     */
+    public enum Stage {
+        TOTAL,
+        BLOCKLIST,
+        WHITELIST,
+        PROXY,
+        HOSTNAME,
+        GEO,
+        DNS_LOOKUP
+    }
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder verdictCacheHits = new LongAdder();
+    private final LongAdder verdictCacheMisses = new LongAdder();
+    private final LongAdder[] blocked = new LongAdder[CheckType.values().length];
+    private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+
+    public Metrics() {
+        for (int i = 0; i < blocked.length; i++) blocked[i] = new LongAdder();
+        for (int i = 0; i < stages.length; i++) stages[i] = new LatencyHistogram();
+    }
+
+    public void recordAllowed() {
+        allowed.increment();
+    }
+
+    public void recordBlocked(CheckType reason) {
+        blocked[reason.ordinal()].increment();
+    }
+
+    public void recordVerdictCache(boolean hit) {
+        (hit ? verdictCacheHits : verdictCacheMisses).increment();
+    }
+
+    public LatencyHistogram stage(Stage stage) {
+        return stages[stage.ordinal()];
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getBlocked(CheckType reason) {
+        return blocked[reason.ordinal()].sum();
+    }
+
+    public long getVerdictCacheHits() {
+        return verdictCacheHits.sum();
+    }
+
+    public long getVerdictCacheMisses() {
+        return verdictCacheMisses.sum();
+    }
+
+    public long getBlockedTotal() {
+        long total = 0;
+        for (LongAdder adder : blocked) total += adder.sum();
+        return total;
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text exposition format. The file is written
+     * to a temporary sibling first and moved into place, so a scraper never sees a
+     * partial file.
+     */
+    public void writePrometheus(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writePrometheus(out);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public void writePrometheus(Writer out) throws IOException {
+        out.write("# HELP ryxonet_joins_allowed_total Joins allowed by RyxoNET.\n");
+        out.write("# TYPE ryxonet_joins_allowed_total counter\n");
+        out.write("ryxonet_joins_allowed_total " + getAllowed() + "\n");
+
+        out.write("# HELP ryxonet_joins_blocked_total Joins blocked by RyxoNET, by failed check.\n");
+        out.write("# TYPE ryxonet_joins_blocked_total counter\n");
+        for (CheckType reason : CheckType.values()) {
+            out.write("ryxonet_joins_blocked_total{reason=\"" + label(reason) + "\"} " + getBlocked(reason) + "\n");
+        }
+
+        out.write("# HELP ryxonet_verdict_cache_requests_total Per-address verdict cache lookups.\n");
+        out.write("# TYPE ryxonet_verdict_cache_requests_total counter\n");
+        out.write("ryxonet_verdict_cache_requests_total{result=\"hit\"} " + getVerdictCacheHits() + "\n");
+        out.write("ryxonet_verdict_cache_requests_total{result=\"miss\"} " + getVerdictCacheMisses() + "\n");
+
+        out.write("# HELP ryxonet_stage_duration_seconds Time spent per join decision stage.\n");
+        out.write("# TYPE ryxonet_stage_duration_seconds histogram\n");
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram histogram = stage(stage);
+            String name = "ryxonet_stage_duration_seconds";
+            String labels = "stage=\"" + label(stage) + "\"";
+            // Export one boundary per power of two to keep the series count small
+            for (int i = 3; i < LatencyHistogram.BUCKETS; i += 4) {
+                long bound = LatencyHistogram.upperBoundNanos(i);
+                out.write(name + "_bucket{" + labels + ",le=\"" + seconds(bound) + "\"} " + histogram.cumulativeCount(i) + "\n");
+                if (bound > 60_000_000_000L) break;
+            }
+            long count = histogram.getCount();
+            out.write(name + "_bucket{" + labels + ",le=\"+Inf\"} " + count + "\n");
+            out.write(name + "_sum{" + labels + "} " + seconds(histogram.getSumNanos()) + "\n");
+            out.write(name + "_count{" + labels + "} " + count + "\n");
+        }
+    }
+
+    private static String label(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
@@ -0,0 +1,67 @@
+package com.ryxon.proxy;
+
+import com.ryxon.util.SecurityUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Signed token a trusted proxy attaches to a player's game profile.
+ * <p>
+ * Format: {@code <issuedAtEpochSeconds>:<base64url HMAC-SHA256>} where the MAC covers
+ * {@code uuid \n name \n ip \n issuedAt} and is keyed with
+ * {@code proxy-protection.passphrase}. A proxy may reuse one token for the whole
+ * session so the backend only has to verify it once per session.
+ */
+public final class ForwardingToken {
+
+    /** Name of the profile property carrying the token. */
+    public static final String PROPERTY_NAME = "ryxonet-token";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private ForwardingToken() {}  // Prevent instantiation
+
+    public static String issue(String secret, UUID uuid, String name, String ip, long issuedAtSeconds) {
+        byte[] mac = SecurityUtil.hmac(payload(uuid, name, ip, issuedAtSeconds), secret);
+        return issuedAtSeconds + ":" + ENCODER.encodeToString(mac);
+    }
+
+    /**
+     * @return the issue time encoded in the token, or {@code -1} if it is malformed
+     */
+    public static long issuedAt(String token) {
+        int colon = token.indexOf(':');
+        if (colon <= 0 || colon > 19) return -1;
+        long value = 0;
+        for (int i = 0; i < colon; i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Checks the signature in constant time. Freshness is checked by the caller.
+     */
+    public static boolean verifySignature(String token, String secret, UUID uuid, String name, String ip) {
+        long issuedAt = issuedAt(token);
+        if (issuedAt < 0) return false;
+        byte[] presented;
+        try {
+            presented = DECODER.decode(token.substring(token.indexOf(':') + 1));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        byte[] expected = SecurityUtil.hmac(payload(uuid, name, ip, issuedAt), secret);
+        return MessageDigest.isEqual(expected, presented);
+    }
+
+    private static byte[] payload(UUID uuid, String name, String ip, long issuedAtSeconds) {
+        return (uuid + "\n" + name + "\n" + ip + "\n" + issuedAtSeconds).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,104 @@
+package com.ryxon.proxy;
+
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.util.TtlCache;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Verifies {@link ForwardingToken}s and remembers verified sessions.
+ * <p>
+ * A verified token is cached until it expires, so a player reconnecting with the
+ * same session token skips the HMAC entirely. Cache hits still have to match the
+ * identity the token was verified for. Each cache belongs to one passphrase and
+ * is replaced together with it, so a session verified under an old passphrase
+ * can never be found under a new one.
+ */
+public final class ProxyVerifier {
+
+    /** Tolerated clock difference between proxy and backend. */
+    private static final long MAX_CLOCK_SKEW_SECONDS = 30;
+
+    public enum Result {
+        VERIFIED,
+        CACHED,
+        MISSING,
+        MALFORMED,
+        EXPIRED,
+        BAD_SIGNATURE;
+
+        public boolean passed() {
+            return this == VERIFIED || this == CACHED;
+        }
+    }
+
+    private final AtomicReference<Sessions> sessions;
+    private int maxSessions;
+
+    public ProxyVerifier(int maxSessions) {
+        this.maxSessions = maxSessions;
+        this.sessions = new AtomicReference<>(new Sessions("", maxSessions));
+    }
+
+    public synchronized void setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+        sessions.get().cache.setMaxSize(maxSessions);
+    }
+
+    public Result verify(SecurityPolicy policy, String token, UUID uuid, String name, String ip) {
+        if (token == null || token.isEmpty()) return Result.MISSING;
+
+        String secret = policy.getProxy().passphrase();
+        Sessions verified = sessionsFor(secret);
+
+        String identity = uuid + "\n" + name + "\n" + ip;
+        if (identity.equals(verified.cache.get(token))) return Result.CACHED;
+
+        long issuedAt = ForwardingToken.issuedAt(token);
+        if (issuedAt < 0) return Result.MALFORMED;
+
+        long now = System.currentTimeMillis() / 1000L;
+        long expiresAt = issuedAt + policy.getProxy().sessionExpirySeconds();
+        if (issuedAt > now + MAX_CLOCK_SKEW_SECONDS || expiresAt <= now) return Result.EXPIRED;
+
+        if (!ForwardingToken.verifySignature(token, secret, uuid, name, ip)) return Result.BAD_SIGNATURE;
+
+        verified.cache.put(token, identity, (expiresAt - now) * 1000L);
+        return Result.VERIFIED;
+    }
+
+    /**
+     * @return the sessions verified under {@code secret}, replacing those of any other passphrase
+     */
+    private Sessions sessionsFor(String secret) {
+        Sessions current = sessions.get();
+        if (current.secret.equals(secret)) return current;
+        synchronized (this) {
+            current = sessions.get();
+            if (!current.secret.equals(secret)) {
+                current = new Sessions(secret, maxSessions);
+                sessions.set(current);
+            }
+            return current;
+        }
+    }
+
+    public int activeSessions() {
+        return sessions.get().cache.size();
+    }
+
+    /**
+     * A passphrase and the sessions verified with it, swapped as one.
+     */
+    private static final class Sessions {
+
+        final String secret;
+        final TtlCache<String, String> cache;
+
+        Sessions(String secret, int maxSessions) {
+            this.secret = secret;
+            this.cache = new TtlCache<>(maxSessions);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.ryxon.ratelimit;
+
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.util.IpAddress;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection rate limits applied before any login work: a token bucket per
+ * address, one per subnet ({@code /24} and {@code /48} by default) and a global
+ * connections-per-second ceiling.
+ * <p>
+ * Limits are checked from the most specific to the least, so a single
+ * hammering address uses up its own bucket without draining its subnet's.
+ * All state lives in fixed-size lock-free tables; see {@link RateLimiterTable}.
+ */
+public final class ConnectionThrottle {
+
+    /**
+     * Outcome of {@link #tryAcquire}: allowed, or the limit that was hit.
+     */
+    public enum Result {
+        ALLOWED,
+        ADDRESS,
+        SUBNET,
+        GLOBAL
+    }
+
+    private static final long EPOCH = System.nanoTime();
+
+    private volatile Settings settings = new Settings(null, null, null, null, null, 0, 0, 0, 0);
+    private final AtomicLong globalTat = new AtomicLong();
+
+    /**
+     * Applies the throttle settings of a policy. Existing buckets are kept unless
+     * the table size changes.
+     */
+    public synchronized void configure(SecurityPolicy policy) {
+        Settings current = settings;
+        int size = policy.getThrottle().tableSize();
+        RateLimiterTable addresses = current.addresses != null && current.addresses.size() == RateLimiterTable.entriesFor(size)
+                ? current.addresses : new RateLimiterTable(size);
+        RateLimiterTable subnets = current.subnets != null && current.subnets.size() == RateLimiterTable.entriesFor(size)
+                ? current.subnets : new RateLimiterTable(size);
+
+        int v4 = Math.max(0, Math.min(32, policy.getThrottle().subnetPrefixV4())) + 96;
+        int v6 = Math.max(0, Math.min(128, policy.getThrottle().subnetPrefixV6()));
+        settings = new Settings(addresses, subnets,
+                Limit.of(policy.getThrottle().addressPerSecond(), policy.getThrottle().addressBurst()),
+                Limit.of(policy.getThrottle().subnetPerSecond(), policy.getThrottle().subnetBurst()),
+                // One second of headroom, so the ceiling is a rate rather than an instantaneous cap
+                Limit.of(policy.getThrottle().globalPerSecond(), (int) Math.ceil(policy.getThrottle().globalPerSecond())),
+                highMask(v4), lowMask(v4), highMask(v6), lowMask(v6));
+    }
+
+    /**
+     * Counts a connection attempt against every limit it falls under.
+     */
+    public Result tryAcquire(IpAddress address) {
+        Settings s = settings;
+        long now = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - EPOCH);
+        long high = address.getHigh();
+        long low = address.getLow();
+
+        if (s.address != null && !s.addresses.tryAcquire(IpAddress.hash(high, low),
+                s.address.intervalMicros, s.address.toleranceMicros, now)) {
+            return Result.ADDRESS;
+        }
+        if (s.subnet != null) {
+            boolean v4 = address.isIPv4();
+            long subnetHigh = high & (v4 ? s.v4HighMask : s.v6HighMask);
+            long subnetLow = low & (v4 ? s.v4LowMask : s.v6LowMask);
+            if (!s.subnets.tryAcquire(IpAddress.hash(subnetHigh, subnetLow),
+                    s.subnet.intervalMicros, s.subnet.toleranceMicros, now)) {
+                return Result.SUBNET;
+            }
+        }
+        if (s.global != null && !acquireGlobal(s.global, now)) return Result.GLOBAL;
+        return Result.ALLOWED;
+    }
+
+    /**
+     * Forgets all buckets.
+     */
+    public void clear() {
+        Settings s = settings;
+        if (s.addresses != null) s.addresses.clear();
+        if (s.subnets != null) s.subnets.clear();
+        globalTat.set(0);
+    }
+
+    private boolean acquireGlobal(Limit limit, long now) {
+        while (true) {
+            long tat = globalTat.get();
+            if (tat - now > limit.toleranceMicros) return false;
+            if (globalTat.compareAndSet(tat, Math.max(tat, now) + limit.intervalMicros)) return true;
+        }
+    }
+
+    private static long highMask(int prefix) {
+        return prefix >= 64 ? -1L : prefix == 0 ? 0 : -1L << (64 - prefix);
+    }
+
+    private static long lowMask(int prefix) {
+        return prefix <= 64 ? 0 : prefix >= 128 ? -1L : -1L << (128 - prefix);
+    }
+
+    /**
+     * GCRA parameters of one limit.
+     */
+    private static final class Limit {
+
+        final long intervalMicros;
+        final long toleranceMicros;
+
+        private Limit(long intervalMicros, long toleranceMicros) {
+            this.intervalMicros = intervalMicros;
+            this.toleranceMicros = toleranceMicros;
+        }
+
+        /**
+         * @return the limit, or {@code null} for no limit if {@code perSecond} is not positive
+         */
+        static Limit of(double perSecond, int burst) {
+            if (perSecond <= 0) return null;
+            long interval = Math.max(1, Math.round(1_000_000 / perSecond));
+            return new Limit(interval, interval * (Math.max(1, burst) - 1));
+        }
+    }
+
+    private static final class Settings {
+
+        final RateLimiterTable addresses;
+        final RateLimiterTable subnets;
+        final Limit address;
+        final Limit subnet;
+        final Limit global;
+        final long v4HighMask;
+        final long v4LowMask;
+        final long v6HighMask;
+        final long v6LowMask;
+
+        Settings(RateLimiterTable addresses, RateLimiterTable subnets, Limit address, Limit subnet, Limit global,
+                 long v4HighMask, long v4LowMask, long v6HighMask, long v6LowMask) {
+            this.addresses = addresses;
+            this.subnets = subnets;
+            this.address = address;
+            this.subnet = subnet;
+            this.global = global;
+            this.v4HighMask = v4HighMask;
+            this.v4LowMask = v4LowMask;
+            this.v6HighMask = v6HighMask;
+            this.v6LowMask = v6LowMask;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.ryxon.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free table of rate limiters keyed by a 64-bit hash.
+ * <p>
+ * Each key is limited with GCRA (the generic cell rate algorithm, equivalent to
+ * a token bucket): its whole state is one "theoretical arrival time", packed
+ * with a key fingerprint into a single {@code long} and updated by CAS. The
+ * table is split into independent 4-way sets; a new key takes over the entry
+ * of its set that has refilled the most. A key that has been idle long enough
+ * to refill is indistinguishable from an absent one, so entries expire by
+ * themselves and memory stays fixed no matter how many addresses connect.
+ * Colliding fingerprints share a limit, which errs on the strict side.
+ */
+final class RateLimiterTable {
+
+    private static final int WAYS = 4;
+    private static final int TIME_BITS = 44;  // microseconds, wraps after ~200 days
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    private final AtomicLongArray slots;
+    private final int setMask;
+
+    /**
+     * @param size number of entries, rounded up to a power of two
+     */
+    RateLimiterTable(int size) {
+        int entries = entriesFor(size);
+        this.slots = new AtomicLongArray(entries);
+        this.setMask = entries / WAYS - 1;
+    }
+
+    /**
+     * @return the number of entries a table created with {@code size} has
+     */
+    static int entriesFor(int size) {
+        return Integer.highestOneBit(Math.max(WAYS, size) - 1) << 1;
+    }
+
+    int size() {
+        return slots.length();
+    }
+
+    /**
+     * Takes one token from the key's bucket.
+     *
+     * @param intervalMicros time to earn one token
+     * @param toleranceMicros how far ahead of the present the bucket may run,
+     *                        {@code intervalMicros * (burst - 1)}
+     * @param nowMicros current time, from a monotonic clock
+     * @return whether a token was available
+     */
+    boolean tryAcquire(long hash, long intervalMicros, long toleranceMicros, long nowMicros) {
+        long fingerprint = hash >>> TIME_BITS;
+        if (fingerprint == 0) fingerprint = 1;  // 0 marks an empty entry
+        int base = ((int) hash & setMask) * WAYS;
+
+        while (true) {
+            int victim = base;
+            long victimState = slots.get(base);
+            long victimTat = Long.MAX_VALUE;
+            boolean retry = false;
+
+            for (int i = base; i < base + WAYS; i++) {
+                long state = slots.get(i);
+                long tat = state == 0 ? Long.MIN_VALUE : arrivalTime(state, intervalMicros + toleranceMicros, nowMicros);
+                if (state != 0 && (state >>> TIME_BITS) == fingerprint) {
+                    if (tat - nowMicros > toleranceMicros) return false;
+                    long next = Math.max(tat, nowMicros) + intervalMicros;
+                    if (slots.compareAndSet(i, state, pack(fingerprint, next))) return true;
+                    retry = true;
+                    break;
+                }
+                if (tat < victimTat) {
+                    victim = i;
+                    victimState = state;
+                    victimTat = tat;
+                }
+            }
+            if (retry) continue;
+
+            // Unknown key: starts with a full bucket
+            if (slots.compareAndSet(victim, victimState, pack(fingerprint, nowMicros + intervalMicros))) return true;
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < slots.length(); i++) slots.set(i, 0);
+    }
+
+    private static long pack(long fingerprint, long tat) {
+        return (fingerprint << TIME_BITS) | (tat & TIME_MASK);
+    }
+
+    /**
+     * Restores the full arrival time from its low bits. Live entries are never more than
+     * {@code maxAhead} in the future; anything further away is a wrapped, long-idle entry.
+     */
+    private static long arrivalTime(long state, long maxAhead, long nowMicros) {
+        long delta = (((state & TIME_MASK) - nowMicros) << (64 - TIME_BITS)) >> (64 - TIME_BITS);
+        return delta > maxAhead ? nowMicros : nowMicros + delta;
+    }
+}
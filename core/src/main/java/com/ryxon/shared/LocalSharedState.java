@@ -0,0 +1,127 @@
+package com.ryxon.shared;
+
+import com.ryxon.util.IpAddress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Shares state between nodes running in the same JVM, standing in for Redis in
+ * tests and simulations.
+ * <p>
+ * Batches go through the same text encoding as on the wire and are delivered on
+ * each receiving node's own thread, so timing and echo handling behave like a
+ * real broker without one.
+ */
+public final class LocalSharedState implements SharedState {
+
+    private static final Map<String, Hub> HUBS = new ConcurrentHashMap<>();
+
+    private final String node;
+    private final Hub hub;
+    private final ExecutorService delivery;
+    private volatile Consumer<List<SharedUpdate>> receiver;
+
+    public LocalSharedState(String cluster, String node) {
+        this.node = node;
+        this.hub = HUBS.computeIfAbsent(cluster, name -> new Hub());
+        this.delivery = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "RyxoNET-Shared");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void start(Consumer<List<SharedUpdate>> receiver) {
+        this.receiver = receiver;
+        hub.members.add(this);
+        deliver(SharedUpdate.encode("", hub.snapshot(System.currentTimeMillis())));
+    }
+
+    @Override
+    public void publish(List<SharedUpdate> updates) {
+        hub.store(updates, System.currentTimeMillis());
+        String message = SharedUpdate.encode(node, updates);
+        for (LocalSharedState member : hub.members) {
+            if (member != this) member.deliver(message);
+        }
+    }
+
+    private void deliver(String message) {
+        Consumer<List<SharedUpdate>> target = receiver;
+        if (target == null) return;
+        try {
+            delivery.execute(() -> {
+                List<SharedUpdate> updates = SharedUpdate.decode(message, node);
+                if (!updates.isEmpty()) target.accept(updates);
+            });
+        } catch (RejectedExecutionException ignored) {
+            // closed meanwhile
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "local (" + hub.members.size() + " nodes)";
+    }
+
+    @Override
+    public void close() {
+        hub.members.remove(this);
+        delivery.shutdownNow();
+    }
+
+    /**
+     * What the nodes of one cluster share: who is connected and what a node starting late needs.
+     */
+    private static final class Hub {
+
+        final Set<LocalSharedState> members = new CopyOnWriteArraySet<>();
+        private final Map<IpAddress, SharedUpdate> bans = new ConcurrentHashMap<>();
+        private volatile long attackUntil;
+
+        synchronized void store(List<SharedUpdate> updates, long now) {
+            for (SharedUpdate update : updates) {
+                switch (update.getType()) {
+                    case BAN:
+                        bans.merge(update.getAddress(), update, (a, b) -> a.getUntil() >= b.getUntil() ? a : b);
+                        break;
+                    case UNBAN: {
+                        IpAddress address = update.getAddress();
+                        int prefix = update.getValue();
+                        bans.keySet().removeIf(banned -> banned.isIPv4() == address.isIPv4()
+                                && banned.network(prefix).equals(address.network(prefix)));
+                        break;
+                    }
+                    case CLEAR:
+                        bans.clear();
+                        break;
+                    case ATTACK:
+                        attackUntil = Math.max(attackUntil, update.getUntil());
+                        break;
+                    default:
+                        break;
+                }
+            }
+            bans.values().removeIf(ban -> ban.getUntil() <= now);
+        }
+
+        synchronized List<SharedUpdate> snapshot(long now) {
+            List<SharedUpdate> state = new ArrayList<>();
+            for (SharedUpdate ban : bans.values()) {
+                if (ban.getUntil() > now) state.add(ban);
+            }
+            if (attackUntil > now) state.add(SharedUpdate.attack(attackUntil));
+            return state;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.ryxon.shared;
+
+import com.ryxon.util.IpAddress;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Shares state through a Redis server.
+ * <p>
+ * Every batch is one pipelined round trip: running bans and the attack lease are
+ * written as keys that expire with them, for nodes that start later, and the
+ * whole batch is published as a single message on the cluster's channel. A
+ * second connection stays subscribed to that channel; after every (re)connect it
+ * reads the stored keys first, so a node that was away misses nothing that still
+ * matters. Connection failures are retried with backoff and never reach logins.
+ * <p>
+ * Keys are {@code <cluster>:ban:<address>} and {@code <cluster>:attack}; the
+ * channel is {@code <cluster>:updates}.
+ */
+public final class RedisSharedState implements SharedState {
+
+    private static final long MIN_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final int SCAN_COUNT = 1000;
+
+    private final Logger logger;
+    private final String node;
+    private final String host;
+    private final int port;
+    private final String password;
+    private final int database;
+    private final int timeoutMillis;
+    private final String banPrefix;
+    private final String attackKey;
+    private final String channel;
+
+    /** Used by the publishing thread only. */
+    private volatile RespConnection connection;
+    private volatile RespConnection subscription;
+    private volatile boolean subscribed;
+    private volatile boolean running = true;
+    private Thread subscriber;
+
+    public RedisSharedState(Logger logger, String cluster, String node, String host, int port, String password,
+                            int database, long timeoutMillis) {
+        this.logger = logger;
+        this.node = node;
+        this.host = host;
+        this.port = port;
+        this.password = password;
+        this.database = database;
+        this.timeoutMillis = (int) Math.min(Integer.MAX_VALUE, timeoutMillis);
+        this.banPrefix = cluster + ":ban:";
+        this.attackKey = cluster + ":attack";
+        this.channel = cluster + ":updates";
+    }
+
+    @Override
+    public synchronized void start(Consumer<List<SharedUpdate>> receiver) {
+        if (subscriber != null) return;
+        subscriber = new Thread(() -> subscribe(receiver), "RyxoNET-Redis");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    @Override
+    public void publish(List<SharedUpdate> updates) throws IOException {
+        if (connection == null) connection = connect();
+        try {
+            long now = System.currentTimeMillis();
+            List<String> unbanKeys = needsScan(updates) ? scanBans(connection) : List.of();
+            int replies = 0;
+            for (SharedUpdate update : updates) {
+                switch (update.getType()) {
+                    case BAN:
+                        if (update.getUntil() > now) {
+                            connection.write("SET", banPrefix + update.getAddress(), update.encode(),
+                                    "PX", Long.toString(update.getUntil() - now));
+                            replies++;
+                        }
+                        break;
+                    case UNBAN:
+                    case CLEAR:
+                        for (String key : unbanKeys) {
+                            IpAddress banned = IpAddress.parse(key.substring(banPrefix.length()));
+                            if (banned != null && (update.getType() == SharedUpdate.Type.CLEAR || overlaps(banned, update))) {
+                                connection.write("DEL", key);
+                                replies++;
+                            }
+                        }
+                        break;
+                    case ATTACK:
+                        if (update.getUntil() > now) {
+                            connection.write("SET", attackKey, update.encode(), "PX", Long.toString(update.getUntil() - now));
+                            replies++;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            connection.write("PUBLISH", channel, SharedUpdate.encode(node, updates));
+            connection.flush();
+            for (int i = 0; i <= replies; i++) connection.read();
+        } catch (IOException | RuntimeException e) {
+            connection.close();
+            connection = null;
+            throw e;
+        }
+    }
+
+    private static boolean needsScan(List<SharedUpdate> updates) {
+        for (SharedUpdate update : updates) {
+            if (update.getType() == SharedUpdate.Type.UNBAN || update.getType() == SharedUpdate.Type.CLEAR) return true;
+        }
+        return false;
+    }
+
+    private static boolean overlaps(IpAddress banned, SharedUpdate unban) {
+        int prefix = unban.getValue();
+        return banned.isIPv4() == unban.getAddress().isIPv4()
+                && banned.network(prefix).equals(unban.getAddress().network(prefix));
+    }
+
+    private RespConnection connect() throws IOException {
+        return new RespConnection(host, port, timeoutMillis, password, database);
+    }
+
+    // ────────────────────────────────────────────────
+    // Subscription
+    // ────────────────────────────────────────────────
+
+    private void subscribe(Consumer<List<SharedUpdate>> receiver) {
+        long backoff = MIN_BACKOFF_MILLIS;
+        while (running) {
+            try (RespConnection sub = connect()) {
+                subscription = sub;
+                sub.call("SUBSCRIBE", channel);
+                // Subscribed before reading the stored state, so nothing published in between is lost
+                List<SharedUpdate> state = snapshot();
+                if (!state.isEmpty()) receiver.accept(state);
+                sub.setReadTimeout(0);
+                if (!subscribed) logger.info("[RyxoNET] Sharing state through Redis at " + host + ":" + port);
+                subscribed = true;
+                backoff = MIN_BACKOFF_MILLIS;
+                while (running) {
+                    Object reply = sub.read();
+                    if (!(reply instanceof List) || ((List<?>) reply).size() != 3) continue;
+                    List<?> message = (List<?>) reply;
+                    if (!"message".equals(message.get(0)) || !(message.get(2) instanceof String)) continue;
+                    List<SharedUpdate> updates = SharedUpdate.decode((String) message.get(2), node);
+                    if (!updates.isEmpty()) receiver.accept(updates);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (!running) break;
+                if (subscribed || backoff == MIN_BACKOFF_MILLIS) {
+                    logger.warning("[RyxoNET] Lost the Redis connection at " + host + ":" + port + " (" + e.getMessage()
+                            + "); sharing resumes once it is back, bans and verdicts stay local meanwhile");
+                }
+                subscribed = false;
+            } finally {
+                subscription = null;
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                break;
+            }
+            backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+        }
+    }
+
+    /**
+     * @return the running bans and attack lease stored by any node
+     */
+    private List<SharedUpdate> snapshot() throws IOException {
+        List<SharedUpdate> state = new ArrayList<>();
+        try (RespConnection reader = connect()) {
+            List<String> keys = scanBans(reader);
+            keys.add(attackKey);
+            for (int from = 0; from < keys.size(); from += SCAN_COUNT) {
+                List<String> chunk = keys.subList(from, Math.min(keys.size(), from + SCAN_COUNT));
+                List<String> args = new ArrayList<>(chunk.size() + 1);
+                args.add("MGET");
+                args.addAll(chunk);
+                Object values = reader.call(args.toArray(new String[0]));
+                if (!(values instanceof List)) continue;
+                for (Object value : (List<?>) values) {
+                    SharedUpdate update = value instanceof String ? SharedUpdate.decode((String) value) : null;
+                    if (update != null) state.add(update);
+                }
+            }
+        }
+        return state;
+    }
+
+    private List<String> scanBans(RespConnection redis) throws IOException {
+        List<String> keys = new ArrayList<>();
+        String cursor = "0";
+        do {
+            Object reply = redis.call("SCAN", cursor, "MATCH", banPrefix + "*", "COUNT", Integer.toString(SCAN_COUNT));
+            if (!(reply instanceof List) || ((List<?>) reply).size() != 2) throw new IOException("Unexpected SCAN reply");
+            List<?> page = (List<?>) reply;
+            cursor = String.valueOf(page.get(0));
+            for (Object key : (List<?>) page.get(1)) keys.add(String.valueOf(key));
+        } while (!cursor.equals("0"));
+        return keys;
+    }
+
+    @Override
+    public String describe() {
+        return "redis " + host + ":" + port + (subscribed ? "" : ", reconnecting");
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        RespConnection sub = subscription;
+        if (sub != null) sub.close();
+        if (subscriber != null) subscriber.interrupt();
+        RespConnection pub = connection;
+        if (pub != null) pub.close();
+    }
+}
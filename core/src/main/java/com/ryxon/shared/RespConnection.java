@@ -0,0 +1,134 @@
+package com.ryxon.shared;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal blocking client for the Redis protocol (RESP2): enough to pipeline
+ * commands and read their replies, with nothing to depend on.
+ * <p>
+ * Replies are returned as {@link String} (simple and bulk strings), {@link Long}
+ * (integers), {@link List} (arrays) or {@code null}; error replies are thrown.
+ */
+final class RespConnection implements AutoCloseable {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    /**
+     * Connects, then authenticates and selects the database if they are set.
+     */
+    RespConnection(String host, int port, int timeoutMillis, String password, int database) throws IOException {
+        socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            in = new BufferedInputStream(socket.getInputStream(), 1 << 16);
+            out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+            if (!password.isEmpty()) call("AUTH", password);
+            if (database != 0) call("SELECT", Integer.toString(database));
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Changes how long a read may block; 0 waits forever.
+     */
+    void setReadTimeout(int timeoutMillis) throws IOException {
+        socket.setSoTimeout(timeoutMillis);
+    }
+
+    /**
+     * Buffers one command without waiting for its reply.
+     */
+    void write(String... args) throws IOException {
+        out.write('*');
+        writeNumber(args.length);
+        for (String arg : args) {
+            byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+            out.write('$');
+            writeNumber(bytes.length);
+            out.write(bytes);
+            out.write(CRLF);
+        }
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    Object call(String... args) throws IOException {
+        write(args);
+        flush();
+        return read();
+    }
+
+    Object read() throws IOException {
+        int type = in.read();
+        switch (type) {
+            case '+':
+                return readLine();
+            case '-':
+                throw new IOException("Redis: " + readLine());
+            case ':':
+                return Long.parseLong(readLine());
+            case '$': {
+                int length = Integer.parseInt(readLine());
+                if (length < 0) return null;
+                byte[] bytes = in.readNBytes(length + 2);
+                if (bytes.length != length + 2) throw new EOFException("Connection closed by Redis");
+                return new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+            case '*': {
+                int length = Integer.parseInt(readLine());
+                if (length < 0) return null;
+                List<Object> elements = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) elements.add(read());
+                return elements;
+            }
+            case -1:
+                throw new EOFException("Connection closed by Redis");
+            default:
+                throw new IOException("Unexpected Redis reply type: " + (char) type);
+        }
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder sb = new StringBuilder(16);
+        for (int b; (b = in.read()) != '\r'; ) {
+            if (b == -1) throw new EOFException("Connection closed by Redis");
+            sb.append((char) b);
+        }
+        if (in.read() != '\n') throw new IOException("Malformed Redis reply");
+        return sb.toString();
+    }
+
+    private void writeNumber(int n) throws IOException {
+        out.write(Integer.toString(n).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ryxon.shared;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Where nodes of one cluster exchange bans, verdicts and attack mode leases.
+ * <p>
+ * Implementations are only ever called from the {@link SharedStateSync} thread,
+ * never from a login, so they may block on the network.
+ */
+public interface SharedState extends AutoCloseable {
+
+    /**
+     * Starts delivering the updates other nodes publish. The first delivery is the
+     * state stored so far (running bans and an attack lease), so a node that starts
+     * or reconnects late catches up; it is repeated after every reconnect.
+     *
+     * @param receiver called with each batch from another node, on a thread of the implementation
+     */
+    void start(Consumer<List<SharedUpdate>> receiver) throws IOException;
+
+    /**
+     * Sends a batch to every other node and stores what a late node needs.
+     *
+     * @throws IOException if the batch could not be sent; it is not retried
+     */
+    void publish(List<SharedUpdate> updates) throws IOException;
+
+    /**
+     * @return a short description for the status command
+     */
+    String describe();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,322 @@
+package com.ryxon.shared;
+
+import com.ryxon.attack.AttackMode;
+import com.ryxon.ban.TempBanManager;
+import com.ryxon.cache.VerdictCache;
+import com.ryxon.check.CheckType;
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.util.IpAddress;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Keeps this node's bans, verdict cache and attack mode in step with the other
+ * nodes of a cluster.
+ * <p>
+ * Logins never wait on another node. What they learn is queued without blocking
+ * and a background thread publishes it in batches, every flush interval or as
+ * soon as a batch is full; a full queue drops updates rather than slowing logins.
+ * Updates from other nodes are applied to the local ban table, verdict cache and
+ * attack mode, which then act as a near-cache: every join is decided from local
+ * state alone. Applied updates are never published again, so nodes do not echo
+ * each other.
+ * <p>
+ * Only the reverse DNS outcome of a verdict is shared, and only between nodes
+ * whose allowed hostnames match: it is the one check that is expensive to repeat,
+ * and the others depend on lists every node loads for itself.
+ */
+public final class SharedStateSync implements AutoCloseable {
+
+    private static final int HOSTNAME_BITS = 3 << (CheckType.HOSTNAME.ordinal() << 1);
+    private static final long ATTACK_LEASE_MILLIS = 10_000;
+
+    private final Logger logger;
+    private final TempBanManager tempBans;
+    private final VerdictCache verdictCache;
+    private final AttackMode attackMode;
+    /** Used when no node id is configured; stays the same across reloads. */
+    private final String defaultNode = "node-" + UUID.randomUUID().toString().substring(0, 8);
+
+    private volatile Settings settings = new Settings(false, false, false, 0, false, TimeUnit.MILLISECONDS.toNanos(100), 1);
+    private volatile ArrayBlockingQueue<SharedUpdate> queue = new ArrayBlockingQueue<>(64);
+    private volatile SharedState backend;
+    private String backendKey = "";
+    private Thread flusher;
+    private volatile boolean running = true;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private boolean failing;
+    private long nextLease;
+
+    public SharedStateSync(Logger logger, TempBanManager tempBans, VerdictCache verdictCache, AttackMode attackMode) {
+        this.logger = logger;
+        this.tempBans = tempBans;
+        this.verdictCache = verdictCache;
+        this.attackMode = attackMode;
+    }
+
+    /**
+     * Applies the {@code shared-state} settings. The backend is only replaced when its
+     * type or connection settings change; pending updates survive a reload.
+     */
+    public synchronized void configure(SecurityPolicy policy) {
+        String type = policy.getSharedState().type();
+        String node = policy.getSharedState().nodeId().isEmpty() ? defaultNode : policy.getSharedState().nodeId();
+        boolean enabled = !type.equals("none");
+        settings = new Settings(enabled && policy.getSharedState().bans(), enabled && policy.getSharedState().verdicts(),
+                enabled && policy.getSharedState().attackMode(), fingerprint(policy), policy.getVerdictCache().enabled(),
+                TimeUnit.MILLISECONDS.toNanos(policy.getSharedState().flushMillis()), policy.getSharedState().batchSize());
+
+        if (queue.remainingCapacity() + queue.size() != policy.getSharedState().queueSize()) {
+            ArrayBlockingQueue<SharedUpdate> resized = new ArrayBlockingQueue<>(policy.getSharedState().queueSize());
+            queue.drainTo(resized, policy.getSharedState().queueSize());
+            queue = resized;
+        }
+
+        String key = String.join("\n", type, policy.getSharedState().cluster(), node, policy.getSharedState().redisHost(),
+                Integer.toString(policy.getSharedState().redisPort()), policy.getSharedState().redisPassword(),
+                Integer.toString(policy.getSharedState().redisDatabase()), Long.toString(policy.getSharedState().redisTimeoutMillis()));
+        if (key.equals(backendKey)) return;
+        backendKey = key;
+        if (backend != null) backend.close();
+        backend = null;
+        if (!enabled) return;
+
+        SharedState created = type.equals("redis")
+                ? new RedisSharedState(logger, policy.getSharedState().cluster(), node, policy.getSharedState().redisHost(),
+                        policy.getSharedState().redisPort(), policy.getSharedState().redisPassword(), policy.getSharedState().redisDatabase(),
+                        policy.getSharedState().redisTimeoutMillis())
+                : new LocalSharedState(policy.getSharedState().cluster(), node);
+        try {
+            created.start(this::receive);
+        } catch (IOException e) {
+            logger.warning("[RyxoNET] Could not start sharing state: " + e.getMessage());
+            created.close();
+            return;
+        }
+        backend = created;
+        logger.info("[RyxoNET] Sharing " + shared(settings) + " with cluster '" + policy.getSharedState().cluster()
+                + "' as " + node + " (" + type + ")");
+        if (flusher == null) {
+            flusher = new Thread(this::run, "RyxoNET-Sync");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    private static String shared(Settings s) {
+        List<String> kinds = new ArrayList<>();
+        if (s.bans) kinds.add("bans");
+        if (s.verdicts) kinds.add("verdicts");
+        if (s.attackMode) kinds.add("attack mode");
+        return kinds.isEmpty() ? "nothing" : String.join(", ", kinds);
+    }
+
+    /**
+     * Reverse DNS verdicts only carry over between nodes that match hostnames the same way.
+     */
+    private static int fingerprint(SecurityPolicy policy) {
+        return policy.getHostname().useReverseDns() ? 31 * policy.getAllowedHostnames().hashCode() + 1 : 0;
+    }
+
+    // ────────────────────────────────────────────────
+    // Called by logins and commands; never block
+    // ────────────────────────────────────────────────
+
+    /**
+     * Shares a ban this node issued.
+     *
+     * @param count how many bans in a row the offender has earned
+     */
+    public void banned(IpAddress address, long untilMillis, int count) {
+        if (settings.bans) offer(SharedUpdate.ban(address, untilMillis, count));
+    }
+
+    /**
+     * Shares a lifted ban.
+     */
+    public void unbanned(IpAddress address, int prefix) {
+        if (settings.bans) offer(SharedUpdate.unban(address, prefix));
+    }
+
+    /**
+     * Shares that every ban was lifted.
+     */
+    public void cleared() {
+        if (settings.bans) offer(SharedUpdate.clear());
+    }
+
+    /**
+     * Shares verdict bits a login just computed; only the reverse DNS outcome leaves the node.
+     */
+    public void learned(IpAddress address, int verdict, long ttlMillis) {
+        Settings s = settings;
+        int shared = verdict & HOSTNAME_BITS;
+        if (!s.verdicts || s.fingerprint == 0 || shared == 0) return;
+        offer(SharedUpdate.verdict(address, shared, s.fingerprint, System.currentTimeMillis() + ttlMillis));
+    }
+
+    private void offer(SharedUpdate update) {
+        if (!queue.offer(update)) dropped.increment();
+    }
+
+    // ────────────────────────────────────────────────
+    // Publishing and receiving
+    // ────────────────────────────────────────────────
+
+    private void run() {
+        List<SharedUpdate> batch = new ArrayList<>();
+        while (running) {
+            Settings s = settings;
+            ArrayBlockingQueue<SharedUpdate> pending = queue;
+            // Wait out the interval unless a full batch is already waiting
+            if (pending.size() < s.batchSize) LockSupport.parkNanos(this, s.flushNanos);
+
+            long now = System.currentTimeMillis();
+            if (s.attackMode && now >= nextLease && attackMode.isActiveHere()) {
+                batch.add(SharedUpdate.attack(now + ATTACK_LEASE_MILLIS));
+                nextLease = now + ATTACK_LEASE_MILLIS / 3;
+            }
+            do {
+                pending.drainTo(batch, s.batchSize - batch.size());
+                if (!batch.isEmpty()) flush(batch);
+                batch.clear();
+            } while (running && pending.size() >= s.batchSize);
+        }
+        queue.drainTo(batch);
+        if (!batch.isEmpty()) flush(batch);
+    }
+
+    private synchronized void flush(List<SharedUpdate> batch) {
+        SharedState target = backend;
+        if (target == null) return;
+        try {
+            target.publish(batch);
+            published.add(batch.size());
+            if (failing) logger.info("[RyxoNET] Publishing shared state again");
+            failing = false;
+        } catch (IOException e) {
+            dropped.add(batch.size());
+            if (!failing) logger.warning("[RyxoNET] Could not publish shared state: " + e.getMessage()
+                    + "; dropping updates until it works again");
+            failing = true;
+        }
+    }
+
+    /**
+     * Applies a batch from another node to the local state. Runs on the backend's thread.
+     */
+    private void receive(List<SharedUpdate> updates) {
+        Settings s = settings;
+        long now = System.currentTimeMillis();
+        for (SharedUpdate update : updates) {
+            switch (update.getType()) {
+                case BAN:
+                    if (s.bans) tempBans.importBan(update.getAddress(), update.getUntil(), update.getValue());
+                    break;
+                case UNBAN:
+                    if (s.bans) tempBans.unban(update.getAddress(), update.getValue());
+                    break;
+                case CLEAR:
+                    if (s.bans) tempBans.clear();
+                    break;
+                case VERDICT:
+                    if (s.verdicts && s.verdictCache && update.getFingerprint() == s.fingerprint && update.getUntil() > now) {
+                        verdictCache.merge(update.getAddress(), update.getValue() & HOSTNAME_BITS,
+                                TimeUnit.MILLISECONDS.toNanos(update.getUntil() - now), System.nanoTime());
+                    }
+                    break;
+                case ATTACK:
+                    if (s.attackMode) attackMode.holdUntil(update.getUntil());
+                    break;
+                default:
+                    break;
+            }
+        }
+        received.add(updates.size());
+    }
+
+    // ────────────────────────────────────────────────
+    // Status
+    // ────────────────────────────────────────────────
+
+    public boolean isEnabled() {
+        return backend != null;
+    }
+
+    /**
+     * @return the backend in use, or {@code null} if state is not shared
+     */
+    public String describe() {
+        SharedState target = backend;
+        return target == null ? null : target.describe();
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getReceived() {
+        return received.sum();
+    }
+
+    /**
+     * @return updates that were never published because the queue was full or the backend failed
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Publishes what is still queued, then disconnects.
+     */
+    @Override
+    public void close() {
+        running = false;
+        Thread thread = flusher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (backend != null) backend.close();
+            backend = null;
+        }
+    }
+
+    private static final class Settings {
+
+        final boolean bans;
+        final boolean verdicts;
+        final boolean attackMode;
+        final int fingerprint;
+        final boolean verdictCache;
+        final long flushNanos;
+        final int batchSize;
+
+        Settings(boolean bans, boolean verdicts, boolean attackMode, int fingerprint,
+                 boolean verdictCache, long flushNanos, int batchSize) {
+            this.bans = bans;
+            this.verdicts = verdicts;
+            this.attackMode = attackMode;
+            this.fingerprint = fingerprint;
+            this.verdictCache = verdictCache;
+            this.flushNanos = flushNanos;
+            this.batchSize = batchSize;
+        }
+    }
+}
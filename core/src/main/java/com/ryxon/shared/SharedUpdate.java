@@ -0,0 +1,212 @@
+package com.ryxon.shared;
+
+import com.ryxon.util.IpAddress;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One change to the state nodes share: a ban, a lifted ban, a verdict or an
+ * attack mode lease.
+ * <p>
+ * Times are epoch milliseconds so they mean the same on every node. Updates
+ * travel as text, one per line, in batches headed by the publishing node's id:
+ * <pre>
+ * node-1
+ * B 203.0.113.7 1718000000000 2
+ * U 198.51.100.0 24
+ * V 192.0.2.10 12 -192837465 1718000030000
+ * A 1718000010000
+ * </pre>
+ */
+public final class SharedUpdate {
+
+    public enum Type {
+        /** {@code address} is banned until {@code until}; {@code value} is its ban count. */
+        BAN('B'),
+        /** Bans of networks overlapping {@code address/value} are lifted. */
+        UNBAN('U'),
+        /** Every ban is lifted. */
+        CLEAR('C'),
+        /** {@code value} holds verdict bits for {@code address}, valid until {@code until} under policy {@code fingerprint}. */
+        VERDICT('V'),
+        /** Attack mode is held on until {@code until}. */
+        ATTACK('A');
+
+        private final char code;
+
+        Type(char code) {
+            this.code = code;
+        }
+
+        static Type of(char code) {
+            for (Type type : values()) {
+                if (type.code == code) return type;
+            }
+            return null;
+        }
+    }
+
+    private final Type type;
+    private final IpAddress address;
+    private final long until;
+    private final int value;
+    private final int fingerprint;
+
+    private SharedUpdate(Type type, IpAddress address, long until, int value, int fingerprint) {
+        this.type = type;
+        this.address = address;
+        this.until = until;
+        this.value = value;
+        this.fingerprint = fingerprint;
+    }
+
+    public static SharedUpdate ban(IpAddress address, long untilMillis, int count) {
+        return new SharedUpdate(Type.BAN, address, untilMillis, count, 0);
+    }
+
+    public static SharedUpdate unban(IpAddress address, int prefix) {
+        return new SharedUpdate(Type.UNBAN, address, 0, prefix, 0);
+    }
+
+    public static SharedUpdate clear() {
+        return new SharedUpdate(Type.CLEAR, null, 0, 0, 0);
+    }
+
+    public static SharedUpdate verdict(IpAddress address, int verdict, int fingerprint, long untilMillis) {
+        return new SharedUpdate(Type.VERDICT, address, untilMillis, verdict, fingerprint);
+    }
+
+    public static SharedUpdate attack(long untilMillis) {
+        return new SharedUpdate(Type.ATTACK, null, untilMillis, 0, 0);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the address the update is about, or {@code null} for {@link Type#CLEAR} and {@link Type#ATTACK}
+     */
+    public IpAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * @return when the ban, verdict or lease ends, in epoch milliseconds
+     */
+    public long getUntil() {
+        return until;
+    }
+
+    /**
+     * @return the ban count, unban prefix or verdict bits, depending on the type
+     */
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * @return the fingerprint of the settings a verdict was decided under
+     */
+    public int getFingerprint() {
+        return fingerprint;
+    }
+
+    // ────────────────────────────────────────────────
+    // Wire format
+    // ────────────────────────────────────────────────
+
+    /**
+     * @return the update as one line, without a line break
+     */
+    public String encode() {
+        StringBuilder sb = new StringBuilder(48).append(type.code);
+        if (address != null) address.appendTo(sb.append(' '));
+        switch (type) {
+            case BAN:
+                sb.append(' ').append(until).append(' ').append(value);
+                break;
+            case UNBAN:
+                sb.append(' ').append(value);
+                break;
+            case VERDICT:
+                sb.append(' ').append(value).append(' ').append(fingerprint).append(' ').append(until);
+                break;
+            case ATTACK:
+                sb.append(' ').append(until);
+                break;
+            default:
+                break;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the update encoded in {@code line}, or {@code null} if it is malformed
+     */
+    public static SharedUpdate decode(String line) {
+        String[] parts = line.trim().split(" ");
+        if (parts[0].length() != 1) return null;
+        Type type = Type.of(parts[0].charAt(0));
+        if (type == null) return null;
+        try {
+            switch (type) {
+                case BAN: {
+                    IpAddress address = parts.length == 4 ? IpAddress.parse(parts[1]) : null;
+                    return address == null ? null : ban(address, Long.parseLong(parts[2]), Integer.parseInt(parts[3]));
+                }
+                case UNBAN: {
+                    IpAddress address = parts.length == 3 ? IpAddress.parse(parts[1]) : null;
+                    int prefix = address == null ? -1 : Integer.parseInt(parts[2]);
+                    return prefix < 0 || prefix > (address.isIPv4() ? 32 : 128) ? null : unban(address, prefix);
+                }
+                case CLEAR:
+                    return parts.length == 1 ? clear() : null;
+                case VERDICT: {
+                    IpAddress address = parts.length == 5 ? IpAddress.parse(parts[1]) : null;
+                    return address == null ? null : verdict(address, Integer.parseInt(parts[2]),
+                            Integer.parseInt(parts[3]), Long.parseLong(parts[4]));
+                }
+                case ATTACK:
+                    return parts.length == 2 ? attack(Long.parseLong(parts[1])) : null;
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return a batch message: the node id on the first line, then one update per line
+     */
+    public static String encode(String node, List<SharedUpdate> updates) {
+        StringBuilder sb = new StringBuilder(node.length() + 1 + updates.size() * 40).append(node);
+        for (SharedUpdate update : updates) {
+            sb.append('\n').append(update.encode());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads a batch message. Malformed lines are skipped.
+     *
+     * @param self the reading node's id; its own batches come back empty
+     */
+    public static List<SharedUpdate> decode(String message, String self) {
+        String[] lines = message.split("\n");
+        List<SharedUpdate> updates = new ArrayList<>(lines.length - 1);
+        if (lines[0].equals(self)) return updates;
+        for (int i = 1; i < lines.length; i++) {
+            SharedUpdate update = decode(lines[i]);
+            if (update != null) updates.add(update);
+        }
+        return updates;
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,438 @@
+package com.ryxon.util;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * An IPv4 or IPv6 address held as two primitive longs.
+ * <p>
+ * IPv4 addresses are stored in their IPv4-mapped IPv6 form ({@code ::ffff:a.b.c.d}),
+ * so {@code 10.0.0.1} and {@code ::ffff:10.0.0.1} are the same address, as they
+ * are for {@link InetAddress}. Parsing is hand-written and never consults the
+ * resolver: anything that is not a literal is rejected. The range-based
+ * {@code parse} and {@code parseIPv4} methods allocate nothing, for hot paths that
+ * only need the bits; instances are immutable and cheap to hash, which makes
+ * them suitable as map keys.
+ */
+public final class IpAddress implements Comparable<IpAddress> {
+
+    /** Address classes relevant to connection filtering; see {@link #scope()}. */
+    public enum Scope {
+        /** {@code 0.0.0.0} and {@code ::}. */
+        UNSPECIFIED,
+        /** {@code 127.0.0.0/8} and {@code ::1}. */
+        LOOPBACK,
+        /** RFC 1918 ranges, carrier-grade NAT ({@code 100.64.0.0/10}) and unique local IPv6 ({@code fc00::/7}). */
+        PRIVATE,
+        /** {@code 169.254.0.0/16} and {@code fe80::/10}. */
+        LINK_LOCAL,
+        /** {@code 224.0.0.0/4} and {@code ff00::/8}. */
+        MULTICAST,
+        /** Not routable on the internet: documentation, benchmarking, "this network" and future-use ranges. */
+        RESERVED,
+        /** Everything else. */
+        PUBLIC
+    }
+
+    private static final long V4_MAPPED_PREFIX = 0xFFFF00000000L;
+
+    private final long high;
+    private final long low;
+
+    private IpAddress(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public static IpAddress of(long high, long low) {
+        return new IpAddress(high, low);
+    }
+
+    public static IpAddress ofIPv4(int address) {
+        return new IpAddress(0, v4Low(address));
+    }
+
+    public static IpAddress of(InetAddress address) {
+        if (address instanceof Inet4Address) {
+            // Inet4Address.hashCode() is the packed address; avoids cloning getAddress()
+            return ofIPv4(address.hashCode());
+        }
+        byte[] b = address.getAddress();
+        return new IpAddress(toLong(b, 0), toLong(b, 8));
+    }
+
+    /**
+     * @return the parsed address, or {@code null} if {@code s} is not an IPv4 or IPv6 literal
+     */
+    public static IpAddress parse(CharSequence s) {
+        if (s == null) return null;
+        long[] out = new long[2];
+        return parse(s, 0, s.length(), out) ? new IpAddress(out[0], out[1]) : null;
+    }
+
+    public static boolean isLiteral(CharSequence s) {
+        return s != null && parse(s, 0, s.length(), new long[2]);
+    }
+
+    // ────────────────────────────────────────────────
+    // Allocation-free codec
+    // ────────────────────────────────────────────────
+
+    /**
+     * Parses {@code s[from, to)} as an IPv4 or IPv6 literal into {@code out[0]} (high half)
+     * and {@code out[1]} (low half). {@code out} is left untouched on failure.
+     *
+     * @return whether the range is a valid literal
+     */
+    public static boolean parse(CharSequence s, int from, int to, long[] out) {
+        long v4 = parseIPv4(s, from, to);
+        if (v4 >= 0) {
+            out[0] = 0;
+            out[1] = v4Low((int) v4);
+            return true;
+        }
+        return parseIPv6(s, from, to, out);
+    }
+
+    public static long parseIPv4(CharSequence s) {
+        return s == null ? -1 : parseIPv4(s, 0, s.length());
+    }
+
+    /**
+     * Parses a dotted-quad IPv4 address in {@code s[from, to)}.
+     *
+     * @return the address as an unsigned value, or -1 if the range is not one
+     */
+    public static long parseIPv4(CharSequence s, int from, int to) {
+        long value = 0;
+        int octets = 0;
+        int octet = -1;
+        int digits = 0;
+        for (int i = from; i <= to; i++) {
+            char c = i < to ? s.charAt(i) : '.';
+            if (c >= '0' && c <= '9') {
+                octet = octet < 0 ? c - '0' : octet * 10 + (c - '0');
+                if (octet > 255 || ++digits > 3) return -1;
+            } else if (c == '.' && octet >= 0 && octets < 4) {
+                value = (value << 8) | octet;
+                octets++;
+                octet = -1;
+                digits = 0;
+            } else {
+                return -1;
+            }
+        }
+        return octets == 4 ? value : -1;
+    }
+
+    /**
+     * Parses an IPv6 literal in {@code s[from, to)}: up to eight hex groups with at most
+     * one {@code ::}, optionally ending in a dotted IPv4 address. Zone ids are rejected.
+     */
+    private static boolean parseIPv6(CharSequence s, int from, int to, long[] out) {
+        if (to - from < 2) return false;
+        // Groups before "::" and after it are accumulated separately, then joined
+        long headHigh = 0, headLow = 0, tailHigh = 0, tailLow = 0;
+        int headGroups = 0, tailGroups = 0;
+        boolean compressed = false;
+
+        int i = from;
+        if (s.charAt(i) == ':') {
+            if (s.charAt(i + 1) != ':') return false;
+            compressed = true;
+            i += 2;
+            if (i == to) {
+                out[0] = 0;
+                out[1] = 0;
+                return true;
+            }
+        }
+        while (true) {
+            int start = i;
+            int group = 0;
+            while (i < to && i - start < 5) {
+                int digit = hexDigit(s.charAt(i));
+                if (digit < 0) break;
+                group = (group << 4) | digit;
+                i++;
+            }
+            int length = i - start;
+
+            if (i < to && s.charAt(i) == '.') {
+                // Trailing IPv4 part occupies the last two groups
+                long v4 = parseIPv4(s, start, to);
+                if (v4 < 0) return false;
+                if (compressed) {
+                    tailHigh = (tailHigh << 32) | (tailLow >>> 32);
+                    tailLow = (tailLow << 32) | v4;
+                    tailGroups += 2;
+                } else {
+                    headHigh = (headHigh << 32) | (headLow >>> 32);
+                    headLow = (headLow << 32) | v4;
+                    headGroups += 2;
+                }
+                break;
+            }
+            if (length == 0 || length > 4) return false;
+
+            if (compressed) {
+                tailHigh = (tailHigh << 16) | (tailLow >>> 48);
+                tailLow = (tailLow << 16) | group;
+                tailGroups++;
+            } else {
+                headHigh = (headHigh << 16) | (headLow >>> 48);
+                headLow = (headLow << 16) | group;
+                headGroups++;
+            }
+            if (headGroups + tailGroups > 8) return false;
+            if (i == to) break;
+            if (s.charAt(i) != ':' || ++i == to) return false;
+            if (s.charAt(i) == ':') {
+                if (compressed) return false;
+                compressed = true;
+                if (++i == to) break;
+            }
+        }
+
+        int groups = headGroups + tailGroups;
+        if (compressed ? groups > 7 : groups != 8) return false;
+        // Move the head groups above the (possibly empty) run of zeros and the tail
+        int shift = (8 - headGroups) * 16;
+        long high;
+        long low;
+        if (shift >= 128) {
+            high = 0;
+            low = 0;
+        } else if (shift >= 64) {
+            high = headLow << (shift - 64);
+            low = 0;
+        } else if (shift > 0) {
+            high = (headHigh << shift) | (headLow >>> (64 - shift));
+            low = headLow << shift;
+        } else {
+            high = headHigh;
+            low = headLow;
+        }
+        out[0] = high | tailHigh;
+        out[1] = low | tailLow;
+        return true;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        return -1;
+    }
+
+    /**
+     * @return eight bytes of {@code b} starting at {@code offset}, big-endian
+     */
+    public static long toLong(byte[] b, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (b[i] & 0xFFL);
+        }
+        return value;
+    }
+
+    public static boolean isIPv4(long high, long low) {
+        return high == 0 && (low >>> 32) == 0xFFFF;
+    }
+
+    /**
+     * @return the low half of the IPv4-mapped form of {@code address}
+     */
+    public static long v4Low(int address) {
+        return V4_MAPPED_PREFIX | (address & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Unsigned comparison of two 128-bit values given as high/low halves.
+     */
+    public static int compare(long aHigh, long aLow, long bHigh, long bLow) {
+        int c = Long.compareUnsigned(aHigh, bHigh);
+        return c != 0 ? c : Long.compareUnsigned(aLow, bLow);
+    }
+
+    /**
+     * Well-mixed 64-bit hash of an address, for open-addressing tables and sketches.
+     */
+    public static long hash(long high, long low) {
+        long h = high * 0x9E3779B97F4A7C15L ^ low;
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    // ────────────────────────────────────────────────
+    // Accessors
+    // ────────────────────────────────────────────────
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    public boolean isIPv4() {
+        return isIPv4(high, low);
+    }
+
+    /**
+     * @return the packed IPv4 address; only meaningful if {@link #isIPv4()}
+     */
+    public int toIPv4() {
+        return (int) low;
+    }
+
+    /**
+     * @param prefix prefix length in the address's own family: 0-32 for IPv4, 0-128 for IPv6
+     * @return the first address of the network of that length containing this address
+     */
+    public IpAddress network(int prefix) {
+        int bits = Math.max(0, Math.min(128, isIPv4() ? prefix + 96 : prefix));
+        long h = bits >= 64 ? high : bits == 0 ? 0 : high & (-1L << (64 - bits));
+        long l = bits <= 64 ? 0 : bits == 128 ? low : low & (-1L << (128 - bits));
+        return h == high && l == low ? this : new IpAddress(h, l);
+    }
+
+    public Scope scope() {
+        return isIPv4() ? scopeV4((int) low) : scopeV6();
+    }
+
+    public boolean isLoopback() {
+        return scope() == Scope.LOOPBACK;
+    }
+
+    /**
+     * @return whether the address is routable on the public internet
+     */
+    public boolean isPublic() {
+        return scope() == Scope.PUBLIC;
+    }
+
+    private static Scope scopeV4(int a) {
+        int first = a >>> 24;
+        if (a == 0) return Scope.UNSPECIFIED;
+        if (first == 0) return Scope.RESERVED;
+        if (first == 127) return Scope.LOOPBACK;
+        if (first == 10 || (a >>> 20) == 0xAC1 || (a >>> 16) == 0xC0A8 || (a >>> 22) == (100 << 2 | 1)) {
+            return Scope.PRIVATE;  // 10/8, 172.16/12, 192.168/16, 100.64/10
+        }
+        if ((a >>> 16) == 0xA9FE) return Scope.LINK_LOCAL;
+        if ((first & 0xF0) == 0xE0) return Scope.MULTICAST;
+        if ((first & 0xF0) == 0xF0) return Scope.RESERVED;  // 240/4, including broadcast
+        int net24 = a >>> 8;
+        if (net24 == 0xC00000 || net24 == 0xC00002 || net24 == 0xC63364 || net24 == 0xCB0071 || (a >>> 17) == (0xC612 >>> 1)) {
+            return Scope.RESERVED;  // 192.0.0/24, 192.0.2/24, 198.51.100/24, 203.0.113/24, 198.18/15
+        }
+        return Scope.PUBLIC;
+    }
+
+    private Scope scopeV6() {
+        if (high == 0 && low == 0) return Scope.UNSPECIFIED;
+        if (high == 0 && low == 1) return Scope.LOOPBACK;
+        int top16 = (int) (high >>> 48);
+        if ((top16 & 0xFE00) == 0xFC00) return Scope.PRIVATE;
+        if ((top16 & 0xFFC0) == 0xFE80) return Scope.LINK_LOCAL;
+        if ((top16 & 0xFF00) == 0xFF00) return Scope.MULTICAST;
+        if ((high >>> 32) == 0x20010DB8L || (high == 0x0100000000000000L) || (top16 & 0xFF00) == 0) {
+            return Scope.RESERVED;  // 2001:db8::/32, 100::/64, ::/8
+        }
+        return Scope.PUBLIC;
+    }
+
+    // ────────────────────────────────────────────────
+    // Conversion and formatting
+    // ────────────────────────────────────────────────
+
+    /**
+     * Converts without any lookup; IPv4 addresses become an {@link Inet4Address}.
+     */
+    public InetAddress toInetAddress() {
+        byte[] bytes;
+        if (isIPv4()) {
+            int a = (int) low;
+            bytes = new byte[]{(byte) (a >>> 24), (byte) (a >>> 16), (byte) (a >>> 8), (byte) a};
+        } else {
+            bytes = new byte[16];
+            for (int i = 0; i < 8; i++) {
+                bytes[i] = (byte) (high >>> (56 - 8 * i));
+                bytes[8 + i] = (byte) (low >>> (56 - 8 * i));
+            }
+        }
+        try {
+            return InetAddress.getByAddress(bytes);
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e);  // only thrown for a bad length
+        }
+    }
+
+    /**
+     * Appends the canonical text form: dotted quad for IPv4, RFC 5952 for IPv6
+     * (lowercase, no leading zeros, the longest run of two or more zero groups as {@code ::}).
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        if (isIPv4()) {
+            int a = (int) low;
+            return sb.append(a >>> 24).append('.').append((a >>> 16) & 0xFF).append('.')
+                    .append((a >>> 8) & 0xFF).append('.').append(a & 0xFF);
+        }
+        int runStart = -1;
+        int runLength = 1;  // a single zero group is never compressed
+        for (int i = 0; i < 8; ) {
+            if (group(i) != 0) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < 8 && group(i) == 0) i++;
+            if (i - start > runLength) {
+                runStart = start;
+                runLength = i - start;
+            }
+        }
+        for (int i = 0; i < 8; i++) {
+            if (i == runStart) {
+                sb.append("::");
+                i += runLength - 1;
+                continue;
+            }
+            if (i > 0 && i != runStart + runLength) sb.append(':');
+            sb.append(Integer.toHexString(group(i)));
+        }
+        return sb;
+    }
+
+    private int group(int index) {
+        long word = index < 4 ? high : low;
+        return (int) (word >>> (48 - 16 * (index & 3))) & 0xFFFF;
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(39)).toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IpAddress)) return false;
+        IpAddress other = (IpAddress) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) hash(high, low);
+    }
+
+    @Override
+    public int compareTo(IpAddress other) {
+        return compare(high, low, other.high, other.low);
+    }
+}
@@ -0,0 +1,45 @@
+package com.ryxon.util;
+
+import java.net.InetAddress;
+
+/**
+ * Utility class for handling IP addresses given as strings.
+ * <p>
+ * All methods parse with {@link IpAddress} and never trigger a DNS lookup;
+ * input that is not an address literal is treated as invalid.
+ */
+public final class IpUtil {
+
+    private IpUtil() {}  // Prevent instantiation
+
+    public static boolean isValidIPv4(String ip) {
+        return IpAddress.parseIPv4(ip) >= 0;
+    }
+
+    /**
+     * Parses an IPv4 or IPv6 literal. Unlike {@link InetAddress#getByName(String)} this
+     * never falls back to a DNS lookup: anything that is not a literal yields {@code null}.
+     */
+    public static InetAddress parseLiteral(String ip) {
+        IpAddress address = IpAddress.parse(ip);
+        return address == null ? null : address.toInetAddress();
+    }
+
+    public static boolean isLoopback(String ip) {
+        IpAddress address = IpAddress.parse(ip);
+        return address != null && address.isLoopback();
+    }
+
+    public static boolean equalsIp(String ip1, String ip2) {
+        IpAddress a = IpAddress.parse(ip1);
+        return a != null && a.equals(IpAddress.parse(ip2));
+    }
+
+    /**
+     * @return the canonical form of an address literal, or {@code ip} unchanged if it is not one
+     */
+    public static String normalizeIp(String ip) {
+        IpAddress address = IpAddress.parse(ip);
+        return address == null ? ip : address.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package com.ryxon.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Utility class for security-related operations.
+ */
+public final class SecurityUtil {
+
+    private static final String HMAC_ALGO = "HmacSHA256";
+
+    /** One initialised Mac per thread, re-keyed only when the secret changes. */
+    private static final ThreadLocal<KeyedMac> MACS = ThreadLocal.withInitial(KeyedMac::new);
+
+    private SecurityUtil() {}  // Prevent instantiation
+
+    /**
+     * Computes a raw HMAC-SHA256 using this thread's cached {@link Mac}.
+     */
+    public static byte[] hmac(byte[] data, String secret) {
+        return MACS.get().forSecret(secret).doFinal(data);
+    }
+
+    public static String generateHmac(String data, String secret) {
+        return Base64.getEncoder().encodeToString(hmac(data.getBytes(StandardCharsets.UTF_8), secret));
+    }
+
+    /**
+     * Verifies a Base64 signature in constant time.
+     */
+    public static boolean verifyHmac(String data, String secret, String signature) {
+        byte[] expected;
+        try {
+            expected = Base64.getDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(hmac(data.getBytes(StandardCharsets.UTF_8), secret), expected);
+    }
+
+    public static boolean constantTimeCompare(String a, String b) {
+        if (a.length() != b.length()) return false;
+        int diff = 0;
+        for (int i = 0; i < a.length(); i++) {
+            diff |= a.charAt(i) ^ b.charAt(i);
+        }
+        return diff == 0;
+    }
+
+    public static String generateSessionKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    private static final class KeyedMac {
+
+        private Mac mac;
+        private String secret;
+
+        Mac forSecret(String secret) {
+            try {
+                if (mac == null) {
+                    mac = Mac.getInstance(HMAC_ALGO);
+                }
+                if (!secret.equals(this.secret)) {
+                    mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGO));
+                    this.secret = secret;
+                }
+                return mac;
+            } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                throw new RuntimeException("HMAC generation failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.ryxon.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small bounded LRU cache whose entries expire individually.
+ * <p>
+ * Backed by an access-ordered {@link LinkedHashMap}; all operations are
+ * synchronized, which is cheap for the short critical sections involved.
+ */
+public final class TtlCache<K, V> {
+
+    private volatile int maxSize;
+    private final Map<K, Entry<V>> entries;
+
+    public TtlCache(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > TtlCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the cached value, or {@code null} if absent or expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.expiresAt - System.nanoTime() <= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * @return {@code true} if a non-expired entry exists for the key
+     */
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    public synchronized void put(K key, V value, long ttlMillis) {
+        if (ttlMillis <= 0) return;
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlMillis * 1_000_000L));
+    }
+
+    /**
+     * Changes the capacity; extra entries are evicted on the next insert.
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private record Entry<V>(V value, long expiresAt) {}
+}
@@ -0,0 +1,58 @@
+package com.ryxon.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads when the server runs on Java 21 or newer.
+ * <p>
+ * The plugin is compiled for Java 17, so the API is looked up reflectively
+ * once; on older runtimes {@link #isAvailable()} is {@code false} and callers
+ * keep their platform thread pools.
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null, name = null, factory = null, perTask = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = perTask;
+    }
+
+    private VirtualThreads() {}  // Prevent instantiation
+
+    public static boolean isAvailable() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @return an executor starting one virtual thread per task, named {@code prefix} followed
+     *         by a counter, or {@code null} if the runtime has no virtual threads
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        if (!isAvailable()) return null;
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 1L);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, FACTORY.invoke(builder));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
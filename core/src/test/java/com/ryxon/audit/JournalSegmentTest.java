@@ -0,0 +1,268 @@
+package com.ryxon.audit;
+
+import com.ryxon.check.CheckType;
+import com.ryxon.util.IpAddress;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalSegmentTest {
+
+    private static final long T = 1_718_000_000_000L;
+    private static final IpAddress PLAYER = IpAddress.parse("203.0.113.7");
+    private static final IpAddress OTHER = IpAddress.parse("2001:db8::1");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void namesFilesBySequence() {
+        Path file = JournalSegment.fileFor(directory, 42);
+
+        assertEquals("journal-00000042.seg", file.getFileName().toString());
+        assertEquals(42, JournalSegment.sequenceOf(file));
+        assertEquals(-1, JournalSegment.sequenceOf(directory.resolve("journal-00000042.idx")));
+        assertEquals(-1, JournalSegment.sequenceOf(directory.resolve("journal-latest.seg")));
+    }
+
+    @Test
+    void readsBackWhatItWrote() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 1, 16);
+        segment.append(entry(T, PLAYER, "Notch", CheckType.HOSTNAME, 1_500));
+        segment.append(entry(T + 10, OTHER, "Jeb_", null, 800));
+        segment.append(entry(T + 20, PLAYER, "Notch", null, 300));
+
+        assertTrue(byAddress(segment, PLAYER, 0).isEmpty(), "nothing is visible before it is published");
+        segment.publish();
+
+        List<AuditRecord> found = byAddress(segment, PLAYER, 0);
+        assertEquals(2, found.size());
+        assertEquals(T + 20, found.get(0).getTime(), "newest first");
+        assertTrue(found.get(0).isAllowed());
+        AuditRecord refused = found.get(1);
+        assertEquals(PLAYER, refused.getAddress());
+        assertEquals("Notch", refused.getName());
+        assertEquals(CheckType.HOSTNAME, refused.getReason());
+        assertEquals(1_500, refused.getTotalMicros());
+        assertEquals(CheckType.GEO.ordinal() * 10, refused.getCheckMicros(CheckType.GEO));
+        assertEquals(OTHER, byAddress(segment, OTHER, 0).get(0).getAddress());
+    }
+
+    @Test
+    void reopensWithItsIndex() throws IOException {
+        Path file = sealed();
+        assertTrue(Files.exists(directory.resolve("journal-00000001.idx")));
+
+        JournalSegment reopened = JournalSegment.open(file, 1);
+
+        assertEquals(3, reopened.count());
+        assertEquals(T + 20, reopened.getLastTime());
+        assertEquals(2, byAddress(reopened, PLAYER, 0).size());
+        assertEquals(1, byName(reopened, "jeb_", 0).size());
+    }
+
+    @Test
+    void reindexesWithoutItsIndex() throws IOException {
+        Path file = sealed();
+        Files.delete(directory.resolve("journal-00000001.idx"));
+
+        JournalSegment reopened = JournalSegment.open(file, 1);
+
+        assertEquals(3, reopened.count());
+        assertEquals(T + 20, reopened.getLastTime());
+        assertEquals(2, byAddress(reopened, PLAYER, 0).size());
+        assertEquals(1, byName(reopened, "JEB_", 0).size());
+    }
+
+    @Test
+    void reindexesWhenItsIndexIsStale() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 1, 16);
+        segment.append(entry(T, PLAYER, "Notch", null, 100));
+        segment.seal();
+        // Written after the index, as when the server stops before the segment fills up
+        segment.append(entry(T + 10, OTHER, "Jeb_", null, 100));
+        segment.publish();
+
+        JournalSegment reopened = JournalSegment.open(segment.file, 1);
+
+        assertEquals(2, reopened.count());
+        assertEquals(T + 10, reopened.getLastTime());
+        assertEquals(1, byAddress(reopened, OTHER, 0).size());
+    }
+
+    @Test
+    void reindexesWhenItsIndexIsUnreadable() throws IOException {
+        Path file = sealed();
+        Path index = directory.resolve("journal-00000001.idx");
+        byte[] bytes = Files.readAllBytes(index);
+        Files.write(index, Arrays.copyOf(bytes, 20));
+
+        JournalSegment reopened = JournalSegment.open(file, 1);
+
+        assertEquals(1, byName(reopened, "Jeb_", 0).size());
+    }
+
+    @Test
+    void readsVersion1Segments() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x52584A53);
+        out.writeInt(1);
+        out.writeInt(4);
+        out.writeInt(2);
+        out.write(new byte[64 - 16]);
+        writeV1Record(out, T, PLAYER, "Notch", CheckType.PROXY.ordinal(), 900);
+        writeV1Record(out, T + 10, OTHER, "Jeb_", 0xFF, 400);
+        out.write(new byte[2 * 64]);
+        Path file = JournalSegment.fileFor(directory, 7);
+        Files.write(file, bytes.toByteArray());
+
+        JournalSegment segment = JournalSegment.open(file, 7);
+
+        assertEquals(2, segment.count());
+        AuditRecord refused = byName(segment, "notch", 0).get(0);
+        assertEquals(PLAYER, refused.getAddress());
+        assertEquals(CheckType.PROXY, refused.getReason());
+        assertEquals(900, refused.getTotalMicros());
+        assertEquals(CheckType.HOSTNAME.ordinal() + 1, refused.getCheckMicros(CheckType.HOSTNAME));
+        assertEquals(-1, refused.getCheckMicros(CheckType.GEO), "not stored before version 2");
+        assertTrue(byAddress(segment, OTHER, 0).get(0).isAllowed());
+        assertNull(byAddress(segment, OTHER, 0).get(0).getReason());
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = JournalSegment.fileFor(directory, 1);
+        Files.write(file, "not a journal".getBytes(StandardCharsets.US_ASCII));
+
+        IOException e = assertThrows(IOException.class, () -> JournalSegment.open(file, 1));
+        assertTrue(e.getMessage().startsWith("Not a journal segment"), e.getMessage());
+    }
+
+    @Test
+    void stopsScanningWellBeforeTheCutOff() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 1, 16);
+        segment.append(entry(T + 100, PLAYER, "Notch", null, 1));
+        // Older than the cut-off by more than the slack: nothing before it is looked at
+        segment.append(entry(T - 6_000, PLAYER, "Notch", null, 2));
+        // Older, but within the slack of out-of-order writes: skipped, and the scan goes on
+        segment.append(entry(T - 1_000, PLAYER, "Notch", null, 3));
+        segment.append(entry(T + 50, PLAYER, "Notch", null, 4));
+        segment.publish();
+
+        List<AuditRecord> found = byAddress(segment, PLAYER, T);
+
+        assertEquals(1, found.size());
+        assertEquals(4, found.get(0).getTotalMicros());
+        assertEquals(4, byAddress(segment, PLAYER, 0).size());
+    }
+
+    @Test
+    void scansPastRecordsWithinTheSlack() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 1, 16);
+        segment.append(entry(T + 100, PLAYER, "Notch", null, 1));
+        segment.append(entry(T - 4_000, PLAYER, "Notch", null, 2));
+        segment.append(entry(T + 50, PLAYER, "Notch", null, 3));
+        segment.publish();
+
+        List<AuditRecord> found = byAddress(segment, PLAYER, T);
+
+        assertEquals(2, found.size());
+        assertEquals(3, found.get(0).getTotalMicros());
+        assertEquals(1, found.get(1).getTotalMicros());
+    }
+
+    @Test
+    void stopsAtTheLimit() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 1, 16);
+        for (int i = 0; i < 5; i++) segment.append(entry(T + i, PLAYER, "Notch", null, i));
+        segment.publish();
+
+        List<AuditRecord> found = new ArrayList<>();
+        segment.collect(AuditJournal.Query.address(PLAYER, 0), found, 2);
+
+        assertEquals(2, found.size());
+        assertEquals(4, found.get(0).getTotalMicros());
+    }
+
+    @Test
+    void matchesNamesIgnoringCase() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 1, 16);
+        segment.append(entry(T, PLAYER, "Notch", null, 1));
+        segment.append(entry(T + 1, OTHER, "AVeryLongPlayerNameIndeed", null, 2));
+        segment.seal();
+
+        for (JournalSegment s : List.of(segment, JournalSegment.open(segment.file, 1))) {
+            assertEquals(1, byName(s, "NOTCH", 0).size());
+            assertEquals(1, byName(s, "notch", 0).size());
+            assertTrue(byName(s, "Notc", 0).isEmpty());
+            assertTrue(byName(s, "Notch2", 0).isEmpty());
+            // Only the first sixteen characters are stored, and compared
+            assertEquals("AVeryLongPlayerN", byName(s, "averylongplayernameindeed", 0).get(0).getName());
+            assertEquals(1, byName(s, "AVERYLONGPLAYERN", 0).size());
+        }
+        assertEquals(JournalSegment.nameHash("Notch"), JournalSegment.nameHash("nOTCH"));
+    }
+
+    /**
+     * @return a sealed segment holding two joins from {@link #PLAYER} and one from {@link #OTHER}
+     */
+    private Path sealed() throws IOException {
+        JournalSegment segment = JournalSegment.create(directory, 1, 3);
+        segment.append(entry(T, PLAYER, "Notch", CheckType.HOSTNAME, 1_500));
+        segment.append(entry(T + 10, OTHER, "Jeb_", null, 800));
+        segment.append(entry(T + 20, PLAYER, "Notch", null, 300));
+        segment.seal();
+        return segment.file;
+    }
+
+    private static AuditRing.Entry entry(long time, IpAddress address, String name, CheckType reason, int totalMicros) {
+        AuditRing.Entry entry = new AuditRing.Entry();
+        entry.time = time;
+        entry.high = address.getHigh();
+        entry.low = address.getLow();
+        entry.name = name;
+        entry.reason = JournalSegment.reasonCode(reason);
+        entry.totalMicros = totalMicros;
+        for (int i = 0; i < AuditRecord.CHECKS; i++) entry.checkMicros[i] = i * 10;
+        return entry;
+    }
+
+    private static void writeV1Record(DataOutputStream out, long time, IpAddress address, String name, int reason,
+                                      int totalMicros) throws IOException {
+        out.writeLong(time);
+        out.writeLong(address.getHigh());
+        out.writeLong(address.getLow());
+        out.write(Arrays.copyOf(name.getBytes(StandardCharsets.ISO_8859_1), 16));
+        out.writeByte(reason);
+        out.write(new byte[3]);
+        out.writeInt(totalMicros);
+        for (int i = 0; i < 4; i++) out.writeInt(i + 1);
+    }
+
+    private static List<AuditRecord> byAddress(JournalSegment segment, IpAddress address, long since) {
+        List<AuditRecord> found = new ArrayList<>();
+        segment.collect(AuditJournal.Query.address(address, since), found, 100);
+        return found;
+    }
+
+    private static List<AuditRecord> byName(JournalSegment segment, String name, long since) {
+        List<AuditRecord> found = new ArrayList<>();
+        segment.collect(AuditJournal.Query.name(name, since), found, 100);
+        return found;
+    }
+}
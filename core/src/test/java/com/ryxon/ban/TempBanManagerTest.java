@@ -0,0 +1,262 @@
+package com.ryxon.ban;
+
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.config.TempBanSettings;
+import com.ryxon.util.IpAddress;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TempBanManagerTest {
+
+    private static final long MINUTE = 60_000;
+    private static final long HOUR = 60 * MINUTE;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void doublesEachBanUpToTheMaximum() {
+        TempBanManager bans = manager(1, 24, 64);
+        long now = System.currentTimeMillis();
+
+        assertEquals(MINUTE, bans.recordFailure(address("203.0.113.1")));
+        assertEquals(1, bans.getBanCount(address("203.0.113.1")));
+        assertTrue(bans.bannedUntil(address("203.0.113.200")) >= now + MINUTE, "the whole /24 is banned");
+        assertEquals(0, bans.recordFailure(address("203.0.113.1")), "failures during a ban earn nothing");
+        assertEquals(1, bans.getBanCount(address("203.0.113.1")));
+
+        // Offenders whose earlier bans have ended
+        long[] expected = {2 * MINUTE, 4 * MINUTE, 8 * MINUTE, 10 * MINUTE, 10 * MINUTE};
+        int[] earlier = {1, 2, 3, 4, 40};
+        for (int i = 0; i < earlier.length; i++) {
+            IpAddress offender = address("198.51." + i + ".1");
+            bans.importBan(offender, now - 1, earlier[i]);
+            assertEquals(0, bans.bannedUntil(offender));
+            assertEquals(expected[i], bans.recordFailure(offender), earlier[i] + " earlier bans");
+            assertEquals(earlier[i] + 1, bans.getBanCount(offender));
+        }
+        assertEquals(1 + earlier.length, bans.getActiveBanCount());
+    }
+
+    @Test
+    void bansAfterEnoughFailuresWithinTheFindTime() {
+        TempBanManager bans = manager(3, 32, 128);
+        IpAddress offender = address("2001:db8::1");
+
+        assertEquals(0, bans.recordFailure(offender));
+        assertEquals(0, bans.recordFailure(offender));
+        assertEquals(0, bans.bannedUntil(offender));
+        assertEquals(MINUTE, bans.recordFailure(offender));
+        assertNotEquals(0, bans.bannedUntil(offender));
+        assertEquals(0, bans.bannedUntil(address("2001:db8::2")));
+    }
+
+    @Test
+    void startsCountingAgainOnceTheFindTimeHasPassed() throws IOException {
+        long now = System.currentTimeMillis();
+        IpAddress stale = address("203.0.113.1");
+        IpAddress recent = address("203.0.113.2");
+        Path file = directory.resolve("bans.dat");
+        // Two failures each, the first long before the ten minute find time began
+        writeBanFile(file,
+                record(stale, 32, 0, 2, now - 20 * MINUTE, now - 15 * MINUTE, 0),
+                record(recent, 32, 0, 2, now - 5 * MINUTE, now - MINUTE, 0));
+        TempBanManager bans = manager(3, 32, 128);
+        assertEquals(2, bans.load(file));
+
+        assertEquals(0, bans.recordFailure(stale), "only the third failure in a fresh window");
+        assertEquals(MINUTE, bans.recordFailure(recent));
+    }
+
+    @Test
+    void roundTripsThroughTheBanFile() throws IOException {
+        TempBanManager bans = manager(2, 32, 64);
+        long now = System.currentTimeMillis();
+        bans.importBan(address("203.0.113.7"), now + HOUR, 3);
+        bans.importBan(address("2001:db8:1:2::5"), now + MINUTE, 1);
+        bans.recordFailure(address("198.51.100.20"));
+        Path file = directory.resolve("bans.dat");
+
+        bans.save(file);
+
+        TempBanManager restored = manager(2, 32, 64);
+        assertEquals(3, restored.load(file));
+        assertEquals(3, restored.getTrackedCount());
+        assertEquals(2, restored.getActiveBanCount());
+        assertEquals(now + HOUR, restored.bannedUntil(address("203.0.113.7")));
+        assertEquals(3, restored.getBanCount(address("203.0.113.7")));
+        assertEquals(now + MINUTE, restored.bannedUntil(address("2001:db8:1:2::ffff")));
+        assertEquals(0, restored.bannedUntil(address("198.51.100.20")));
+        // The failure it had already is still counted
+        assertEquals(MINUTE, restored.recordFailure(address("198.51.100.20")));
+    }
+
+    @Test
+    void skipsOffendersForgottenWhileStopped() throws IOException {
+        long now = System.currentTimeMillis();
+        Path file = directory.resolve("bans.dat");
+        writeBanFile(file,
+                record(address("203.0.113.1"), 32, 2, 0, now - 3 * HOUR, now - 2 * HOUR, now - HOUR),
+                record(address("203.0.113.2"), 32, 2, 0, now - 3 * HOUR, now - 2 * HOUR, now + HOUR));
+        TempBanManager bans = new TempBanManager();
+        bans.configure(policy(1, 32, 128, 3600));
+
+        assertEquals(1, bans.load(file));
+        assertEquals(0, bans.getBanCount(address("203.0.113.1")));
+        assertEquals(now + HOUR, bans.bannedUntil(address("203.0.113.2")));
+    }
+
+    @Test
+    void ignoresAMissingFile() throws IOException {
+        assertEquals(0, manager(1, 32, 128).load(directory.resolve("missing.dat")));
+    }
+
+    @Test
+    void rejectsTruncatedFiles() throws IOException {
+        TempBanManager bans = manager(1, 32, 128);
+        bans.recordFailure(address("203.0.113.1"));
+        bans.recordFailure(address("203.0.113.2"));
+        Path file = directory.resolve("bans.dat");
+        bans.save(file);
+        byte[] saved = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(saved, saved.length - 10));
+
+        IOException e = assertThrows(IOException.class, () -> manager(1, 32, 128).load(file));
+        assertTrue(e.getMessage().startsWith("Truncated"), e.getMessage());
+    }
+
+    @Test
+    void rejectsForeignFiles() throws IOException {
+        Path file = directory.resolve("bans.dat");
+        Files.writeString(file, "ip,until\n203.0.113.1,0\n");
+        IOException foreign = assertThrows(IOException.class, () -> manager(1, 32, 128).load(file));
+        assertTrue(foreign.getMessage().startsWith("Not a ban file"), foreign.getMessage());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(TempBanManager.MAGIC);
+        out.writeInt(TempBanManager.VERSION + 1);
+        out.writeInt(0);
+        Files.write(file, bytes.toByteArray());
+        IOException newer = assertThrows(IOException.class, () -> manager(1, 32, 128).load(file));
+        assertTrue(newer.getMessage().startsWith("Not a ban file"), newer.getMessage());
+    }
+
+    @Test
+    void mergesOffendersWhenThePrefixChanges() {
+        TempBanManager bans = manager(1, 32, 128);
+        long now = System.currentTimeMillis();
+        bans.importBan(address("203.0.113.7"), now + MINUTE, 1);
+        bans.importBan(address("203.0.113.9"), now + HOUR, 3);
+        bans.importBan(address("198.51.100.1"), now + MINUTE, 1);
+        bans.recordFailure(address("2001:db8::1"));
+        bans.recordFailure(address("2001:db8::2"));
+        assertEquals(5, bans.getActiveBanCount());
+
+        bans.configure(policy(1, 24, 64, 86400));
+
+        assertEquals(3, bans.getTrackedCount());
+        assertEquals(3, bans.getActiveBanCount());
+        assertEquals(now + HOUR, bans.bannedUntil(address("203.0.113.200")), "the longest ban of the /24 wins");
+        assertEquals(3, bans.getBanCount(address("203.0.113.1")));
+        assertEquals(now + MINUTE, bans.bannedUntil(address("198.51.100.99")));
+        assertNotEquals(0, bans.bannedUntil(address("2001:db8::ffff")));
+        assertEquals(1, bans.getBanCount(address("2001:db8::ffff")));
+    }
+
+    @Test
+    void unbansEveryOverlappingNetwork() {
+        TempBanManager bans = manager(1, 32, 128);
+        bans.recordFailure(address("203.0.113.7"));
+        bans.recordFailure(address("203.0.113.8"));
+        bans.recordFailure(address("198.51.100.1"));
+        bans.recordFailure(address("2001:db8::1"));
+
+        assertEquals(0, bans.unban(address("203.0.114.0"), 24));
+        // A shorter network covers the longer ones inside it
+        assertEquals(2, bans.unban(address("203.0.113.0"), 24));
+        assertEquals(0, bans.bannedUntil(address("203.0.113.7")));
+        assertEquals(2, bans.getActiveBanCount());
+        // IPv4 and IPv6 never overlap, even at prefix 0
+        assertEquals(1, bans.unban(address("::"), 0));
+        assertNotEquals(0, bans.bannedUntil(address("198.51.100.1")));
+
+        bans.configure(policy(1, 16, 128, 86400));
+        // A longer network inside a banned shorter one lifts it too
+        assertEquals(1, bans.unban(address("198.51.7.7"), 32));
+        assertEquals(0, bans.bannedUntil(address("198.51.100.1")));
+        assertEquals(0, bans.getActiveBanCount());
+        assertEquals(0, bans.getTrackedCount());
+    }
+
+    @Test
+    void doesNothingWhileDisabled() {
+        TempBanManager bans = new TempBanManager();
+
+        assertEquals(0, bans.recordFailure(address("203.0.113.1")));
+        assertEquals(0, bans.bannedUntil(address("203.0.113.1")));
+        assertEquals(0, bans.getTrackedCount());
+    }
+
+    /**
+     * A manager banning for a minute at first and ten minutes at most, with a ten minute find time.
+     */
+    private static TempBanManager manager(int maxFailures, int prefixV4, int prefixV6) {
+        TempBanManager bans = new TempBanManager();
+        bans.configure(policy(maxFailures, prefixV4, prefixV6, 86400));
+        return bans;
+    }
+
+    private static SecurityPolicy policy(int maxFailures, int prefixV4, int prefixV6, int forgetSeconds) {
+        return SecurityPolicy.builder()
+                .tempBans(new TempBanSettings(true, maxFailures, 600, 60, 600, forgetSeconds, prefixV4, prefixV6,
+                        "§cBanned for %time%"))
+                .build(warning -> {
+                    throw new AssertionError(warning);
+                });
+    }
+
+    private static IpAddress address(String ip) {
+        return IpAddress.parse(ip);
+    }
+
+    private static long[] record(IpAddress network, int prefix, int bans, int failures, long firstFailure,
+                                 long lastFailure, long bannedUntil) {
+        return new long[]{network.getHigh(), network.getLow(), prefix, bans, failures, firstFailure, lastFailure,
+                bannedUntil};
+    }
+
+    /**
+     * Writes a ban file the way {@link TempBanManager#save} does.
+     */
+    private static void writeBanFile(Path file, long[]... records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(TempBanManager.MAGIC);
+        out.writeInt(TempBanManager.VERSION);
+        out.writeInt(records.length);
+        for (long[] r : records) {
+            out.writeLong(r[0]);
+            out.writeLong(r[1]);
+            out.writeByte((int) r[2]);
+            out.writeShort((int) r[3]);
+            out.writeShort((int) r[4]);
+            out.writeLong(r[5]);
+            out.writeLong(r[6]);
+            out.writeLong(r[7]);
+        }
+        Files.write(file, bytes.toByteArray());
+    }
+}
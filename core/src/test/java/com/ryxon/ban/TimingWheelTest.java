@@ -0,0 +1,136 @@
+package com.ryxon.ban;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private final List<TimingWheel.Timer> expired = new ArrayList<>();
+
+    @Test
+    void expiresTimersWhenTheirTickPasses() {
+        TimingWheel wheel = new TimingWheel(8, 100);
+        TimingWheel.Timer first = scheduled(wheel, 103);
+        TimingWheel.Timer second = scheduled(wheel, 105);
+
+        wheel.advance(102, expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(104, expired::add);
+        assertEquals(List.of(first), expired);
+        assertFalse(first.isScheduled());
+        assertTrue(second.isScheduled());
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void keepsTimersOfALaterLapInTheirSlot() {
+        TimingWheel wheel = new TimingWheel(8, 0);
+        TimingWheel.Timer now = scheduled(wheel, 3);
+        // Same slot, one and two laps later
+        TimingWheel.Timer nextLap = scheduled(wheel, 11);
+        TimingWheel.Timer lapAfter = scheduled(wheel, 19);
+
+        wheel.advance(5, expired::add);
+        assertEquals(List.of(now), expired);
+
+        wheel.advance(12, expired::add);
+        assertEquals(List.of(now, nextLap), expired);
+        assertTrue(lapAfter.isScheduled());
+    }
+
+    @Test
+    void advancesAcrossMoreThanOneLap() {
+        TimingWheel wheel = new TimingWheel(8, 0);
+        List<TimingWheel.Timer> due = new ArrayList<>();
+        for (long deadline = 1; deadline <= 40; deadline++) due.add(scheduled(wheel, deadline));
+        TimingWheel.Timer later = scheduled(wheel, 45);
+
+        // Five laps at once: every slot is visited, but only once
+        wheel.advance(40, expired::add);
+
+        assertEquals(due.size(), expired.size());
+        assertTrue(expired.containsAll(due));
+        assertTrue(later.isScheduled());
+        assertEquals(1, wheel.size());
+
+        wheel.advance(1000, expired::add);
+        assertFalse(later.isScheduled());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void expiresPastDeadlinesOnTheNextTick() {
+        TimingWheel wheel = new TimingWheel(8, 50);
+        TimingWheel.Timer late = scheduled(wheel, 10);
+
+        assertEquals(51, late.getDeadline());
+        wheel.advance(51, expired::add);
+        assertEquals(List.of(late), expired);
+    }
+
+    @Test
+    void timersRescheduledWhileExpiringWaitForTheirNewDeadline() {
+        TimingWheel wheel = new TimingWheel(8, 0);
+        TimingWheel.Timer timer = scheduled(wheel, 2);
+
+        // Moved a full lap on, into the slot being drained
+        wheel.advance(4, t -> {
+            expired.add(t);
+            wheel.schedule(t, 10);
+        });
+        assertEquals(1, expired.size());
+        assertTrue(timer.isScheduled());
+
+        wheel.advance(9, expired::add);
+        assertEquals(1, expired.size());
+        wheel.advance(10, expired::add);
+        assertEquals(2, expired.size());
+    }
+
+    @Test
+    void reschedulesAndCancels() {
+        TimingWheel wheel = new TimingWheel(8, 0);
+        TimingWheel.Timer moved = scheduled(wheel, 2);
+        TimingWheel.Timer cancelled = scheduled(wheel, 2);
+        TimingWheel.Timer kept = scheduled(wheel, 2);
+
+        wheel.schedule(moved, 6);
+        wheel.cancel(cancelled);
+        wheel.cancel(cancelled);
+        assertEquals(2, wheel.size());
+
+        wheel.advance(3, expired::add);
+        assertEquals(List.of(kept), expired);
+        wheel.advance(6, expired::add);
+        assertEquals(List.of(kept, moved), expired);
+        assertFalse(cancelled.isScheduled());
+    }
+
+    @Test
+    void clearsEveryTimer() {
+        TimingWheel wheel = new TimingWheel(8, 0);
+        TimingWheel.Timer first = scheduled(wheel, 1);
+        TimingWheel.Timer second = scheduled(wheel, 30);
+
+        wheel.clear();
+
+        assertEquals(0, wheel.size());
+        assertFalse(first.isScheduled());
+        assertFalse(second.isScheduled());
+        wheel.advance(100, expired::add);
+        assertTrue(expired.isEmpty());
+    }
+
+    private static TimingWheel.Timer scheduled(TimingWheel wheel, long deadline) {
+        TimingWheel.Timer timer = new TimingWheel.Timer();
+        wheel.schedule(timer, deadline);
+        return timer;
+    }
+}
@@ -0,0 +1,107 @@
+package com.ryxon.dns;
+
+import com.ryxon.metrics.Metrics;
+import com.ryxon.util.IpAddress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReverseDnsResolverTest {
+
+    private static final IpAddress ADDRESS = IpAddress.parse("203.0.113.7");
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ReverseDnsResolver resolver;
+
+    @AfterEach
+    void close() {
+        release.countDown();
+        if (resolver != null) resolver.close();
+    }
+
+    @Test
+    void cachesAnswers() throws TimeoutException {
+        AtomicInteger lookups = new AtomicInteger();
+        resolver = resolver(1, address -> {
+            lookups.incrementAndGet();
+            return Optional.of("host.isp.example.net");
+        });
+
+        assertEquals(Optional.of("host.isp.example.net"), resolver.resolve(ADDRESS, 1000));
+        assertEquals(Optional.of("host.isp.example.net"), resolver.resolve(ADDRESS, 1000));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void retriesAfterALookupThrows() throws TimeoutException {
+        AtomicInteger lookups = new AtomicInteger();
+        resolver = resolver(1, address -> {
+            if (lookups.incrementAndGet() == 1) throw new IllegalStateException("resolver broke");
+            return Optional.of("host.isp.example.net");
+        });
+
+        assertThrows(IllegalStateException.class, () -> resolver.resolve(ADDRESS, 1000));
+        assertEquals(Optional.of("host.isp.example.net"), resolver.resolve(ADDRESS, 1000));
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void countsLookupsSkippedWhileTheQueueIsFull() {
+        resolver = resolver(1, address -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Optional.empty();
+        });
+
+        // One running on the single thread, 1024 waiting in the queue, the rest skipped
+        for (int i = 0; i < 1030; i++) resolver.resolveAsync(IpAddress.ofIPv4(0x0A000000 + i));
+
+        assertEquals(5, resolver.getRejectedLookups());
+        assertThrows(RejectedExecutionException.class, () -> resolver.resolve(IpAddress.ofIPv4(0x0B000000), 1000));
+        assertEquals(6, resolver.getRejectedLookups());
+        // Joining a lookup that is already pending is not a new one
+        resolver.resolveAsync(IpAddress.ofIPv4(0x0A000001));
+        assertEquals(6, resolver.getRejectedLookups());
+    }
+
+    @Test
+    void failsPendingLookupsOnClose() {
+        resolver = resolver(1, address -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Optional.empty();
+        });
+        CompletableFuture<Optional<String>> pending = resolver.resolveAsync(ADDRESS);
+
+        resolver.close();
+
+        ExecutionException e = assertThrows(ExecutionException.class, pending::get);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    private static ReverseDnsResolver resolver(int threads, Function<IpAddress, Optional<String>> lookup) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        return new ReverseDnsResolver(logger, threads, 1000, 600_000, 60_000, false,
+                new Metrics().stage(Metrics.Stage.DNS_LOOKUP), lookup);
+    }
+}
@@ -0,0 +1,220 @@
+package com.ryxon.engine;
+
+import com.ryxon.attack.AttackMode;
+import com.ryxon.audit.AuditJournal;
+import com.ryxon.ban.TempBanManager;
+import com.ryxon.blocklist.BlocklistManager;
+import com.ryxon.cache.VerdictCache;
+import com.ryxon.check.CheckType;
+import com.ryxon.config.DnsSettings;
+import com.ryxon.config.GuardSettings;
+import com.ryxon.config.HostnameSettings;
+import com.ryxon.config.SecurityMode;
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.config.TempBanSettings;
+import com.ryxon.dns.ReverseDnsResolver;
+import com.ryxon.geo.GeoIpManager;
+import com.ryxon.guard.CheckGuards;
+import com.ryxon.logging.ConnectionLogger;
+import com.ryxon.metrics.Metrics;
+import com.ryxon.proxy.ProxyVerifier;
+import com.ryxon.shared.SharedStateSync;
+import com.ryxon.util.IpAddress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs joins through the engine with reverse DNS against a stub resolver: one
+ * network answers with an allowed hostname, one without a hostname and one never
+ * answers at all.
+ */
+class LoginEngineTest {
+
+    private static final String ANSWERING = "203.0.113.";
+    private static final String UNNAMED = "198.51.100.";
+    private static final String STALLED = "10.99.";
+    private static final int HOSTNAME_BITS = 3 << (CheckType.HOSTNAME.ordinal() << 1);
+
+    private final Logger logger = silentLogger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final TempBanManager tempBans = new TempBanManager();
+    private final CheckGuards guards = new CheckGuards(logger);
+    private final AuditJournal journal = new AuditJournal(logger, 64);
+    private final ConnectionLogger connectionLogger = new ConnectionLogger(logger, 64);
+    private final BlocklistManager blocklists = new BlocklistManager(logger);
+    private ReverseDnsResolver resolver;
+    private SharedStateSync shared;
+    private LoginEngine engine;
+    private VerdictCache verdictCache;
+    private SecurityPolicy policy;
+
+    @AfterEach
+    void close() {
+        release.countDown();
+        if (shared != null) shared.close();
+        if (resolver != null) resolver.close();
+        journal.close();
+        connectionLogger.close();
+    }
+
+    @Test
+    void timedOutLookupRefusesWithoutBanning() throws UnknownHostException {
+        start(20);
+
+        LoginDecision first = engine.decide(policy, join(STALLED + "0.1"));
+        LoginDecision second = engine.decide(policy, join(STALLED + "0.1"));
+
+        assertFalse(first.isAllowed());
+        assertEquals(CheckType.HOSTNAME, first.getReason());
+        assertEquals(CheckType.HOSTNAME, second.getReason(), "a guard that could not answer must not earn a ban");
+        assertEquals(0, tempBans.bannedUntil(IpAddress.parse(STALLED + "0.1")));
+        assertEquals(0, tempBans.getBanCount(IpAddress.parse(STALLED + "0.1")));
+    }
+
+    @Test
+    void openBreakerRefusesWithoutBanning() throws UnknownHostException {
+        // One timed-out call in the window opens the breaker
+        start(1);
+
+        assertEquals(CheckType.HOSTNAME, engine.decide(policy, join(STALLED + "0.1")).getReason());
+        assertEquals("open", guards.getState(CheckType.HOSTNAME));
+
+        LoginDecision skipped = engine.decide(policy, join(ANSWERING + 1));
+        assertEquals(CheckType.HOSTNAME, skipped.getReason());
+        assertEquals(CheckType.HOSTNAME, engine.decide(policy, join(ANSWERING + 1)).getReason());
+        assertEquals(0, tempBans.bannedUntil(IpAddress.parse(ANSWERING + 1)));
+        assertEquals(0, tempBans.bannedUntil(IpAddress.parse(STALLED + "0.1")));
+    }
+
+    @Test
+    void fullQueueRefusesWithoutBanningOrCaching() throws UnknownHostException {
+        start(20);
+        // Two lookups running, 1024 waiting: the resolver's queue is full
+        for (int i = 0; i < 1026; i++) resolver.resolveAsync(IpAddress.parse(STALLED + (i >> 8) + "." + (i & 0xFF)));
+
+        LoginDecision refused = engine.decide(policy, join(ANSWERING + 1));
+
+        assertEquals(CheckType.HOSTNAME, refused.getReason());
+        assertEquals(0, tempBans.bannedUntil(IpAddress.parse(ANSWERING + 1)));
+        assertEquals(0, tempBans.getBanCount(IpAddress.parse(ANSWERING + 1)));
+        int cached = verdictCache.get((policy.getGeneration() << 32) | (blocklists.getVersion() & 0xFFFFFFFFL),
+                IpAddress.parse(ANSWERING + 1), System.nanoTime());
+        assertTrue(cached == VerdictCache.MISS || (cached & HOSTNAME_BITS) == 0,
+                "a skipped lookup must not be cached as a denial");
+
+        // Once the resolver catches up, the player gets in
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!engine.decide(policy, join(ANSWERING + 1)).isAllowed()) {
+            assertTrue(System.nanoTime() - deadline < 0, "player still refused after the queue drained");
+        }
+    }
+
+    @Test
+    void failedLookupStillBans() throws UnknownHostException {
+        start(20);
+
+        assertTrue(engine.decide(policy, join(ANSWERING + 1)).isAllowed());
+        assertEquals(CheckType.HOSTNAME, engine.decide(policy, join(UNNAMED + 1)).getReason());
+
+        assertNotEquals(0L, tempBans.bannedUntil(IpAddress.parse(UNNAMED + 1)));
+        assertEquals(1, tempBans.getBanCount(IpAddress.parse(UNNAMED + 1)));
+        assertEquals(CheckType.TEMP_BAN, engine.decide(policy, join(UNNAMED + 1)).getReason());
+    }
+
+    /**
+     * @param minimumCalls calls in the window before the hostname breaker may open
+     */
+    private void start(int minimumCalls) {
+        policy = SecurityPolicy.builder()
+                .securityMode(SecurityMode.HOSTNAME_ONLY)
+                .allowedHostnames(List.of("*.isp.example.net"))
+                .hostname(new HostnameSettings(true, true, false, "", "§cHostname"))
+                .dns(new DnsSettings(100, 1000, 600, 60, 2))
+                .guards(new GuardSettings(true, false, 3000, 30, minimumCalls, 50, 30, 5,
+                        500, false, 250, 50, false))
+                .tempBans(new TempBanSettings(true, 1, 600, 60, 86400, 86400, 32, 64, "§cBanned for %time%"))
+                .build(warning -> {
+                    throw new AssertionError(warning);
+                });
+
+        Metrics metrics = new Metrics();
+        resolver = new ReverseDnsResolver(logger, 2, 1000, 600_000, 60_000, false,
+                metrics.stage(Metrics.Stage.DNS_LOOKUP), stubLookup());
+        verdictCache = new VerdictCache(1024);
+        AttackMode attackMode = new AttackMode(logger);
+        shared = new SharedStateSync(logger, tempBans, verdictCache, attackMode);
+        guards.configure(policy);
+        tempBans.configure(policy);
+        attackMode.configure(policy);
+        shared.configure(policy);
+        engine = new LoginEngine(blocklists, new GeoIpManager(logger), verdictCache, resolver,
+                new ProxyVerifier(16), guards, attackMode, tempBans, shared, journal, connectionLogger, metrics);
+    }
+
+    private Function<IpAddress, Optional<String>> stubLookup() {
+        return address -> {
+            String ip = address.toString();
+            if (ip.startsWith(ANSWERING)) return Optional.of("host-1.isp.example.net");
+            if (ip.startsWith(STALLED)) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return Optional.empty();
+        };
+    }
+
+    private static LoginAttempt join(String ip) throws UnknownHostException {
+        InetAddress address = InetAddress.getByName(ip);
+        return new LoginAttempt() {
+            @Override
+            public InetAddress getAddress() {
+                return address;
+            }
+
+            @Override
+            public String getName() {
+                return "Player";
+            }
+
+            @Override
+            public UUID getUniqueId() {
+                return null;
+            }
+
+            @Override
+            public String getVirtualHost() {
+                return null;
+            }
+
+            @Override
+            public String takeToken() {
+                return null;
+            }
+        };
+    }
+
+    private static Logger silentLogger() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        return logger;
+    }
+}
@@ -0,0 +1,81 @@
+package com.ryxon.engine;
+
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.config.TempBanSettings;
+import com.ryxon.util.IpAddress;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RyxoNetServicesTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private int cancelled;
+
+    @Test
+    void keepsBansAcrossRestarts() {
+        SecurityPolicy policy = policy();
+        IpAddress address = IpAddress.parse("203.0.113.7");
+        long until = System.currentTimeMillis() + 600_000;
+
+        RyxoNetServices first = new RyxoNetServices(silentLogger(), directory, this::schedule, policy);
+        first.getTempBans().importBan(address, until, 2);
+        first.close();
+
+        assertEquals(tasks.size(), cancelled, "every background task is cancelled on close");
+        assertTrue(Files.exists(directory.resolve("bans.dat")));
+
+        RyxoNetServices second = new RyxoNetServices(silentLogger(), directory, this::schedule, policy);
+        try {
+            assertEquals(until, second.getTempBans().bannedUntil(address));
+            assertEquals(2, second.getTempBans().getBanCount(address));
+        } finally {
+            second.close();
+        }
+    }
+
+    @Test
+    void savesBansFromTheBackgroundTask() {
+        RyxoNetServices services = new RyxoNetServices(silentLogger(), directory, this::schedule, policy());
+        try {
+            services.getTempBans().importBan(IpAddress.parse("203.0.113.7"), System.currentTimeMillis() + 600_000, 1);
+
+            for (Runnable task : tasks) task.run();
+
+            assertTrue(Files.exists(directory.resolve("bans.dat")));
+        } finally {
+            services.close();
+        }
+    }
+
+    private RyxoNetServices.Task schedule(Runnable task, long delayMillis, long periodMillis) {
+        assertTrue(delayMillis > 0 && periodMillis > 0);
+        tasks.add(task);
+        return () -> cancelled++;
+    }
+
+    private static SecurityPolicy policy() {
+        return SecurityPolicy.builder()
+                .tempBans(new TempBanSettings(true, 5, 600, 60, 86400, 86400, 32, 64, "§cBanned for %time%"))
+                .build(warning -> {
+                    throw new AssertionError(warning);
+                });
+    }
+
+    private static Logger silentLogger() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        return logger;
+    }
+}
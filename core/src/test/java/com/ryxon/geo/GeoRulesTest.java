@@ -0,0 +1,164 @@
+package com.ryxon.geo;
+
+import com.ryxon.util.IpAddress;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Decides joins the way the geo filter does: country and AS number are looked up
+ * in generated databases, then handed to the compiled rules.
+ */
+class GeoRulesTest {
+
+    @TempDir
+    Path directory;
+
+    private MmdbReader countries;
+    private MmdbReader asns;
+
+    @BeforeEach
+    void writeDatabases() throws IOException {
+        MmdbWriter country = new MmdbWriter("GeoLite2-Country", 24, MmdbWriter.Pointers.SHORTEST);
+        country.insertV4("10.1.0.0", 16, MmdbWriter.record("US", 0));
+        country.insertV4("10.2.0.0", 16, MmdbWriter.record("DE", 0));
+        country.insertV4("10.3.0.0", 16, MmdbWriter.record("CN", 0));
+        country.insertV4("10.4.0.0", 16, MmdbWriter.record("RU", 0));
+        country.insertV6(0x2001_0db8_0000_0000L, 0, 32, MmdbWriter.record("DE", 0));
+        Path countryFile = directory.resolve("country.mmdb");
+        country.write(countryFile, 0);
+        countries = MmdbReader.open(countryFile);
+
+        MmdbWriter asn = new MmdbWriter("GeoLite2-ASN", 28, MmdbWriter.Pointers.SHORTEST);
+        asn.insertV4("10.1.1.0", 24, MmdbWriter.record(null, 64_501));   // hosting in the US
+        asn.insertV4("10.3.1.0", 24, MmdbWriter.record(null, 64_503));   // partner in CN
+        asn.insertV4("10.2.0.0", 16, MmdbWriter.record(null, 64_502));   // ISP in DE
+        asn.insertV6(0x2001_0db8_0000_0000L, 0, 48, MmdbWriter.record(null, 64_501));
+        Path asnFile = directory.resolve("asn.mmdb");
+        asn.write(asnFile, 0);
+        asns = MmdbReader.open(asnFile);
+    }
+
+    @Test
+    void allowsEverythingWithoutRules() {
+        GeoRules rules = GeoRules.allowAll();
+
+        assertTrue(rules.isEmpty());
+        assertTrue(allows(rules, "10.3.0.1"));
+        assertTrue(allows(rules, "192.0.2.1"));
+    }
+
+    @Test
+    void deniesListedCountries() {
+        GeoRules rules = compile(List.of(), List.of("CN", "RU"), List.of(), List.of(), true);
+
+        assertTrue(allows(rules, "10.1.0.1"));
+        assertTrue(allows(rules, "10.2.0.1"));
+        assertFalse(allows(rules, "10.3.0.1"));
+        assertFalse(allows(rules, "10.4.0.1"));
+    }
+
+    @Test
+    void admitsOnlyAllowedCountries() {
+        GeoRules rules = compile(List.of("US", "de"), List.of(), List.of(), List.of(), true);
+
+        assertTrue(allows(rules, "10.1.0.1"));
+        assertTrue(allows(rules, "10.2.0.1"));
+        assertTrue(allows(rules, "2001:db8:1::1"));
+        assertFalse(allows(rules, "10.3.0.1"));
+        assertFalse(allows(rules, "10.4.0.1"));
+    }
+
+    @Test
+    void deniedCountriesWinOverAllowedOnes() {
+        GeoRules rules = compile(List.of("US", "DE"), List.of("DE"), List.of(), List.of(), true);
+
+        assertTrue(allows(rules, "10.1.0.1"));
+        assertFalse(allows(rules, "10.2.0.1"));
+    }
+
+    @Test
+    void allowedAsnWinsOverDeniedCountry() {
+        GeoRules rules = compile(List.of(), List.of("CN"), List.of("AS64503"), List.of(), true);
+
+        assertTrue(allows(rules, "10.3.1.1"));
+        assertFalse(allows(rules, "10.3.2.1"));
+    }
+
+    @Test
+    void deniedAsnWinsOverAllowedCountry() {
+        GeoRules rules = compile(List.of("US", "DE"), List.of(), List.of(), List.of("64501"), true);
+
+        assertFalse(allows(rules, "10.1.1.1"));
+        assertTrue(allows(rules, "10.1.2.1"));
+        assertTrue(allows(rules, "10.2.0.1"));
+        assertFalse(allows(rules, "2001:db8::1"));
+        assertTrue(allows(rules, "2001:db8:1::1"));
+    }
+
+    @Test
+    void deniedAsnWinsOverAllowedAsn() {
+        GeoRules rules = compile(List.of(), List.of(), List.of("64502"), List.of("64502"), true);
+
+        assertFalse(allows(rules, "10.2.0.1"));
+    }
+
+    @Test
+    void decidesUnknownCountries() {
+        GeoRules admitting = compile(List.of(), List.of("CN"), List.of(), List.of(), true);
+        GeoRules refusing = compile(List.of(), List.of("CN"), List.of(), List.of(), false);
+
+        assertTrue(allows(admitting, "192.0.2.1"));
+        assertFalse(allows(refusing, "192.0.2.1"));
+        assertFalse(refusing.isEmpty());
+        assertTrue(allows(refusing, "10.1.0.1"));
+    }
+
+    @Test
+    void skipsCountryRulesWithoutACountryDatabase() {
+        GeoRules rules = compile(List.of("US"), List.of(), List.of(), List.of("64502"), false);
+
+        assertTrue(rules.allows(-1, -1));
+        assertTrue(rules.allows(-1, asn("10.3.0.1")));
+        assertFalse(rules.allows(-1, asn("10.2.0.1")));
+    }
+
+    @Test
+    void reportsInvalidEntries() {
+        List<String> invalid = new ArrayList<>();
+        GeoRules rules = GeoRules.compile(List.of("US", "USA", "1"), List.of(), List.of("AS12x"), List.of(),
+                true, invalid::add);
+
+        assertEquals(List.of("USA", "1", "AS12x"), invalid);
+        assertEquals(List.of("US"), rules.getAllowedCountries());
+        assertTrue(rules.getAllowedAsns().isEmpty());
+    }
+
+    private static GeoRules compile(List<String> allowedCountries, List<String> deniedCountries,
+                                    List<String> allowedAsns, List<String> deniedAsns, boolean allowUnknown) {
+        return GeoRules.compile(allowedCountries, deniedCountries, allowedAsns, deniedAsns, allowUnknown,
+                entry -> {
+                    throw new AssertionError("Rejected " + entry);
+                });
+    }
+
+    private boolean allows(GeoRules rules, String address) {
+        IpAddress ip = IpAddress.parse(address);
+        int country = countries.countryCode(countries.lookup(ip.getHigh(), ip.getLow()));
+        return rules.allows(country, asn(address));
+    }
+
+    private long asn(String address) {
+        IpAddress ip = IpAddress.parse(address);
+        return asns.asn(asns.lookup(ip.getHigh(), ip.getLow()));
+    }
+}
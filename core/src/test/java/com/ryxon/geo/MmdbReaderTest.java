@@ -0,0 +1,202 @@
+package com.ryxon.geo;
+
+import com.ryxon.util.IpAddress;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MmdbReaderTest {
+
+    private static final int US = ('U' << 8) | 'S';
+    private static final int DE = ('D' << 8) | 'E';
+    private static final int NL = ('N' << 8) | 'L';
+    private static final int FR = ('F' << 8) | 'R';
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(ints = {24, 28, 32})
+    void findsIPv4NetworksInsideTheIPv6Tree(int recordSize) throws IOException {
+        MmdbWriter writer = new MmdbWriter("GeoLite2-Country", recordSize, MmdbWriter.Pointers.NONE);
+        writer.insertV4("10.0.0.0", 8, MmdbWriter.record("US", 0));
+        writer.insertV4("10.1.0.0", 16, MmdbWriter.record("DE", 0));
+        writer.insertV4("10.1.2.3", 32, MmdbWriter.record("NL", 0));
+        writer.insertV4("192.168.0.0", 24, MmdbWriter.record("FR", 0));
+        MmdbReader reader = open(writer);
+
+        assertEquals(US, country(reader, "10.200.0.1"));
+        assertEquals(DE, country(reader, "10.1.0.1"));
+        assertEquals(DE, country(reader, "10.1.2.4"));
+        assertEquals(NL, country(reader, "10.1.2.3"));
+        assertEquals(FR, country(reader, "192.168.0.255"));
+        assertEquals(-1, lookup(reader, "192.168.1.0"));
+        assertEquals(-1, lookup(reader, "11.0.0.1"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {24, 28, 32})
+    void findsIPv6Networks(int recordSize) throws IOException {
+        MmdbWriter writer = new MmdbWriter("GeoLite2-ASN", recordSize, MmdbWriter.Pointers.NONE);
+        writer.insertV6(0x2001_0db8_0000_0000L, 0, 32, MmdbWriter.record(null, 64_496));
+        writer.insertV6(0x2a00_0000_0000_0000L, 0, 12, MmdbWriter.record(null, 4_200_000_000L));
+        writer.insertV4("1.2.3.0", 24, MmdbWriter.record(null, 13_335));
+        MmdbReader reader = open(writer);
+
+        assertEquals(64_496, asn(reader, "2001:db8::1"));
+        assertEquals(64_496, asn(reader, "2001:db8:ffff::"));
+        assertEquals(4_200_000_000L, asn(reader, "2a0f::1"));
+        assertEquals(13_335, asn(reader, "1.2.3.4"));
+        assertEquals(-1, asn(reader, "2001:db9::1"));
+        assertEquals(-1, asn(reader, "1.2.4.1"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {24, 28, 32})
+    void followsPointers(int recordSize) throws IOException {
+        MmdbWriter writer = new MmdbWriter("GeoLite2-Country", recordSize, MmdbWriter.Pointers.SHORTEST);
+        writer.insertV4("10.0.0.0", 24, MmdbWriter.record("US", 0));
+        // Same country map and keys again, so this record is made of pointers
+        writer.insertV4("10.0.1.0", 24, MmdbWriter.record("US", 0));
+        writer.insertV4("10.0.2.0", 24, MmdbWriter.record("DE", 64_496));
+        writer.insertV4("10.0.3.0", 24, MmdbWriter.record("DE", 64_497));
+        MmdbReader reader = open(writer);
+
+        assertEquals(US, country(reader, "10.0.0.1"));
+        assertEquals(US, country(reader, "10.0.1.1"));
+        assertEquals(DE, country(reader, "10.0.2.1"));
+        assertEquals(64_496, asn(reader, "10.0.2.1"));
+        assertEquals(DE, country(reader, "10.0.3.1"));
+        assertEquals(64_497, asn(reader, "10.0.3.1"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 3_000, 600_000})
+    void followsPointersOfEverySize(int padding) throws IOException {
+        for (MmdbWriter.Pointers pointers : List.of(MmdbWriter.Pointers.SHORTEST, MmdbWriter.Pointers.WIDE)) {
+            MmdbWriter writer = new MmdbWriter("GeoLite2-Country", 24, pointers);
+            writer.pad(padding);
+            writer.insertV4("10.0.0.0", 24, MmdbWriter.record("NL", 1));
+            writer.insertV4("10.0.1.0", 24, MmdbWriter.record("NL", 2));
+            MmdbReader reader = open(writer);
+
+            assertEquals(NL, country(reader, "10.0.1.1"), pointers + " pointers after " + padding + " bytes");
+            assertEquals(2, asn(reader, "10.0.1.1"), pointers + " pointers after " + padding + " bytes");
+        }
+    }
+
+    @Test
+    void reportsMissingKeys() throws IOException {
+        MmdbWriter writer = new MmdbWriter("GeoLite2-City", 28, MmdbWriter.Pointers.NONE);
+        writer.insertV4("10.0.0.0", 24, MmdbWriter.record(null, 64_496));
+        writer.insertV4("10.0.1.0", 24, MmdbWriter.record("US", 0));
+        writer.insertV4("10.0.2.0", 24, Map.of("country", Map.of("names", Map.of("en", "Nowhere"))));
+        writer.insertV4("10.0.3.0", 24, Map.of("country", Map.of("iso_code", "USA")));
+        writer.insertV4("10.0.4.0", 24, Map.of("autonomous_system_number", "64496"));
+        MmdbReader reader = open(writer);
+
+        assertEquals(0, country(reader, "10.0.0.1"));
+        assertEquals(64_496, asn(reader, "10.0.0.1"));
+        assertEquals(US, country(reader, "10.0.1.1"));
+        assertEquals(-1, asn(reader, "10.0.1.1"));
+        assertEquals(0, country(reader, "10.0.2.1"));
+        assertEquals(0, country(reader, "10.0.3.1"), "three-letter codes are not country codes");
+        assertEquals(-1, asn(reader, "10.0.4.1"), "a string is not an AS number");
+        assertEquals(0, reader.countryCode(-1));
+        assertEquals(-1, reader.asn(-1));
+    }
+
+    @Test
+    void fallsBackToTheRegisteredCountry() throws IOException {
+        Map<String, Object> anycast = new LinkedHashMap<>();
+        anycast.put("registered_country", Map.of("iso_code", "DE"));
+        Map<String, Object> both = new LinkedHashMap<>();
+        both.put("registered_country", Map.of("iso_code", "DE"));
+        both.put("country", Map.of("iso_code", "FR"));
+
+        MmdbWriter writer = new MmdbWriter("GeoLite2-Country", 24, MmdbWriter.Pointers.NONE);
+        writer.insertV4("10.0.0.0", 24, anycast);
+        writer.insertV4("10.0.1.0", 24, both);
+        MmdbReader reader = open(writer);
+
+        assertEquals(DE, country(reader, "10.0.0.1"));
+        assertEquals(FR, country(reader, "10.0.1.1"));
+    }
+
+    @Test
+    void skipsValuesItDoesNotRead() throws IOException {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("continent", Map.of("code", "EU", "geoname_id", 6_255_148L,
+                "names", Map.of("de", "Europa", "en", "Europe")));
+        record.put("location", Map.of("latitude", 52.5, "longitude", 13.4, "accuracy_radius", 100L));
+        record.put("subdivisions", List.of(Map.of("iso_code", "BE"), Map.of("iso_code", "BB")));
+        record.put("is_anonymous_proxy", true);
+        record.put("is_in_european_union", false);
+        record.put("autonomous_system_organization", "Example Networks");
+        record.put("note", "x".repeat(300));
+        record.put("autonomous_system_number", 3_320L);
+        record.put("country", Map.of("iso_code", "DE", "geoname_id", 2_921_044L));
+
+        for (MmdbWriter.Pointers pointers : MmdbWriter.Pointers.values()) {
+            MmdbWriter writer = new MmdbWriter("GeoLite2-City", 32, pointers);
+            writer.insertV4("10.0.0.0", 24, record);
+            writer.insertV4("10.0.1.0", 24, record);
+            MmdbReader reader = open(writer);
+
+            assertEquals(DE, country(reader, "10.0.1.1"), pointers.toString());
+            assertEquals(3_320, asn(reader, "10.0.1.1"), pointers.toString());
+        }
+    }
+
+    @Test
+    void readsMetadata() throws IOException {
+        MmdbWriter writer = new MmdbWriter("GeoLite2-ASN", 28, MmdbWriter.Pointers.NONE);
+        writer.insertV4("10.0.0.0", 8, MmdbWriter.record(null, 1));
+        Path file = directory.resolve("meta.mmdb");
+        writer.write(file, 1_700_000_000L);
+        MmdbReader reader = MmdbReader.open(file);
+
+        assertEquals("GeoLite2-ASN", reader.getDatabaseType());
+        assertEquals(1_700_000_000L, reader.getBuildEpoch());
+    }
+
+    @Test
+    void rejectsFilesWithoutMetadata() throws IOException {
+        Path file = directory.resolve("empty.mmdb");
+        Files.write(file, new byte[1024]);
+
+        IOException e = assertThrows(IOException.class, () -> MmdbReader.open(file));
+        assertTrue(e.getMessage().contains("metadata"), e.getMessage());
+    }
+
+    private MmdbReader open(MmdbWriter writer) throws IOException {
+        Path file = Files.createTempFile(directory, "test", ".mmdb");
+        writer.write(file, 0);
+        return MmdbReader.open(file);
+    }
+
+    private static int lookup(MmdbReader reader, String address) {
+        IpAddress ip = IpAddress.parse(address);
+        return reader.lookup(ip.getHigh(), ip.getLow());
+    }
+
+    private static int country(MmdbReader reader, String address) {
+        return reader.countryCode(lookup(reader, address));
+    }
+
+    private static long asn(MmdbReader reader, String address) {
+        return reader.asn(lookup(reader, address));
+    }
+}
@@ -0,0 +1,334 @@
+package com.ryxon.geo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Writes small MaxMind DB files for the tests and the benchmarks, so the reader
+ * and the geo filter can be exercised without a licensed database.
+ * <p>
+ * The tree is always IPv6 with IPv4 under {@code ::/96}. Records are maps of
+ * strings, numbers, booleans, doubles, lists and nested maps. With pointers on,
+ * every map key and nested map is written once and referenced afterwards, the
+ * way MaxMind's own databases are deduplicated.
+ * Run {@link #main} to generate a file to drop into {@code plugins/RyxoNET/geoip}.
+ */
+public final class MmdbWriter {
+
+    /** How repeated keys and nested maps are written. */
+    public enum Pointers {
+        /** Every value in place. */
+        NONE,
+        /** Pointers of the smallest size that reaches the value. */
+        SHORTEST,
+        /** Pointers with a plain 32-bit offset, whatever the distance. */
+        WIDE
+    }
+
+    private static final byte[] METADATA_MARKER = {(byte) 0xAB, (byte) 0xCD, (byte) 0xEF,
+            'M', 'a', 'x', 'M', 'i', 'n', 'd', '.', 'c', 'o', 'm'};
+
+    /** A tree node; each slot is {@code null}, a {@link Node} or an {@code Integer} data offset. */
+    private static final class Node {
+        final Object[] slots = new Object[2];
+        int id;
+    }
+
+    private final String databaseType;
+    private final int recordSize;
+    private final Pointers pointers;
+    private final Node root = new Node();
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    private final Map<Object, Integer> written = new HashMap<>();
+
+    /**
+     * @param recordSize 24, 28 or 32 bits per tree record
+     * @param pointers   whether repeated keys and nested maps are written as pointers
+     */
+    public MmdbWriter(String databaseType, int recordSize, Pointers pointers) {
+        if (recordSize != 24 && recordSize != 28 && recordSize != 32) {
+            throw new IllegalArgumentException("Unsupported record size " + recordSize);
+        }
+        this.databaseType = databaseType;
+        this.recordSize = recordSize;
+        this.pointers = pointers;
+    }
+
+    /**
+     * @return a GeoLite2-style record; {@code country} may be {@code null} and {@code asn} 0 to leave them out
+     */
+    public static Map<String, Object> record(String country, long asn) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        if (asn > 0) record.put("autonomous_system_number", asn);
+        if (country != null) record.put("country", Map.of("iso_code", country));
+        return record;
+    }
+
+    /**
+     * Maps an IPv4 network such as {@code "10.1.0.0"} to a record. A network inserted
+     * later overrides the part of an earlier one it covers.
+     */
+    public void insertV4(String network, int prefix, Map<String, Object> record) {
+        long address = 0;
+        for (String part : network.split("\\.")) address = address << 8 | Integer.parseInt(part);
+        insert(0, address, 96 + prefix, record);
+    }
+
+    /**
+     * Maps an IPv6 network, given as two longs, to a record.
+     */
+    public void insertV6(long high, long low, int prefix, Map<String, Object> record) {
+        insert(high, low, prefix, record);
+    }
+
+    private void insert(long high, long low, int prefix, Map<String, Object> record) {
+        int offset = data.size();
+        write(record, 0);
+        Node node = root;
+        for (int i = 0; i < prefix - 1; i++) {
+            int bit = bit(high, low, i);
+            Object slot = node.slots[bit];
+            if (slot instanceof Node) {
+                node = (Node) slot;
+                continue;
+            }
+            Node child = new Node();
+            // Split an existing leaf so the rest of it keeps its record
+            child.slots[0] = slot;
+            child.slots[1] = slot;
+            node.slots[bit] = child;
+            node = child;
+        }
+        node.slots[bit(high, low, prefix - 1)] = offset;
+    }
+
+    /**
+     * Leaves {@code bytes} of unused space in the data section, so values written
+     * afterwards sit at offsets that need larger pointers.
+     */
+    public void pad(int bytes) {
+        data.write(new byte[bytes], 0, bytes);
+    }
+
+    private static int bit(long high, long low, int i) {
+        return (int) ((i < 64 ? high >>> (63 - i) : low >>> (127 - i)) & 1);
+    }
+
+    public void write(Path file) throws IOException {
+        write(file, System.currentTimeMillis() / 1000);
+    }
+
+    public void write(Path file, long buildEpoch) throws IOException {
+        List<Node> nodes = new ArrayList<>();
+        number(root, nodes);
+        long nodeCount = nodes.size();
+        if (nodeCount + 16 + data.size() >= 1L << recordSize) throw new IOException("Database too large for " + recordSize + "-bit records");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Node node : nodes) {
+            long left = value(node.slots[0], nodeCount);
+            long right = value(node.slots[1], nodeCount);
+            switch (recordSize) {
+                case 24:
+                    writeUnsigned(out, left, 3);
+                    writeUnsigned(out, right, 3);
+                    break;
+                case 28:
+                    writeUnsigned(out, left & 0xFFFFFF, 3);
+                    out.write((int) ((left >>> 20) & 0xF0 | (right >>> 24) & 0x0F));
+                    writeUnsigned(out, right & 0xFFFFFF, 3);
+                    break;
+                default:
+                    writeUnsigned(out, left, 4);
+                    writeUnsigned(out, right, 4);
+                    break;
+            }
+        }
+        out.write(new byte[16]);
+        data.writeTo(out);
+
+        out.write(METADATA_MARKER);
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("binary_format_major_version", 2L);
+        metadata.put("binary_format_minor_version", 0L);
+        metadata.put("build_epoch", buildEpoch);
+        metadata.put("database_type", databaseType);
+        metadata.put("description", Map.of("en", "RyxoNET test database"));
+        metadata.put("ip_version", 6L);
+        metadata.put("languages", List.of("en"));
+        metadata.put("node_count", nodeCount);
+        metadata.put("record_size", (long) recordSize);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        encode(encoded, metadata, false);
+        encoded.writeTo(out);
+
+        Files.write(file, out.toByteArray());
+    }
+
+    private static void number(Node node, List<Node> nodes) {
+        node.id = nodes.size();
+        nodes.add(node);
+        for (Object slot : node.slots) {
+            if (slot instanceof Node) number((Node) slot, nodes);
+        }
+    }
+
+    private static long value(Object slot, long nodeCount) {
+        if (slot == null) return nodeCount;
+        if (slot instanceof Node) return ((Node) slot).id;
+        return nodeCount + 16 + (Integer) slot;
+    }
+
+    // ────────────────────────────────────────────────
+    // Data section
+    // ────────────────────────────────────────────────
+
+    /**
+     * Writes a value to the data section, or a pointer to where it was written before.
+     *
+     * @param depth 0 for a record itself, which is never replaced by a pointer
+     */
+    private void write(Object value, int depth) {
+        boolean shareable = pointers != Pointers.NONE && depth > 0 && (value instanceof String || value instanceof Map);
+        Integer previous = shareable ? written.get(value) : null;
+        if (previous != null) {
+            writePointer(data, previous, pointers == Pointers.WIDE);
+            return;
+        }
+        if (shareable) written.put(value, data.size());
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeControl(data, 7, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                write(entry.getKey(), depth + 1);
+                write(entry.getValue(), depth + 1);
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            writeControl(data, 11, list.size());
+            for (Object element : list) write(element, depth + 1);
+        } else {
+            encode(data, value, false);
+        }
+    }
+
+    /**
+     * Encodes a value inline, without pointers.
+     */
+    private static void encode(ByteArrayOutputStream out, Object value, boolean signed) {
+        if (value instanceof String) {
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            writeControl(out, 2, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        } else if (value instanceof Long || value instanceof Integer) {
+            long number = ((Number) value).longValue();
+            int type = signed ? 8 : number <= 0xFFFF ? 5 : number <= 0xFFFFFFFFL ? 6 : 9;
+            int length = (64 - Long.numberOfLeadingZeros(number) + 7) / 8;
+            writeControl(out, type, length);
+            writeUnsigned(out, number, length);
+        } else if (value instanceof Double) {
+            writeControl(out, 3, 8);
+            writeUnsigned(out, Double.doubleToLongBits((Double) value), 8);
+        } else if (value instanceof Boolean) {
+            writeControl(out, 14, (Boolean) value ? 1 : 0);
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeControl(out, 7, map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                encode(out, entry.getKey(), false);
+                encode(out, entry.getValue(), false);
+            }
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            writeControl(out, 11, list.size());
+            for (Object element : list) encode(out, element, false);
+        } else {
+            throw new IllegalArgumentException("Unsupported value " + value);
+        }
+    }
+
+    private static void writePointer(ByteArrayOutputStream out, int offset, boolean wide) {
+        if (wide) {
+            out.write(0x38);
+            writeUnsigned(out, offset, 4);
+        } else if (offset < 2048) {
+            out.write(0x20 | offset >>> 8);
+            out.write(offset);
+        } else if (offset < 2048 + (1 << 19)) {
+            int value = offset - 2048;
+            out.write(0x28 | value >>> 16);
+            writeUnsigned(out, value & 0xFFFF, 2);
+        } else if (offset < 526336 + (1 << 27)) {
+            int value = offset - 526336;
+            out.write(0x30 | value >>> 24);
+            writeUnsigned(out, value & 0xFFFFFF, 3);
+        } else {
+            out.write(0x38);
+            writeUnsigned(out, offset, 4);
+        }
+    }
+
+    private static void writeControl(ByteArrayOutputStream out, int type, int size) {
+        int inline = size < 29 ? size : size < 285 ? 29 : size < 65_821 ? 30 : 31;
+        out.write((type <= 7 ? type << 5 : 0) | inline);
+        if (type > 7) out.write(type - 7);
+        if (inline == 29) out.write(size - 29);
+        else if (inline == 30) writeUnsigned(out, size - 285, 2);
+        else if (inline == 31) writeUnsigned(out, size - 65_821, 3);
+    }
+
+    private static void writeUnsigned(ByteArrayOutputStream out, long value, int length) {
+        for (int i = length - 1; i >= 0; i--) out.write((int) (value >>> (i * 8)));
+    }
+
+    // ────────────────────────────────────────────────
+    // Generated databases
+    // ────────────────────────────────────────────────
+
+    /**
+     * Writes a database of random IPv4 /24 networks with random countries and AS numbers.
+     * Usage: {@code MmdbWriter <file> [networks] [seed]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: MmdbWriter <file> [networks] [seed]");
+            System.exit(2);
+        }
+        int networks = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        Path file = Paths.get(args[0]);
+        random(networks, seed, 24).write(file);
+        System.out.println("Wrote " + networks + " networks to " + file);
+    }
+
+    /**
+     * @return a writer holding {@code networks} random IPv4 /24 networks across 250 countries and 5000 ASNs
+     */
+    public static MmdbWriter random(int networks, long seed, int recordSize) {
+        SplittableRandom random = new SplittableRandom(seed);
+        MmdbWriter writer = new MmdbWriter("RyxoNET-Test", recordSize, Pointers.SHORTEST);
+        for (int i = 0; i < networks; i++) {
+            int country = random.nextInt(250);
+            int network = random.nextInt() & 0xFFFFFF00;
+            writer.insert(0, network & 0xFFFFFFFFL, 96 + 24, record(countryCode(country), 1 + random.nextInt(5000)));
+        }
+        return writer;
+    }
+
+    /**
+     * @return a two-letter code for {@code n}, in the order AA, AB, ...
+     */
+    public static String countryCode(int n) {
+        return new String(new char[]{(char) ('A' + n / 26 % 26), (char) ('A' + n % 26)});
+    }
+}
@@ -0,0 +1,97 @@
+package com.ryxon.logging;
+
+import com.ryxon.check.CheckType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionLoggerTest {
+
+    private final List<LogRecord> records = new ArrayList<>();
+
+    @Test
+    void writesLinesUpToTheCap() {
+        ConnectionLogger connectionLogger = connectionLogger(3);
+
+        connectionLogger.log(Level.WARNING, "first");
+        connectionLogger.blocked("203.0.113.7", "Player", CheckType.HOSTNAME);
+        connectionLogger.allowed("203.0.113.8", "Other");
+        connectionLogger.close();
+
+        assertEquals(List.of("first", "[RyxoNET] Blocked Player (203.0.113.7) - Failed: HOSTNAME",
+                "[RyxoNET] Allowed Other (203.0.113.8)"), messages());
+    }
+
+    @Test
+    void reportsMessagesBeyondTheCap() {
+        ConnectionLogger connectionLogger = connectionLogger(2);
+
+        connectionLogger.log(Level.INFO, "first");
+        connectionLogger.log(Level.INFO, "second");
+        connectionLogger.log(Level.INFO, "third");
+        connectionLogger.log(Level.WARNING, "fourth");
+        connectionLogger.close();
+
+        List<String> messages = messages();
+        assertEquals(3, messages.size(), messages.toString());
+        assertEquals("first", messages.get(0));
+        assertEquals("second", messages.get(1));
+        assertTrue(messages.get(2).startsWith("[RyxoNET] Suppressed 2 more log messages"), messages.get(2));
+        assertEquals(Level.WARNING, records.get(2).getLevel(), "reported at the level of the worst one suppressed");
+    }
+
+    @Test
+    void summarisesJoinsCrowdedOutByMessages() {
+        ConnectionLogger connectionLogger = connectionLogger(2);
+
+        connectionLogger.log(Level.INFO, "first");
+        connectionLogger.log(Level.INFO, "second");
+        connectionLogger.blocked("203.0.113.7", "Player", CheckType.HOSTNAME);
+        connectionLogger.close();
+
+        List<String> messages = messages();
+        assertEquals(3, messages.size(), messages.toString());
+        assertTrue(messages.get(2).startsWith("[RyxoNET] Blocked 1 joins from 1 IPs"), messages.get(2));
+    }
+
+    private ConnectionLogger connectionLogger(int maxLines) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                synchronized (records) {
+                    records.add(record);
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        ConnectionLogger connectionLogger = new ConnectionLogger(logger, 64);
+        // Long enough that the only summary is the one written on close
+        connectionLogger.configure(Level.INFO, maxLines, 3600);
+        return connectionLogger;
+    }
+
+    private List<String> messages() {
+        synchronized (records) {
+            List<String> messages = new ArrayList<>();
+            for (LogRecord record : records) messages.add(record.getMessage());
+            return messages;
+        }
+    }
+}
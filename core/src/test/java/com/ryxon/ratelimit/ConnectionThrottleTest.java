@@ -0,0 +1,81 @@
+package com.ryxon.ratelimit;
+
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.config.ThrottleSettings;
+import com.ryxon.util.IpAddress;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Limits low enough that no token refills while a test runs.
+ */
+class ConnectionThrottleTest {
+
+    @Test
+    void floodFromOneSubnetTripsTheSubnetLimit() {
+        ConnectionThrottle throttle = throttle(0.01, 2, 0.01, 10, 1000);
+
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(ConnectionThrottle.Result.ALLOWED, throttle.tryAcquire(address("203.0.113." + i)));
+        }
+        assertEquals(ConnectionThrottle.Result.SUBNET, throttle.tryAcquire(address("203.0.113.11")));
+        assertEquals(ConnectionThrottle.Result.SUBNET, throttle.tryAcquire(address("203.0.113.200")));
+        assertEquals(ConnectionThrottle.Result.ALLOWED, throttle.tryAcquire(address("203.0.114.1")));
+    }
+
+    @Test
+    void oneAddressTripsItsOwnLimitFirst() {
+        ConnectionThrottle throttle = throttle(0.01, 2, 0.01, 10, 1000);
+
+        assertEquals(ConnectionThrottle.Result.ALLOWED, throttle.tryAcquire(address("198.51.100.7")));
+        assertEquals(ConnectionThrottle.Result.ALLOWED, throttle.tryAcquire(address("198.51.100.7")));
+        for (int i = 0; i < 20; i++) {
+            assertEquals(ConnectionThrottle.Result.ADDRESS, throttle.tryAcquire(address("198.51.100.7")));
+        }
+        // Refused attempts never reached the subnet's bucket
+        for (int i = 1; i <= 8; i++) {
+            assertEquals(ConnectionThrottle.Result.ALLOWED, throttle.tryAcquire(address("198.51.100." + (10 + i))));
+        }
+        assertEquals(ConnectionThrottle.Result.SUBNET, throttle.tryAcquire(address("198.51.100.99")));
+    }
+
+    @Test
+    void groupsIPv6By48() {
+        ConnectionThrottle throttle = throttle(0.01, 5, 0.01, 3, 1000);
+
+        assertEquals(ConnectionThrottle.Result.ALLOWED, throttle.tryAcquire(address("2001:db8:1:1::1")));
+        assertEquals(ConnectionThrottle.Result.ALLOWED, throttle.tryAcquire(address("2001:db8:1:2::1")));
+        assertEquals(ConnectionThrottle.Result.ALLOWED, throttle.tryAcquire(address("2001:db8:1:ffff::1")));
+        assertEquals(ConnectionThrottle.Result.SUBNET, throttle.tryAcquire(address("2001:db8:1::5")));
+        assertEquals(ConnectionThrottle.Result.ALLOWED, throttle.tryAcquire(address("2001:db8:2::1")));
+    }
+
+    @Test
+    void capsConnectionsAcrossAllAddresses() {
+        ConnectionThrottle throttle = throttle(0.01, 2, 0.01, 2, 0.01);
+
+        assertEquals(ConnectionThrottle.Result.ALLOWED, throttle.tryAcquire(address("203.0.113.1")));
+        assertEquals(ConnectionThrottle.Result.GLOBAL, throttle.tryAcquire(address("198.51.100.1")));
+
+        throttle.clear();
+        assertEquals(ConnectionThrottle.Result.ALLOWED, throttle.tryAcquire(address("198.51.100.1")));
+    }
+
+    private static ConnectionThrottle throttle(double addressPerSecond, int addressBurst, double subnetPerSecond,
+                                               int subnetBurst, double globalPerSecond) {
+        SecurityPolicy policy = SecurityPolicy.builder()
+                .throttle(new ThrottleSettings(true, addressPerSecond, addressBurst, subnetPerSecond, subnetBurst,
+                        24, 48, globalPerSecond, 65536, false, "§cSlow down"))
+                .build(warning -> {
+                    throw new AssertionError(warning);
+                });
+        ConnectionThrottle throttle = new ConnectionThrottle();
+        throttle.configure(policy);
+        return throttle;
+    }
+
+    private static IpAddress address(String ip) {
+        return IpAddress.parse(ip);
+    }
+}
@@ -0,0 +1,113 @@
+package com.ryxon.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTableTest {
+
+    /** One token a millisecond, bursts of three. */
+    private static final long INTERVAL = 1_000;
+    private static final long TOLERANCE = 2 * INTERVAL;
+    private static final long START = 5_000_000;
+    private static final long WRAP = 1L << 44;
+
+    private final RateLimiterTable table = new RateLimiterTable(1024);
+
+    @Test
+    void roundsTheSizeUpToWholeSets() {
+        assertEquals(4, new RateLimiterTable(1).size());
+        assertEquals(8, new RateLimiterTable(5).size());
+        assertEquals(1024, table.size());
+    }
+
+    @Test
+    void allowsABurstThenRefills() {
+        long key = key(1, 7);
+        assertEquals(3, drain(key, START));
+
+        assertFalse(acquire(key, START + INTERVAL - 1));
+        assertTrue(acquire(key, START + INTERVAL));
+        assertFalse(acquire(key, START + INTERVAL));
+        // Idle for a while: the bucket is full again, but holds no more than a burst
+        assertEquals(3, drain(key, START + 60_000));
+    }
+
+    @Test
+    void keepsKeysApart() {
+        assertEquals(3, drain(key(1, 7), START));
+        assertEquals(3, drain(key(2, 7), START), "same set, different fingerprint");
+        assertEquals(3, drain(key(1, 8), START), "different set");
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1, 3, 1_000})
+    void treatsAnEntryIdleForAWholeWrapAsEmpty(long laps) {
+        long key = key(1, 7);
+        assertEquals(3, drain(key, START));
+
+        // The stored time has wrapped around and looks like the past
+        assertEquals(3, drain(key, START + laps * WRAP + 1_000_000));
+        // ... or like the far future, beyond what a live entry can be ahead
+        assertEquals(3, drain(key, START + (laps + 1) * WRAP - 1_000_000));
+    }
+
+    @Test
+    void doesNotMistakeFingerprintZeroForAnEmptyEntry() {
+        long zero = key(0, 7);
+        assertEquals(3, drain(zero, START));
+        assertFalse(acquire(zero, START + 1));
+        // Shares the fingerprint it is mapped to, which errs on the strict side
+        assertFalse(acquire(key(1, 7), START + 1));
+    }
+
+    @Test
+    void evictsTheEntryThatRefilledTheMost() {
+        RateLimiterTable set = new RateLimiterTable(4);
+        long limited = key(1, 0);
+        assertEquals(3, drain(set, limited, START));
+
+        // Far more newcomers than ways, each leaving less debt than the limited key
+        for (int i = 2; i < 100; i++) assertTrue(set.tryAcquire(key(i, 0), INTERVAL, TOLERANCE, START));
+
+        assertFalse(set.tryAcquire(limited, INTERVAL, TOLERANCE, START), "the limited key was evicted");
+    }
+
+    @Test
+    void forgetsEverythingOnClear() {
+        long key = key(1, 7);
+        assertEquals(3, drain(key, START));
+
+        table.clear();
+
+        assertEquals(3, drain(key, START));
+    }
+
+    /**
+     * @return a hash with the given fingerprint (top 20 bits) and set index (low bits)
+     */
+    private static long key(long fingerprint, int set) {
+        return fingerprint << 44 | set;
+    }
+
+    private boolean acquire(long key, long now) {
+        return table.tryAcquire(key, INTERVAL, TOLERANCE, now);
+    }
+
+    private int drain(long key, long now) {
+        return drain(table, key, now);
+    }
+
+    /**
+     * @return how many tokens were taken before the bucket ran dry
+     */
+    private static int drain(RateLimiterTable table, long key, long now) {
+        int taken = 0;
+        while (taken < 100 && table.tryAcquire(key, INTERVAL, TOLERANCE, now)) taken++;
+        return taken;
+    }
+}
@@ -0,0 +1,194 @@
+package com.ryxon.shared;
+
+import com.ryxon.attack.AttackMode;
+import com.ryxon.ban.TempBanManager;
+import com.ryxon.cache.VerdictCache;
+import com.ryxon.check.CheckType;
+import com.ryxon.config.AttackModeSettings;
+import com.ryxon.config.HostnameSettings;
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.config.SharedStateSettings;
+import com.ryxon.config.TempBanSettings;
+import com.ryxon.util.IpAddress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Two nodes of one cluster sharing state through {@link LocalSharedState}, each
+ * with its own ban table, verdict cache and attack mode.
+ */
+class SharedStateSyncTest {
+
+    private static final int HOSTNAME_PASSED = 3 << (CheckType.HOSTNAME.ordinal() << 1);
+    private static final long STAMP = 1L << 32;
+
+    /** The in-process hub is static, so every test gets a cluster of its own. */
+    private final String cluster = "test-" + UUID.randomUUID();
+    private final List<AutoCloseable> closing = new ArrayList<>();
+
+    @AfterEach
+    void close() throws Exception {
+        for (AutoCloseable resource : closing) resource.close();
+    }
+
+    @Test
+    void sharesBans() {
+        Node a = node("node-a", "*.isp.example.net");
+        Node b = node("node-b", "*.isp.example.net");
+        IpAddress address = IpAddress.parse("203.0.113.7");
+        long until = System.currentTimeMillis() + 60_000;
+
+        a.sync.banned(address, until, 3);
+
+        await(() -> b.tempBans.bannedUntil(address) != 0, "ban reaches node-b");
+        assertEquals(until, b.tempBans.bannedUntil(address));
+        assertEquals(3, b.tempBans.getBanCount(address));
+    }
+
+    @Test
+    void sharesUnbansAndClears() {
+        Node a = node("node-a", "*.isp.example.net");
+        Node b = node("node-b", "*.isp.example.net");
+        IpAddress first = IpAddress.parse("203.0.113.7");
+        IpAddress second = IpAddress.parse("198.51.100.20");
+        IpAddress third = IpAddress.parse("2001:db8::1");
+        long until = System.currentTimeMillis() + 60_000;
+
+        a.sync.banned(first, until, 1);
+        a.sync.banned(second, until, 1);
+        a.sync.banned(third, until, 1);
+        await(() -> b.tempBans.bannedUntil(third) != 0, "bans reach node-b");
+
+        a.sync.unbanned(IpAddress.parse("203.0.113.0"), 24);
+        await(() -> b.tempBans.bannedUntil(first) == 0, "unban reaches node-b");
+        assertTrue(b.tempBans.bannedUntil(second) != 0);
+        assertTrue(b.tempBans.bannedUntil(third) != 0);
+
+        a.sync.cleared();
+        await(() -> b.tempBans.bannedUntil(second) == 0 && b.tempBans.bannedUntil(third) == 0, "clear reaches node-b");
+    }
+
+    @Test
+    void doesNotEcho() throws InterruptedException {
+        Node a = node("node-a", "*.isp.example.net");
+        Node b = node("node-b", "*.isp.example.net");
+
+        a.sync.banned(IpAddress.parse("203.0.113.7"), System.currentTimeMillis() + 60_000, 1);
+        await(() -> b.sync.getReceived() == 1, "ban reaches node-b");
+        // Give an echo several flush intervals to come back
+        Thread.sleep(200);
+
+        assertEquals(1, a.sync.getPublished());
+        assertEquals(0, a.sync.getReceived());
+        assertEquals(0, b.sync.getPublished());
+        assertEquals(0, a.sync.getDropped());
+    }
+
+    @Test
+    void sharesVerdictsBetweenMatchingPolicies() {
+        Node a = node("node-a", "*.isp.example.net");
+        Node b = node("node-b", "*.isp.example.net");
+        IpAddress address = IpAddress.parse("203.0.113.7");
+        int blocklisted = 1 << (CheckType.BLOCKLIST.ordinal() << 1);
+
+        a.sync.learned(address, HOSTNAME_PASSED | blocklisted, 60_000);
+
+        await(() -> b.verdictCache.get(STAMP, address, System.nanoTime()) != VerdictCache.MISS, "verdict reaches node-b");
+        assertEquals(HOSTNAME_PASSED, b.verdictCache.get(STAMP, address, System.nanoTime()),
+                "only the reverse DNS outcome is shared");
+    }
+
+    @Test
+    void dropsVerdictsOfOtherPolicies() {
+        Node a = node("node-a", "*.isp.example.net");
+        Node b = node("node-b", "*.other.example.org");
+        IpAddress address = IpAddress.parse("203.0.113.7");
+        IpAddress marker = IpAddress.parse("198.51.100.20");
+
+        a.sync.learned(address, HOSTNAME_PASSED, 60_000);
+        // Published after the verdict, so once it arrived the verdict was handled too
+        a.sync.banned(marker, System.currentTimeMillis() + 60_000, 1);
+
+        await(() -> b.tempBans.bannedUntil(marker) != 0, "ban reaches node-b");
+        assertEquals(VerdictCache.MISS, b.verdictCache.get(STAMP, address, System.nanoTime()));
+    }
+
+    @Test
+    void attackLeaseExpires() throws Exception {
+        Node b = node("node-b", "*.isp.example.net");
+        LocalSharedState attacked = new LocalSharedState(cluster, "node-a");
+        closing.add(attacked);
+        attacked.start(updates -> { });
+
+        attacked.publish(List.of(SharedUpdate.attack(System.currentTimeMillis() + 300)));
+
+        await(b.attackMode::isHeld, "lease reaches node-b");
+        assertTrue(b.attackMode.isActive());
+        assertFalse(b.attackMode.isActiveHere());
+        await(() -> !b.attackMode.isHeld(), "lease expires");
+        assertFalse(b.attackMode.isActive());
+    }
+
+    private Node node(String id, String allowedHostnames) {
+        SecurityPolicy policy = SecurityPolicy.builder()
+                .allowedHostnames(List.of(allowedHostnames))
+                .hostname(new HostnameSettings(true, true, false, "", "§cHostname"))
+                .tempBans(new TempBanSettings(true, 5, 600, 60, 86400, 86400, 32, 64, "§cBanned for %time%"))
+                .attackMode(new AttackModeSettings(true, 10, 1_000_000, 500_000, 60, 300, 86400, 1024, "§eBusy"))
+                .sharedState(new SharedStateSettings("local", cluster, id, true, true, true,
+                        "127.0.0.1", 6379, "", 0, 2000, 10, 256, 1024))
+                .build(warning -> {
+                    throw new AssertionError(warning);
+                });
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+
+        Node node = new Node(logger);
+        node.tempBans.configure(policy);
+        node.attackMode.configure(policy);
+        // Merged verdicts are stored under the stamp the cache last saw
+        node.verdictCache.get(STAMP, IpAddress.parse("192.0.2.1"), System.nanoTime());
+        node.sync.configure(policy);
+        assertTrue(node.sync.isEnabled());
+        closing.add(node.sync);
+        return node;
+    }
+
+    private static void await(BooleanSupplier condition, String what) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) fail("Timed out waiting until " + what);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted waiting until " + what);
+            }
+        }
+    }
+
+    private static final class Node {
+
+        final TempBanManager tempBans = new TempBanManager();
+        final VerdictCache verdictCache = new VerdictCache(1024);
+        final AttackMode attackMode;
+        final SharedStateSync sync;
+
+        Node(Logger logger) {
+            attackMode = new AttackMode(logger);
+            sync = new SharedStateSync(logger, tempBans, verdictCache, attackMode);
+        }
+    }
+}
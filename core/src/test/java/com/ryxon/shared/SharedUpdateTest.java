@@ -0,0 +1,125 @@
+package com.ryxon.shared;
+
+import com.ryxon.util.IpAddress;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedUpdateTest {
+
+    @Test
+    void roundTripsBans() {
+        SharedUpdate decoded = roundTrip(SharedUpdate.ban(IpAddress.parse("203.0.113.7"), 1_718_000_000_000L, 2));
+
+        assertEquals(SharedUpdate.Type.BAN, decoded.getType());
+        assertEquals(IpAddress.parse("203.0.113.7"), decoded.getAddress());
+        assertEquals(1_718_000_000_000L, decoded.getUntil());
+        assertEquals(2, decoded.getValue());
+    }
+
+    @Test
+    void roundTripsUnbans() {
+        SharedUpdate decoded = roundTrip(SharedUpdate.unban(IpAddress.parse("2001:db8::"), 48));
+
+        assertEquals(SharedUpdate.Type.UNBAN, decoded.getType());
+        assertEquals(IpAddress.parse("2001:db8::"), decoded.getAddress());
+        assertEquals(48, decoded.getValue());
+    }
+
+    @Test
+    void roundTripsClears() {
+        SharedUpdate decoded = roundTrip(SharedUpdate.clear());
+
+        assertEquals(SharedUpdate.Type.CLEAR, decoded.getType());
+        assertNull(decoded.getAddress());
+    }
+
+    @Test
+    void roundTripsVerdicts() {
+        SharedUpdate decoded = roundTrip(SharedUpdate.verdict(IpAddress.parse("192.0.2.10"), 12, -192_837_465,
+                1_718_000_030_000L));
+
+        assertEquals(SharedUpdate.Type.VERDICT, decoded.getType());
+        assertEquals(IpAddress.parse("192.0.2.10"), decoded.getAddress());
+        assertEquals(12, decoded.getValue());
+        assertEquals(-192_837_465, decoded.getFingerprint());
+        assertEquals(1_718_000_030_000L, decoded.getUntil());
+    }
+
+    @Test
+    void roundTripsAttackLeases() {
+        SharedUpdate decoded = roundTrip(SharedUpdate.attack(1_718_000_010_000L));
+
+        assertEquals(SharedUpdate.Type.ATTACK, decoded.getType());
+        assertNull(decoded.getAddress());
+        assertEquals(1_718_000_010_000L, decoded.getUntil());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", " ", "X", "BB 203.0.113.7 1 2", "Z 203.0.113.7",
+            "B 203.0.113.7 1718000000000", "B 203.0.113.7 soon 2", "B 203.0.113.300 1 2", "B 203.0.113.7 1 2 3",
+            "U 198.51.100.0", "U 198.51.100.0 33", "U 2001:db8:: 129", "U 198.51.100.0 -1", "U host 24",
+            "C now",
+            "V 192.0.2.10 12 1", "V 192.0.2.10 twelve 1 2", "V 192.0.2.10 12 99999999999 2",
+            "A", "A later", "A 1 2"})
+    void rejectsMalformedLines(String line) {
+        assertNull(SharedUpdate.decode(line));
+    }
+
+    @Test
+    void roundTripsBatches() {
+        List<SharedUpdate> batch = List.of(
+                SharedUpdate.ban(IpAddress.parse("203.0.113.7"), 1_718_000_000_000L, 2),
+                SharedUpdate.unban(IpAddress.parse("198.51.100.0"), 24),
+                SharedUpdate.clear(),
+                SharedUpdate.verdict(IpAddress.parse("192.0.2.10"), 12, 7, 1_718_000_030_000L),
+                SharedUpdate.attack(1_718_000_010_000L));
+
+        String message = SharedUpdate.encode("node-1", batch);
+        List<SharedUpdate> decoded = SharedUpdate.decode(message, "node-2");
+
+        assertTrue(message.startsWith("node-1\n"));
+        assertEquals(batch.size(), decoded.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(batch.get(i).encode(), decoded.get(i).encode());
+        }
+    }
+
+    @Test
+    void ignoresItsOwnBatches() {
+        String message = SharedUpdate.encode("node-1", List.of(SharedUpdate.clear()));
+
+        assertTrue(SharedUpdate.decode(message, "node-1").isEmpty());
+    }
+
+    @Test
+    void skipsMalformedLinesInBatches() {
+        String message = "node-1\nB 203.0.113.7 1718000000000 2\nB 203.0.113.7\n\nQ\nA 1718000010000";
+
+        List<SharedUpdate> decoded = SharedUpdate.decode(message, "node-2");
+
+        assertEquals(2, decoded.size());
+        assertEquals(SharedUpdate.Type.BAN, decoded.get(0).getType());
+        assertEquals(SharedUpdate.Type.ATTACK, decoded.get(1).getType());
+    }
+
+    @Test
+    void decodesEmptyBatches() {
+        assertTrue(SharedUpdate.decode("node-1", "node-2").isEmpty());
+        assertTrue(SharedUpdate.decode(SharedUpdate.encode("", List.of()), "node-2").isEmpty());
+    }
+
+    private static SharedUpdate roundTrip(SharedUpdate update) {
+        String line = update.encode();
+        SharedUpdate decoded = SharedUpdate.decode(line);
+        assertEquals(line, decoded.encode());
+        return decoded;
+    }
+}
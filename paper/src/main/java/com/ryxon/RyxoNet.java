@@ -0,0 +1,89 @@
+package com.ryxon;
+
+import com.ryxon.command.RyxoNetCommand;
+import com.ryxon.config.ConfigManager;
+import com.ryxon.engine.RyxoNetServices;
+import com.ryxon.listener.HandshakeListener;
+import com.ryxon.listener.PingListener;
+import com.ryxon.listener.PreLoginListener;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.concurrent.CompletableFuture;
+
+public final class RyxoNet extends JavaPlugin {
+
+    private ConfigManager configManager;
+    private RyxoNetServices services;
+
+    @Override
+    public void onEnable() {
+        saveDefaultConfig();
+
+        this.configManager = new ConfigManager(this);
+        this.configManager.load();
+        this.services = new RyxoNetServices(getLogger(), getDataFolder().toPath(), (task, delayMillis, periodMillis) -> {
+            BukkitTask scheduled = getServer().getScheduler().runTaskTimerAsynchronously(this, task,
+                    Math.max(1, delayMillis / 50), Math.max(1, periodMillis / 50));
+            return scheduled::cancel;
+        }, configManager.getPolicy());
+
+        getServer().getPluginManager().registerEvents(new HandshakeListener(configManager, services.getThrottle(),
+                services.getConnectionLogger(), services.getMetrics()), this);
+        getServer().getPluginManager().registerEvents(new PreLoginListener(configManager, services.getEngine()), this);
+        getServer().getPluginManager().registerEvents(new PingListener(services.getAttackMode()), this);
+
+        var cmd = getCommand("ryxonet");
+        if (cmd != null) {
+            RyxoNetCommand commandHandler = new RyxoNetCommand(this);
+            cmd.setExecutor(commandHandler);
+            cmd.setTabCompleter(commandHandler);
+        } else {
+            getLogger().severe("Command 'ryxonet' not found in plugin.yml");
+        }
+
+        getLogger().info("[RyxoNET] v" + getDescription().getVersion() + " enabled");
+        getLogger().info("[RyxoNET] Security mode: " + configManager.getPolicy().getSecurityMode());
+    }
+
+    @Override
+    public void onDisable() {
+        if (services != null) {
+            services.close();
+        }
+        if (configManager != null) {
+            configManager.close();
+        }
+        getLogger().info("[RyxoNET] disabled");
+    }
+
+    public ConfigManager getConfigManager() {
+        return configManager;
+    }
+
+    public RyxoNetServices getServices() {
+        return services;
+    }
+
+    /**
+     * Re-reads config.yml and compiles the new policy on an async thread.
+     * Logins keep using the previous snapshot until the new one is swapped in.
+     *
+     * @return a future completed once the new configuration is active
+     */
+    public CompletableFuture<Void> reloadPlugin() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        getServer().getScheduler().runTaskAsynchronously(this, () -> {
+            try {
+                configManager.load();
+                services.configure(configManager.getPolicy());
+                getLogger().info("[RyxoNET] Configuration reloaded");
+                done.complete(null);
+            } catch (Throwable t) {
+                getLogger().severe("[RyxoNET] Reload failed: " + t.getMessage());
+                done.completeExceptionally(t);
+            }
+        });
+        return done;
+    }
+}
@@ -0,0 +1,501 @@
+package com.ryxon.command;
+
+import com.ryxon.RyxoNet;
+import com.ryxon.audit.AuditJournal;
+import com.ryxon.audit.AuditRecord;
+import com.ryxon.ban.TempBanManager;
+import com.ryxon.cache.VerdictCache;
+import com.ryxon.check.CheckType;
+import com.ryxon.config.ConfigManager;
+import com.ryxon.config.MutationResult;
+import com.ryxon.geo.GeoRules;
+import com.ryxon.metrics.LatencyHistogram;
+import com.ryxon.metrics.Metrics;
+import com.ryxon.shared.SharedStateSync;
+import com.ryxon.util.IpAddress;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+import org.bukkit.util.StringUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handles /ryxonet commands with tab completion.
+ */
+public class RyxoNetCommand implements CommandExecutor, TabCompleter {
+
+    private static final List<String> SUBCOMMANDS = Arrays.asList("reload", "status", "stats", "addhost", "removehost", "listhosts",
+            "addip", "removeip", "import", "bans", "unban", "audit", "help");
+    private static final List<String> IMPORT_KINDS = Arrays.asList("ips", "hosts");
+    private static final int MAX_LISTED = 5;
+    private static final int BANS_PER_PAGE = 10;
+    private static final int AUDIT_RESULTS = 15;
+    private static final DateTimeFormatter AUDIT_TIME = DateTimeFormatter.ofPattern("MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final RyxoNet plugin;
+
+    public RyxoNetCommand(RyxoNet plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command, @NotNull String label, @NotNull String[] args) {
+        if (args.length == 0) {
+            sendHelp(sender);
+            return true;
+        }
+
+        if (!sender.hasPermission("ryxonet.admin")) {
+            sender.sendMessage("§cNo permission.");
+            return true;
+        }
+
+        String sub = args[0].toLowerCase();
+
+        switch (sub) {
+            case "reload":
+                sender.sendMessage("§7Reloading RyxoNET...");
+                plugin.reloadPlugin().whenComplete((ignored, error) -> sender.sendMessage(error == null
+                        ? "§aRyxoNET reloaded."
+                        : "§cReload failed, previous configuration is still active. See console."));
+                break;
+            case "status":
+                sendStatus(sender);
+                break;
+            case "stats":
+                sendStats(sender);
+                break;
+            case "addhost":
+                if (args.length < 2) {
+                    sender.sendMessage("§cUsage: /ryxonet addhost <hostname...>");
+                    break;
+                }
+                report(sender, plugin.getConfigManager().addHostnames(arguments(args)),
+                        "Added hostname", "Hostname already added", "Invalid hostname");
+                break;
+            case "removehost":
+                if (args.length < 2) {
+                    sender.sendMessage("§cUsage: /ryxonet removehost <hostname...>");
+                    break;
+                }
+                report(sender, plugin.getConfigManager().removeHostnames(arguments(args)),
+                        "Removed hostname", "Hostname not found", "Invalid hostname");
+                break;
+            case "addip":
+                if (args.length < 2) {
+                    sender.sendMessage("§cUsage: /ryxonet addip <ip|cidr...>");
+                    break;
+                }
+                report(sender, plugin.getConfigManager().addWhitelistEntries(arguments(args)),
+                        "Whitelisted", "Already whitelisted", "Invalid address or range");
+                break;
+            case "removeip":
+                if (args.length < 2) {
+                    sender.sendMessage("§cUsage: /ryxonet removeip <ip|cidr...>");
+                    break;
+                }
+                report(sender, plugin.getConfigManager().removeWhitelistEntries(arguments(args)),
+                        "Removed from whitelist", "Not on the whitelist", "Invalid address or range");
+                break;
+            case "import":
+                if (args.length < 3) {
+                    sender.sendMessage("§cUsage: /ryxonet import <ips|hosts> <file>");
+                    break;
+                }
+                importEntries(sender, args[1], args[2]);
+                break;
+            case "listhosts":
+                listHostnames(sender);
+                break;
+            case "bans":
+                listBans(sender, args.length > 1 ? args[1] : "1");
+                break;
+            case "audit":
+                if (args.length < 2) {
+                    sender.sendMessage("§cUsage: /ryxonet audit <ip|name> [since, e.g. 30m, 12h, 7d]");
+                    break;
+                }
+                audit(sender, args[1], args.length > 2 ? args[2] : "24h");
+                break;
+            case "unban":
+                if (args.length < 2) {
+                    sender.sendMessage("§cUsage: /ryxonet unban <ip|cidr...|all>");
+                    break;
+                }
+                unban(sender, arguments(args));
+                break;
+            case "help":
+            default:
+                sendHelp(sender);
+                break;
+        }
+        return true;
+    }
+
+    private static List<String> arguments(String[] args) {
+        return Arrays.asList(args).subList(1, args.length);
+    }
+
+    private void sendHelp(CommandSender sender) {
+        sender.sendMessage("§6RyxoNET Commands:");
+        sender.sendMessage("§7/ryxonet reload §8- Reload config");
+        sender.sendMessage("§7/ryxonet status §8- View security status");
+        sender.sendMessage("§7/ryxonet stats §8- View join counters and check latencies");
+        sender.sendMessage("§7/ryxonet addhost <host...> §8- Add allowed hostnames");
+        sender.sendMessage("§7/ryxonet removehost <host...> §8- Remove allowed hostnames");
+        sender.sendMessage("§7/ryxonet listhosts §8- List allowed hostnames");
+        sender.sendMessage("§7/ryxonet addip <ip|cidr...> §8- Add whitelist entries");
+        sender.sendMessage("§7/ryxonet removeip <ip|cidr...> §8- Remove whitelist entries");
+        sender.sendMessage("§7/ryxonet import <ips|hosts> <file> §8- Bulk add entries from a file in plugins/RyxoNET");
+        sender.sendMessage("§7/ryxonet bans [page] §8- List temporary bans");
+        sender.sendMessage("§7/ryxonet unban <ip|cidr...|all> §8- Lift temporary bans");
+        sender.sendMessage("§7/ryxonet audit <ip|name> [since] §8- Search the join decision journal");
+        sender.sendMessage("§7/ryxonet help §8- This message");
+    }
+
+    private void sendStatus(CommandSender sender) {
+        var cfg = plugin.getConfigManager().getPolicy();
+        sender.sendMessage("§6RyxoNET Status:");
+        sender.sendMessage("§7Mode: §f" + cfg.getSecurityMode());
+        sender.sendMessage("§7Rule: §f" + cfg.getEvaluationPlan());
+        sender.sendMessage("§7Hostname Protection: §f" + (cfg.getHostname().enabled() ? "Enabled (" + cfg.getAllowedHostnames().size() + " hosts)" : "Disabled"));
+        sender.sendMessage("§7Whitelist: §f" + (cfg.isWhitelistEnabled() ? "Enabled (" + cfg.getWhitelistedIps().size() + " IPs)" : "Disabled"));
+        sender.sendMessage("§7Proxy Protection: §f" + (cfg.getProxy().enabled() ? "Enabled" : "Disabled"));
+        sender.sendMessage("§7Circuit Breakers: §f" + (cfg.getGuards().enabled() ? breakerStatus() : "Disabled"));
+        var blocklists = plugin.getServices().getBlocklists();
+        sender.sendMessage("§7Blocklists: §f" + (cfg.getBlocklists().enabled() ? "Enabled (" + blocklists.getLists().size()
+                + " files, " + blocklists.rangeCount() + " ranges)" : "Disabled"));
+        sender.sendMessage("§7Geo Filter: §f" + (cfg.getGeo().enabled() ? geoStatus(cfg.getGeo().rules()) : "Disabled"));
+        sender.sendMessage("§7Connection Throttle: §f" + (cfg.getThrottle().enabled()
+                ? String.format("Enabled (%s/s per address, %s/s per subnet, %s/s total)",
+                        rate(cfg.getThrottle().addressPerSecond()), rate(cfg.getThrottle().subnetPerSecond()),
+                        rate(cfg.getThrottle().globalPerSecond()))
+                : "Disabled"));
+        var attackMode = plugin.getServices().getAttackMode();
+        String attack;
+        if (!cfg.getAttackMode().enabled()) {
+            attack = "Disabled";
+        } else if (attackMode.isActiveHere()) {
+            attack = String.format("§cACTIVE §ffor %ds (%.1f joins/s)", attackMode.getActiveSeconds(), attackMode.getJoinRate());
+        } else if (attackMode.isHeld()) {
+            attack = String.format("§cACTIVE §fon another node (%.1f joins/s here)", attackMode.getJoinRate());
+        } else {
+            attack = String.format("Standby (%.1f joins/s, triggers at %s/s, %d activations)", attackMode.getJoinRate(),
+                    rate(cfg.getAttackMode().enterJoinsPerSecond()), attackMode.getActivations());
+        }
+        sender.sendMessage("§7Attack Mode: §f" + attack);
+        var tempBans = plugin.getServices().getTempBans();
+        sender.sendMessage("§7Temporary Bans: §f" + (cfg.getTempBans().enabled() ? "Enabled (" + tempBans.getActiveBanCount()
+                + " active, " + tempBans.getTrackedCount() + " tracked)" : "Disabled"));
+        var sharedState = plugin.getServices().getSharedState();
+        sender.sendMessage("§7Shared State: §f" + (sharedState.isEnabled() ? String.format("%s (%d sent, %d received, %d dropped)",
+                sharedState.describe(), sharedState.getPublished(), sharedState.getReceived(), sharedState.getDropped()) : "Disabled"));
+    }
+
+    private String breakerStatus() {
+        var guards = plugin.getServices().getGuards();
+        StringBuilder status = new StringBuilder();
+        for (CheckType check : new CheckType[]{CheckType.HOSTNAME, CheckType.PROXY}) {
+            if (status.length() > 0) status.append(", ");
+            String state = guards.getState(check);
+            status.append(check.name().toLowerCase(Locale.ROOT)).append(' ')
+                    .append("closed".equals(state) ? state : "§c" + state + "§f");
+            int trips = guards.getTrips(check);
+            if (trips > 0) status.append(" (").append(trips).append(trips == 1 ? " trip)" : " trips)");
+        }
+        if (plugin.getServices().getReverseDnsResolver().isVirtual()) status.append("; DNS on virtual threads");
+        long skipped = plugin.getServices().getReverseDnsResolver().getRejectedLookups();
+        if (skipped > 0) status.append("; §c").append(skipped).append(" DNS lookups skipped§f");
+        return status.toString();
+    }
+
+    private String geoStatus(GeoRules rules) {
+        var geoIp = plugin.getServices().getGeoIp();
+        String countries = geoIp.getCountryDatabase() != null
+                ? rules.getAllowedCountries().size() + " allowed, " + rules.getDeniedCountries().size() + " denied countries"
+                : "no country database";
+        String asns = geoIp.getAsnDatabase() != null
+                ? rules.getAllowedAsns().size() + " allowed, " + rules.getDeniedAsns().size() + " denied ASNs"
+                : "no ASN database";
+        return "Enabled (" + countries + "; " + asns + ")";
+    }
+
+    private static String rate(double perSecond) {
+        return perSecond <= 0 ? "∞" : perSecond == Math.rint(perSecond) ? String.valueOf((long) perSecond) : String.valueOf(perSecond);
+    }
+
+    private void sendStats(CommandSender sender) {
+        Metrics metrics = plugin.getServices().getMetrics();
+        sender.sendMessage("§6RyxoNET Stats:");
+        sender.sendMessage("§7Allowed: §a" + metrics.getAllowed() + " §7Blocked: §c" + metrics.getBlockedTotal());
+        for (CheckType reason : CheckType.values()) {
+            sender.sendMessage("§7  " + reason + ": §f" + metrics.getBlocked(reason));
+        }
+        long hits = metrics.getVerdictCacheHits();
+        long lookups = hits + metrics.getVerdictCacheMisses();
+        VerdictCache verdictCache = plugin.getServices().getVerdictCache();
+        sender.sendMessage("§7Verdict cache: §f" + hits + "/" + lookups + " hits"
+                + (lookups > 0 ? String.format(" (%.1f%%)", hits * 100.0 / lookups) : "")
+                + " §8| §f" + verdictCache.size() + "/" + verdictCache.capacity() + " entries");
+        sender.sendMessage("§6Latency §8(count / p50 / p99 / p99.9 / max)");
+        for (Metrics.Stage stage : Metrics.Stage.values()) {
+            LatencyHistogram h = metrics.stage(stage);
+            sender.sendMessage("§7  " + stage + ": §f" + h.getCount()
+                    + " §8/ §f" + formatNanos(h.percentileNanos(0.50))
+                    + " §8/ §f" + formatNanos(h.percentileNanos(0.99))
+                    + " §8/ §f" + formatNanos(h.percentileNanos(0.999))
+                    + " §8/ §f" + formatNanos(h.getMaxNanos()));
+        }
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000) return nanos + "ns";
+        if (nanos < 1_000_000) return String.format("%.1fµs", nanos / 1e3);
+        if (nanos < 1_000_000_000) return String.format("%.1fms", nanos / 1e6);
+        return String.format("%.2fs", nanos / 1e9);
+    }
+
+    private void importEntries(CommandSender sender, String kind, String fileName) {
+        boolean ips = kind.equalsIgnoreCase("ips");
+        if (!ips && !kind.equalsIgnoreCase("hosts")) {
+            sender.sendMessage("§cUsage: /ryxonet import <ips|hosts> <file>");
+            return;
+        }
+        Path dataFolder = plugin.getDataFolder().toPath().toAbsolutePath().normalize();
+        Path file = dataFolder.resolve(fileName).normalize();
+        if (!file.startsWith(dataFolder)) {
+            sender.sendMessage("§cImport files must be inside the plugins/RyxoNET folder.");
+            return;
+        }
+
+        sender.sendMessage("§7Importing " + (ips ? "whitelist entries" : "hostnames") + " from " + fileName + "...");
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<String> entries;
+            try {
+                entries = readEntries(file);
+            } catch (IOException e) {
+                sender.sendMessage("§cCould not read " + fileName + ": " + e.getMessage());
+                return;
+            }
+            ConfigManager configManager = plugin.getConfigManager();
+            MutationResult result = ips ? configManager.addWhitelistEntries(entries) : configManager.addHostnames(entries);
+            sender.sendMessage("§aImported " + result.getChanged().size() + (ips ? " whitelist entries" : " hostnames")
+                    + " §7(" + result.getUnchanged().size() + " already present)");
+            if (!result.getInvalid().isEmpty()) {
+                sender.sendMessage("§c" + result.getInvalid().size() + " invalid: §f" + preview(result.getInvalid()));
+            }
+        });
+    }
+
+    /**
+     * Reads one entry per line; blank lines and text after {@code #} are ignored.
+     */
+    private static List<String> readEntries(Path file) throws IOException {
+        List<String> entries = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int comment = line.indexOf('#');
+            String entry = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (!entry.isEmpty()) entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static void report(CommandSender sender, MutationResult result, String changed, String unchanged, String invalid) {
+        report(sender, result.getChanged(), result.getUnchanged(), result.getInvalid(), changed, unchanged, invalid);
+    }
+
+    private static void report(CommandSender sender, List<String> changedEntries, List<String> unchangedEntries,
+                               List<String> invalidEntries, String changed, String unchanged, String invalid) {
+        if (!changedEntries.isEmpty()) {
+            sender.sendMessage("§a" + changed + ": §f" + preview(changedEntries));
+        }
+        if (!unchangedEntries.isEmpty()) {
+            sender.sendMessage("§c" + unchanged + ": §f" + preview(unchangedEntries));
+        }
+        if (!invalidEntries.isEmpty()) {
+            sender.sendMessage("§c" + invalid + ": §f" + preview(invalidEntries));
+        }
+    }
+
+    private static String preview(List<String> entries) {
+        int shown = Math.min(entries.size(), MAX_LISTED);
+        String list = String.join(", ", entries.subList(0, shown));
+        return entries.size() > shown ? list + " §7(+" + (entries.size() - shown) + " more)" : list;
+    }
+
+    private void listBans(CommandSender sender, String pageArg) {
+        int page;
+        try {
+            page = Math.max(1, Integer.parseInt(pageArg));
+        } catch (NumberFormatException e) {
+            sender.sendMessage("§cUsage: /ryxonet bans [page]");
+            return;
+        }
+        List<TempBanManager.Ban> bans = plugin.getServices().getTempBans().getBans();
+        if (bans.isEmpty()) {
+            sender.sendMessage("§7No active temporary bans.");
+            return;
+        }
+        int pages = (bans.size() + BANS_PER_PAGE - 1) / BANS_PER_PAGE;
+        page = Math.min(page, pages);
+        sender.sendMessage("§6Temporary Bans §8(" + bans.size() + ", page " + page + "/" + pages + ")");
+        long now = System.currentTimeMillis();
+        for (TempBanManager.Ban ban : bans.subList((page - 1) * BANS_PER_PAGE, Math.min(bans.size(), page * BANS_PER_PAGE))) {
+            sender.sendMessage("§7- §f" + ban.getNetwork() + " §8| §f" + TempBanManager.formatDuration(ban.getExpiresAt() - now)
+                    + " left §8| §7ban #" + ban.getCount());
+        }
+    }
+
+    private void unban(CommandSender sender, List<String> entries) {
+        TempBanManager tempBans = plugin.getServices().getTempBans();
+        SharedStateSync sharedState = plugin.getServices().getSharedState();
+        if (entries.size() == 1 && entries.get(0).equalsIgnoreCase("all")) {
+            sender.sendMessage("§aForgot " + tempBans.clear() + " offenders.");
+            sharedState.cleared();
+            return;
+        }
+        List<String> changed = new ArrayList<>();
+        List<String> unchanged = new ArrayList<>();
+        List<String> invalid = new ArrayList<>();
+        for (String entry : entries) {
+            int slash = entry.indexOf('/');
+            IpAddress address = IpAddress.parse(slash < 0 ? entry : entry.substring(0, slash));
+            int prefix = -1;
+            if (address != null) {
+                try {
+                    prefix = slash < 0 ? (address.isIPv4() ? 32 : 128) : Integer.parseInt(entry.substring(slash + 1));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+            if (address == null || prefix < 0 || prefix > (address.isIPv4() ? 32 : 128)) {
+                invalid.add(entry);
+                continue;
+            }
+            // Other nodes may hold the ban even if this one does not
+            sharedState.unbanned(address, prefix);
+            if (tempBans.unban(address, prefix) > 0) {
+                changed.add(entry);
+            } else {
+                unchanged.add(entry);
+            }
+        }
+        report(sender, changed, unchanged, invalid, "Unbanned", "Not banned", "Invalid address or range");
+    }
+
+    private void audit(CommandSender sender, String target, String since) {
+        AuditJournal journal = plugin.getServices().getJournal();
+        if (!journal.isEnabled()) {
+            sender.sendMessage("§cThe audit journal is disabled.");
+            return;
+        }
+        long window = parseDuration(since);
+        if (window <= 0) {
+            sender.sendMessage("§cInvalid time span '" + since + "'. Use e.g. 30m, 12h or 7d.");
+            return;
+        }
+        long from = System.currentTimeMillis() - window;
+        IpAddress address = IpAddress.parse(target);
+        AuditJournal.Query query = address != null ? AuditJournal.Query.address(address, from) : AuditJournal.Query.name(target, from);
+
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<AuditRecord> records = journal.query(query, AUDIT_RESULTS);
+            if (records.isEmpty()) {
+                sender.sendMessage("§7No joins from " + target + " in the last " + since + ".");
+                return;
+            }
+            sender.sendMessage("§6Joins from " + target + " §8(last " + since + ", newest first, up to " + AUDIT_RESULTS + ")");
+            for (AuditRecord record : records) {
+                StringBuilder line = new StringBuilder("§8").append(AUDIT_TIME.format(Instant.ofEpochMilli(record.getTime())))
+                        .append(' ').append(record.isAllowed() ? "§aALLOWED" : "§c" + record.getReason())
+                        .append(" §f").append(record.getName()).append(" §7").append(record.getAddress())
+                        .append(" §8").append(formatNanos(record.getTotalMicros() * 1000L));
+                for (CheckType check : CheckType.values()) {
+                    int micros = record.getCheckMicros(check);
+                    if (micros >= 0) {
+                        line.append(" §7").append(check.name().toLowerCase(Locale.ROOT)).append(' ').append(formatNanos(micros * 1000L));
+                    }
+                }
+                sender.sendMessage(line.toString());
+            }
+        });
+    }
+
+    /**
+     * Parses spans such as {@code 45s}, {@code 30m}, {@code 12h} or {@code 7d}; a bare number means hours.
+     *
+     * @return the span in milliseconds, or -1 if it cannot be parsed
+     */
+    private static long parseDuration(String text) {
+        if (text.isEmpty()) return -1;
+        char unit = Character.toLowerCase(text.charAt(text.length() - 1));
+        String digits = Character.isDigit(unit) ? text : text.substring(0, text.length() - 1);
+        long amount;
+        try {
+            amount = Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (amount <= 0 || amount > 3650) return -1;
+        switch (unit) {
+            case 's':
+                return TimeUnit.SECONDS.toMillis(amount);
+            case 'm':
+                return TimeUnit.MINUTES.toMillis(amount);
+            case 'h':
+                return TimeUnit.HOURS.toMillis(amount);
+            case 'd':
+                return TimeUnit.DAYS.toMillis(amount);
+            default:
+                return Character.isDigit(unit) ? TimeUnit.HOURS.toMillis(amount) : -1;
+        }
+    }
+
+    private void listHostnames(CommandSender sender) {
+        var cfg = plugin.getConfigManager().getPolicy();
+        sender.sendMessage("§6Allowed Hostnames:");
+        for (String host : cfg.getAllowedHostnames()) {
+            sender.sendMessage("§7- " + host);
+        }
+        if (cfg.getAllowedHostnames().isEmpty()) {
+            sender.sendMessage("§cNone configured.");
+        }
+    }
+
+    @Override
+    public @Nullable List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String alias, @NotNull String[] args) {
+        if (args.length == 1) {
+            List<String> completions = new ArrayList<>();
+            StringUtil.copyPartialMatches(args[0], SUBCOMMANDS, completions);
+            Collections.sort(completions);
+            return completions;
+        } else if (args.length >= 2 && args[0].equalsIgnoreCase("removehost")) {
+            return StringUtil.copyPartialMatches(args[args.length - 1], plugin.getConfigManager().getPolicy().getAllowedHostnames(), new ArrayList<>());
+        } else if (args.length >= 2 && args[0].equalsIgnoreCase("removeip")) {
+            return StringUtil.copyPartialMatches(args[args.length - 1], plugin.getConfigManager().getPolicy().getWhitelistedIps(), new ArrayList<>());
+        } else if (args.length >= 2 && args[0].equalsIgnoreCase("unban")) {
+            List<String> banned = new ArrayList<>();
+            for (TempBanManager.Ban ban : plugin.getServices().getTempBans().getBans()) banned.add(ban.getNetwork());
+            if (args.length == 2) banned.add("all");
+            return StringUtil.copyPartialMatches(args[args.length - 1], banned, new ArrayList<>());
+        } else if (args.length == 2 && args[0].equalsIgnoreCase("import")) {
+            return StringUtil.copyPartialMatches(args[1], IMPORT_KINDS, new ArrayList<>());
+        }
+        return Collections.emptyList();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.ryxon.config;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Persists config.yml changes off the main thread.
+ * <p>
+ * Changed values are collected per path and written together a short delay after
+ * the first change, so a burst of admin commands costs a single write. The write
+ * works on a fresh copy of the file, never on the plugin's live configuration
+ * object, and replaces the file atomically.
+ */
+final class AsyncConfigWriter implements AutoCloseable {
+
+    private static final long DELAY_MILLIS = 1000;
+
+    private final File file;
+    private final Logger logger;
+    private final ScheduledExecutorService executor;
+    private final Object writeLock = new Object();
+
+    // Guarded by this
+    private final Map<String, Object> pending = new LinkedHashMap<>();
+    private boolean scheduled;
+
+    AsyncConfigWriter(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "RyxoNET-Config");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues {@code value} to be written at {@code path}; a later value for the same path wins.
+     */
+    synchronized void set(String path, Object value) {
+        pending.put(path, value);
+        if (!scheduled) {
+            scheduled = true;
+            executor.schedule(this::flushQuietly, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes all queued values now, on the calling thread. On failure the values stay queued.
+     */
+    void flush() throws IOException {
+        synchronized (writeLock) {
+            Map<String, Object> batch;
+            synchronized (this) {
+                scheduled = false;
+                if (pending.isEmpty()) return;
+                batch = new LinkedHashMap<>(pending);
+                pending.clear();
+            }
+            try {
+                YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+                batch.forEach(yaml::set);
+
+                Path target = file.toPath();
+                Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+                Files.writeString(tmp, yaml.saveToString(), StandardCharsets.UTF_8);
+                try {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    // Newer values queued meanwhile take precedence
+                    batch.forEach(pending::putIfAbsent);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            logger.warning("[RyxoNET] Could not save config.yml: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes anything still queued and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        flushQuietly();
+    }
+}
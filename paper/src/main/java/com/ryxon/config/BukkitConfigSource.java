@@ -0,0 +1,47 @@
+package com.ryxon.config;
+
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.List;
+
+/**
+ * {@link ConfigSource} over the plugin's Bukkit configuration.
+ */
+final class BukkitConfigSource implements ConfigSource {
+
+    private final FileConfiguration config;
+
+    BukkitConfigSource(FileConfiguration config) {
+        this.config = config;
+    }
+
+    @Override
+    public String getString(String path, String def) {
+        return config.getString(path, def);
+    }
+
+    @Override
+    public boolean getBoolean(String path, boolean def) {
+        return config.getBoolean(path, def);
+    }
+
+    @Override
+    public int getInt(String path, int def) {
+        return config.getInt(path, def);
+    }
+
+    @Override
+    public long getLong(String path, long def) {
+        return config.getLong(path, def);
+    }
+
+    @Override
+    public double getDouble(String path, double def) {
+        return config.getDouble(path, def);
+    }
+
+    @Override
+    public List<String> getStringList(String path) {
+        return config.getStringList(path);
+    }
+}
@@ -0,0 +1,192 @@
+package com.ryxon.config;
+
+import com.ryxon.index.CidrTrie;
+import com.ryxon.index.HostnameTrie;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Manages configuration loading and validation for RyxoNET on the backend.
+ * <p>
+ * Every load compiles a fresh {@link SecurityPolicy} with {@link PolicyCompiler}
+ * and publishes it with a single reference swap, so readers never observe a
+ * half-applied reload.
+ * Admin edits to the whitelist and hostname lists go through the mutation
+ * methods instead: they derive the next snapshot from the current one, reusing
+ * every index that did not change, and queue the edit to be saved asynchronously.
+ */
+public class ConfigManager {
+
+    private final Plugin plugin;
+    private final AsyncConfigWriter writer;
+    private final AtomicReference<SecurityPolicy> policy =
+            new AtomicReference<>(SecurityPolicy.builder().build(warning -> {}));
+
+    public ConfigManager(Plugin plugin) {
+        this.plugin = plugin;
+        this.writer = new AsyncConfigWriter(new File(plugin.getDataFolder(), "config.yml"), plugin.getLogger());
+    }
+
+    /**
+     * Loads the configuration from disk and publishes the compiled policy.
+     * Pending edits are saved first so they are not lost. Safe to call from any thread.
+     */
+    public synchronized void load() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save pending config changes before reloading: " + e.getMessage());
+        }
+        plugin.saveDefaultConfig();
+        plugin.reloadConfig();
+        reload(plugin.getConfig());
+    }
+
+    /**
+     * Compiles the given configuration and atomically replaces the active policy.
+     */
+    public synchronized void reload(FileConfiguration config) {
+        SecurityPolicy compiled = PolicyCompiler.compile(new BukkitConfigSource(config), plugin.getLogger());
+        PolicyCompiler.validate(compiled, plugin.getLogger());
+        policy.set(compiled);
+    }
+
+    /**
+     * @return the active policy snapshot; never {@code null}
+     */
+    public SecurityPolicy getPolicy() {
+        return policy.get();
+    }
+
+    /**
+     * Saves any queued edits and stops the background writer.
+     */
+    public void close() {
+        writer.close();
+    }
+
+    // ────────────────────────────────────────────────
+    // Incremental edits
+    // ────────────────────────────────────────────────
+
+    /**
+     * Adds addresses or CIDR ranges to the whitelist. Only the new entries are
+     * inserted into the compiled whitelist; nothing else is rebuilt.
+     */
+    public synchronized MutationResult addWhitelistEntries(Collection<String> entries) {
+        SecurityPolicy current = policy.get();
+        List<String> added = new ArrayList<>();
+        List<String> unchanged = new ArrayList<>();
+        List<String> invalid = new ArrayList<>();
+        Set<String> present = new HashSet<>(current.getWhitelistedIps());
+        for (String entry : trimmed(entries)) {
+            if (present.add(entry)) added.add(entry);
+            else unchanged.add(entry);
+        }
+
+        // Validates the entries even while the whitelist is disabled
+        CidrTrie index = (current.isWhitelistEnabled() ? current.getWhitelist() : CidrTrie.empty())
+                .withAdded(added, invalid::add);
+        added.removeAll(invalid);
+        if (!added.isEmpty()) {
+            List<String> ips = new ArrayList<>(current.getWhitelistedIps());
+            ips.addAll(added);
+            publish(current.toBuilder().whitelistedIps(ips, index));
+            writer.set("whitelist.ips", ips);
+        }
+        return new MutationResult(added, unchanged, invalid);
+    }
+
+    /**
+     * Removes exact whitelist entries. The whitelist index is recompiled from the
+     * remaining entries, since a range can be covered by several others.
+     */
+    public synchronized MutationResult removeWhitelistEntries(Collection<String> entries) {
+        SecurityPolicy current = policy.get();
+        Set<String> toRemove = trimmed(entries);
+        List<String> remaining = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (String ip : current.getWhitelistedIps()) {
+            if (toRemove.contains(ip)) removed.add(ip);
+            else remaining.add(ip);
+        }
+        List<String> unchanged = new ArrayList<>(toRemove);
+        unchanged.removeAll(removed);
+        if (!removed.isEmpty()) {
+            publish(current.toBuilder().whitelistedIps(remaining));
+            writer.set("whitelist.ips", remaining);
+        }
+        return new MutationResult(removed, unchanged, List.of());
+    }
+
+    /**
+     * Adds allowed hostnames. Only the trie nodes along each new name are copied.
+     */
+    public synchronized MutationResult addHostnames(Collection<String> hosts) {
+        SecurityPolicy current = policy.get();
+        List<String> added = new ArrayList<>();
+        List<String> unchanged = new ArrayList<>();
+        List<String> invalid = new ArrayList<>();
+        Set<String> present = new HashSet<>();
+        for (String host : current.getAllowedHostnames()) present.add(host.toLowerCase(Locale.ROOT));
+        for (String host : trimmed(hosts)) {
+            String lower = host.toLowerCase(Locale.ROOT);
+            if (present.add(lower)) added.add(lower);
+            else unchanged.add(host);
+        }
+
+        HostnameTrie index = current.getHostnameIndex().withAdded(added, invalid::add);
+        added.removeAll(invalid);
+        if (!added.isEmpty()) {
+            List<String> allowed = new ArrayList<>(current.getAllowedHostnames());
+            allowed.addAll(added);
+            publish(current.toBuilder().allowedHostnames(allowed, index));
+            writer.set("hostname.allowed-hostnames", allowed);
+        }
+        return new MutationResult(added, unchanged, invalid);
+    }
+
+    /**
+     * Removes allowed hostnames (case-insensitive) and recompiles the small hostname trie.
+     */
+    public synchronized MutationResult removeHostnames(Collection<String> hosts) {
+        SecurityPolicy current = policy.get();
+        Set<String> toRemove = new HashSet<>();
+        for (String host : trimmed(hosts)) toRemove.add(host.toLowerCase(Locale.ROOT));
+        List<String> remaining = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (String host : current.getAllowedHostnames()) {
+            if (toRemove.remove(host.toLowerCase(Locale.ROOT))) removed.add(host);
+            else remaining.add(host);
+        }
+        if (!removed.isEmpty()) {
+            publish(current.toBuilder().allowedHostnames(remaining));
+            writer.set("hostname.allowed-hostnames", remaining);
+        }
+        return new MutationResult(removed, new ArrayList<>(toRemove), List.of());
+    }
+
+    private void publish(SecurityPolicy.Builder builder) {
+        policy.set(builder.build(warning -> plugin.getLogger().warning(warning)));
+    }
+
+    private static Set<String> trimmed(Collection<String> entries) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String entry : entries) {
+            String value = entry.trim();
+            if (!value.isEmpty()) result.add(value);
+        }
+        return result;
+    }
+}
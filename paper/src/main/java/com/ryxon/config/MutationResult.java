@@ -0,0 +1,40 @@
+package com.ryxon.config;
+
+import java.util.List;
+
+/**
+ * Outcome of an incremental change to a configured list.
+ */
+public final class MutationResult {
+
+    private final List<String> changed;
+    private final List<String> unchanged;
+    private final List<String> invalid;
+
+    MutationResult(List<String> changed, List<String> unchanged, List<String> invalid) {
+        this.changed = List.copyOf(changed);
+        this.unchanged = List.copyOf(unchanged);
+        this.invalid = List.copyOf(invalid);
+    }
+
+    /**
+     * @return entries that were added or removed
+     */
+    public List<String> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return entries that were already present (add) or not present (remove)
+     */
+    public List<String> getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * @return entries rejected because they could not be parsed
+     */
+    public List<String> getInvalid() {
+        return invalid;
+    }
+}
@@ -0,0 +1,84 @@
+package com.ryxon.listener;
+
+import com.destroystokyo.paper.event.player.PlayerHandshakeEvent;
+import com.ryxon.check.CheckType;
+import com.ryxon.config.ConfigManager;
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.engine.VirtualHostCheck;
+import com.ryxon.logging.ConnectionLogger;
+import com.ryxon.metrics.Metrics;
+import com.ryxon.ratelimit.ConnectionThrottle;
+import com.ryxon.util.IpAddress;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+
+/**
+ * Rejects connection floods and direct-IP or unknown-host joins while the
+ * connection is still in the handshake, before any login processing or async
+ * pre-login work happens.
+ * <p>
+ * Paper only acts on this event when it is un-cancelled, so the event is left
+ * untouched for every connection that passes and proxy forwarding keeps working.
+ */
+public class HandshakeListener implements Listener {
+
+    private final ConfigManager configManager;
+    private final ConnectionThrottle throttle;
+    private final ConnectionLogger log;
+    private final Metrics metrics;
+
+    public HandshakeListener(ConfigManager configManager, ConnectionThrottle throttle, ConnectionLogger log, Metrics metrics) {
+        this.configManager = configManager;
+        this.throttle = throttle;
+        this.log = log;
+        this.metrics = metrics;
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onHandshake(PlayerHandshakeEvent event) {
+        SecurityPolicy policy = configManager.getPolicy();
+        if (policy.getThrottle().enabled() && !admit(policy, event)) return;
+
+        // Only safe when the rule rejects every join failing the host check, e.g. not "whitelist OR hostname"
+        if (!policy.isRequired(CheckType.HOSTNAME) || policy.getHostname().useReverseDns() || !policy.getHostname().rejectAtHandshake()) return;
+
+        VirtualHostCheck.Result result = VirtualHostCheck.check(policy, event.getOriginalHandshake());
+        if (result == VirtualHostCheck.Result.ALLOWED) return;
+
+        fail(event, policy.getHostname().kickMessage());
+        if (policy.getLogging().blockedConnections()) {
+            log.blocked(event.getOriginalSocketAddressHostname(),
+                    "<handshake " + VirtualHostCheck.extractHost(event.getOriginalHandshake()) + ": " + result + ">",
+                    CheckType.HOSTNAME);
+        }
+    }
+
+    /**
+     * Counts the connection against the rate limits; addresses over a limit are dropped here.
+     */
+    private boolean admit(SecurityPolicy policy, PlayerHandshakeEvent event) {
+        IpAddress address = IpAddress.parse(event.getOriginalSocketAddressHostname());
+        if (address == null) return true;
+        // Local proxies and whitelisted addresses would otherwise be throttled for everyone behind them
+        if (policy.getThrottle().exemptLocal() && !address.isPublic()) return true;
+        if (policy.getWhitelist().contains(address)) return true;
+
+        ConnectionThrottle.Result result = throttle.tryAcquire(address);
+        if (result == ConnectionThrottle.Result.ALLOWED) return true;
+
+        fail(event, policy.getThrottle().kickMessage());
+        metrics.recordBlocked(CheckType.RATE_LIMIT);
+        if (policy.getLogging().blockedConnections()) {
+            log.blocked(address.toString(), "<handshake rate limit: " + result + ">", CheckType.RATE_LIMIT);
+        }
+        return false;
+    }
+
+    private static void fail(PlayerHandshakeEvent event, String message) {
+        event.setCancelled(false);
+        event.setFailed(true);
+        event.failMessage(LegacyComponentSerializer.legacySection().deserialize(message));
+    }
+}
@@ -0,0 +1,29 @@
+package com.ryxon.listener;
+
+import com.ryxon.attack.AttackMode;
+import com.ryxon.util.IpAddress;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.ServerListPingEvent;
+
+import java.net.InetAddress;
+
+/**
+ * Remembers which addresses pinged the server list, so attack mode can tell
+ * players refreshing their list apart from bots connecting straight to the login.
+ */
+public class PingListener implements Listener {
+
+    private final AttackMode attackMode;
+
+    public PingListener(AttackMode attackMode) {
+        this.attackMode = attackMode;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPing(ServerListPingEvent event) {
+        InetAddress address = event.getAddress();
+        if (address != null) attackMode.recordPing(IpAddress.of(address));
+    }
+}
@@ -0,0 +1,79 @@
+package com.ryxon.listener;
+
+import com.destroystokyo.paper.profile.PlayerProfile;
+import com.destroystokyo.paper.profile.ProfileProperty;
+import com.ryxon.config.ConfigManager;
+import com.ryxon.engine.LoginAttempt;
+import com.ryxon.engine.LoginDecision;
+import com.ryxon.engine.LoginEngine;
+import com.ryxon.proxy.ForwardingToken;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+
+import java.net.InetAddress;
+import java.util.UUID;
+
+public class PreLoginListener implements Listener {
+
+    private final ConfigManager configManager;
+    private final LoginEngine engine;
+
+    public PreLoginListener(ConfigManager configManager, LoginEngine engine) {
+        this.configManager = configManager;
+        this.engine = engine;
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        // One snapshot per login: a concurrent reload never mixes old and new settings
+        LoginDecision decision = engine.decide(configManager.getPolicy(), new PreLoginAttempt(event));
+        if (!decision.isAllowed()) {
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, decision.getKickMessage());
+        }
+    }
+
+    private static final class PreLoginAttempt implements LoginAttempt {
+
+        private final AsyncPlayerPreLoginEvent event;
+
+        PreLoginAttempt(AsyncPlayerPreLoginEvent event) {
+            this.event = event;
+        }
+
+        @Override
+        public InetAddress getAddress() {
+            return event.getAddress();
+        }
+
+        @Override
+        public String getName() {
+            return event.getName();
+        }
+
+        @Override
+        public UUID getUniqueId() {
+            return event.getUniqueId();
+        }
+
+        @Override
+        public String getVirtualHost() {
+            return event.getHostname();
+        }
+
+        @Override
+        public String takeToken() {
+            PlayerProfile profile = event.getPlayerProfile();
+            for (ProfileProperty property : profile.getProperties()) {
+                if (ForwardingToken.PROPERTY_NAME.equals(property.getName())) {
+                    profile.removeProperty(ForwardingToken.PROPERTY_NAME);
+                    return property.getValue();
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.ryxon.velocity;
+
+import com.ryxon.config.ConfigSource;
+import com.ryxon.config.PolicyCompiler;
+import com.ryxon.config.ProxySettings;
+import com.ryxon.config.SecurityPolicy;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Loads {@code plugins/ryxonet/config.yml} on the proxy and compiles it with the
+ * backend's {@link PolicyCompiler}.
+ * <p>
+ * The proxy check has no meaning at the edge, where joins are signed rather than
+ * verified: it is compiled out of the rule like any disabled check, and
+ * {@code proxy-protection} only decides whether joins that pass are signed.
+ */
+final class EdgeConfig {
+
+    private final Path dataDirectory;
+    private final Logger logger;
+    private final AtomicReference<SecurityPolicy> policy =
+            new AtomicReference<>(SecurityPolicy.builder().build(warning -> {}));
+    private volatile String signingKey;
+
+    EdgeConfig(Path dataDirectory, Logger logger) {
+        this.dataDirectory = dataDirectory;
+        this.logger = logger;
+    }
+
+    /**
+     * Reads the configuration, writing the default one first if there is none,
+     * and atomically replaces the active policy.
+     */
+    synchronized void load() throws IOException {
+        Path file = dataDirectory.resolve("config.yml");
+        if (Files.notExists(file)) {
+            Files.createDirectories(dataDirectory);
+            try (InputStream defaults = EdgeConfig.class.getResourceAsStream("/config.yml")) {
+                if (defaults == null) throw new IOException("The default config.yml is missing from the plugin jar");
+                Files.copy(defaults, file);
+            }
+        }
+        Object root;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            root = new Yaml(new SafeConstructor(new LoaderOptions())).load(reader);
+        }
+
+        SecurityPolicy compiled = PolicyCompiler.compile(new YamlSource(root instanceof Map ? (Map<?, ?>) root : Map.of()), logger);
+        SecurityPolicy edge = compiled.toBuilder().proxy(ProxySettings.DEFAULTS).build(logger::warning);
+        PolicyCompiler.validate(edge, logger);
+        signingKey = compiled.getProxy().enabled() ? compiled.getProxy().passphrase() : null;
+        policy.set(edge);
+    }
+
+    /**
+     * @return the active policy snapshot; never {@code null}
+     */
+    SecurityPolicy getPolicy() {
+        return policy.get();
+    }
+
+    /**
+     * @return the passphrase joins are signed with, or {@code null} if they are not signed
+     */
+    String getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * {@link ConfigSource} over the maps and lists SnakeYAML parses a document into.
+     */
+    private static final class YamlSource implements ConfigSource {
+
+        private final Map<?, ?> root;
+
+        YamlSource(Map<?, ?> root) {
+            this.root = root;
+        }
+
+        private Object get(String path) {
+            Object node = root;
+            for (String key : path.split("\\.")) {
+                if (!(node instanceof Map)) return null;
+                node = ((Map<?, ?>) node).get(key);
+            }
+            return node;
+        }
+
+        @Override
+        public String getString(String path, String def) {
+            Object value = get(path);
+            return value == null || value instanceof Map || value instanceof List ? def : value.toString();
+        }
+
+        @Override
+        public boolean getBoolean(String path, boolean def) {
+            Object value = get(path);
+            return value instanceof Boolean ? (Boolean) value : def;
+        }
+
+        @Override
+        public int getInt(String path, int def) {
+            Object value = get(path);
+            return value instanceof Number ? ((Number) value).intValue() : def;
+        }
+
+        @Override
+        public long getLong(String path, long def) {
+            Object value = get(path);
+            return value instanceof Number ? ((Number) value).longValue() : def;
+        }
+
+        @Override
+        public double getDouble(String path, double def) {
+            Object value = get(path);
+            return value instanceof Number ? ((Number) value).doubleValue() : def;
+        }
+
+        @Override
+        public List<String> getStringList(String path) {
+            Object value = get(path);
+            List<String> list = new ArrayList<>();
+            if (value instanceof List) {
+                for (Object element : (List<?>) value) {
+                    if (element != null && !(element instanceof Map) && !(element instanceof List)) list.add(element.toString());
+                }
+            }
+            return list;
+        }
+    }
+}
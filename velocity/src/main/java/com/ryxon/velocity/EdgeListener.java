@@ -0,0 +1,162 @@
+package com.ryxon.velocity;
+
+import com.ryxon.attack.AttackMode;
+import com.ryxon.check.CheckType;
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.engine.LoginAttempt;
+import com.ryxon.engine.LoginDecision;
+import com.ryxon.engine.LoginEngine;
+import com.ryxon.logging.ConnectionLogger;
+import com.ryxon.metrics.Metrics;
+import com.ryxon.proxy.ForwardingToken;
+import com.ryxon.ratelimit.ConnectionThrottle;
+import com.ryxon.util.IpAddress;
+import com.velocitypowered.api.event.EventTask;
+import com.velocitypowered.api.event.PostOrder;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.PreLoginEvent;
+import com.velocitypowered.api.event.player.ServerPreConnectEvent;
+import com.velocitypowered.api.event.proxy.ProxyPingEvent;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.util.GameProfile;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Filters joins at the proxy and signs the ones that pass.
+ * <p>
+ * The checks run once per join at pre-login, before the proxy authenticates the
+ * player or opens any backend connection. Every connection to a backend then
+ * carries a fresh {@link ForwardingToken} in the forwarded game profile, which
+ * the backend verifies with one HMAC instead of running the checks again.
+ */
+public final class EdgeListener {
+
+    private final EdgeConfig config;
+    private final LoginEngine engine;
+    private final ConnectionThrottle throttle;
+    private final AttackMode attackMode;
+    private final ConnectionLogger log;
+    private final Metrics metrics;
+
+    public EdgeListener(EdgeConfig config, LoginEngine engine, ConnectionThrottle throttle, AttackMode attackMode,
+                        ConnectionLogger log, Metrics metrics) {
+        this.config = config;
+        this.engine = engine;
+        this.throttle = throttle;
+        this.attackMode = attackMode;
+        this.log = log;
+        this.metrics = metrics;
+    }
+
+    @Subscribe(order = PostOrder.LAST)
+    public void onPing(ProxyPingEvent event) {
+        attackMode.recordPing(IpAddress.of(event.getConnection().getRemoteAddress().getAddress()));
+    }
+
+    /**
+     * Runs on the event executor since reverse DNS may wait on a lookup.
+     */
+    @Subscribe(order = PostOrder.FIRST)
+    public EventTask onPreLogin(PreLoginEvent event) {
+        if (!event.getResult().isAllowed()) return null;
+        return EventTask.async(() -> {
+            // One snapshot per login: a concurrent reload never mixes old and new settings
+            SecurityPolicy policy = config.getPolicy();
+            InetAddress address = event.getConnection().getRemoteAddress().getAddress();
+            if (policy.getThrottle().enabled() && !admit(policy, event, address)) return;
+
+            LoginDecision decision = engine.decide(policy, new EdgeAttempt(event, address));
+            if (!decision.isAllowed()) deny(event, decision.getKickMessage());
+        });
+    }
+
+    /**
+     * Counts the connection against the rate limits; addresses over a limit are refused here.
+     */
+    private boolean admit(SecurityPolicy policy, PreLoginEvent event, InetAddress inet) {
+        IpAddress address = IpAddress.of(inet);
+        if (policy.getThrottle().exemptLocal() && !address.isPublic()) return true;
+        if (policy.getWhitelist().contains(address)) return true;
+
+        ConnectionThrottle.Result result = throttle.tryAcquire(address);
+        if (result == ConnectionThrottle.Result.ALLOWED) return true;
+
+        deny(event, policy.getThrottle().kickMessage());
+        metrics.recordBlocked(CheckType.RATE_LIMIT);
+        if (policy.getLogging().blockedConnections()) {
+            log.blocked(address.toString(), "<rate limit: " + result + ">", CheckType.RATE_LIMIT);
+        }
+        return false;
+    }
+
+    private static void deny(PreLoginEvent event, String message) {
+        event.setResult(PreLoginEvent.PreLoginComponentResult.denied(
+                LegacyComponentSerializer.legacySection().deserialize(message)));
+    }
+
+    /**
+     * Signs the player's profile for the backend about to receive it. A token per
+     * connection keeps server switches working however long the session lasts.
+     */
+    @Subscribe(order = PostOrder.LAST)
+    public void onServerPreConnect(ServerPreConnectEvent event) {
+        String key = config.getSigningKey();
+        if (key == null || !event.getResult().isAllowed()) return;
+
+        Player player = event.getPlayer();
+        String ip = player.getRemoteAddress().getAddress().getHostAddress();
+        String token = ForwardingToken.issue(key, player.getUniqueId(), player.getUsername(), ip,
+                System.currentTimeMillis() / 1000L);
+        List<GameProfile.Property> properties = new ArrayList<>();
+        for (GameProfile.Property property : player.getGameProfileProperties()) {
+            if (!ForwardingToken.PROPERTY_NAME.equals(property.getName())) properties.add(property);
+        }
+        properties.add(new GameProfile.Property(ForwardingToken.PROPERTY_NAME, token, ""));
+        player.setGameProfileProperties(properties);
+    }
+
+    private static final class EdgeAttempt implements LoginAttempt {
+
+        private final PreLoginEvent event;
+        private final InetAddress address;
+
+        EdgeAttempt(PreLoginEvent event, InetAddress address) {
+            this.event = event;
+            this.address = address;
+        }
+
+        @Override
+        public InetAddress getAddress() {
+            return address;
+        }
+
+        @Override
+        public String getName() {
+            return event.getUsername();
+        }
+
+        @Override
+        public UUID getUniqueId() {
+            return event.getUniqueId();
+        }
+
+        @Override
+        public String getVirtualHost() {
+            return event.getConnection().getVirtualHost().map(InetSocketAddress::getHostString).orElse(null);
+        }
+
+        /**
+         * Clients never bring a token to the proxy; it is added only after they pass.
+         */
+        @Override
+        public String takeToken() {
+            return null;
+        }
+    }
+}
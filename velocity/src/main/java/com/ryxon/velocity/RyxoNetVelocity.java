@@ -0,0 +1,91 @@
+package com.ryxon.velocity;
+
+import com.google.inject.Inject;
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.engine.RyxoNetServices;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
+import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
+import com.velocitypowered.api.plugin.annotation.DataDirectory;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * RyxoNET on a Velocity proxy: the backend's checks, run once at the edge.
+ */
+public final class RyxoNetVelocity {
+
+    private final ProxyServer server;
+    private final Path dataDirectory;
+    private final Logger logger = Logger.getLogger("RyxoNET");
+
+    private EdgeConfig config;
+    private RyxoNetServices services;
+
+    @Inject
+    public RyxoNetVelocity(ProxyServer server, @DataDirectory Path dataDirectory) {
+        this.server = server;
+        this.dataDirectory = dataDirectory;
+    }
+
+    @Subscribe
+    public void onProxyInitialize(ProxyInitializeEvent event) throws IOException {
+        this.config = new EdgeConfig(dataDirectory, logger);
+        config.load();
+        SecurityPolicy policy = config.getPolicy();
+        this.services = new RyxoNetServices(logger, dataDirectory, (task, delayMillis, periodMillis) -> {
+            ScheduledTask scheduled = server.getScheduler().buildTask(this, task)
+                    .delay(delayMillis, TimeUnit.MILLISECONDS).repeat(periodMillis, TimeUnit.MILLISECONDS).schedule();
+            return scheduled::cancel;
+        }, policy);
+
+        server.getEventManager().register(this, new EdgeListener(config, services.getEngine(), services.getThrottle(),
+                services.getAttackMode(), services.getConnectionLogger(), services.getMetrics()));
+        server.getCommandManager().register(server.getCommandManager().metaBuilder("ryxonet").plugin(this).build(),
+                new RyxoNetVelocityCommand(this));
+
+        logger.info("[RyxoNET] Edge filter enabled, security mode: " + policy.getSecurityMode()
+                + (config.getSigningKey() != null ? ", signing joins for the backends" : ""));
+    }
+
+    @Subscribe
+    public void onProxyShutdown(ProxyShutdownEvent event) {
+        if (services != null) services.close();
+    }
+
+    EdgeConfig getConfig() {
+        return config;
+    }
+
+    RyxoNetServices getServices() {
+        return services;
+    }
+
+    /**
+     * Re-reads config.yml off the command thread.
+     * Logins keep using the previous snapshot until the new one is swapped in.
+     *
+     * @return a future completed once the new configuration is active
+     */
+    CompletableFuture<Void> reload() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        server.getScheduler().buildTask(this, () -> {
+            try {
+                config.load();
+                services.configure(config.getPolicy());
+                logger.info("[RyxoNET] Configuration reloaded");
+                done.complete(null);
+            } catch (Throwable t) {
+                logger.severe("[RyxoNET] Reload failed: " + t.getMessage());
+                done.completeExceptionally(t);
+            }
+        }).schedule();
+        return done;
+    }
+}
@@ -0,0 +1,89 @@
+package com.ryxon.velocity;
+
+import com.ryxon.attack.AttackMode;
+import com.ryxon.check.CheckType;
+import com.ryxon.config.SecurityPolicy;
+import com.ryxon.metrics.Metrics;
+import com.ryxon.shared.SharedStateSync;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.command.SimpleCommand;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Handles /ryxonet on the proxy. Whitelist, hostname and ban edits are made in
+ * config.yml and applied with a reload.
+ */
+final class RyxoNetVelocityCommand implements SimpleCommand {
+
+    private static final List<String> SUBCOMMANDS = List.of("reload", "status");
+
+    private final RyxoNetVelocity plugin;
+
+    RyxoNetVelocityCommand(RyxoNetVelocity plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void execute(Invocation invocation) {
+        CommandSource sender = invocation.source();
+        String[] args = invocation.arguments();
+        String sub = args.length == 0 ? "" : args[0].toLowerCase(Locale.ROOT);
+        switch (sub) {
+            case "reload":
+                send(sender, "§7Reloading RyxoNET...");
+                plugin.reload().whenComplete((ignored, error) -> send(sender, error == null
+                        ? "§aRyxoNET reloaded."
+                        : "§cReload failed, previous configuration is still active. See console."));
+                break;
+            case "status":
+                sendStatus(sender);
+                break;
+            default:
+                send(sender, "§6RyxoNET §7(edge) commands: §f/ryxonet reload§7, §f/ryxonet status");
+                break;
+        }
+    }
+
+    @Override
+    public boolean hasPermission(Invocation invocation) {
+        return invocation.source().hasPermission("ryxonet.admin");
+    }
+
+    @Override
+    public List<String> suggest(Invocation invocation) {
+        String[] args = invocation.arguments();
+        if (args.length > 1) return List.of();
+        String prefix = args.length == 0 ? "" : args[0].toLowerCase(Locale.ROOT);
+        return SUBCOMMANDS.stream().filter(sub -> sub.startsWith(prefix)).toList();
+    }
+
+    private void sendStatus(CommandSource sender) {
+        SecurityPolicy cfg = plugin.getConfig().getPolicy();
+        send(sender, "§6RyxoNET Edge Status:");
+        send(sender, "§7Mode: §f" + cfg.getSecurityMode());
+        send(sender, "§7Rule: §f" + cfg.getEvaluationPlan());
+        send(sender, "§7Signing Joins: §f" + (plugin.getConfig().getSigningKey() != null ? "Enabled" : "Disabled"));
+        send(sender, "§7Hostname Protection: §f" + (cfg.getHostname().enabled() ? "Enabled (" + cfg.getAllowedHostnames().size() + " hosts)" : "Disabled"));
+        send(sender, "§7Whitelist: §f" + (cfg.isWhitelistEnabled() ? "Enabled (" + cfg.getWhitelistedIps().size() + " IPs)" : "Disabled"));
+        String breaker = plugin.getServices().getGuards().getState(CheckType.HOSTNAME);
+        send(sender, "§7Circuit Breaker: §f" + (breaker == null ? "Disabled" : breaker));
+        AttackMode attackMode = plugin.getServices().getAttackMode();
+        send(sender, "§7Attack Mode: §f" + (!cfg.getAttackMode().enabled() ? "Disabled"
+                : attackMode.isActiveHere() ? String.format("§cACTIVE §ffor %ds (%.1f joins/s)", attackMode.getActiveSeconds(), attackMode.getJoinRate())
+                : attackMode.isHeld() ? String.format("§cACTIVE §fon another node (%.1f joins/s here)", attackMode.getJoinRate())
+                : String.format("Standby (%.1f joins/s)", attackMode.getJoinRate())));
+        send(sender, "§7Temporary Bans: §f" + (cfg.getTempBans().enabled() ? plugin.getServices().getTempBans().getActiveBanCount() + " active" : "Disabled"));
+        SharedStateSync sharedState = plugin.getServices().getSharedState();
+        send(sender, "§7Shared State: §f" + (sharedState.isEnabled() ? String.format("%s (%d sent, %d received, %d dropped)",
+                sharedState.describe(), sharedState.getPublished(), sharedState.getReceived(), sharedState.getDropped()) : "Disabled"));
+        Metrics metrics = plugin.getServices().getMetrics();
+        send(sender, "§7Joins: §a" + metrics.getAllowed() + " allowed§7, §c" + metrics.getBlockedTotal() + " blocked");
+    }
+
+    private static void send(CommandSource sender, String message) {
+        sender.sendMessage(LegacyComponentSerializer.legacySection().deserialize(message));
+    }
+}